@@ -18,7 +18,6 @@
  */
 package org.apache.olingo.commons.api.data;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -26,7 +25,7 @@ import java.util.List;
  */
 public class ComplexValue extends Linked {
 
-  private final List<Property> value = new ArrayList<>();
+  private final NamedList<Property> value = new NamedList.PropertyList();
   
   private String typeName;
 
@@ -39,6 +38,28 @@ public class ComplexValue extends Linked {
     return value;
   }
 
+  /**
+   * Gets property with given name.
+   *
+   * @param name property name
+   * @return property with given name if found, null otherwise
+   */
+  public Property getProperty(final String name) {
+    return value.getByName(name);
+  }
+
+  /**
+   * Gets property with given name which is expected at the given position,
+   * e.g., the position of the property in the complex type.
+   *
+   * @param position expected position of the property
+   * @param name property name
+   * @return property with given name if found, null otherwise
+   */
+  public Property getProperty(final int position, final String name) {
+    return value.getByName(position, name);
+  }
+
   @Override
   public boolean equals(final Object o) {
     return super.equals(o) && value.equals(((ComplexValue) o).value);
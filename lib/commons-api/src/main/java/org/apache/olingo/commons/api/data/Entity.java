@@ -36,7 +36,7 @@ public class Entity extends Linked {
   private final List<Link> mediaEditLinks = new ArrayList<Link>();
   private final List<Operation> operations = new ArrayList<Operation>();
 
-  private final List<Property> properties = new ArrayList<Property>();
+  private final NamedList<Property> properties = new NamedList.PropertyList();
 
   private URI mediaContentSource;
   private String mediaContentType;
@@ -158,16 +158,20 @@ public class Entity extends Linked {
    * @return property with given name if found, null otherwise
    */
   public Property getProperty(final String name) {
-    Property result = null;
-
-    for (Property property : properties) {
-      if (name.equals(property.getName())) {
-        result = property;
-        break;
-      }
-    }
+    return properties.getByName(name);
+  }
 
-    return result;
+  /**
+   * Gets property with given name which is expected at the given position,
+   * e.g., the position of the property in the entity type.
+   * This avoids the lookup by name if the properties have been added in the order of the type.
+   *
+   * @param position expected position of the property
+   * @param name property name
+   * @return property with given name if found, null otherwise
+   */
+  public Property getProperty(final int position, final String name) {
+    return properties.getByName(position, name);
   }
 
   /**
@@ -33,6 +33,7 @@ public class Link extends Annotatable {
   private String mediaETag;
   private Entity entity;
   private EntityCollection entitySet;
+  private EntityIterator entityIterator;
   private String bindingLink;
   private List<String> bindingLinks = new ArrayList<String>();
 
@@ -162,6 +163,34 @@ public class Link extends Annotatable {
     this.entitySet = entitySet;
   }
 
+  /**
+   * Gets the iterator over the in-line entities.
+   *
+   * @return iterator over the in-line entities.
+   */
+  public EntityIterator getInlineEntityIterator() {
+    return entityIterator;
+  }
+
+  /**
+   * Sets an iterator over the in-line entities.
+   * In contrast to an in-line entity set, the entities are requested only while they are serialized.
+   *
+   * @param entityIterator iterator over the in-line entities
+   */
+  public void setInlineEntityIterator(final EntityIterator entityIterator) {
+    this.entityIterator = entityIterator;
+  }
+
+  /**
+   * Gets the in-line entity set or, if there is none, the iterator over the in-line entities.
+   *
+   * @return in-line entity collection or <tt>null</tt> if not set.
+   */
+  public AbstractEntityCollection getInlineEntityCollection() {
+    return entitySet == null ? entityIterator : entitySet;
+  }
+
   /**
    * If this is a "toOne" relationship this method delivers the binding link or <tt>null</tt> if not set.
    * @return String the binding link.
@@ -212,6 +241,7 @@ public class Link extends Annotatable {
         && (mediaETag == null ? other.mediaETag == null : mediaETag.equals(other.mediaETag))
         && (entity == null ? other.entity == null : entity.equals(other.entity))
         && (entitySet == null ? other.entitySet == null : entitySet.equals(other.entitySet))
+        && (entityIterator == null ? other.entityIterator == null : entityIterator.equals(other.entityIterator))
         && (bindingLink == null ? other.bindingLink == null : bindingLink.equals(other.bindingLink))
         && bindingLinks.equals(other.bindingLinks);
   }
@@ -226,6 +256,7 @@ public class Link extends Annotatable {
     result = 31 * result + (mediaETag == null ? 0 : mediaETag.hashCode());
     result = 31 * result + (entity == null ? 0 : entity.hashCode());
     result = 31 * result + (entitySet == null ? 0 : entitySet.hashCode());
+    result = 31 * result + (entityIterator == null ? 0 : entityIterator.hashCode());
     result = 31 * result + (bindingLink == null ? 0 : bindingLink.hashCode());
     result = 31 * result + bindingLinks.hashCode();
     return result;
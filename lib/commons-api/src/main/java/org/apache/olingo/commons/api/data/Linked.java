@@ -18,7 +18,6 @@
  */
 package org.apache.olingo.commons.api.data;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -26,9 +25,9 @@ import java.util.List;
  */
 public abstract class Linked extends AbstractODataObject {
 
-  private final List<Link> associationLinks = new ArrayList<Link>();
-  private final List<Link> navigationLinks = new ArrayList<Link>();
-  private final List<Link> bindingLinks = new ArrayList<Link>();
+  private final NamedList<Link> associationLinks = new NamedList.LinkList();
+  private final NamedList<Link> navigationLinks = new NamedList.LinkList();
+  private final NamedList<Link> bindingLinks = new NamedList.LinkList();
 
   protected Link getOneByTitle(final String name, final List<Link> links) {
     Link result = null;
@@ -49,7 +48,7 @@ public abstract class Linked extends AbstractODataObject {
    * @return association link with given name, if available, otherwise <tt>null</tt>
    */
   public Link getAssociationLink(final String name) {
-    return getOneByTitle(name, associationLinks);
+    return associationLinks.getByName(name);
   }
 
   /**
@@ -68,7 +67,7 @@ public abstract class Linked extends AbstractODataObject {
    * @return navigation link with given name, if available, otherwise <tt>null</tt>
    */
   public Link getNavigationLink(final String name) {
-    return getOneByTitle(name, navigationLinks);
+    return navigationLinks.getByName(name);
   }
 
   /**
@@ -86,7 +85,7 @@ public abstract class Linked extends AbstractODataObject {
    * @return binding link with given name, if available, otherwise <tt>null</tt>
    */
   public Link getNavigationBinding(final String name) {
-    return getOneByTitle(name, bindingLinks);
+    return bindingLinks.getByName(name);
   }
 
   /**
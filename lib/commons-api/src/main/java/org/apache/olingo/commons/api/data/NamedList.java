@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.commons.api.data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * List of named elements which can be looked up by name.
+ * <p>Short lists are searched linearly; for longer lists an index by name is created on demand.
+ * The index is re-created after the list has been modified, so the list can be used like any other list.
+ * Elements renamed after they have been added are found by a linear search, which also re-creates the index.</p>
+ * @param <T> type of the elements
+ */
+public abstract class NamedList<T> extends ArrayList<T> {
+
+  private static final long serialVersionUID = -5340851218264633407L;
+
+  /** Lists up to this size are searched linearly. */
+  private static final int INDEX_THRESHOLD = 8;
+
+  private final boolean isLastMatch;
+  private transient int setCount;
+  private transient volatile NameIndex index;
+
+  /**
+   * @param isLastMatch whether the last element with a given name is found instead of the first one
+   */
+  protected NamedList(final boolean isLastMatch) {
+    this.isLastMatch = isLastMatch;
+  }
+
+  /**
+   * Returns the name of the given element.
+   */
+  protected abstract String getName(T element);
+
+  /**
+   * Gets the element with the given name.
+   * @param name name of the element
+   * @return the element or <code>null</code> if there is no element with the given name
+   */
+  public T getByName(final String name) {
+    if (size() <= INDEX_THRESHOLD) {
+      return find(name);
+    }
+    NameIndex current = index;
+    if (current == null || current.modCount != modCount || current.setCount != setCount) {
+      current = new NameIndex();
+      index = current;
+    }
+    final Integer position = current.positions.get(name);
+    if (position != null) {
+      final T element = get(position);
+      if (name.equals(getName(element))) {
+        return element;
+      }
+    }
+    // Fall back to the search if an element has been renamed or replaced bypassing this list,
+    // e.g., via a sub list; the index is outdated then.
+    final T element = find(name);
+    if (element != null || position != null) {
+      index = null;
+    }
+    return element;
+  }
+
+  /**
+   * Gets the element with the given name which is expected at the given position,
+   * for example the position of the corresponding property in its EDM type.
+   * If the elements have been added in that order, no index is needed.
+   * @param position expected position of the element
+   * @param name name of the element
+   * @return the element or <code>null</code> if there is no element with the given name
+   */
+  public T getByName(final int position, final String name) {
+    if (!isLastMatch && position >= 0 && position < size()) {
+      final T element = get(position);
+      if (name.equals(getName(element))) {
+        return element;
+      }
+    }
+    return getByName(name);
+  }
+
+  @Override
+  public T set(final int position, final T element) {
+    setCount++;
+    return super.set(position, element);
+  }
+
+  private T find(final String name) {
+    T result = null;
+    for (final T element : this) {
+      if (name.equals(getName(element))) {
+        result = element;
+        if (!isLastMatch) {
+          break;
+        }
+      }
+    }
+    return result;
+  }
+
+  /** Immutable snapshot of the positions of the names; safely published through its final fields. */
+  private final class NameIndex {
+    private final int modCount;
+    private final int setCount;
+    private final Map<String, Integer> positions;
+
+    private NameIndex() {
+      modCount = NamedList.this.modCount;
+      setCount = NamedList.this.setCount;
+      positions = new HashMap<String, Integer>(size() * 4 / 3 + 1);
+      for (int i = 0; i < size(); i++) {
+        final String name = getName(get(i));
+        if (isLastMatch || !positions.containsKey(name)) {
+          positions.put(name, i);
+        }
+      }
+    }
+  }
+
+  /** List of properties; finds the first property with a given name. */
+  static class PropertyList extends NamedList<Property> {
+    private static final long serialVersionUID = 2857934163585240616L;
+
+    PropertyList() {
+      super(false);
+    }
+
+    @Override
+    protected String getName(final Property element) {
+      return element.getName();
+    }
+  }
+
+  /** List of links; finds the last link with a given title. */
+  static class LinkList extends NamedList<Link> {
+    private static final long serialVersionUID = -2262102335512001788L;
+
+    LinkList() {
+      super(true);
+    }
+
+    @Override
+    protected String getName(final Link element) {
+      return element.getTitle();
+    }
+  }
+}
@@ -145,6 +145,18 @@ public abstract class Valuable extends Annotatable {
     return isCollection() ? (List<?>) value : null;
   }
 
+  /**
+   * Get the value as iterable collection or null if it is not a collection ValueType.
+   * In contrast to {@link #asCollection()}, the value may be any Iterable,
+   * e.g., one that produces its items only while they are requested.
+   * It may be iterated more than once, e.g., to determine the type of the items before writing them.
+   *
+   * @return iterable collection or null if it is not a collection ValueType
+   */
+  public Iterable<?> asIterable() {
+    return isCollection() ? (Iterable<?>) value : null;
+  }
+
   /**
    * Get the value
    *
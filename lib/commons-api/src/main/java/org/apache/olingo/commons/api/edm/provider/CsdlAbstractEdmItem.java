@@ -18,6 +18,7 @@
  */
 package org.apache.olingo.commons.api.edm.provider;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -25,7 +26,9 @@ import java.util.List;
 /**
  * Super type of all CsdlEdmItems
  */
-public abstract class CsdlAbstractEdmItem {
+public abstract class CsdlAbstractEdmItem implements Serializable {
+
+  private static final long serialVersionUID = -1839546128457251380L;
 
   /**
    * Gets one by name.
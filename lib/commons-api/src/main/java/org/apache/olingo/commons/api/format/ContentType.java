@@ -52,6 +52,7 @@ public final class ContentType {
   public static final String PARAMETER_CHARSET = "charset";
   public static final String PARAMETER_IEEE754_COMPATIBLE = "IEEE754Compatible";
   public static final String PARAMETER_ODATA_METADATA = "odata.metadata";
+  public static final String PARAMETER_ODATA_STREAMING = "odata.streaming";
 
   public static final String VALUE_ODATA_METADATA_NONE = "none";
   public static final String VALUE_ODATA_METADATA_MINIMAL = "minimal";
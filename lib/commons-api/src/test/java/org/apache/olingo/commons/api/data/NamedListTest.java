@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.commons.api.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class NamedListTest {
+
+  @Test
+  public void smallEntity() {
+    final Entity entity = createEntity(3);
+    assertEquals("1", entity.getProperty("P1").getValue());
+    assertNull(entity.getProperty("P3"));
+  }
+
+  @Test
+  public void wideEntity() {
+    final Entity entity = createEntity(250);
+    for (int i = 0; i < 250; i++) {
+      assertSame(entity.getProperties().get(i), entity.getProperty("P" + i));
+      assertSame(entity.getProperties().get(i), entity.getProperty(i, "P" + i));
+    }
+    assertNull(entity.getProperty("P250"));
+    assertNull(entity.getProperty(3, "P250"));
+    assertEquals("7", entity.getProperty(42, "P7").getValue());
+  }
+
+  @Test
+  public void modifications() {
+    final Entity entity = createEntity(20);
+    assertEquals("5", entity.getProperty("P5").getValue());
+
+    entity.getProperties().remove(5);
+    assertNull(entity.getProperty("P5"));
+    assertEquals("6", entity.getProperty("P6").getValue());
+
+    entity.getProperties().set(0, new Property(null, "X", ValueType.PRIMITIVE, "x"));
+    assertNull(entity.getProperty("P0"));
+    assertEquals("x", entity.getProperty("X").getValue());
+
+    entity.getProperties().add(0, new Property(null, "P6", ValueType.PRIMITIVE, "first"));
+    assertEquals("first", entity.getProperty("P6").getValue());
+
+    Collections.reverse(entity.getProperties());
+    assertEquals("6", entity.getProperty("P6").getValue());
+  }
+
+  @Test
+  public void renamedElements() {
+    final Entity entity = createEntity(20);
+    assertEquals("5", entity.getProperty("P5").getValue());
+
+    entity.getProperty("P5").setName("X");
+    assertNull(entity.getProperty("P5"));
+    assertEquals("5", entity.getProperty("X").getValue());
+    assertEquals("5", entity.getProperty(5, "X").getValue());
+
+    for (int i = 0; i < 20; i++) {
+      entity.getNavigationLinks().add(createLink("N" + i, "link" + i));
+    }
+    assertEquals("link7", entity.getNavigationLink("N7").getHref());
+    entity.getNavigationLink("N7").setTitle("Y");
+    assertNull(entity.getNavigationLink("N7"));
+    assertEquals("link7", entity.getNavigationLink("Y").getHref());
+  }
+
+  @Test
+  public void complexValue() {
+    final ComplexValue complexValue = new ComplexValue();
+    for (int i = 0; i < 20; i++) {
+      complexValue.getValue().add(new Property(null, "P" + i, ValueType.PRIMITIVE, Integer.toString(i)));
+    }
+    assertEquals("13", complexValue.getProperty("P13").getValue());
+    assertEquals("13", complexValue.getProperty(13, "P13").getValue());
+    assertNull(complexValue.getProperty("P20"));
+  }
+
+  @Test
+  public void navigationLinks() {
+    final Entity entity = new Entity();
+    for (int i = 0; i < 20; i++) {
+      entity.getNavigationLinks().add(createLink("N" + i, "first" + i));
+    }
+    for (int i = 0; i < 20; i++) {
+      entity.getNavigationLinks().add(createLink("N" + i, "second" + i));
+    }
+    // As before, the last link with the given title is found.
+    assertEquals("second3", entity.getNavigationLink("N3").getHref());
+    assertNull(entity.getNavigationLink("N20"));
+  }
+
+  private Entity createEntity(final int size) {
+    final Entity entity = new Entity();
+    for (int i = 0; i < size; i++) {
+      entity.addProperty(new Property(null, "P" + i, ValueType.PRIMITIVE, Integer.toString(i)));
+    }
+    return entity;
+  }
+
+  private Link createLink(final String title, final String href) {
+    final Link link = new Link();
+    link.setTitle(title);
+    link.setHref(href);
+    return link;
+  }
+}
@@ -38,7 +38,7 @@ public class Decoder {
    * are not hexadecimal digits
    */
   public static String decode(final String value) throws IllegalArgumentException, NumberFormatException {
-    if (value == null) {
+    if (value == null || !needsDecoding(value)) {
       return value;
     }
 
@@ -87,4 +87,18 @@ public class Decoder {
       throw new IllegalArgumentException(e);
     }
   }
+
+  /**
+   * Determines whether the given value contains percent-encoded or non-ASCII characters.
+   * Otherwise decoding would result in an equal string, so the value itself can be used.
+   */
+  private static boolean needsDecoding(final String value) {
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      if (c == '%' || c > Byte.MAX_VALUE) {
+        return true;
+      }
+    }
+    return false;
+  }
 }
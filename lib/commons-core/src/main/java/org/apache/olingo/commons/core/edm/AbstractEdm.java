@@ -23,6 +23,9 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.olingo.commons.api.edm.Edm;
 import org.apache.olingo.commons.api.edm.EdmAction;
@@ -41,61 +44,62 @@ import org.apache.olingo.commons.api.edm.provider.CsdlAnnotation;
 
 public abstract class AbstractEdm implements Edm {
 
-  protected Map<String, EdmSchema> schemas;
-  protected List<EdmSchema> schemaList;
+  protected volatile Map<String, EdmSchema> schemas;
+  protected volatile List<EdmSchema> schemaList;
   private boolean isEntityDerivedFromES;
   private boolean isComplexDerivedFromES;
   private boolean isPreviousES;
 
-  private final Map<FullQualifiedName, EdmEntityContainer> entityContainers =
-      Collections.synchronizedMap(new HashMap<FullQualifiedName, EdmEntityContainer>());
+  private final ConcurrentMap<FullQualifiedName, EdmEntityContainer> entityContainers =
+      new ConcurrentHashMap<FullQualifiedName, EdmEntityContainer>();
+  private volatile EdmEntityContainer defaultEntityContainer;
 
-  private final Map<FullQualifiedName, EdmEnumType> enumTypes =
-      Collections.synchronizedMap(new HashMap<FullQualifiedName, EdmEnumType>());
+  private final ConcurrentMap<FullQualifiedName, EdmEnumType> enumTypes =
+      new ConcurrentHashMap<FullQualifiedName, EdmEnumType>();
 
-  private final Map<FullQualifiedName, EdmTypeDefinition> typeDefinitions =
-      Collections.synchronizedMap(new HashMap<FullQualifiedName, EdmTypeDefinition>());
+  private final ConcurrentMap<FullQualifiedName, EdmTypeDefinition> typeDefinitions =
+      new ConcurrentHashMap<FullQualifiedName, EdmTypeDefinition>();
 
-  private final Map<FullQualifiedName, EdmEntityType> entityTypes =
-      Collections.synchronizedMap(new HashMap<FullQualifiedName, EdmEntityType>());
+  private final ConcurrentMap<FullQualifiedName, EdmEntityType> entityTypes =
+      new ConcurrentHashMap<FullQualifiedName, EdmEntityType>();
 
-  private final Map<FullQualifiedName, EdmComplexType> complexTypes =
-      Collections.synchronizedMap(new HashMap<FullQualifiedName, EdmComplexType>());
+  private final ConcurrentMap<FullQualifiedName, EdmComplexType> complexTypes =
+      new ConcurrentHashMap<FullQualifiedName, EdmComplexType>();
 
-  private final Map<FullQualifiedName, EdmAction> unboundActions =
-      Collections.synchronizedMap(new HashMap<FullQualifiedName, EdmAction>());
+  private final ConcurrentMap<FullQualifiedName, EdmAction> unboundActions =
+      new ConcurrentHashMap<FullQualifiedName, EdmAction>();
 
-  private final Map<FullQualifiedName, List<EdmFunction>> unboundFunctionsByName =
-      Collections.synchronizedMap(new HashMap<FullQualifiedName, List<EdmFunction>>());
+  private final ConcurrentMap<FullQualifiedName, List<EdmFunction>> unboundFunctionsByName =
+      new ConcurrentHashMap<FullQualifiedName, List<EdmFunction>>();
 
-  private final Map<FunctionMapKey, EdmFunction> unboundFunctionsByKey =
-      Collections.synchronizedMap(new HashMap<FunctionMapKey, EdmFunction>());
+  private final ConcurrentMap<FunctionMapKey, EdmFunction> unboundFunctionsByKey =
+      new ConcurrentHashMap<FunctionMapKey, EdmFunction>();
 
-  private final Map<ActionMapKey, EdmAction> boundActions =
-      Collections.synchronizedMap(new HashMap<ActionMapKey, EdmAction>());
+  private final ConcurrentMap<ActionMapKey, EdmAction> boundActions =
+      new ConcurrentHashMap<ActionMapKey, EdmAction>();
 
-  private final Map<FunctionMapKey, EdmFunction> boundFunctions =
-      Collections.synchronizedMap(new HashMap<FunctionMapKey, EdmFunction>());
+  private final ConcurrentMap<FunctionMapKey, EdmFunction> boundFunctions =
+      new ConcurrentHashMap<FunctionMapKey, EdmFunction>();
 
-  private final Map<FullQualifiedName, EdmTerm> terms =
-      Collections.synchronizedMap(new HashMap<FullQualifiedName, EdmTerm>());
+  private final ConcurrentMap<FullQualifiedName, EdmTerm> terms =
+      new ConcurrentHashMap<FullQualifiedName, EdmTerm>();
 
-  private final Map<TargetQualifierMapKey, EdmAnnotations> annotationGroups =
-      Collections.synchronizedMap(new HashMap<TargetQualifierMapKey, EdmAnnotations>());
+  private final ConcurrentMap<TargetQualifierMapKey, EdmAnnotations> annotationGroups =
+      new ConcurrentHashMap<TargetQualifierMapKey, EdmAnnotations>();
 
-  private Map<String, String> aliasToNamespaceInfo = null;
+  private volatile Map<String, String> aliasToNamespaceInfo = null;
   
-  private final Map<FullQualifiedName, EdmEntityType> entityTypesWithAnnotations =
-      Collections.synchronizedMap(new HashMap<FullQualifiedName, EdmEntityType>());
+  private final ConcurrentMap<FullQualifiedName, EdmEntityType> entityTypesWithAnnotations =
+      new ConcurrentHashMap<FullQualifiedName, EdmEntityType>();
   
-  private final Map<FullQualifiedName, EdmEntityType> entityTypesDerivedFromES =
-      Collections.synchronizedMap(new HashMap<FullQualifiedName, EdmEntityType>());
+  private final ConcurrentMap<FullQualifiedName, EdmEntityType> entityTypesDerivedFromES =
+      new ConcurrentHashMap<FullQualifiedName, EdmEntityType>();
   
-  private final Map<FullQualifiedName, EdmComplexType> complexTypesWithAnnotations =
-      Collections.synchronizedMap(new HashMap<FullQualifiedName, EdmComplexType>());
+  private final ConcurrentMap<FullQualifiedName, EdmComplexType> complexTypesWithAnnotations =
+      new ConcurrentHashMap<FullQualifiedName, EdmComplexType>();
   
-  private final Map<FullQualifiedName, EdmComplexType> complexTypesDerivedFromES =
-      Collections.synchronizedMap(new HashMap<FullQualifiedName, EdmComplexType>());
+  private final ConcurrentMap<FullQualifiedName, EdmComplexType> complexTypesDerivedFromES =
+      new ConcurrentHashMap<FullQualifiedName, EdmComplexType>();
 
   private Map<String, List<CsdlAnnotation>> annotationMap = 
       new HashMap<String, List<CsdlAnnotation>>();
@@ -115,23 +119,62 @@ public abstract class AbstractEdm implements Edm {
     }
 
     EdmSchema schema = schemas.get(namespace);
-    if (schema == null) {
+    if (schema == null && namespace != null) {
       schema = schemas.get(aliasToNamespaceInfo.get(namespace));
     }
     return schema;
   }
 
-  private void initSchemas() {
-    loadAliasToNamespaceInfo();
-    Map<String, EdmSchema> localSchemas = createSchemas();
-    schemas = Collections.synchronizedMap(localSchemas);
+  private synchronized void initSchemas() {
+    if (schemaList == null) {
+      loadAliasToNamespaceInfo();
+      // The schemas are never changed after their creation, so they can be read without locking.
+      final Map<String, EdmSchema> localSchemas = Collections.unmodifiableMap(createSchemas());
+      schemas = localSchemas;
+      schemaList = Collections.unmodifiableList(new ArrayList<EdmSchema>(localSchemas.values()));
+    }
+  }
 
-    schemaList = Collections.unmodifiableList(new ArrayList<EdmSchema>(schemas.values()));
+  private synchronized void loadAliasToNamespaceInfo() {
+    if (aliasToNamespaceInfo == null) {
+      final Map<String, String> localAliasToNamespaceInfo = new ConcurrentHashMap<String, String>();
+      for (final Map.Entry<String, String> entry : createAliasToNamespaceInfo().entrySet()) {
+        if (entry.getKey() != null && entry.getValue() != null) {
+          localAliasToNamespaceInfo.put(entry.getKey(), entry.getValue());
+        }
+      }
+      aliasToNamespaceInfo = localAliasToNamespaceInfo;
+    }
   }
 
-  private void loadAliasToNamespaceInfo() {
-    Map<String, String> localAliasToNamespaceInfo = createAliasToNamespaceInfo();
-    aliasToNamespaceInfo = Collections.synchronizedMap(localAliasToNamespaceInfo);
+  /**
+   * Creates all elements of all schemas at once, together with the entity container and
+   * the details of the structured types, which are otherwise created on first access.
+   * Afterwards all lookups of elements defined by the provider are lock-free reads of the caches.
+   * Calling this method is optional; it should be done once, e.g., at startup, to avoid
+   * the creation costs and the provider calls during the first requests.
+   */
+  public void freeze() {
+    for (final EdmSchema schema : getSchemas()) {
+      for (final EdmEntityType entityType : schema.getEntityTypes()) {
+        entityType.getKeyPropertyRefs();
+        entityType.getPropertyNames();
+        entityType.getNavigationPropertyNames();
+      }
+      for (final EdmComplexType complexType : schema.getComplexTypes()) {
+        complexType.getPropertyNames();
+        complexType.getNavigationPropertyNames();
+      }
+      final EdmEntityContainer container = schema.getEntityContainer();
+      if (container != null) {
+        container.getEntitySets();
+        container.getSingletons();
+        container.getActionImports();
+        container.getFunctionImports();
+      }
+      schema.getAnnotationGroups();
+    }
+    getEntityContainer();
   }
 
   @Override
@@ -142,13 +185,16 @@ public abstract class AbstractEdm implements Edm {
   @Override
   public EdmEntityContainer getEntityContainer(final FullQualifiedName namespaceOrAliasFQN) {
     final FullQualifiedName fqn = resolvePossibleAlias(namespaceOrAliasFQN);
-    EdmEntityContainer container = entityContainers.get(fqn);
+    EdmEntityContainer container = fqn == null ? defaultEntityContainer : entityContainers.get(fqn);
     if (container == null) {
       container = createEntityContainer(fqn);
       if (container != null) {
-        entityContainers.put(fqn, container);
         if (fqn == null) {
-          entityContainers.put(new FullQualifiedName(container.getNamespace(), container.getName()), container);
+          container = cache(entityContainers,
+              new FullQualifiedName(container.getNamespace(), container.getName()), container);
+          defaultEntityContainer = container;
+        } else {
+          container = cache(entityContainers, fqn, container);
         }
       }
     }
@@ -158,11 +204,11 @@ public abstract class AbstractEdm implements Edm {
   @Override
   public EdmEnumType getEnumType(final FullQualifiedName namespaceOrAliasFQN) {
     final FullQualifiedName fqn = resolvePossibleAlias(namespaceOrAliasFQN);
-    EdmEnumType enumType = enumTypes.get(fqn);
+    EdmEnumType enumType = lookup(enumTypes, fqn);
     if (enumType == null) {
       enumType = createEnumType(fqn);
       if (enumType != null) {
-        enumTypes.put(fqn, enumType);
+        enumType = cache(enumTypes, fqn, enumType);
       }
     }
     return enumType;
@@ -171,11 +217,11 @@ public abstract class AbstractEdm implements Edm {
   @Override
   public EdmTypeDefinition getTypeDefinition(final FullQualifiedName namespaceOrAliasFQN) {
     final FullQualifiedName fqn = resolvePossibleAlias(namespaceOrAliasFQN);
-    EdmTypeDefinition typeDefinition = typeDefinitions.get(fqn);
+    EdmTypeDefinition typeDefinition = lookup(typeDefinitions, fqn);
     if (typeDefinition == null) {
       typeDefinition = createTypeDefinition(fqn);
       if (typeDefinition != null) {
-        typeDefinitions.put(fqn, typeDefinition);
+        typeDefinition = cache(typeDefinitions, fqn, typeDefinition);
       }
     }
     return typeDefinition;
@@ -184,11 +230,11 @@ public abstract class AbstractEdm implements Edm {
   @Override
   public EdmEntityType getEntityType(final FullQualifiedName namespaceOrAliasFQN) {
     final FullQualifiedName fqn = resolvePossibleAlias(namespaceOrAliasFQN);
-    EdmEntityType entityType = entityTypes.get(fqn);
+    EdmEntityType entityType = lookup(entityTypes, fqn);
     if (entityType == null) {
       entityType = createEntityType(fqn);
       if (entityType != null) {
-        entityTypes.put(fqn, entityType);
+        entityType = cache(entityTypes, fqn, entityType);
       }
     }
     return entityType;
@@ -197,11 +243,11 @@ public abstract class AbstractEdm implements Edm {
   @Override
   public EdmEntityType getEntityTypeWithAnnotations(final FullQualifiedName namespaceOrAliasFQN) {
     final FullQualifiedName fqn = resolvePossibleAlias(namespaceOrAliasFQN);
-    EdmEntityType entityType = entityTypesWithAnnotations.get(fqn);
+    EdmEntityType entityType = lookup(entityTypesWithAnnotations, fqn);
     if (entityType == null) {
       entityType = createEntityType(fqn);
       if (entityType != null) {
-          entityTypesWithAnnotations.put(fqn, entityType);
+          entityType = cache(entityTypesWithAnnotations, fqn, entityType);
       }
     }
     setIsPreviousES(false);
@@ -215,11 +261,11 @@ public abstract class AbstractEdm implements Edm {
     if (!isPreviousES() && getEntityContainer() != null) {
        getEntityContainer().getEntitySetsWithAnnotations();
     }
-    EdmEntityType entityType = entityTypesDerivedFromES.get(fqn);
+    EdmEntityType entityType = lookup(entityTypesDerivedFromES, fqn);
     if (entityType == null) {
       entityType = createEntityType(fqn);
       if (entityType != null) {
-          entityTypesDerivedFromES.put(fqn, entityType);
+          entityType = cache(entityTypesDerivedFromES, fqn, entityType);
       }
     }
     this.isEntityDerivedFromES = false;
@@ -233,11 +279,11 @@ public abstract class AbstractEdm implements Edm {
     if (!isPreviousES() && getEntityContainer() != null) {
        getEntityContainer().getEntitySetsWithAnnotations();
     }
-    EdmComplexType complexType = complexTypesDerivedFromES.get(fqn);
+    EdmComplexType complexType = lookup(complexTypesDerivedFromES, fqn);
     if (complexType == null) {
       complexType = createComplexType(fqn);
       if (complexType != null) {
-          complexTypesDerivedFromES.put(fqn, complexType);
+          complexType = cache(complexTypesDerivedFromES, fqn, complexType);
       }
     }
     this.isComplexDerivedFromES = false;
@@ -247,11 +293,11 @@ public abstract class AbstractEdm implements Edm {
   @Override
   public EdmComplexType getComplexType(final FullQualifiedName namespaceOrAliasFQN) {
     final FullQualifiedName fqn = resolvePossibleAlias(namespaceOrAliasFQN);
-    EdmComplexType complexType = complexTypes.get(fqn);
+    EdmComplexType complexType = lookup(complexTypes, fqn);
     if (complexType == null) {
       complexType = createComplexType(fqn);
       if (complexType != null) {
-        complexTypes.put(fqn, complexType);
+        complexType = cache(complexTypes, fqn, complexType);
       }
     }
     return complexType;
@@ -260,11 +306,11 @@ public abstract class AbstractEdm implements Edm {
   @Override
   public EdmComplexType getComplexTypeWithAnnotations(final FullQualifiedName namespaceOrAliasFQN) {
     final FullQualifiedName fqn = resolvePossibleAlias(namespaceOrAliasFQN);
-    EdmComplexType complexType = complexTypesWithAnnotations.get(fqn);
+    EdmComplexType complexType = lookup(complexTypesWithAnnotations, fqn);
     if (complexType == null) {
       complexType = createComplexType(fqn);
       if (complexType != null) {
-          complexTypesWithAnnotations.put(fqn, complexType);
+          complexType = cache(complexTypesWithAnnotations, fqn, complexType);
       }
     }
     setIsPreviousES(false);
@@ -274,11 +320,11 @@ public abstract class AbstractEdm implements Edm {
   @Override
   public EdmAction getUnboundAction(final FullQualifiedName actionName) {
     final FullQualifiedName fqn = resolvePossibleAlias(actionName);
-    EdmAction action = unboundActions.get(fqn);
+    EdmAction action = lookup(unboundActions, fqn);
     if (action == null) {
       action = createUnboundAction(fqn);
       if (action != null) {
-        unboundActions.put(actionName, action);
+        action = cache(unboundActions, actionName, action);
       }
     }
 
@@ -292,11 +338,11 @@ public abstract class AbstractEdm implements Edm {
     final FullQualifiedName actionFqn = resolvePossibleAlias(actionName);
     final FullQualifiedName bindingParameterTypeFqn = resolvePossibleAlias(bindingParameterTypeName);
     final ActionMapKey key = new ActionMapKey(actionFqn, bindingParameterTypeFqn, isBindingParameterCollection);
-    EdmAction action = boundActions.get(key);
+    EdmAction action = lookup(boundActions, key);
     if (action == null) {
       action = createBoundAction(actionFqn, bindingParameterTypeFqn, isBindingParameterCollection);
       if (action != null) {
-        boundActions.put(key, action);
+        action = cache(boundActions, key, action);
       }
     }
 
@@ -307,11 +353,11 @@ public abstract class AbstractEdm implements Edm {
   public List<EdmFunction> getUnboundFunctions(final FullQualifiedName functionName) {
     final FullQualifiedName functionFqn = resolvePossibleAlias(functionName);
 
-    List<EdmFunction> functions = unboundFunctionsByName.get(functionFqn);
+    List<EdmFunction> functions = lookup(unboundFunctionsByName, functionFqn);
     if (functions == null) {
       functions = createUnboundFunctions(functionFqn);
       if (functions != null) {
-        unboundFunctionsByName.put(functionFqn, functions);
+        functions = cache(unboundFunctionsByName, functionFqn, functions);
 
         for (EdmFunction unbound : functions) {
           final FunctionMapKey key = new FunctionMapKey(
@@ -319,7 +365,7 @@ public abstract class AbstractEdm implements Edm {
               unbound.getBindingParameterTypeFqn(),
               unbound.isBindingParameterTypeCollection(),
               unbound.getParameterNames());
-          unboundFunctionsByKey.put(key, unbound);
+          unboundFunctionsByKey.putIfAbsent(key, unbound);
         }
       }
     }
@@ -332,11 +378,11 @@ public abstract class AbstractEdm implements Edm {
     final FullQualifiedName functionFqn = resolvePossibleAlias(functionName);
 
     final FunctionMapKey key = new FunctionMapKey(functionFqn, null, null, parameterNames);
-    EdmFunction function = unboundFunctionsByKey.get(key);
+    EdmFunction function = lookup(unboundFunctionsByKey, key);
     if (function == null) {
       function = createUnboundFunction(functionFqn, parameterNames);
       if (function != null) {
-        unboundFunctionsByKey.put(key, function);
+        function = cache(unboundFunctionsByKey, key, function);
       }
     }
 
@@ -352,12 +398,12 @@ public abstract class AbstractEdm implements Edm {
     final FullQualifiedName bindingParameterTypeFqn = resolvePossibleAlias(bindingParameterTypeName);
     final FunctionMapKey key =
         new FunctionMapKey(functionFqn, bindingParameterTypeFqn, isBindingParameterCollection, parameterNames);
-    EdmFunction function = boundFunctions.get(key);
+    EdmFunction function = lookup(boundFunctions, key);
     if (function == null) {
       function = createBoundFunction(functionFqn, bindingParameterTypeFqn, isBindingParameterCollection,
           parameterNames);
       if (function != null) {
-        boundFunctions.put(key, function);
+        function = cache(boundFunctions, key, function);
       }
     }
 
@@ -367,11 +413,11 @@ public abstract class AbstractEdm implements Edm {
   @Override
   public EdmTerm getTerm(final FullQualifiedName termName) {
     final FullQualifiedName fqn = resolvePossibleAlias(termName);
-    EdmTerm term = terms.get(fqn);
+    EdmTerm term = lookup(terms, fqn);
     if (term == null) {
       term = createTerm(fqn);
       if (term != null) {
-        terms.put(fqn, term);
+        term = cache(terms, fqn, term);
       }
     }
     return term;
@@ -381,11 +427,11 @@ public abstract class AbstractEdm implements Edm {
   public EdmAnnotations getAnnotationGroup(final FullQualifiedName targetName, String qualifier) {
     final FullQualifiedName fqn = resolvePossibleAlias(targetName);
     TargetQualifierMapKey key = new TargetQualifierMapKey(fqn, qualifier);
-    EdmAnnotations _annotations = annotationGroups.get(key);
+    EdmAnnotations _annotations = lookup(annotationGroups, key);
     if (_annotations == null) {
       _annotations = createAnnotationGroup(fqn, qualifier);
       if (_annotations != null) {
-        annotationGroups.put(key, _annotations);
+        _annotations = cache(annotationGroups, key, _annotations);
       }
     }
     return _annotations;
@@ -413,13 +459,19 @@ public abstract class AbstractEdm implements Edm {
   protected abstract Map<String, String> createAliasToNamespaceInfo();
 
   public void cacheAliasNamespaceInfo(final String alias, final String namespace) {
-    aliasToNamespaceInfo.put(alias, namespace);
+    if (alias != null && namespace != null) {
+      aliasToNamespaceInfo.put(alias, namespace);
+    }
   }
 
   protected abstract EdmEntityContainer createEntityContainer(FullQualifiedName containerName);
 
   public void cacheEntityContainer(final FullQualifiedName containerFQN, final EdmEntityContainer container) {
-    entityContainers.put(containerFQN, container);
+    if (containerFQN == null) {
+      defaultEntityContainer = container;
+    } else {
+      entityContainers.put(containerFQN, container);
+    }
   }
 
   protected abstract EdmEnumType createEnumType(FullQualifiedName enumName);
@@ -468,10 +520,11 @@ public abstract class AbstractEdm implements Edm {
     if (function.isBound()) {
       boundFunctions.put(key, function);
     } else {
-      if (!unboundFunctionsByName.containsKey(functionName)) {
-        unboundFunctionsByName.put(functionName, new ArrayList<EdmFunction>());
+      List<EdmFunction> functions = unboundFunctionsByName.get(functionName);
+      if (functions == null) {
+        functions = cache(unboundFunctionsByName, functionName, new CopyOnWriteArrayList<EdmFunction>());
       }
-      unboundFunctionsByName.get(functionName).add(function);
+      functions.add(function);
 
       unboundFunctionsByKey.put(key, function);
     }
@@ -555,4 +608,23 @@ public abstract class AbstractEdm implements Edm {
   protected Map<String, List<CsdlAnnotation>> getAnnotationsMap() {
     return annotationMap;
   }
+
+  /**
+   * Looks up a cached element; <code>null</code> keys are never cached.
+   */
+  private static <K, V> V lookup(final ConcurrentMap<K, V> cache, final K key) {
+    return key == null ? null : cache.get(key);
+  }
+
+  /**
+   * Caches a created element unless another thread has been faster.
+   * @return the element in the cache, so that all callers get the same instance
+   */
+  private static <K, V> V cache(final ConcurrentMap<K, V> cache, final K key, final V value) {
+    if (key == null) {
+      return value;
+    }
+    final V previous = cache.putIfAbsent(key, value);
+    return previous == null ? value : previous;
+  }
 }
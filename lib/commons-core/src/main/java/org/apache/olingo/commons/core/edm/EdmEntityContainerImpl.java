@@ -20,9 +20,9 @@ package org.apache.olingo.commons.core.edm;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.olingo.commons.api.edm.Edm;
 import org.apache.olingo.commons.api.edm.EdmActionImport;
@@ -57,22 +57,22 @@ public class EdmEntityContainerImpl extends AbstractEdmNamed implements EdmEntit
   private final FullQualifiedName parentContainerName;
 
   private List<EdmSingleton> singletons;
-  private final Map<String, EdmSingleton> singletonCache = Collections.synchronizedMap(
-      new LinkedHashMap<String, EdmSingleton>());
+  private final Map<String, EdmSingleton> singletonCache =
+      new ConcurrentHashMap<String, EdmSingleton>();
   private List<EdmEntitySet> entitySets;
-  private final Map<String, EdmEntitySet> entitySetCache = Collections.synchronizedMap(
-      new LinkedHashMap<String, EdmEntitySet>());
+  private final Map<String, EdmEntitySet> entitySetCache =
+      new ConcurrentHashMap<String, EdmEntitySet>();
   private List<EdmActionImport> actionImports;
-  private final Map<String, EdmActionImport> actionImportCache = Collections.synchronizedMap(
-      new LinkedHashMap<String, EdmActionImport>());
+  private final Map<String, EdmActionImport> actionImportCache =
+      new ConcurrentHashMap<String, EdmActionImport>();
   private List<EdmFunctionImport> functionImports;
-  private final Map<String, EdmFunctionImport> functionImportCache = Collections.synchronizedMap(
-      new LinkedHashMap<String, EdmFunctionImport>());
+  private final Map<String, EdmFunctionImport> functionImportCache =
+      new ConcurrentHashMap<String, EdmFunctionImport>();
 	  private boolean isAnnotationsIncluded = false;
-  private final Map<String, EdmEntitySet> entitySetWithAnnotationsCache = Collections.synchronizedMap(
-      new LinkedHashMap<String, EdmEntitySet>());
-  private final Map<String, EdmSingleton> singletonWithAnnotationsCache = Collections.synchronizedMap(
-      new LinkedHashMap<String, EdmSingleton>());
+  private final Map<String, EdmEntitySet> entitySetWithAnnotationsCache =
+      new ConcurrentHashMap<String, EdmEntitySet>();
+  private final Map<String, EdmSingleton> singletonWithAnnotationsCache =
+      new ConcurrentHashMap<String, EdmSingleton>();
   private boolean isSingletonAnnotationsIncluded = false;
   private final String SLASH = "/";
   private final String DOT = ".";
@@ -107,16 +107,17 @@ public class EdmEntityContainerImpl extends AbstractEdmNamed implements EdmEntit
 
   @Override
   public EdmSingleton getSingleton(final String singletonName) {
-    EdmSingleton singleton = singletonWithAnnotationsCache.get(singletonName);
+    EdmSingleton singleton = singletonName == null ? null : singletonWithAnnotationsCache.get(singletonName);
     if (singleton == null) {
-      singleton = singletonCache.get(singletonName);
+      singleton = singletonName == null ? null : singletonCache.get(singletonName);
       if (singleton == null) {
         singleton = createSingleton(singletonName);
-        if (singleton != null) {
-          if (isSingletonAnnotationsIncluded) {
-            singletonWithAnnotationsCache.put(singletonName, singleton);
-          } else {
-            singletonCache.put(singletonName, singleton);
+        if (singleton != null && singletonName != null) {
+          final EdmSingleton previous = isSingletonAnnotationsIncluded ?
+              singletonWithAnnotationsCache.putIfAbsent(singletonName, singleton) :
+              singletonCache.putIfAbsent(singletonName, singleton);
+          if (previous != null) {
+            singleton = previous;
           }
         }
       }
@@ -126,16 +127,17 @@ public class EdmEntityContainerImpl extends AbstractEdmNamed implements EdmEntit
 
   @Override
   public EdmEntitySet getEntitySet(final String entitySetName) {
-    EdmEntitySet entitySet = entitySetWithAnnotationsCache.get(entitySetName);
+    EdmEntitySet entitySet = entitySetName == null ? null : entitySetWithAnnotationsCache.get(entitySetName);
     if (entitySet == null) {
-      entitySet = entitySetCache.get(entitySetName);
+      entitySet = entitySetName == null ? null : entitySetCache.get(entitySetName);
       if (entitySet == null) {
         entitySet = createEntitySet(entitySetName);
-        if (entitySet != null) {
-          if (isAnnotationsIncluded) {
-            entitySetWithAnnotationsCache.put(entitySetName, entitySet);
-          } else {
-            entitySetCache.put(entitySetName, entitySet);
+        if (entitySet != null && entitySetName != null) {
+          final EdmEntitySet previous = isAnnotationsIncluded ?
+              entitySetWithAnnotationsCache.putIfAbsent(entitySetName, entitySet) :
+              entitySetCache.putIfAbsent(entitySetName, entitySet);
+          if (previous != null) {
+            entitySet = previous;
           }
         }
       }
@@ -146,11 +148,14 @@ public class EdmEntityContainerImpl extends AbstractEdmNamed implements EdmEntit
 
   @Override
   public EdmActionImport getActionImport(final String actionImportName) {
-    EdmActionImport actionImport = actionImportCache.get(actionImportName);
+    EdmActionImport actionImport = actionImportName == null ? null : actionImportCache.get(actionImportName);
     if (actionImport == null) {
       actionImport = createActionImport(actionImportName);
-      if (actionImport != null) {
-        actionImportCache.put(actionImportName, actionImport);
+      if (actionImport != null && actionImportName != null) {
+        final EdmActionImport previous = actionImportCache.putIfAbsent(actionImportName, actionImport);
+        if (previous != null) {
+          actionImport = previous;
+        }
       }
     }
     return actionImport;
@@ -158,11 +163,15 @@ public class EdmEntityContainerImpl extends AbstractEdmNamed implements EdmEntit
 
   @Override
   public EdmFunctionImport getFunctionImport(final String functionImportName) {
-    EdmFunctionImport functionImport = functionImportCache.get(functionImportName);
+    EdmFunctionImport functionImport =
+        functionImportName == null ? null : functionImportCache.get(functionImportName);
     if (functionImport == null) {
       functionImport = createFunctionImport(functionImportName);
-      if (functionImport != null) {
-        functionImportCache.put(functionImportName, functionImport);
+      if (functionImport != null && functionImportName != null) {
+        final EdmFunctionImport previous = functionImportCache.putIfAbsent(functionImportName, functionImport);
+        if (previous != null) {
+          functionImport = previous;
+        }
       }
     }
     return functionImport;
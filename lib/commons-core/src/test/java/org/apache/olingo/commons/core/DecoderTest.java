@@ -20,6 +20,7 @@ package org.apache.olingo.commons.core;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 import org.junit.Test;
 
@@ -39,6 +40,13 @@ public class DecoderTest {
     assertEquals(s, Decoder.decode(s));
   }
 
+  @Test
+  public void unencodedValueUnchanged() {
+    final String s = "$filter=PropertyInt16 in (1,2,3)";
+    assertSame(s, Decoder.decode(s));
+    assertSame("", Decoder.decode(""));
+  }
+
   @Test
   public void asciiControl() {
     assertEquals("\u0000\b\t\n\r", Decoder.decode("%00%08%09%0a%0d"));
@@ -19,11 +19,20 @@
 package org.apache.olingo.netty.server.api;
 
 import java.util.Map;
+import java.util.concurrent.Executor;
 
+import org.apache.olingo.server.api.OlingoExtension;
 import org.apache.olingo.server.api.processor.Processor;
 
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpChunkedInput;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.stream.ChunkedStream;
 
 public interface ODataNettyHandler {
 
@@ -36,6 +45,35 @@ public interface ODataNettyHandler {
    * @param response - HTTP OData response
    */
   void processNettyRequest(HttpRequest request, HttpResponse response, Map<String, String> requestParameters);
+
+  /**
+   * <p>Processes a NettyRequest as an OData request and returns the content of the response
+   * as chunks, so that it need not be held in memory completely.</p>
+   * <p>Status and headers are set at the response which must not contain content itself.
+   * The response has to be written to the channel first, followed by the returned input;
+   * this requires a <code>ChunkedWriteHandler</code> in the channel pipeline.
+   * Serialized content is produced by a task of the given executor while the chunks are written;
+   * it waits whenever the client does not keep up. The event loop never waits for the content;
+   * the transfer is resumed when the next chunk is available. If the content fails,
+   * the channel is closed before the end of the chunked body.</p>
+   * <p>The default implementation processes the request with
+   * {@link #processNettyRequest(HttpRequest, HttpResponse, Map)} into a buffer and returns its content.</p>
+   * @param request - must be a HTTP OData request
+   * @param response - HTTP OData response without content
+   * @param requestParameters - request parameters like the context path
+   * @param executor - executor for producing the content
+   * @param channel - the channel the response is written to
+   * @return the chunked content of the response
+   */
+  default HttpChunkedInput processNettyRequestChunked(final HttpRequest request, final HttpResponse response,
+      final Map<String, String> requestParameters, final Executor executor, final Channel channel) {
+    final FullHttpResponse fullResponse =
+        new DefaultFullHttpResponse(response.protocolVersion(), HttpResponseStatus.OK);
+    processNettyRequest(request, fullResponse, requestParameters);
+    response.setStatus(fullResponse.status());
+    response.headers().set(fullResponse.headers());
+    return new HttpChunkedInput(new ChunkedStream(new ByteBufInputStream(fullResponse.content(), true)));
+  }
   
   /**
    * <p>Registers additional custom processor implementations for handling OData requests.</p>
@@ -43,5 +81,14 @@ public interface ODataNettyHandler {
    * "not implemented" exception will happen.</p>
    */
   void register(Processor processor);
-  
+
+  /**
+   * <p>Registers additional extensions for handling OData requests,
+   * e.g., the {@link org.apache.olingo.server.api.ResponseCompression}.</p>
+   * <p>The default implementation supports no extensions.</p>
+   * @throws UnsupportedOperationException if the extension is not supported
+   */
+  default void register(final OlingoExtension extension) {
+    throw new UnsupportedOperationException("Extension not supported: " + extension.getClass().getName());
+  }
 }
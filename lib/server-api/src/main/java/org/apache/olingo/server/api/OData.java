@@ -104,6 +104,8 @@ public abstract class OData {
 
   /**
    * Creates a new ODataHttpHandler for handling OData requests in an HTTP context.
+   * <p>The handler can be created once, e.g., when a servlet is initialized, and then be used
+   * for all requests; see {@link ODataHttpHandler} and {@link ODataServlet}.</p>
    *
    * @param serviceMetadata - metadata object required to handle an OData request
    */
@@ -27,6 +27,11 @@ import org.apache.olingo.server.api.serializer.CustomContentTypeSupport;
 
 /**
  * Handles HTTP requests as OData requests.
+ * <p>A handler keeps no state of the requests it processes. Processors, extensions, the debug support,
+ * and the split must be registered before the first request is processed; afterwards the handler can process
+ * requests from several threads concurrently, provided that the registered processors are thread-safe.
+ * Reusing one handler together with its {@link ServiceMetadata} avoids building the EDM again for every
+ * request.</p>
  */
 public interface ODataHttpHandler extends ODataHandler {
 
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * <p>Servlet serving an OData service with a handler that is built only once.</p>
+ * <p>The OData instance, the service metadata, and the handler are created when the servlet is initialized
+ * and are then used for all requests, so the EDM is built up only once and not for every request.
+ * Processors and extensions are registered in {@link #register(ODataHttpHandler)};
+ * since the handler processes concurrent requests, the registered processors must be thread-safe.</p>
+ * <p>Services that hold data per HTTP session can override {@link #getHandler(HttpServletRequest)},
+ * e.g., to keep a handler created with {@link #createHandler()} in the session; such handlers still share
+ * the service metadata.</p>
+ */
+public abstract class ODataServlet extends HttpServlet {
+
+  private static final long serialVersionUID = 1L;
+
+  private transient OData odata;
+  private transient ServiceMetadata serviceMetadata;
+  private transient ODataHttpHandler handler;
+
+  @Override
+  public void init() throws ServletException {
+    try {
+      odata = OData.newInstance();
+      serviceMetadata = createServiceMetadata(odata);
+      handler = createHandler();
+    } catch (final RuntimeException e) {
+      throw new ServletException(e);
+    }
+  }
+
+  /**
+   * Creates the metadata of the service; called once when the servlet is initialized.
+   * @param odata the OData instance of this servlet
+   */
+  protected abstract ServiceMetadata createServiceMetadata(OData odata);
+
+  /**
+   * Registers processors and extensions at a newly created handler.
+   * The default implementation does not register anything.
+   * @param handler the new handler
+   */
+  protected void register(final ODataHttpHandler handler) {
+    // Nothing to register by default.
+  }
+
+  /**
+   * Creates a new handler for the service metadata of this servlet
+   * and registers processors and extensions with {@link #register(ODataHttpHandler)}.
+   */
+  protected ODataHttpHandler createHandler() {
+    final ODataHttpHandler newHandler = odata.createHandler(serviceMetadata);
+    register(newHandler);
+    return newHandler;
+  }
+
+  /**
+   * Returns the handler for a request; by default the one handler created at initialization.
+   * @param request the HTTP request
+   */
+  protected ODataHttpHandler getHandler(final HttpServletRequest request) {
+    return handler;
+  }
+
+  protected OData getOData() {
+    return odata;
+  }
+
+  protected ServiceMetadata getServiceMetadata() {
+    return serviceMetadata;
+  }
+
+  @Override
+  protected void service(final HttpServletRequest request, final HttpServletResponse response)
+      throws ServletException, IOException {
+    try {
+      getHandler(request).process(request, response);
+    } catch (final RuntimeException e) {
+      throw new ServletException(e);
+    }
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.commons.api.format.ContentType;
+
+/**
+ * Cache for the rendered metadata document and service document of a service.
+ * <p>A document is kept per content type together with the ETag it has been rendered for;
+ * it is rendered again as soon as the ETag changes. Documents without ETag are not cached,
+ * since there would be no way to notice a change of the Entity Data Model.</p>
+ * <p>The cache is safe for concurrent use; concurrent requests for a document which is not yet
+ * available may render it more than once.</p>
+ */
+public class RenderedDocumentCache {
+
+  /** The cached kinds of documents. */
+  public enum Document {
+    METADATA, SERVICE_DOCUMENT
+  }
+
+  /** Renders a document. */
+  public interface Renderer {
+    InputStream render() throws ODataLibraryException;
+  }
+
+  private final ConcurrentMap<String, RenderedDocument> documents =
+      new ConcurrentHashMap<String, RenderedDocument>();
+
+  /**
+   * Gets the rendered document, rendering it if necessary.
+   * @param document the kind of document
+   * @param contentType the content type of the document
+   * @param eTag the current ETag of the document; if it is NULL, the document is rendered but not cached
+   * @param renderer renders the document if it is not available for the given ETag
+   * @return the rendered document
+   */
+  public RenderedDocument get(final Document document, final ContentType contentType, final String eTag,
+      final Renderer renderer) throws ODataLibraryException {
+    if (eTag == null) {
+      return new RenderedDocument(null, read(renderer.render()));
+    }
+    final String key = document.name() + ' ' + contentType.toContentTypeString();
+    RenderedDocument rendered = documents.get(key);
+    if (rendered == null || !eTag.equals(rendered.eTag)) {
+      rendered = new RenderedDocument(eTag, read(renderer.render()));
+      documents.put(key, rendered);
+    }
+    return rendered;
+  }
+
+  /** Removes all rendered documents. */
+  public void clear() {
+    documents.clear();
+  }
+
+  private static byte[] read(final InputStream content) {
+    try {
+      final ByteArrayOutputStream result = new ByteArrayOutputStream();
+      final byte[] buffer = new byte[8192];
+      int count;
+      while ((count = content.read(buffer)) >= 0) {
+        result.write(buffer, 0, count);
+      }
+      return result.toByteArray();
+    } catch (final IOException e) {
+      throw new ODataRuntimeException("Error on reading the rendered document", e);
+    } finally {
+      try {
+        content.close();
+      } catch (final IOException e) {
+        // ignore
+      }
+    }
+  }
+
+  /** A rendered document. */
+  public static class RenderedDocument {
+    private final String eTag;
+    private final byte[] content;
+    private final ConcurrentMap<String, byte[]> compressedContents = new ConcurrentHashMap<String, byte[]>();
+
+    private RenderedDocument(final String eTag, final byte[] content) {
+      this.eTag = eTag;
+      this.content = content;
+    }
+
+    /** Gets the ETag the document has been rendered for (may be NULL). */
+    public String getETag() {
+      return eTag;
+    }
+
+    /** Gets the encoded document; the array must not be modified. */
+    public byte[] getContent() {
+      return content;
+    }
+
+    /**
+     * Gets the document compressed with the given content coding; the array must not be modified.
+     * The compressed document is kept for subsequent requests with the same settings.
+     * @param encoding {@link ResponseCompression#GZIP} or {@link ResponseCompression#DEFLATE} (in zlib format)
+     * @param level the compression level, see {@link ResponseCompression#getLevel()}
+     */
+    public byte[] getContent(final String encoding, final int level) {
+      final String key = encoding + ' ' + level;
+      byte[] result = compressedContents.get(key);
+      if (result == null) {
+        result = compress(encoding, level);
+        compressedContents.put(key, result);
+      }
+      return result;
+    }
+
+    /**
+     * Creates a stream with the uncompressed document, to be set as response content.
+     * A registered {@link ResponseCompression} recognizes the stream and sends the compressed document
+     * from this cache instead of compressing the content for every request.
+     */
+    public ContentStream newContentStream() {
+      return new ContentStream(this);
+    }
+
+    private byte[] compress(final String encoding, final int level) {
+      final Deflater deflater = ResponseCompression.GZIP.equals(encoding) ? null : new Deflater(level);
+      try {
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream(content.length / 4 + 64);
+        try (OutputStream compressed = deflater == null ?
+            new GZIPOutputStream(stream) {
+              {
+                def.setLevel(level);
+              }
+            } :
+            new DeflaterOutputStream(stream, deflater)) {
+          compressed.write(content);
+        }
+        return stream.toByteArray();
+      } catch (final IOException e) {
+        throw new ODataRuntimeException("Error on compressing the rendered document", e);
+      } finally {
+        if (deflater != null) {
+          deflater.end();
+        }
+      }
+    }
+  }
+
+  /** Stream of the uncompressed content of a rendered document. */
+  public static class ContentStream extends ByteArrayInputStream {
+    private final RenderedDocument document;
+
+    private ContentStream(final RenderedDocument document) {
+      super(document.content);
+      this.document = document;
+    }
+
+    /** Gets the rendered document this stream reads. */
+    public RenderedDocument getDocument() {
+      return document;
+    }
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.Deflater;
+
+/**
+ * <p>Compression of response content with the content codings <code>gzip</code> and <code>deflate</code>,
+ * negotiated with the <code>Accept-Encoding</code> header of the request.</p>
+ * <p>After registration at the handler, the content of a response is compressed if the client accepts
+ * one of the configured codings, if the content has not been encoded already, e.g., from a cache
+ * of precompressed documents, and if it is not known to be smaller than the minimum size.
+ * Content of unknown length is compressed as soon as more than the minimum size has been written
+ * (where the headers of the response can still be changed).</p>
+ */
+public final class ResponseCompression implements OlingoExtension {
+
+  public static final String GZIP = "gzip";
+  public static final String DEFLATE = "deflate";
+  /** Default minimum size in bytes of the content to be compressed. */
+  public static final int DEFAULT_MINIMUM_SIZE = 1024;
+
+  private List<String> encodings = Collections.unmodifiableList(Arrays.asList(GZIP, DEFLATE));
+  private int minimumSize = DEFAULT_MINIMUM_SIZE;
+  private int level = Deflater.DEFAULT_COMPRESSION;
+
+  private ResponseCompression() {}
+
+  /** Gets the supported content codings in the order of preference. */
+  public List<String> getEncodings() {
+    return encodings;
+  }
+
+  /** Gets the minimum size in bytes of the content to be compressed. */
+  public int getMinimumSize() {
+    return minimumSize;
+  }
+
+  /** Gets the compression level, between 0 and 9 or {@link Deflater#DEFAULT_COMPRESSION}. */
+  public int getLevel() {
+    return level;
+  }
+
+  /**
+   * Selects the coding for content in the request with the given <code>Accept-Encoding</code> headers.
+   * @param acceptEncodings the values of the <code>Accept-Encoding</code> headers (may be NULL)
+   * @return one of the configured codings or <code>null</code> if the content should not be compressed
+   */
+  public String selectEncoding(final List<String> acceptEncodings) {
+    return selectEncoding(acceptEncodings, encodings);
+  }
+
+  /**
+   * Selects the first of the given codings which the <code>Accept-Encoding</code> headers allow,
+   * i.e., which they list, explicitly or by a wildcard, with a quality value other than zero.
+   * The order of the given codings takes precedence over the quality values of the client.
+   * A missing header does not allow any coding.
+   * @param acceptEncodings the values of the <code>Accept-Encoding</code> headers (may be NULL)
+   * @param supportedEncodings the available codings in the order of preference
+   * @return the selected coding or <code>null</code> if none of the given codings is acceptable
+   */
+  public static String selectEncoding(final List<String> acceptEncodings, final List<String> supportedEncodings) {
+    if (acceptEncodings == null || acceptEncodings.isEmpty()) {
+      return null;
+    }
+    for (final String encoding : supportedEncodings) {
+      if (getQuality(acceptEncodings, encoding) > 0) {
+        return encoding;
+      }
+    }
+    return null;
+  }
+
+  /** Gets the quality value of a coding; a wildcard applies to codings that are not listed explicitly. */
+  private static double getQuality(final List<String> acceptEncodings, final String encoding) {
+    double wildcardQuality = 0;
+    for (final String acceptEncoding : acceptEncodings) {
+      for (final String coding : acceptEncoding.split(",")) {
+        final String[] parts = coding.split(";");
+        final String name = parts[0].trim().toLowerCase(Locale.ROOT);
+        if (name.equals(encoding)) {
+          return parseQuality(parts);
+        } else if ("*".equals(name)) {
+          wildcardQuality = parseQuality(parts);
+        }
+      }
+    }
+    return wildcardQuality;
+  }
+
+  private static double parseQuality(final String[] parts) {
+    for (int i = 1; i < parts.length; i++) {
+      final String parameter = parts[i].trim();
+      if (parameter.length() > 2 && (parameter.charAt(0) == 'q' || parameter.charAt(0) == 'Q')) {
+        final int index = parameter.indexOf('=');
+        if (index > 0) {
+          try {
+            return Double.parseDouble(parameter.substring(index + 1).trim());
+          } catch (final NumberFormatException e) {
+            return 0;
+          }
+        }
+      }
+    }
+    return 1;
+  }
+
+  /** Initializes the builder; without further settings, gzip and deflate are used with default settings. */
+  public static Builder with() {
+    return new Builder();
+  }
+
+  /** Builder of response compression settings. */
+  public static final class Builder {
+
+    private final ResponseCompression compression;
+
+    private Builder() {
+      compression = new ResponseCompression();
+    }
+
+    /** Sets the supported content codings in the order of preference, out of gzip and deflate. */
+    public Builder encodings(final String... encodings) {
+      for (final String encoding : encodings) {
+        if (!GZIP.equals(encoding) && !DEFLATE.equals(encoding)) {
+          throw new IllegalArgumentException("Unsupported content coding " + encoding);
+        }
+      }
+      compression.encodings = Collections.unmodifiableList(Arrays.asList(encodings.clone()));
+      return this;
+    }
+
+    /** Sets the minimum size in bytes of the content to be compressed. */
+    public Builder minimumSize(final int minimumSize) {
+      if (minimumSize < 0) {
+        throw new IllegalArgumentException("The minimum size must not be negative.");
+      }
+      compression.minimumSize = minimumSize;
+      return this;
+    }
+
+    /** Sets the compression level, between 0 (no compression) and 9 (best compression). */
+    public Builder level(final int level) {
+      if ((level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)
+          && level != Deflater.DEFAULT_COMPRESSION) {
+        throw new IllegalArgumentException("Invalid compression level " + level);
+      }
+      compression.level = level;
+      return this;
+    }
+
+    /** Builds the response compression settings. */
+    public ResponseCompression build() {
+      return compression;
+    }
+  }
+}
@@ -52,4 +52,14 @@ public interface ServiceMetadata {
    * @return metadata ETag support
    */
   ServiceMetadataETagSupport getServiceMetadataETagSupport();
+
+  /**
+   * Gets the cache for the rendered metadata document and service document (may be NULL).
+   * The cache is only available with {@link ServiceMetadataETagSupport}, whose ETags tell when to render again.
+   * The default implementation returns <code>null</code>, so the documents are rendered for every request.
+   * @return rendered-document cache
+   */
+  default RenderedDocumentCache getRenderedDocumentCache() {
+    return null;
+  }
 }
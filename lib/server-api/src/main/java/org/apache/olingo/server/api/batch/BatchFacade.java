@@ -17,6 +17,9 @@
  * under the License.
  */package org.apache.olingo.server.api.batch;
 
+ import java.util.ArrayList;
+ import java.util.List;
+
  import org.apache.olingo.server.api.ODataApplicationException;
  import org.apache.olingo.server.api.ODataLibraryException;
  import org.apache.olingo.server.api.ODataRequest;
@@ -60,6 +63,38 @@
    public ODataResponsePart handleBatchRequest(BatchRequestPart request)
        throws ODataApplicationException, ODataLibraryException;
 
+   /**
+    * Handles the given BatchRequestParts in their order.
+    * <p>If parallel batch execution has been registered at the handler
+    * (see {@link ParallelBatchSupport}), consecutive GET requests outside of change sets
+    * may be executed concurrently; all other parts are executed one after the other.
+    * The default implementation handles all parts one after the other
+    * with {@link #handleBatchRequest(BatchRequestPart)}.</p>
+    * @param requests Requests to process
+    * @param continueOnError if <code>false</code>, no further parts are handled after
+    *                        a part has failed with an error status
+    * @return corresponding {@link ODataResponsePart}s in the order of the requests; if a part has failed and
+    * <code>continueOnError</code> is <code>false</code>, the list ends with the response to that part
+    * @throws ODataApplicationException
+    * @throws ODataLibraryException
+    */
+   public default List<ODataResponsePart> handleBatchRequests(final List<BatchRequestPart> requests,
+       final boolean continueOnError) throws ODataApplicationException, ODataLibraryException {
+     final List<ODataResponsePart> responseParts = new ArrayList<ODataResponsePart>(requests.size());
+     for (final BatchRequestPart request : requests) {
+       final ODataResponsePart responsePart = handleBatchRequest(request);
+       responseParts.add(responsePart);
+       if (!continueOnError) {
+         for (final ODataResponse response : responsePart.getResponses()) {
+           if (response.getStatusCode() >= 400 && response.getStatusCode() <= 600) {
+             return responseParts;
+           }
+         }
+       }
+     }
+     return responseParts;
+   }
+
    /**
     * Extracts the boundary of a multipart/mixed header.
     * See RFC 2046#5.1
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.batch;
+
+import java.util.concurrent.Executor;
+
+import org.apache.olingo.server.api.OlingoExtension;
+
+/**
+ * <p>Enables the concurrent execution of independent operations of a batch request.</p>
+ * <p>If an implementation of this interface is registered at the ODataHttpHandler,
+ * consecutive GET requests outside of change sets which are passed together to
+ * {@link BatchFacade#handleBatchRequests(java.util.List, boolean)} are executed with the given executor.
+ * Change sets and all other requests are still executed one after the other in the order of the batch request,
+ * and the responses are always returned in the order of the requests.</p>
+ * <p>The registered processors must be able to handle requests concurrently.</p>
+ */
+public interface ParallelBatchSupport extends OlingoExtension {
+
+  /**
+   * Returns the executor used to execute the operations of a batch request concurrently.
+   * The executor is shared by all batch requests and not shut down by the library.
+   * @return the executor
+   */
+  Executor getExecutor();
+
+  /**
+   * Returns the maximum number of operations of a single batch request that are executed at the same time.
+   * @return the maximum number of concurrent operations per batch request; values less than 2 disable
+   *         the concurrent execution
+   */
+  int getMaxParallelism();
+}
@@ -19,14 +19,18 @@
 package org.apache.olingo.server.api.deserializer;
 
 import java.io.InputStream;
+import java.util.Iterator;
 import java.util.List;
 
 import org.apache.olingo.commons.api.data.Parameter;
 import org.apache.olingo.commons.api.edm.EdmParameter;
 import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.ODataLibraryException;
 import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
 import org.apache.olingo.server.api.deserializer.batch.BatchOptions;
 import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPartHandler;
 
 public interface FixedFormatDeserializer {
 
@@ -60,4 +64,30 @@ public interface FixedFormatDeserializer {
    */
   public List<BatchRequestPart> parseBatchRequest(InputStream content, String boundary, BatchOptions options)
       throws BatchDeserializerException;
+
+  /**
+   * Reads batch data from an InputStream and passes each batch-request part to the handler
+   * as soon as it has been read, without holding the whole batch request in memory.
+   * @param content the data as multipart input stream
+   * @param boundary the boundary between the parts
+   * @param options options for the deserializer
+   * @param handler receives the batch-request parts in the order of the request;
+   * parsing stops if it returns <code>false</code>
+   */
+  public void parseBatchRequest(InputStream content, String boundary, BatchOptions options,
+      BatchRequestPartHandler handler) throws ODataApplicationException, ODataLibraryException;
+
+  /**
+   * Reads batch data from an InputStream while the returned iterator is advanced,
+   * so that each batch-request part can be processed before the next one is read.
+   * The body of a request which is not part of a change set can only be read until the iterator is advanced.
+   * @param content the data as multipart input stream
+   * @param boundary the boundary between the parts
+   * @param options options for the deserializer
+   * @return the batch-request parts in the order of the request; errors in the batch data are thrown
+   * as {@link org.apache.olingo.commons.api.ex.ODataRuntimeException} with a {@link BatchDeserializerException}
+   * as cause
+   */
+  public Iterator<BatchRequestPart> parseBatchRequestLazily(InputStream content, String boundary,
+      BatchOptions options);
 }
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.deserializer.batch;
+
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.ODataLibraryException;
+
+/**
+ * Receives the parts of a batch request one after the other while the request body is parsed.
+ * @see org.apache.olingo.server.api.deserializer.FixedFormatDeserializer#parseBatchRequest(java.io.InputStream,
+ * String, BatchOptions, BatchRequestPartHandler)
+ */
+public interface BatchRequestPartHandler {
+
+  /**
+   * Handles a parsed batch-request part.
+   * The body of a request which is not part of a change set is read directly from the batch-request body;
+   * it can only be read until this method returns.
+   * @param part the batch-request part
+   * @return <code>true</code> to continue with the next part, <code>false</code> to stop parsing
+   * @throws ODataApplicationException
+   * @throws ODataLibraryException
+   */
+  boolean handle(BatchRequestPart part) throws ODataApplicationException, ODataLibraryException;
+}
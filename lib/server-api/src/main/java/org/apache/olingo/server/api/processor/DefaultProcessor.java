@@ -19,7 +19,9 @@
 package org.apache.olingo.server.api.processor;
 
 import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.nio.charset.Charset;
+import java.util.List;
 
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.api.http.HttpHeader;
@@ -31,6 +33,9 @@ import org.apache.olingo.server.api.ODataLibraryException;
 import org.apache.olingo.server.api.ODataRequest;
 import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.ODataServerError;
+import org.apache.olingo.server.api.RenderedDocumentCache;
+import org.apache.olingo.server.api.RenderedDocumentCache.Document;
+import org.apache.olingo.server.api.RenderedDocumentCache.RenderedDocument;
 import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.etag.ETagHelper;
 import org.apache.olingo.server.api.etag.ServiceMetadataETagSupport;
@@ -77,8 +82,23 @@ public class DefaultProcessor implements MetadataProcessor, ServiceDocumentProce
       if (HttpMethod.HEAD == request.getMethod()) {
         response.setStatusCode(HttpStatusCode.OK.getStatusCode());
       } else {
-        ODataSerializer serializer = odata.createSerializer(requestedContentType);
-        response.setContent(serializer.serviceDocument(serviceMetadata, null).getContent());
+        final ODataSerializer serializer = odata.createSerializer(requestedContentType);
+        final RenderedDocumentCache cache = serviceMetadata.getRenderedDocumentCache();
+        if (cache == null) {
+          response.setContent(serializer.serviceDocument(serviceMetadata, null).getContent());
+        } else {
+          // The service document is derived from the metadata and contains the metadata ETag,
+          // so it is only cached while a metadata ETag is known.
+          final String eTag = eTagSupport == null || eTagSupport.getMetadataETag() == null ? null :
+              eTagSupport.getServiceDocumentETag() + ' ' + eTagSupport.getMetadataETag();
+          setContent(response, cache.get(Document.SERVICE_DOCUMENT, requestedContentType, eTag,
+              new RenderedDocumentCache.Renderer() {
+                @Override
+                public InputStream render() throws ODataLibraryException {
+                  return serializer.serviceDocument(serviceMetadata, null).getContent();
+                }
+              }));
+        }
         response.setStatusCode(HttpStatusCode.OK.getStatusCode());
         response.setHeader(HttpHeader.CONTENT_TYPE, requestedContentType.toContentTypeString());
       }
@@ -107,14 +127,36 @@ public class DefaultProcessor implements MetadataProcessor, ServiceDocumentProce
       if (HttpMethod.HEAD == request.getMethod()) {
         response.setStatusCode(HttpStatusCode.OK.getStatusCode());
       } else {
-        ODataSerializer serializer = odata.createSerializer(requestedContentType);
-        response.setContent(serializer.metadataDocument(serviceMetadata).getContent());
+        final ODataSerializer serializer = odata.createSerializer(requestedContentType);
+        final RenderedDocumentCache cache = serviceMetadata.getRenderedDocumentCache();
+        if (cache == null) {
+          response.setContent(serializer.metadataDocument(serviceMetadata).getContent());
+        } else {
+          setContent(response, cache.get(Document.METADATA, requestedContentType,
+              eTagSupport == null ? null : eTagSupport.getMetadataETag(),
+              new RenderedDocumentCache.Renderer() {
+                @Override
+                public InputStream render() throws ODataLibraryException {
+                  return serializer.metadataDocument(serviceMetadata).getContent();
+                }
+              }));
+        }
         response.setStatusCode(HttpStatusCode.OK.getStatusCode());
         response.setHeader(HttpHeader.CONTENT_TYPE, requestedContentType.toContentTypeString());
       }
     }
   }
 
+  /**
+   * Sets the rendered document as response content.
+   * If response compression is registered, the handler takes the compressed document from the cache
+   * instead of compressing it for every request.
+   */
+  private void setContent(final ODataResponse response, final RenderedDocument document) {
+    response.setHeader(HttpHeader.CONTENT_LENGTH, Integer.toString(document.getContent().length));
+    response.setContent(document.newContentStream());
+  }
+
   @Override
   public void processError(final ODataRequest request, final ODataResponse response,
       final ODataServerError serverError,
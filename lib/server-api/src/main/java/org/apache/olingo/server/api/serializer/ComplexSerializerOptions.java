@@ -19,6 +19,7 @@
 package org.apache.olingo.server.api.serializer;
 
 import org.apache.olingo.commons.api.data.ContextURL;
+import org.apache.olingo.server.api.ODataContentWriteErrorCallback;
 import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
 import org.apache.olingo.server.api.uri.queryoption.SelectOption;
 
@@ -29,6 +30,7 @@ public class ComplexSerializerOptions {
   private ExpandOption expand;
   private SelectOption select;
   private String xml10InvalidCharReplacement;
+  private ODataContentWriteErrorCallback odataContentWriteErrorCallback;
 
   /** Gets the {@link ContextURL}. */
   public ContextURL getContextURL() {
@@ -48,7 +50,12 @@ public class ComplexSerializerOptions {
   /** Gets the replacement string for unicode characters, that is not allowed in XML 1.0 */
   public String xml10InvalidCharReplacement() {
     return xml10InvalidCharReplacement;
-  }  
+  }
+
+  /** Gets the callback which is used in case of an exception during streamed write of the content. */
+  public ODataContentWriteErrorCallback getODataContentWriteErrorCallback() {
+    return odataContentWriteErrorCallback;
+  }
 
   private ComplexSerializerOptions() {}
 
@@ -88,7 +95,13 @@ public class ComplexSerializerOptions {
     public Builder xml10InvalidCharReplacement(final String replacement) {
       options.xml10InvalidCharReplacement = replacement;
       return this;
-    } 
+    }
+
+    /** Sets the callback which is used in case of an exception during streamed write of the content. */
+    public Builder writeContentErrorCallback(final ODataContentWriteErrorCallback odataContentWriteErrorCallback) {
+      options.odataContentWriteErrorCallback = odataContentWriteErrorCallback;
+      return this;
+    }
     
     /** Builds the OData serializer options. */
     public ComplexSerializerOptions build() {
@@ -19,6 +19,7 @@
 package org.apache.olingo.server.api.serializer;
 
 import org.apache.olingo.commons.api.data.Delta;
+import org.apache.olingo.commons.api.data.EntityIterator;
 import org.apache.olingo.commons.api.edm.EdmEntityType;
 import org.apache.olingo.server.api.ServiceMetadata;
 
@@ -37,4 +38,17 @@ public interface EdmDeltaSerializer {
   SerializerResult entityCollection(ServiceMetadata metadata, EdmEntityType referencedEntityType,
       Delta delta, EntityCollectionSerializerOptions options) throws SerializerException;
 
+  /**
+   * Writes a delta response directly into the response content.
+   * The added or changed entities are requested from the iterator only while they are written;
+   * deleted entities, added and deleted links, count, next link, and delta link are taken from the delta.
+   * @param metadata             metadata for the service
+   * @param referencedEntityType the {@link EdmEntityType} or <code>null</code> if not available
+   * @param entities             the added or changed entities
+   * @param delta                the remaining delta data
+   * @param options              options for the serializer
+   */
+  SerializerStreamResult entityCollectionStreamed(ServiceMetadata metadata, EdmEntityType referencedEntityType,
+      EntityIterator entities, Delta delta, EntityCollectionSerializerOptions options) throws SerializerException;
+
 }
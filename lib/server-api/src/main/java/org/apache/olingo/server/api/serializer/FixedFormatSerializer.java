@@ -19,6 +19,9 @@
 package org.apache.olingo.server.api.serializer;
 
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Iterator;
 import java.util.List;
 
 import org.apache.olingo.commons.api.data.EntityMediaObject;
@@ -42,6 +45,21 @@ public interface FixedFormatSerializer {
    * @throws SerializerException
    */
   SerializerStreamResult mediaEntityStreamed(EntityMediaObject mediaEntity) throws SerializerException;
+
+  /**
+   * Writes the content of a file, e.g., the media stream of a media entity or the value of a stream property.
+   * The content is transferred from the file to the response without copying it through the heap
+   * where the server allows it. Range requests for the content are answered with the requested part only.
+   * @param file the file
+   */
+  SerializerStreamResult binaryStreamed(Path file) throws SerializerException;
+
+  /**
+   * Writes the content of the file of a channel, e.g., the media stream of a media entity
+   * or the value of a stream property; see {@link #binaryStreamed(Path)}.
+   * @param file the file channel; it is closed after the content has been written
+   */
+  SerializerStreamResult binaryStreamed(FileChannel file) throws SerializerException;
   
   /**
    * Writes a count into an InputStream as plain text.
@@ -66,6 +84,18 @@ public interface FixedFormatSerializer {
    */
   InputStream batchResponse(List<ODataResponsePart> batchResponses, String boundary) throws BatchSerializerException;
 
+  /**
+   * Serializes a batch response while it is written.
+   * Each response part is written as soon as the iterator returns it, so the parts can be
+   * processed one after the other while the response is sent.
+   * Response bodies given as {@link org.apache.olingo.server.api.ODataContent} are streamed as well.
+   * @param batchResponses the response parts
+   * @param boundary the boundary between the parts
+   * @return response as streamable content
+   */
+  SerializerStreamResult batchResponseStreamed(Iterator<ODataResponsePart> batchResponses, String boundary)
+      throws BatchSerializerException;
+
   /**
    * Serializes a ODataResponse into an async response.
    * @param odataResponse the response parts
@@ -115,6 +115,18 @@ public interface ODataSerializer {
   SerializerResult primitiveCollection(ServiceMetadata metadata, EdmPrimitiveType type, Property property,
       PrimitiveSerializerOptions options) throws SerializerException;
 
+  /**
+   * Writes data of a collection of primitive-type instances directly into the response content.
+   * The value of the property may be any {@link Iterable}; its items are only requested
+   * while the content is written.
+   * @param metadata metadata for the service
+   * @param type primitive type
+   * @param property property value
+   * @param options options for the serializer
+   */
+  SerializerStreamResult primitiveCollectionStreamed(ServiceMetadata metadata, EdmPrimitiveType type,
+      Property property, PrimitiveSerializerOptions options) throws SerializerException;
+
   /**
    * Writes data of a collection of complex-type instances into an InputStream.
    * @param metadata metadata for the service
@@ -125,6 +137,18 @@ public interface ODataSerializer {
   SerializerResult complexCollection(ServiceMetadata metadata, EdmComplexType type, Property property,
       ComplexSerializerOptions options) throws SerializerException;
 
+  /**
+   * Writes data of a collection of complex-type instances directly into the response content.
+   * The value of the property may be any {@link Iterable}; its items are only requested
+   * while the content is written.
+   * @param metadata metadata for the service
+   * @param type complex type
+   * @param property property value
+   * @param options options for the serializer
+   */
+  SerializerStreamResult complexCollectionStreamed(ServiceMetadata metadata, EdmComplexType type,
+      Property property, ComplexSerializerOptions options) throws SerializerException;
+
   /**
    * Writes a single entity reference into an InputStream.
    * @param metadata metadata for the service
@@ -145,4 +169,14 @@ public interface ODataSerializer {
   SerializerResult referenceCollection(ServiceMetadata metadata, EdmEntitySet edmEntitySet,
       AbstractEntityCollection entityCollection, ReferenceCollectionSerializerOptions options)
       throws SerializerException;
+
+  /**
+   * Writes entity-collection references directly into the response content.
+   * @param metadata metadata for the service
+   * @param edmEntitySet {@link EdmEntitySet}
+   * @param entities the entities to be referenced
+   * @param options {@link ReferenceCollectionSerializerOptions}
+   */
+  SerializerStreamResult referenceCollectionStreamed(ServiceMetadata metadata, EdmEntitySet edmEntitySet,
+      EntityIterator entities, ReferenceCollectionSerializerOptions options) throws SerializerException;
 }
@@ -20,6 +20,7 @@ package org.apache.olingo.server.api.serializer;
 
 import org.apache.olingo.commons.api.data.ContextURL;
 import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.server.api.ODataContentWriteErrorCallback;
 
 /** Options for the OData serializer. */
 public final class PrimitiveSerializerOptions {
@@ -31,6 +32,7 @@ public final class PrimitiveSerializerOptions {
   private Integer scale;
   private Boolean isUnicode;
   private String xml10InvalidCharReplacement;
+  private ODataContentWriteErrorCallback odataContentWriteErrorCallback;
 
   /** Gets the {@link ContextURL}. */
   public ContextURL getContextURL() {
@@ -65,7 +67,12 @@ public final class PrimitiveSerializerOptions {
   /** Gets the replacement string for unicode characters, that is not allowed in XML 1.0 */
   public String xml10InvalidCharReplacement() {
     return xml10InvalidCharReplacement;
-  }  
+  }
+
+  /** Gets the callback which is used in case of an exception during streamed write of the content. */
+  public ODataContentWriteErrorCallback getODataContentWriteErrorCallback() {
+    return odataContentWriteErrorCallback;
+  }
   
 
   private PrimitiveSerializerOptions() {}
@@ -134,7 +141,13 @@ public final class PrimitiveSerializerOptions {
     public Builder xml10InvalidCharReplacement(final String replacement) {
       options.xml10InvalidCharReplacement = replacement;
       return this;
-    } 
+    }
+
+    /** Sets the callback which is used in case of an exception during streamed write of the content. */
+    public Builder writeContentErrorCallback(final ODataContentWriteErrorCallback odataContentWriteErrorCallback) {
+      options.odataContentWriteErrorCallback = odataContentWriteErrorCallback;
+      return this;
+    }
     
     /** Builds the OData serializer options. */
     public PrimitiveSerializerOptions build() {
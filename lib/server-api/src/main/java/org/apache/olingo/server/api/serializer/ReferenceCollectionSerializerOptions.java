@@ -19,12 +19,14 @@
 package org.apache.olingo.server.api.serializer;
 
 import org.apache.olingo.commons.api.data.ContextURL;
+import org.apache.olingo.server.api.ODataContentWriteErrorCallback;
 import org.apache.olingo.server.api.uri.queryoption.CountOption;
 
 /** Options to pass as additional information to the reference-collection serializer. */
 public final class ReferenceCollectionSerializerOptions {
   private ContextURL contextURL;
   private CountOption count;
+  private ODataContentWriteErrorCallback odataContentWriteErrorCallback;
 
   /** Gets the {@link ContextURL}. */
   public ContextURL getContextURL() {
@@ -36,6 +38,11 @@ public final class ReferenceCollectionSerializerOptions {
     return count;
   }
 
+  /** Gets the callback which is used in case of an exception during streamed write of the content. */
+  public ODataContentWriteErrorCallback getODataContentWriteErrorCallback() {
+    return odataContentWriteErrorCallback;
+  }
+
   private ReferenceCollectionSerializerOptions() {}
 
   /** Initializes the options builder. */
@@ -63,6 +70,12 @@ public final class ReferenceCollectionSerializerOptions {
       return this;
     }
 
+    /** Sets the callback which is used in case of an exception during streamed write of the content. */
+    public Builder writeContentErrorCallback(final ODataContentWriteErrorCallback odataContentWriteErrorCallback) {
+      options.odataContentWriteErrorCallback = odataContentWriteErrorCallback;
+      return this;
+    }
+
     /** Builds the OData serializer options. */
     public ReferenceCollectionSerializerOptions build() {
       return options;
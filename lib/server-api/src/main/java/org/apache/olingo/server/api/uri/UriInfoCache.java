@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.uri;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.server.api.OlingoExtension;
+
+/**
+ * <p>Bounded cache for the results of the URI parser.</p>
+ * <p>If an instance is registered at the ODataHttpHandler, the URI parser keeps the parsed form of the
+ * least recently requested URIs, keyed by their decoded resource path and query options.
+ * Additionally it keeps the parsed system query options <code>$filter</code>, <code>$orderby</code>,
+ * <code>$expand</code>, <code>$select</code>, and <code>$apply</code> per request shape, i.e., per query
+ * together with the type the resource path results in, so that requests differing only in key values
+ * or other literal values of the resource path share the type resolution against the Entity Data Model
+ * and the expression trees of these options.</p>
+ * <p>Only literals of the resource path are lifted out of the request shape; literals in the query, e.g.,
+ * the values compared to in a <code>$filter</code> expression, are part of the key of both kinds of entries.
+ * Requests differing only in such values therefore occupy an entry each and, if there are many of them,
+ * displace other entries; the maximum size should be chosen with that in mind.</p>
+ * <p>The cached objects are shared between requests; processors must not modify them.
+ * The cache belongs to one Entity Data Model; if it is used with another one,
+ * all entries are discarded. {@link #clear()} discards all entries explicitly, e.g.,
+ * if the Entity Data Model has been changed in place.</p>
+ * <p>Since handlers are often created per request, the same instance should be registered
+ * for all requests. The cache is safe for concurrent use. Caches with a maximum size of at least
+ * 64 entries are split into up to 16 segments by the hash codes of the keys; each segment has a lock
+ * and a least-recently-used order of its own, so that concurrent requests rarely wait for each other
+ * and evictions are approximately in the order of least recent use.</p>
+ */
+public class UriInfoCache implements OlingoExtension {
+
+  /** The kinds of cache entries. */
+  public enum EntryKind {
+    /** The parsed form of a complete URI. */
+    URI,
+    /** The parsed system query options of a request shape. */
+    TEMPLATE
+  }
+
+  private static final int MAXIMUM_SEGMENTS = 16;
+  private static final int MINIMUM_SEGMENT_SIZE = 32;
+
+  private final int maximumSize;
+  private final boolean isTemplateCachingEnabled;
+  private final Segment[] segments;
+  private final LongAdder[] hits = new LongAdder[EntryKind.values().length];
+  private final LongAdder[] misses = new LongAdder[EntryKind.values().length];
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder invalidations = new LongAdder();
+  private volatile Edm edm;
+
+  /**
+   * Creates a cache which caches complete URIs as well as request shapes.
+   * @param maximumSize the maximum number of entries of all kinds together
+   */
+  public UriInfoCache(final int maximumSize) {
+    this(maximumSize, true);
+  }
+
+  /**
+   * Creates a cache.
+   * @param maximumSize the maximum number of entries of all kinds together
+   * @param cacheTemplates whether system query options are cached per request shape
+   */
+  public UriInfoCache(final int maximumSize, final boolean cacheTemplates) {
+    if (maximumSize < 1) {
+      throw new IllegalArgumentException("The maximum size must be positive.");
+    }
+    this.maximumSize = maximumSize;
+    isTemplateCachingEnabled = cacheTemplates;
+    int segmentCount = 1;
+    while (segmentCount < MAXIMUM_SEGMENTS && maximumSize / (segmentCount * 2) >= MINIMUM_SEGMENT_SIZE) {
+      segmentCount *= 2;
+    }
+    segments = new Segment[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      segments[i] = new Segment(maximumSize / segmentCount + (i < maximumSize % segmentCount ? 1 : 0));
+    }
+    for (int i = 0; i < hits.length; i++) {
+      hits[i] = new LongAdder();
+      misses[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Gets an entry; used by the URI parser.
+   * @param kind the kind of the entry
+   * @param edm the Entity Data Model the entry has been created with
+   * @param key the key of the entry; its class must be specific for the kind of entry
+   * @return the cached object or <code>null</code>
+   */
+  public Object get(final EntryKind kind, final Edm edm, final Object key) {
+    bind(edm);
+    final Segment segment = getSegment(key);
+    final Object value;
+    synchronized (segment) {
+      value = segment.get(key);
+    }
+    if (value == null) {
+      misses[kind.ordinal()].increment();
+    } else {
+      hits[kind.ordinal()].increment();
+    }
+    return value;
+  }
+
+  /**
+   * Puts an entry into the cache, evicting the least recently used entry if the cache is full;
+   * used by the URI parser.
+   * @param kind the kind of the entry
+   * @param edm the Entity Data Model the entry has been created with
+   * @param key the key of the entry; its class must be specific for the kind of entry
+   * @param value the object to cache
+   */
+  public void put(final EntryKind kind, final Edm edm, final Object key, final Object value) {
+    bind(edm);
+    final Segment segment = getSegment(key);
+    synchronized (segment) {
+      // Entries of a model replaced meanwhile must not survive the clearing of the segment.
+      if (edm == this.edm) {
+        segment.put(key, value);
+      }
+    }
+  }
+
+  private void bind(final Edm edm) {
+    if (edm != this.edm) {
+      synchronized (this) {
+        if (edm != this.edm) {
+          if (this.edm != null) {
+            invalidations.increment();
+          }
+          this.edm = edm;
+          clearSegments();
+        }
+      }
+    }
+  }
+
+  private Segment getSegment(final Object key) {
+    final int hash = key.hashCode();
+    return segments[(hash ^ hash >>> 16) & segments.length - 1];
+  }
+
+  private boolean clearSegments() {
+    boolean isCleared = false;
+    for (final Segment segment : segments) {
+      synchronized (segment) {
+        isCleared |= !segment.isEmpty();
+        segment.clear();
+      }
+    }
+    return isCleared;
+  }
+
+  /** Discards all entries; the statistics are kept. */
+  public synchronized void clear() {
+    if (clearSegments()) {
+      invalidations.increment();
+    }
+  }
+
+  /** Whether system query options are cached per request shape. */
+  public boolean isTemplateCachingEnabled() {
+    return isTemplateCachingEnabled;
+  }
+
+  /** Gets the maximum number of entries. */
+  public int getMaximumSize() {
+    return maximumSize;
+  }
+
+  /** Gets the current number of entries. */
+  public int size() {
+    int size = 0;
+    for (final Segment segment : segments) {
+      synchronized (segment) {
+        size += segment.size();
+      }
+    }
+    return size;
+  }
+
+  /** Gets the number of successful look-ups for the given kind of entries. */
+  public long getHitCount(final EntryKind kind) {
+    return hits[kind.ordinal()].sum();
+  }
+
+  /** Gets the number of unsuccessful look-ups for the given kind of entries. */
+  public long getMissCount(final EntryKind kind) {
+    return misses[kind.ordinal()].sum();
+  }
+
+  /** Gets the number of entries discarded because the cache was full. */
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  /**
+   * Gets how often all entries have been discarded,
+   * because the Entity Data Model changed or {@link #clear()} has been called.
+   */
+  public long getInvalidationCount() {
+    return invalidations.sum();
+  }
+
+  @Override
+  public String toString() {
+    return "UriInfoCache [size=" + size() + ", maximumSize=" + maximumSize
+        + ", uriHits=" + getHitCount(EntryKind.URI) + ", uriMisses=" + getMissCount(EntryKind.URI)
+        + ", templateHits=" + getHitCount(EntryKind.TEMPLATE)
+        + ", templateMisses=" + getMissCount(EntryKind.TEMPLATE)
+        + ", evictions=" + getEvictionCount() + ", invalidations=" + getInvalidationCount() + "]";
+  }
+
+  /** Part of the cache with a lock and a least-recently-used order of its own. */
+  private final class Segment extends LinkedHashMap<Object, Object> {
+    private static final long serialVersionUID = -4283573452226521435L;
+    private final int maximumSegmentSize;
+
+    private Segment(final int maximumSegmentSize) {
+      super(16, 0.75F, true);
+      this.maximumSegmentSize = maximumSegmentSize;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<Object, Object> eldest) {
+      if (size() > maximumSegmentSize) {
+        evictions.increment();
+        return true;
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.olingo.commons.api.data.ContextURL;
+import org.apache.olingo.commons.api.data.ContextURL.Suffix;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.deserializer.DeserializerException;
+import org.apache.olingo.server.api.deserializer.DeserializerResult;
+import org.apache.olingo.server.api.deserializer.ODataDeserializer;
+import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
+import org.apache.olingo.server.api.serializer.EntitySerializerOptions;
+import org.apache.olingo.server.api.serializer.ODataSerializer;
+import org.apache.olingo.server.api.serializer.SerializerException;
+import org.apache.olingo.server.core.serializer.utils.XmlFactoryProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * <p>Throughput of the Atom (XML) serializer and deserializer for a single entity and for collections
+ * of the technical service data.</p>
+ * <p><code>writerFromSharedFactory</code> and <code>writerFromNewFactory</code> isolate the cost of
+ * creating a stream writer on the shared StAX factory and on a newly looked-up one, which the
+ * serializer did for every request before.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AtomBenchmark {
+
+  @Param({ "ESAllPrim", "ESCompAllPrim" })
+  public String entitySetName;
+
+  @Param({ "1", "100", "1000" })
+  public int size;
+
+  private ServiceMetadata serviceMetadata;
+  private ODataSerializer serializer;
+  private ODataDeserializer deserializer;
+  private EdmEntitySet entitySet;
+  private EdmEntityType entityType;
+  private EntityCollection entityCollection;
+  private EntityCollectionSerializerOptions collectionOptions;
+  private EntitySerializerOptions entityOptions;
+  private byte[] entityPayload;
+
+  @Setup
+  public void setup() throws SerializerException, DeserializerException, IOException {
+    final TecSvcFixture fixture = new TecSvcFixture();
+    serviceMetadata = fixture.getServiceMetadata();
+    serializer = fixture.getOData().createSerializer(ContentType.APPLICATION_ATOM_XML);
+    deserializer = fixture.getOData().createDeserializer(ContentType.APPLICATION_ATOM_XML, serviceMetadata);
+    entitySet = fixture.getEntitySet(entitySetName);
+    entityType = entitySet.getEntityType();
+    entityCollection = fixture.createEntityCollection(entitySetName, size);
+    collectionOptions = EntityCollectionSerializerOptions.with()
+        .contextURL(ContextURL.with().entitySet(entitySet).build())
+        .build();
+    entityOptions = EntitySerializerOptions.with()
+        .contextURL(ContextURL.with().entitySet(entitySet).suffix(Suffix.ENTITY).build())
+        .build();
+    entityPayload = BenchmarkUtils.drain(serializer.entity(serviceMetadata, entityType,
+        entityCollection.getEntities().get(0), entityOptions).getContent());
+  }
+
+  @Benchmark
+  public void entityCollection(final Blackhole blackhole) throws SerializerException, IOException {
+    blackhole.consume(BenchmarkUtils.drain(serializer.entityCollection(serviceMetadata, entityType,
+        entityCollection, collectionOptions).getContent()));
+  }
+
+  @Benchmark
+  public void entity(final Blackhole blackhole) throws SerializerException, IOException {
+    blackhole.consume(BenchmarkUtils.drain(serializer.entity(serviceMetadata, entityType,
+        entityCollection.getEntities().get(0), entityOptions).getContent()));
+  }
+
+  @Benchmark
+  public DeserializerResult readEntity() throws DeserializerException {
+    return deserializer.entity(new ByteArrayInputStream(entityPayload), entityType);
+  }
+
+  @Benchmark
+  public XMLStreamWriter writerFromSharedFactory() throws XMLStreamException {
+    return XmlFactoryProvider.createStreamWriter(new ByteArrayOutputStream(), "UTF-8");
+  }
+
+  @Benchmark
+  public XMLStreamWriter writerFromNewFactory() throws XMLStreamException {
+    return XMLOutputFactory.newInstance().createXMLStreamWriter(new ByteArrayOutputStream(), "UTF-8");
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.ODataLibraryException;
+import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
+import org.apache.olingo.server.api.deserializer.batch.BatchOptions;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPartHandler;
+import org.apache.olingo.server.core.deserializer.batch.BatchParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of <code>BatchParser.parseBatchRequest</code> for batch requests with
+ * a growing number of query parts and one change set carrying entity bodies,
+ * collected into a list and passed to a handler part by part.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchParserBenchmark {
+
+  private static final String BOUNDARY = "batch_benchmark";
+  private static final String CHANGE_SET_BOUNDARY = "changeset_benchmark";
+  private static final String CRLF = "\r\n";
+
+  @Param({ "10", "100", "1000" })
+  public int parts;
+
+  @Param({ "64", "4096" })
+  public int bodySize;
+
+  private byte[] payload;
+  private BatchOptions options;
+
+  @Setup
+  public void setup() {
+    payload = createBatchRequest(parts, bodySize).getBytes(StandardCharsets.UTF_8);
+    options = BatchOptions.with().rawBaseUri(TecSvcFixture.SERVICE_ROOT).isStrict(true).build();
+  }
+
+  @Benchmark
+  public List<BatchRequestPart> parseBatchRequest() throws BatchDeserializerException {
+    return new BatchParser().parseBatchRequest(new ByteArrayInputStream(payload), BOUNDARY, options);
+  }
+
+  @Benchmark
+  public int parseBatchRequestIncrementally() throws ODataApplicationException, ODataLibraryException {
+    final int[] count = new int[1];
+    new BatchParser().parseBatchRequest(new ByteArrayInputStream(payload), BOUNDARY, options,
+        new BatchRequestPartHandler() {
+          @Override
+          public boolean handle(final BatchRequestPart part) {
+            count[0] += part.getRequests().size();
+            return true;
+          }
+        });
+    return count[0];
+  }
+
+  private static String createBatchRequest(final int parts, final int bodySize) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < parts; i++) {
+      builder.append("--").append(BOUNDARY).append(CRLF)
+          .append("Content-Type: application/http").append(CRLF)
+          .append("Content-Transfer-Encoding: binary").append(CRLF)
+          .append(CRLF)
+          .append("GET ESAllPrim(").append(i).append(") HTTP/1.1").append(CRLF)
+          .append("Accept: application/json").append(CRLF)
+          .append(CRLF)
+          .append(CRLF);
+    }
+
+    final StringBuilder body = new StringBuilder("{\"PropertyString\":\"");
+    while (body.length() < bodySize) {
+      body.append('x');
+    }
+    body.append("\"}");
+    builder.append("--").append(BOUNDARY).append(CRLF)
+        .append("Content-Type: multipart/mixed; boundary=").append(CHANGE_SET_BOUNDARY).append(CRLF)
+        .append(CRLF);
+    for (int i = 0; i < Math.max(1, parts / 10); i++) {
+      builder.append("--").append(CHANGE_SET_BOUNDARY).append(CRLF)
+          .append("Content-Type: application/http").append(CRLF)
+          .append("Content-Transfer-Encoding: binary").append(CRLF)
+          .append("Content-ID: ").append(i + 1).append(CRLF)
+          .append(CRLF)
+          .append("PATCH ESAllPrim(").append(i).append(") HTTP/1.1").append(CRLF)
+          .append("Content-Type: application/json").append(CRLF)
+          .append(CRLF)
+          .append(body).append(CRLF);
+    }
+    builder.append("--").append(CHANGE_SET_BOUNDARY).append("--").append(CRLF)
+        .append(CRLF)
+        .append("--").append(BOUNDARY).append("--");
+    return builder.toString();
+  }
+}
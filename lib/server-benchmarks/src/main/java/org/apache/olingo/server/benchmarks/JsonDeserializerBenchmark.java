@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.olingo.commons.api.data.ContextURL;
+import org.apache.olingo.commons.api.data.ContextURL.Suffix;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.deserializer.DeserializerException;
+import org.apache.olingo.server.api.deserializer.DeserializerResult;
+import org.apache.olingo.server.api.deserializer.ODataDeserializer;
+import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
+import org.apache.olingo.server.api.serializer.EntitySerializerOptions;
+import org.apache.olingo.server.api.serializer.ODataSerializer;
+import org.apache.olingo.server.api.serializer.SerializerException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of <code>ODataJsonDeserializer.entity</code> and <code>entityCollection</code>
+ * for request bodies produced by the JSON serializer from the technical service data,
+ * with the tree-based and with the streaming (<code>odata.streaming=true</code>) deserializer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonDeserializerBenchmark {
+
+  @Param({ "ESAllPrim", "ESCompAllPrim", "ESCollAllPrim" })
+  public String entitySetName;
+
+  @Param({ "10", "100", "1000" })
+  public int size;
+
+  @Param({ "false", "true" })
+  public boolean streaming;
+
+  private ODataDeserializer deserializer;
+  private EdmEntityType entityType;
+  private byte[] entityPayload;
+  private byte[] collectionPayload;
+
+  @Setup
+  public void setup() throws SerializerException, DeserializerException, IOException {
+    final TecSvcFixture fixture = new TecSvcFixture();
+    final ServiceMetadata serviceMetadata = fixture.getServiceMetadata();
+    final EdmEntitySet entitySet = fixture.getEntitySet(entitySetName);
+    entityType = entitySet.getEntityType();
+    final EntityCollection entityCollection = fixture.createEntityCollection(entitySetName, size);
+
+    final ODataSerializer serializer = fixture.getOData().createSerializer(ContentType.JSON_NO_METADATA);
+    entityPayload = BenchmarkUtils.drain(serializer.entity(serviceMetadata, entityType,
+        entityCollection.getEntities().get(0),
+        EntitySerializerOptions.with()
+            .contextURL(ContextURL.with().entitySet(entitySet).suffix(Suffix.ENTITY).build())
+            .build()).getContent());
+    collectionPayload = BenchmarkUtils.drain(serializer.entityCollection(serviceMetadata, entityType,
+        entityCollection,
+        EntityCollectionSerializerOptions.with()
+            .contextURL(ContextURL.with().entitySet(entitySet).build())
+            .build()).getContent());
+
+    deserializer = fixture.getOData().createDeserializer(streaming ?
+        ContentType.create(ContentType.JSON, ContentType.PARAMETER_ODATA_STREAMING, "true") :
+        ContentType.JSON,
+        serviceMetadata);
+  }
+
+  @Benchmark
+  public DeserializerResult entity() throws DeserializerException {
+    return deserializer.entity(new ByteArrayInputStream(entityPayload), entityType);
+  }
+
+  @Benchmark
+  public DeserializerResult entityCollection() throws DeserializerException {
+    return deserializer.entityCollection(new ByteArrayInputStream(collectionPayload), entityType);
+  }
+}
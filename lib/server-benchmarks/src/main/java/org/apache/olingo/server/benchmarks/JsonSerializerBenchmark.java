@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.olingo.commons.api.data.ContextURL;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
+import org.apache.olingo.server.api.serializer.ODataSerializer;
+import org.apache.olingo.server.api.serializer.SerializerException;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Throughput of <code>ODataJsonSerializer.entityCollection</code> for different
+ * payload sizes, metadata levels, and $select/$expand depths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializerBenchmark {
+
+  /** Expand and select options, from flat to two levels deep. */
+  private static final String[] QUERIES = {
+      null,
+      "$select=PropertyInt16,PropertyString",
+      "$expand=NavPropertyETTwoKeyNavOne",
+      "$expand=NavPropertyETKeyNavMany($expand=NavPropertyETTwoKeyNavMany)"
+  };
+
+  @Param({ "10", "100", "1000" })
+  public int size;
+
+  @Param({ "none", "minimal", "full" })
+  public String metadata;
+
+  @Param({ "0", "1", "2", "3" })
+  public int query;
+
+  private ServiceMetadata serviceMetadata;
+  private ODataSerializer serializer;
+  private EdmEntitySet entitySet;
+  private EntityCollection entityCollection;
+  private EntityCollectionSerializerOptions options;
+
+  @Setup
+  public void setup() throws SerializerException {
+    final TecSvcFixture fixture = new TecSvcFixture();
+    serviceMetadata = fixture.getServiceMetadata();
+    serializer = fixture.getOData().createSerializer(
+        ContentType.create(ContentType.APPLICATION_JSON, ContentType.PARAMETER_ODATA_METADATA, metadata));
+    entitySet = fixture.getEntitySet("ESKeyNav");
+    entityCollection = fixture.createEntityCollection("ESKeyNav", size);
+    final UriInfo uriInfo = fixture.parseUri("ESKeyNav", QUERIES[query]);
+    options = EntityCollectionSerializerOptions.with()
+        .contextURL(ContextURL.with().entitySet(entitySet).build())
+        .select(uriInfo.getSelectOption())
+        .expand(uriInfo.getExpandOption())
+        .build();
+  }
+
+  @Benchmark
+  public void entityCollection(final Blackhole blackhole) throws SerializerException, IOException {
+    final InputStream content = serializer.entityCollection(serviceMetadata, entitySet.getEntityType(),
+        entityCollection, options).getContent();
+    blackhole.consume(BenchmarkUtils.drain(content));
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Entry point of the benchmark jar.</p>
+ * <p>Runs the benchmarks selected on the command line (all of them if nothing is selected)
+ * with the GC profiler attached, so that every result carries the allocation rate next to
+ * the throughput, and writes the results as JSON to <code>target/jmh-result.json</code>
+ * to be kept as baseline of a release:</p>
+ * <pre>
+ * mvn -pl lib/server-benchmarks -am package
+ * java -jar lib/server-benchmarks/target/benchmarks.jar [JMH options] [benchmark regexp]
+ * </pre>
+ */
+public final class ServerBenchmarks {
+
+  private static final String RESULT_FILE = "target/jmh-result.json";
+
+  private ServerBenchmarks() {
+    // Only the main method is used.
+  }
+
+  public static void main(final String[] args) throws RunnerException, CommandLineOptionException {
+    final CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+    final Options options = new OptionsBuilder()
+        .parent(commandLineOptions)
+        .addProfiler(GCProfiler.class)
+        .resultFormat(commandLineOptions.getResultFormat().orElse(ResultFormatType.JSON))
+        .result(commandLineOptions.getResult().orElse(RESULT_FILE))
+        .build();
+    new Runner(options).run();
+  }
+}
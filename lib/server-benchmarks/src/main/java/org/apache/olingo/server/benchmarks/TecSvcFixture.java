@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.benchmarks;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.ex.ODataException;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.tecsvc.MetadataETagSupport;
+import org.apache.olingo.server.tecsvc.data.DataProvider;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+
+/**
+ * Shared set-up for the benchmarks: the technical service EDM together with the data
+ * created by the technical service's DataCreator.
+ */
+public final class TecSvcFixture {
+
+  public static final String SERVICE_ROOT = "http://localhost/odata/";
+
+  private final OData odata;
+  private final ServiceMetadata serviceMetadata;
+  private final DataProvider dataProvider;
+
+  public TecSvcFixture() {
+    odata = OData.newInstance();
+    serviceMetadata = odata.createServiceMetadata(new EdmTechProvider(),
+        Collections.<EdmxReference> emptyList(), new MetadataETagSupport("W/\"benchmark\""));
+    dataProvider = new DataProvider(odata, serviceMetadata.getEdm());
+  }
+
+  public OData getOData() {
+    return odata;
+  }
+
+  public ServiceMetadata getServiceMetadata() {
+    return serviceMetadata;
+  }
+
+  public Edm getEdm() {
+    return serviceMetadata.getEdm();
+  }
+
+  public EdmEntitySet getEntitySet(final String name) {
+    return getEdm().getEntityContainer().getEntitySet(name);
+  }
+
+  /**
+   * Returns an entity collection of the requested size built by repeating the entities
+   * the technical service provides for the given entity set.
+   * @param entitySetName name of an entity set of the technical service
+   * @param size number of entities in the result
+   */
+  public EntityCollection createEntityCollection(final String entitySetName, final int size) {
+    try {
+      final List<Entity> source = dataProvider.readAll(getEntitySet(entitySetName)).getEntities();
+      EntityCollection result = new EntityCollection();
+      for (int i = 0; i < size; i++) {
+        result.getEntities().add(source.get(i % source.size()));
+      }
+      return result;
+    } catch (final ODataException e) {
+      throw new IllegalStateException("Could not read entity set " + entitySetName, e);
+    }
+  }
+
+  /**
+   * Parses the given resource path and query with the server URI parser.
+   * @param path resource path, relative to the service root
+   * @param query query part of the URI, may be <code>null</code>
+   */
+  public UriInfo parseUri(final String path, final String query) {
+    try {
+      return new Parser(getEdm(), odata).parseUri(path, query, null, SERVICE_ROOT);
+    } catch (final ODataException e) {
+      throw new IllegalStateException("Could not parse URI " + path + '?' + query, e);
+    }
+  }
+}
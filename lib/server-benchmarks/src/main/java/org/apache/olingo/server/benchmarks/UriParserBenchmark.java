@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.UriInfoCache;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.core.uri.parser.UriParserException;
+import org.apache.olingo.server.core.uri.validator.UriValidationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of <code>Parser.parseUri</code> for typical request shapes,
+ * from a simple key access to long $filter expressions and nested $expand options.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UriParserBenchmark {
+
+  private static final String[][] URIS = {
+      { "ESAllPrim(32767)", null },
+      { "ESTwoKeyNav(PropertyInt16=1,PropertyString='1')/NavPropertyETKeyNavMany", "$top=10&$skip=2" },
+      { "ESAllPrim", "$filter=PropertyInt16 gt 10 and startswith(PropertyString,'First')"
+          + "&$orderby=PropertyDate desc,PropertyInt32&$select=PropertyInt16,PropertyString&$count=true" },
+      { "ESKeyNav", "$expand=NavPropertyETKeyNavMany($filter=PropertyInt16 ne 1;"
+          + "$expand=NavPropertyETTwoKeyNavMany($select=PropertyString;$top=5)),NavPropertyETTwoKeyNavOne"
+          + "&$select=PropertyInt16,PropertyCompNav" },
+      { "ESAllPrim", "$filter=PropertyInt16 in (" + keyList(500) + ")" },
+      { "ESAllPrim", "$filter=PropertyInt16 in (" + keyList(1000) + ") and contains(PropertyString,'a%20b')" }
+  };
+
+  @Param({ "0", "1", "2", "3", "4", "5" })
+  public int uri;
+
+  private TecSvcFixture fixture;
+  private String path;
+  private String query;
+  private UriInfoCache cache;
+  private UriInfoCache templateCache;
+  private int key;
+
+  @Setup
+  public void setup() {
+    fixture = new TecSvcFixture();
+    path = URIS[uri][0];
+    query = URIS[uri][1];
+    // Make sure the URI is valid before measuring anything.
+    fixture.parseUri(path, query);
+    cache = new UriInfoCache(100);
+    templateCache = new UriInfoCache(100, true);
+  }
+
+  @Benchmark
+  public UriInfo parseUri() throws UriParserException, UriValidationException {
+    return new Parser(fixture.getEdm(), fixture.getOData())
+        .parseUri(path, query, null, TecSvcFixture.SERVICE_ROOT);
+  }
+
+  /** Parsing with a cache hit for the complete URI. */
+  @Benchmark
+  public UriInfo parseUriCached() throws UriParserException, UriValidationException {
+    return new Parser(fixture.getEdm(), fixture.getOData(), cache)
+        .parseUri(path, query, null, TecSvcFixture.SERVICE_ROOT);
+  }
+
+  /**
+   * Parsing the query of an entity-set URI with a different key every time,
+   * so that only the system query options parsed for the request shape can be taken from the cache.
+   */
+  @Benchmark
+  public UriInfo parseUriTemplate() throws UriParserException, UriValidationException {
+    key = key == Short.MAX_VALUE ? 0 : key + 1;
+    final String keyPath = path.indexOf('(') < 0 && path.indexOf('/') < 0 ? path + '(' + key + ')' : path;
+    return new Parser(fixture.getEdm(), fixture.getOData(), templateCache)
+        .parseUri(keyPath, query, null, TecSvcFixture.SERVICE_ROOT);
+  }
+
+  private static String keyList(final int count) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      builder.append(i == 0 ? "" : ",").append(i);
+    }
+    return builder.toString();
+  }
+}
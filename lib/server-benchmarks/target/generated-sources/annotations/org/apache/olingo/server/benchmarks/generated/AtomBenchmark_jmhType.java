@@ -0,0 +1,4 @@
+package org.apache.olingo.server.benchmarks.generated;
+public class AtomBenchmark_jmhType extends AtomBenchmark_jmhType_B3 {
+}
+
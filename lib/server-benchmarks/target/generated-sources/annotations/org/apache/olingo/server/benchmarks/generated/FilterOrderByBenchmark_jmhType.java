@@ -0,0 +1,4 @@
+package org.apache.olingo.server.benchmarks.generated;
+public class FilterOrderByBenchmark_jmhType extends FilterOrderByBenchmark_jmhType_B3 {
+}
+
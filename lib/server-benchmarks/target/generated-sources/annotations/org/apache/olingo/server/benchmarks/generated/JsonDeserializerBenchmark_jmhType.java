@@ -0,0 +1,4 @@
+package org.apache.olingo.server.benchmarks.generated;
+public class JsonDeserializerBenchmark_jmhType extends JsonDeserializerBenchmark_jmhType_B3 {
+}
+
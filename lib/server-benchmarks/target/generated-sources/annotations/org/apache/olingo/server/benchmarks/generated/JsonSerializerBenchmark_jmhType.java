@@ -0,0 +1,4 @@
+package org.apache.olingo.server.benchmarks.generated;
+public class JsonSerializerBenchmark_jmhType extends JsonSerializerBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.olingo.server.benchmarks.generated;
+public class UriParserBenchmark_jmhType extends UriParserBenchmark_jmhType_B3 {
+}
+
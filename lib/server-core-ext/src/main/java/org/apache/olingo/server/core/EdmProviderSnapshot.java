@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * Binary snapshot of a {@link SchemaBasedEdmProvider}, so that a service can start up
+ * without parsing and resolving its CSDL documents again.
+ * <p>
+ * The snapshot is meant to be written at build time, e.g., with the {@link #main(String[])} method,
+ * and to be loaded at service startup with {@link #read(Path, String)}.
+ * It consists of a header with the format version, the metadata ETag the snapshot has been taken for,
+ * and a CRC32 checksum over ETag and payload, followed by the serialized provider.
+ * The payload is not compressed, so that it is deserialized directly from the file mapped into memory
+ * instead of being inflated onto the heap first.
+ * A snapshot taken for a different metadata ETag is treated as stale and not loaded.
+ */
+public final class EdmProviderSnapshot {
+
+  /** The bytes "OEDM". */
+  private static final int MAGIC = 0x4F45444D;
+  private static final int VERSION = 2;
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private static final String ALLOWED_PACKAGE = "org.apache.olingo.commons.api.";
+  /** The JDK classes the serialized form of the provider and its CSDL objects consists of. */
+  private static final Set<String> ALLOWED_CLASSES = new HashSet<String>(Arrays.asList(
+      SchemaBasedEdmProvider.class.getName(),
+      "java.lang.Boolean", "java.lang.Enum", "java.lang.Integer", "java.lang.Number", "java.lang.String",
+      "java.net.URI",
+      "java.util.ArrayList", "java.util.Arrays$ArrayList",
+      "java.util.concurrent.ConcurrentHashMap", "java.util.concurrent.ConcurrentHashMap$Segment",
+      "java.util.concurrent.locks.AbstractOwnableSynchronizer",
+      "java.util.concurrent.locks.AbstractQueuedSynchronizer",
+      "java.util.concurrent.locks.ReentrantLock", "java.util.concurrent.locks.ReentrantLock$NonfairSync",
+      "java.util.concurrent.locks.ReentrantLock$Sync"));
+
+  private EdmProviderSnapshot() {
+    // Static utility methods only.
+  }
+
+  /**
+   * Writes a snapshot of the provider.
+   * @param provider the EDM provider
+   * @param metadataETag the ETag of the metadata document the provider has been built from; may be <code>null</code>
+   * @param out the target stream; it is not closed
+   */
+  public static void write(final SchemaBasedEdmProvider provider, final String metadataETag, final OutputStream out)
+      throws IOException {
+    ByteArrayOutputStream payload = new ByteArrayOutputStream();
+    ObjectOutputStream objectOut = new ObjectOutputStream(payload);
+    objectOut.writeObject(provider);
+    objectOut.close();
+
+    final byte[] eTag = metadataETag == null ? new byte[0] : metadataETag.getBytes(UTF_8);
+    final byte[] content = payload.toByteArray();
+    CRC32 checksum = new CRC32();
+    checksum.update(eTag);
+    checksum.update(content);
+
+    DataOutputStream dataOut = new DataOutputStream(out);
+    dataOut.writeInt(MAGIC);
+    dataOut.writeInt(VERSION);
+    dataOut.writeInt(eTag.length);
+    dataOut.write(eTag);
+    dataOut.writeInt(content.length);
+    dataOut.writeLong(checksum.getValue());
+    dataOut.write(content);
+    dataOut.flush();
+  }
+
+  /**
+   * Writes a snapshot of the provider to a file, replacing an existing one.
+   * @see #write(SchemaBasedEdmProvider, String, OutputStream)
+   */
+  public static void write(final SchemaBasedEdmProvider provider, final String metadataETag, final Path file)
+      throws IOException {
+    OutputStream out = Files.newOutputStream(file);
+    try {
+      write(provider, metadataETag, out);
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Reads a snapshot from a file which is mapped into memory.
+   * @param file the snapshot file
+   * @param expectedMetadataETag the current ETag of the metadata document; <code>null</code> to accept any snapshot
+   * @return the EDM provider or <code>null</code> if the snapshot has been taken for another metadata ETag
+   * @throws StreamCorruptedException if the file is not a valid snapshot
+   */
+  public static SchemaBasedEdmProvider read(final Path file, final String expectedMetadataETag) throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), expectedMetadataETag);
+    } finally {
+      channel.close();
+    }
+  }
+
+  /**
+   * Reads a snapshot from a buffer, starting at its position.
+   * @see #read(Path, String)
+   */
+  public static SchemaBasedEdmProvider read(final ByteBuffer buffer, final String expectedMetadataETag)
+      throws IOException {
+    final ByteBuffer snapshot = buffer.slice();
+    try {
+      if (snapshot.getInt() != MAGIC) {
+        throw new StreamCorruptedException("Not an EDM snapshot.");
+      }
+      final int version = snapshot.getInt();
+      if (version != VERSION) {
+        throw new StreamCorruptedException("Unsupported EDM snapshot version " + version + '.');
+      }
+      byte[] eTag = new byte[snapshot.getInt()];
+      snapshot.get(eTag);
+      final int length = snapshot.getInt();
+      final long expectedChecksum = snapshot.getLong();
+      if (length < 0 || length > snapshot.remaining()) {
+        throw new StreamCorruptedException("Truncated EDM snapshot.");
+      }
+      ByteBuffer content = snapshot.slice();
+      content.limit(length);
+
+      CRC32 checksum = new CRC32();
+      checksum.update(eTag);
+      checksum.update(content.duplicate());
+      if (checksum.getValue() != expectedChecksum) {
+        throw new StreamCorruptedException("Checksum mismatch in EDM snapshot.");
+      }
+      if (expectedMetadataETag != null && !expectedMetadataETag.equals(new String(eTag, UTF_8))) {
+        return null;
+      }
+
+      ObjectInputStream objectIn = new SnapshotObjectInputStream(new ByteBufferInputStream(content));
+      try {
+        return (SchemaBasedEdmProvider) objectIn.readObject();
+      } finally {
+        objectIn.close();
+      }
+    } catch (final RuntimeException e) {
+      // Buffer underflows and illegal lengths from a damaged header.
+      throw new StreamCorruptedException("Invalid EDM snapshot: " + e.getMessage());
+    } catch (final ClassNotFoundException e) {
+      throw new InvalidClassException(e.getMessage());
+    }
+  }
+
+  /**
+   * Parses a CSDL document and writes the snapshot of the resulting provider.
+   * Arguments: CSDL file, snapshot file, and optionally the metadata ETag.
+   */
+  public static void main(final String[] args) throws IOException, XMLStreamException {
+    if (args.length < 2 || args.length > 3) {
+      throw new IllegalArgumentException("Usage: " + EdmProviderSnapshot.class.getName()
+          + " <CSDL file> <snapshot file> [<metadata ETag>]");
+    }
+    Reader csdl = Files.newBufferedReader(Paths.get(args[0]), UTF_8);
+    try {
+      write(new MetadataParser().buildEdmProvider(csdl), args.length > 2 ? args[2] : null, Paths.get(args[1]));
+    } finally {
+      csdl.close();
+    }
+  }
+
+  /** Restricts deserialization to the classes an EDM provider consists of. */
+  private static final class SnapshotObjectInputStream extends ObjectInputStream {
+
+    private SnapshotObjectInputStream(final InputStream in) throws IOException {
+      super(in);
+    }
+
+    @Override
+    protected Class<?> resolveClass(final ObjectStreamClass description) throws IOException, ClassNotFoundException {
+      String name = description.getName();
+      while (name.startsWith("[")) {
+        name = name.substring(1);
+      }
+      if (name.length() > 1 && name.startsWith("L") && name.endsWith(";")) {
+        name = name.substring(1, name.length() - 1);
+      }
+      if (!isAllowed(name)) {
+        throw new InvalidClassException(description.getName(), "Class not allowed in an EDM snapshot.");
+      }
+      return super.resolveClass(description);
+    }
+
+    private static boolean isAllowed(final String name) {
+      return name.length() == 1 || name.startsWith(ALLOWED_PACKAGE) || ALLOWED_CLASSES.contains(name);
+    }
+  }
+
+  private static final class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    private ByteBufferInputStream(final ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      final int count = Math.min(len, buffer.remaining());
+      buffer.get(b, off, count);
+      return count;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+}
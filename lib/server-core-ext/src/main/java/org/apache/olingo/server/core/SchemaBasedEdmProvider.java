@@ -18,12 +18,19 @@
  */
 package org.apache.olingo.server.core;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.apache.olingo.commons.api.edm.FullQualifiedName;
 import org.apache.olingo.commons.api.edm.provider.CsdlAction;
@@ -39,6 +46,7 @@ import org.apache.olingo.commons.api.edm.provider.CsdlEntityType;
 import org.apache.olingo.commons.api.edm.provider.CsdlEnumType;
 import org.apache.olingo.commons.api.edm.provider.CsdlFunction;
 import org.apache.olingo.commons.api.edm.provider.CsdlFunctionImport;
+import org.apache.olingo.commons.api.edm.provider.CsdlNamed;
 import org.apache.olingo.commons.api.edm.provider.CsdlSchema;
 import org.apache.olingo.commons.api.edm.provider.CsdlSingleton;
 import org.apache.olingo.commons.api.edm.provider.CsdlTerm;
@@ -47,8 +55,15 @@ import org.apache.olingo.commons.api.edmx.EdmxReference;
 import org.apache.olingo.commons.api.edmx.EdmxReferenceInclude;
 import org.apache.olingo.commons.api.ex.ODataException;
 
-public class SchemaBasedEdmProvider implements CsdlEdmProvider {
+/**
+ * EDM provider backed by CSDL schemas, as built by the {@link MetadataParser}.
+ * The provider is serializable, see {@link EdmProviderSnapshot}.
+ */
+public class SchemaBasedEdmProvider implements CsdlEdmProvider, Serializable {
+  private static final long serialVersionUID = -4630158209573129148L;
+
   private final List<CsdlSchema> edmSchemas = new ArrayList<>();
+  private transient Map<String, SchemaIndex> schemaIndexes = new ConcurrentHashMap<>();
   private final Map<String, EdmxReference> references = new ConcurrentHashMap<>();
   private final Map<String, SchemaBasedEdmProvider> referenceSchemas = 
       new ConcurrentHashMap<>();
@@ -57,6 +72,21 @@ public class SchemaBasedEdmProvider implements CsdlEdmProvider {
   
   protected void addSchema(CsdlSchema schema) {
     this.edmSchemas.add(schema);
+    indexSchema(schema);
+  }
+
+  private void indexSchema(CsdlSchema schema) {
+    if (schema.getNamespace() != null && !this.schemaIndexes.containsKey(schema.getNamespace())) {
+      this.schemaIndexes.put(schema.getNamespace(), new SchemaIndex(schema));
+    }
+  }
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    this.schemaIndexes = new ConcurrentHashMap<>();
+    for (CsdlSchema schema : this.edmSchemas) {
+      indexSchema(schema);
+    }
   }
   
   public List<EdmxReference> getReferences(){
@@ -78,9 +108,14 @@ public class SchemaBasedEdmProvider implements CsdlEdmProvider {
   }  
   
   CsdlSchema getVocabularySchema(String ns) {
-    SchemaBasedEdmProvider provider = this.coreVocabularySchemas.get(ns);
+    SchemaIndex index = getVocabularySchemaIndex(ns);
+    return index == null ? null : index.schema;
+  }
+
+  private SchemaIndex getVocabularySchemaIndex(String ns) {
+    SchemaBasedEdmProvider provider = ns == null ? null : this.coreVocabularySchemas.get(ns);
     if (provider != null) {
-      return provider.getSchema(ns, false);
+      return provider.getSchemaIndexDirectly(ns);
     }
     return null;
   }
@@ -90,25 +125,35 @@ public class SchemaBasedEdmProvider implements CsdlEdmProvider {
   }  
   
   CsdlSchema getSchema(String ns, boolean checkReferences) {
+    SchemaIndex index = getSchemaIndex(ns, checkReferences);
+    return index == null ? null : index.schema;
+  }
+
+  private SchemaIndex getSchemaIndex(String ns, boolean checkReferences) {
     if (checkReferences) {
-      return getSchemaRecursively(ns, new HashSet<String>());
+      return getSchemaIndexRecursively(ns, new HashSet<String>());
     } else {
-      return getSchemaDirectly(ns);
+      return getSchemaIndexDirectly(ns);
     }
   }
 
   CsdlSchema getSchemaDirectly(String ns) {
-    for (CsdlSchema s : this.edmSchemas) {
-      if (s.getNamespace().equals(ns)) {
-        return s;
-      }
-    }
-    return null;
+    SchemaIndex index = getSchemaIndexDirectly(ns);
+    return index == null ? null : index.schema;
+  }
+
+  private SchemaIndex getSchemaIndexDirectly(String ns) {
+    return ns == null ? null : this.schemaIndexes.get(ns);
   }
 
   CsdlSchema getSchemaRecursively(String ns, Set<String> parsedPath) {
+    SchemaIndex index = getSchemaIndexRecursively(ns, parsedPath);
+    return index == null ? null : index.schema;
+  }
+
+  private SchemaIndex getSchemaIndexRecursively(String ns, Set<String> parsedPath) {
     // find the schema by namespace in current provider
-    CsdlSchema schema = getSchemaDirectly(ns);
+    SchemaIndex schema = getSchemaIndexDirectly(ns);
     if (schema != null) {
       return schema;
     }
@@ -121,144 +166,71 @@ public class SchemaBasedEdmProvider implements CsdlEdmProvider {
       }
       SchemaBasedEdmProvider provider = entry.getValue();
       parsedPath.add(namespace);
-      schema = provider.getSchemaRecursively(ns, parsedPath);
+      schema = provider.getSchemaIndexRecursively(ns, parsedPath);
       if (schema != null) {
         return schema;
       }
     }
 
-    return getVocabularySchema(ns);
+    return getVocabularySchemaIndex(ns);
   }
   
   @Override
   public CsdlEnumType getEnumType(FullQualifiedName fqn) throws ODataException {
-    CsdlSchema schema = getSchema(fqn.getNamespace());
-    if (schema != null) {
-      List<CsdlEnumType> types = schema.getEnumTypes();
-      if (types != null) {
-        for (CsdlEnumType type : types) {
-          if (type.getName().equals(fqn.getName())) {
-            return type;
-          }
-        }
-      }
-    }
-    return null;
+    SchemaIndex index = getSchemaIndex(fqn.getNamespace(), true);
+    return index == null ? null :
+        index.getFirst(Kind.ENUM_TYPE, index.schema.getEnumTypes(), fqn.getName());
   }
 
   @Override
   public CsdlTypeDefinition getTypeDefinition(FullQualifiedName fqn) throws ODataException {
-    CsdlSchema schema = getSchema(fqn.getNamespace());
-    if (schema != null) {
-      List<CsdlTypeDefinition> types = schema.getTypeDefinitions();
-      if (types != null) {
-        for (CsdlTypeDefinition type : types) {
-          if (type.getName().equals(fqn.getName())) {
-            return type;
-          }
-        }
-      }
-    }
-    return null;
+    SchemaIndex index = getSchemaIndex(fqn.getNamespace(), true);
+    return index == null ? null :
+        index.getFirst(Kind.TYPE_DEFINITION, index.schema.getTypeDefinitions(), fqn.getName());
   }
 
   @Override
   public List<CsdlFunction> getFunctions(FullQualifiedName fqn) throws ODataException {
-    ArrayList<CsdlFunction> foundFuncs = new ArrayList<>();
-    CsdlSchema schema = getSchema(fqn.getNamespace());
-    if (schema != null) {
-      List<CsdlFunction> functions = schema.getFunctions();
-      if (functions != null) {
-        for (CsdlFunction func : functions) {
-          if (func.getName().equals(fqn.getName())) {
-            foundFuncs.add(func);
-          }
-        }
-      }
-    }
-    return foundFuncs;
+    SchemaIndex index = getSchemaIndex(fqn.getNamespace(), true);
+    return index == null ? new ArrayList<CsdlFunction>() :
+        new ArrayList<CsdlFunction>(index.getAll(Kind.FUNCTION, index.schema.getFunctions(), fqn.getName()));
   }
 
   @Override
   public CsdlTerm getTerm(FullQualifiedName fqn) throws ODataException {
-    CsdlSchema schema = getSchema(fqn.getNamespace());
-    if (schema != null) {
-      List<CsdlTerm> terms = schema.getTerms();
-      if (terms != null) {
-        for (CsdlTerm term : terms) {
-          if (term.getName().equals(fqn.getName())) {
-            return term;
-          }
-        }
-      }
-    }
-    return null;
+    SchemaIndex index = getSchemaIndex(fqn.getNamespace(), true);
+    return index == null ? null :
+        index.getFirst(Kind.TERM, index.schema.getTerms(), fqn.getName());
   }
 
   @Override
   public CsdlEntitySet getEntitySet(FullQualifiedName fqn, String entitySetName) throws ODataException {
-    CsdlSchema schema = getSchema(fqn.getNamespace());
-    if (schema != null) {
-      CsdlEntityContainer ec = schema.getEntityContainer();
-      if (ec != null && ec.getEntitySets() != null) {
-        for (CsdlEntitySet es : ec.getEntitySets()) {
-          if (es.getName().equals(entitySetName)) {
-            return es;
-          }
-        }
-      }
-    }
-    return null;
+    SchemaIndex index = getSchemaIndex(fqn.getNamespace(), true);
+    return index == null ? null :
+        index.getFirst(Kind.ENTITY_SET, index.getEntitySets(), entitySetName);
   }
 
   @Override
   public CsdlSingleton getSingleton(FullQualifiedName fqn, String singletonName) throws ODataException {
-    CsdlSchema schema = getSchema(fqn.getNamespace());
-    if (schema != null) {
-      CsdlEntityContainer ec = schema.getEntityContainer();
-      if (ec != null && ec.getSingletons() != null) {
-        for (CsdlSingleton es : ec.getSingletons()) {
-          if (es.getName().equals(singletonName)) {
-            return es;
-          }
-        }
-      }
-    }
-    return null;
+    SchemaIndex index = getSchemaIndex(fqn.getNamespace(), true);
+    return index == null ? null :
+        index.getFirst(Kind.SINGLETON, index.getSingletons(), singletonName);
   }
 
   @Override
   public CsdlActionImport getActionImport(FullQualifiedName fqn, String actionImportName)
       throws ODataException {
-    CsdlSchema schema = getSchema(fqn.getNamespace());
-    if (schema != null) {
-      CsdlEntityContainer ec = schema.getEntityContainer();
-      if (ec != null && ec.getActionImports() != null) {
-        for (CsdlActionImport es : ec.getActionImports()) {
-          if (es.getName().equals(actionImportName)) {
-            return es;
-          }
-        }
-      }
-    }
-    return null;
+    SchemaIndex index = getSchemaIndex(fqn.getNamespace(), true);
+    return index == null ? null :
+        index.getFirst(Kind.ACTION_IMPORT, index.getActionImports(), actionImportName);
   }
 
   @Override
   public CsdlFunctionImport getFunctionImport(FullQualifiedName fqn, String functionImportName)
       throws ODataException {
-    CsdlSchema schema = getSchema(fqn.getNamespace());
-    if (schema != null) {
-      CsdlEntityContainer ec = schema.getEntityContainer();
-      if (ec != null && ec.getFunctionImports() != null) {
-        for (CsdlFunctionImport es : ec.getFunctionImports()) {
-          if (es.getName().equals(functionImportName)) {
-            return es;
-          }
-        }
-      }
-    }
-    return null;
+    SchemaIndex index = getSchemaIndex(fqn.getNamespace(), true);
+    return index == null ? null :
+        index.getFirst(Kind.FUNCTION_IMPORT, index.getFunctionImports(), functionImportName);
   }
 
   @Override
@@ -343,45 +315,23 @@ public class SchemaBasedEdmProvider implements CsdlEdmProvider {
 
   @Override
   public CsdlEntityType getEntityType(final FullQualifiedName fqn) throws ODataException {
-    CsdlSchema schema = getSchema(fqn.getNamespace());
-    if (schema != null && schema.getEntityTypes() != null) {
-      for (CsdlEntityType type : schema.getEntityTypes()) {
-        if (type.getName().equals(fqn.getName())) {
-          return type;
-        }
-      }
-    }
-    return null;
+    SchemaIndex index = getSchemaIndex(fqn.getNamespace(), true);
+    return index == null ? null :
+        index.getFirst(Kind.ENTITY_TYPE, index.schema.getEntityTypes(), fqn.getName());
   }
 
   @Override
   public CsdlComplexType getComplexType(final FullQualifiedName fqn) throws ODataException {
-    CsdlSchema schema = getSchema(fqn.getNamespace());
-    if (schema != null && schema.getComplexTypes() != null) {
-      for (CsdlComplexType type : schema.getComplexTypes()) {
-        if (type.getName().equals(fqn.getName())) {
-          return type;
-        }
-      }
-    }
-    return null;
+    SchemaIndex index = getSchemaIndex(fqn.getNamespace(), true);
+    return index == null ? null :
+        index.getFirst(Kind.COMPLEX_TYPE, index.schema.getComplexTypes(), fqn.getName());
   }
 
   @Override
   public List<CsdlAction> getActions(final FullQualifiedName fqn) throws ODataException {
-    ArrayList<CsdlAction> actions = new ArrayList<>();
-    CsdlSchema schema = getSchema(fqn.getNamespace());
-    if (schema != null) {
-      List<CsdlAction> types = schema.getActions();
-      if (types != null) {
-        for (CsdlAction type : types) {
-          if (type.getName().equals(fqn.getName())) {
-            actions.add(type);
-          }
-        }
-      }
-    }
-    return actions;
+    SchemaIndex index = getSchemaIndex(fqn.getNamespace(), true);
+    return index == null ? new ArrayList<CsdlAction>() :
+        new ArrayList<CsdlAction>(index.getAll(Kind.ACTION, index.schema.getActions(), fqn.getName()));
   }
 
   @Override
@@ -392,4 +342,156 @@ public class SchemaBasedEdmProvider implements CsdlEdmProvider {
     }
     return null;
   } 
+
+  /** Kinds of schema elements which are looked up by name. */
+  private enum Kind {
+    ENTITY_TYPE, COMPLEX_TYPE, ENUM_TYPE, TYPE_DEFINITION, TERM, ACTION, FUNCTION,
+    ENTITY_SET, SINGLETON, ACTION_IMPORT, FUNCTION_IMPORT
+  }
+
+  /**
+   * Name indexes of the elements of a schema, built when the schema is added.
+   * Since schemas can still be completed after they have been added, an index is rebuilt
+   * if the list of elements it has been built from has been replaced or resized,
+   * if an indexed element has been replaced by or renamed to one with another name,
+   * or if an element with a name not in the index is found in the list.
+   * Only an element renamed to the name of another element is not found until the index is rebuilt.
+   */
+  private static final class SchemaIndex {
+    private final CsdlSchema schema;
+    private final AtomicReferenceArray<NameIndex<?>> indexes =
+        new AtomicReferenceArray<>(Kind.values().length);
+
+    private SchemaIndex(final CsdlSchema schema) {
+      this.schema = schema;
+      index(Kind.ENTITY_TYPE, schema.getEntityTypes());
+      index(Kind.COMPLEX_TYPE, schema.getComplexTypes());
+      index(Kind.ENUM_TYPE, schema.getEnumTypes());
+      index(Kind.TYPE_DEFINITION, schema.getTypeDefinitions());
+      index(Kind.TERM, schema.getTerms());
+      index(Kind.ACTION, schema.getActions());
+      index(Kind.FUNCTION, schema.getFunctions());
+      index(Kind.ENTITY_SET, getEntitySets());
+      index(Kind.SINGLETON, getSingletons());
+      index(Kind.ACTION_IMPORT, getActionImports());
+      index(Kind.FUNCTION_IMPORT, getFunctionImports());
+    }
+
+    private <T extends CsdlNamed> NameIndex<T> index(final Kind kind, final List<T> elements) {
+      final NameIndex<T> index = new NameIndex<>(elements);
+      indexes.set(kind.ordinal(), index);
+      return index;
+    }
+
+    private <T extends CsdlNamed> T getFirst(final Kind kind, final List<T> elements, final String name) {
+      return get(kind, elements, name).getFirst(name);
+    }
+
+    private <T extends CsdlNamed> List<T> getAll(final Kind kind, final List<T> elements, final String name) {
+      return get(kind, elements, name).getAll(name);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends CsdlNamed> NameIndex<T> get(final Kind kind, final List<T> elements, final String name) {
+      final NameIndex<T> index = (NameIndex<T>) indexes.get(kind.ordinal());
+      if (index == null || !index.isBuiltFrom(elements) || !index.isCurrent(name)
+          || !index.contains(name) && NameIndex.find(elements, name)) {
+        return index(kind, elements);
+      }
+      return index;
+    }
+
+    private List<CsdlEntitySet> getEntitySets() {
+      return schema.getEntityContainer() == null ? null : schema.getEntityContainer().getEntitySets();
+    }
+
+    private List<CsdlSingleton> getSingletons() {
+      return schema.getEntityContainer() == null ? null : schema.getEntityContainer().getSingletons();
+    }
+
+    private List<CsdlActionImport> getActionImports() {
+      return schema.getEntityContainer() == null ? null : schema.getEntityContainer().getActionImports();
+    }
+
+    private List<CsdlFunctionImport> getFunctionImports() {
+      return schema.getEntityContainer() == null ? null : schema.getEntityContainer().getFunctionImports();
+    }
+  }
+
+  /**
+   * Index by name of a list of schema elements; keeps the order of elements with equal names.
+   * The elements are read from the list, so an element replaced by one with the same name is found.
+   */
+  private static final class NameIndex<T extends CsdlNamed> {
+    private final List<T> elements;
+    private final int size;
+    private final Map<String, int[]> positions;
+
+    private NameIndex(final List<T> elements) {
+      this.elements = elements;
+      size = elements == null ? 0 : elements.size();
+      positions = new HashMap<>();
+      for (int i = 0; i < size; i++) {
+        final String name = elements.get(i).getName();
+        final int[] named = positions.get(name);
+        if (named == null) {
+          positions.put(name, new int[] { i });
+        } else {
+          final int[] extended = Arrays.copyOf(named, named.length + 1);
+          extended[named.length] = i;
+          positions.put(name, extended);
+        }
+      }
+    }
+
+    private static boolean find(final List<? extends CsdlNamed> list, final String name) {
+      if (list != null) {
+        for (CsdlNamed element : list) {
+          if (name == null ? element.getName() == null : name.equals(element.getName())) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
+    private boolean isBuiltFrom(final List<?> list) {
+      return list == elements && (list == null || list.size() == size);
+    }
+
+    private boolean contains(final String name) {
+      return positions.containsKey(name);
+    }
+
+    /** Whether the elements at the positions indexed for the given name still have that name. */
+    private boolean isCurrent(final String name) {
+      final int[] named = positions.get(name);
+      if (named != null) {
+        for (final int position : named) {
+          final String current = elements.get(position).getName();
+          if (name == null ? current != null : !name.equals(current)) {
+            return false;
+          }
+        }
+      }
+      return true;
+    }
+
+    private T getFirst(final String name) {
+      final int[] named = positions.get(name);
+      return named == null ? null : elements.get(named[0]);
+    }
+
+    private List<T> getAll(final String name) {
+      final int[] named = positions.get(name);
+      if (named == null) {
+        return Collections.<T> emptyList();
+      }
+      final List<T> result = new ArrayList<>(named.length);
+      for (final int position : named) {
+        result.add(elements.get(position));
+      }
+      return result;
+    }
+  }
 }
@@ -24,6 +24,7 @@ import java.util.Map;
 import org.apache.olingo.commons.api.data.ContextURL;
 import org.apache.olingo.commons.api.data.Entity;
 import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.EntityIterator;
 import org.apache.olingo.commons.api.edm.EdmAction;
 import org.apache.olingo.commons.api.edm.EdmEntityType;
 import org.apache.olingo.commons.api.edm.EdmFunction;
@@ -86,6 +87,24 @@ public class EntitySetResponse extends ServiceResponse {
     close();
   }
 
+  // write collection of entities while the iterator delivers them;
+  // no operations are advertised because the entities are not known in advance
+  public void writeReadEntitySet(EdmEntityType entityType, EntityIterator entities)
+      throws SerializerException {
+
+    assert (!isClosed());
+
+    if (entities == null) {
+      writeNotFound(true);
+      return;
+    }
+
+    this.response.setODataContent(this.serializer.entityCollectionStreamed(metadata, entityType, entities,
+        this.options).getODataContent());
+    writeOK(responseContentType);
+    close();
+  }
+
   @Override
   public void accepts(ServiceResponseVisior visitor) throws ODataLibraryException,
       ODataApplicationException {
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileReader;
+import java.io.InvalidClassException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedList;
+
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.commons.api.edm.provider.CsdlAnnotation;
+import org.apache.olingo.commons.api.edm.provider.CsdlEntityType;
+import org.apache.olingo.commons.api.edm.provider.CsdlSchema;
+import org.apache.olingo.commons.api.edm.provider.CsdlTerm;
+import org.apache.olingo.commons.api.edm.provider.annotation.CsdlApply;
+import org.junit.Test;
+
+public class EdmProviderSnapshotTest {
+  private static final String TRIPPIN = "Microsoft.OData.SampleService.Models.TripPin";
+
+  @Test
+  public void fileRoundTrip() throws Exception {
+    final SchemaBasedEdmProvider provider =
+        new MetadataParser().buildEdmProvider(new FileReader("src/test/resources/trippin.xml"));
+    Path file = Files.createTempFile("edm", ".snapshot");
+    try {
+      EdmProviderSnapshot.write(provider, "W/\"1\"", file);
+      final SchemaBasedEdmProvider loaded = EdmProviderSnapshot.read(file, "W/\"1\"");
+      assertNotNull(loaded);
+
+      final CsdlEntityType person = loaded.getEntityType(new FullQualifiedName(TRIPPIN, "Person"));
+      assertNotNull(person);
+      assertEquals(provider.getEntityType(new FullQualifiedName(TRIPPIN, "Person")).getProperties().size(),
+          person.getProperties().size());
+      assertEquals("UserName", person.getKey().get(0).getName());
+      assertNotNull(loaded.getEntitySet(new FullQualifiedName(TRIPPIN, "DefaultContainer"), "People"));
+      assertEquals(provider.getSchemas().size(), loaded.getSchemas().size());
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void annotationsAndVocabularies() throws Exception {
+    MetadataParser parser = new MetadataParser();
+    parser.parseAnnotations(true);
+    parser.useLocalCoreVocabularies(true);
+    final SchemaBasedEdmProvider loaded = EdmProviderSnapshot.read(
+        ByteBuffer.wrap(snapshot(parser.buildEdmProvider(new FileReader("src/test/resources/annotations.xml")), null)),
+        null);
+
+    final CsdlAnnotation annotation = loaded.getSchemas().get(0).getAnnotation("org.example.display.DisplayNameApply");
+    assertNotNull(annotation);
+    final CsdlApply apply = annotation.getExpression().asDynamic().asApply();
+    assertEquals("odata.concat", apply.getFunction());
+    final CsdlTerm term = loaded.getTerm(new FullQualifiedName("Org.OData.Core.V1", "Description"));
+    assertNotNull(term);
+    assertEquals("Edm.String", term.getType());
+  }
+
+  @Test
+  public void staleSnapshot() throws Exception {
+    final byte[] snapshot = snapshot(new SchemaBasedEdmProvider(), "W/\"1\"");
+    assertNull(EdmProviderSnapshot.read(ByteBuffer.wrap(snapshot), "W/\"2\""));
+    assertNotNull(EdmProviderSnapshot.read(ByteBuffer.wrap(snapshot), null));
+  }
+
+  @Test
+  public void classNotAllowed() throws Exception {
+    SchemaBasedEdmProvider provider = new SchemaBasedEdmProvider();
+    provider.addSchema(new CsdlSchema().setNamespace("Namespace").setEntityTypes(new LinkedList<CsdlEntityType>()));
+    try {
+      EdmProviderSnapshot.read(ByteBuffer.wrap(snapshot(provider, null)), null);
+      fail("Expected InvalidClassException");
+    } catch (final InvalidClassException e) {
+      assertEquals(LinkedList.class.getName(), e.classname);
+    }
+  }
+
+  @Test
+  public void corruptSnapshot() throws Exception {
+    final byte[] snapshot = snapshot(new SchemaBasedEdmProvider(), "W/\"1\"");
+    snapshot[snapshot.length - 1] ^= 1;
+    expectCorrupt(snapshot);
+    expectCorrupt(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+    expectCorrupt(new byte[] { 'O', 'E', 'D', 'M', 0 });
+  }
+
+  private void expectCorrupt(final byte[] snapshot) throws Exception {
+    try {
+      EdmProviderSnapshot.read(ByteBuffer.wrap(snapshot), null);
+      fail("Expected StreamCorruptedException");
+    } catch (final StreamCorruptedException e) {
+      assertNotNull(e.getMessage());
+    }
+  }
+
+  private byte[] snapshot(final SchemaBasedEdmProvider provider, final String eTag) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    EdmProviderSnapshot.write(provider, eTag, out);
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.commons.api.edm.provider.CsdlEntityContainer;
+import org.apache.olingo.commons.api.edm.provider.CsdlEntitySet;
+import org.apache.olingo.commons.api.edm.provider.CsdlEntityType;
+import org.apache.olingo.commons.api.edm.provider.CsdlFunction;
+import org.apache.olingo.commons.api.edm.provider.CsdlSchema;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SchemaBasedEdmProviderTest {
+  private static final String NS = "Namespace";
+
+  private SchemaBasedEdmProvider provider;
+  private CsdlSchema schema;
+
+  @Before
+  public void setUp() {
+    schema = new CsdlSchema().setNamespace(NS);
+    final List<CsdlEntityType> entityTypes = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      entityTypes.add(new CsdlEntityType().setName("Type" + i));
+    }
+    schema.setEntityTypes(entityTypes);
+    schema.setFunctions(new ArrayList<>(Arrays.asList(
+        new CsdlFunction().setName("F"), new CsdlFunction().setName("G"), new CsdlFunction().setName("F"))));
+    schema.setEntityContainer(new CsdlEntityContainer().setName("Container")
+        .setEntitySets(new ArrayList<>(Arrays.asList(new CsdlEntitySet().setName("Set")))));
+    provider = new SchemaBasedEdmProvider();
+    provider.addSchema(schema);
+  }
+
+  @Test
+  public void lookupByName() throws Exception {
+    assertSame(schema.getEntityTypes().get(42), provider.getEntityType(new FullQualifiedName(NS, "Type42")));
+    assertNull(provider.getEntityType(new FullQualifiedName(NS, "Unknown")));
+    assertNull(provider.getEntityType(new FullQualifiedName("Other", "Type42")));
+    assertNull(provider.getComplexType(new FullQualifiedName(NS, "Type42")));
+    assertSame(schema.getEntityContainer().getEntitySets().get(0),
+        provider.getEntitySet(new FullQualifiedName(NS, "Container"), "Set"));
+    assertNull(provider.getSingleton(new FullQualifiedName(NS, "Container"), "Set"));
+  }
+
+  @Test
+  public void overloads() throws Exception {
+    final List<CsdlFunction> functions = provider.getFunctions(new FullQualifiedName(NS, "F"));
+    assertEquals(2, functions.size());
+    assertSame(schema.getFunctions().get(0), functions.get(0));
+    assertSame(schema.getFunctions().get(2), functions.get(1));
+    assertTrue(provider.getFunctions(new FullQualifiedName(NS, "H")).isEmpty());
+    assertTrue(provider.getActions(new FullQualifiedName(NS, "F")).isEmpty());
+  }
+
+  @Test
+  public void schemaChangedAfterAdding() throws Exception {
+    assertNull(provider.getEntityType(new FullQualifiedName(NS, "New")));
+    final CsdlEntityType newType = new CsdlEntityType().setName("New");
+    schema.getEntityTypes().add(newType);
+    assertSame(newType, provider.getEntityType(new FullQualifiedName(NS, "New")));
+
+    final CsdlEntitySet newSet = new CsdlEntitySet().setName("Set");
+    schema.setEntityContainer(new CsdlEntityContainer().setName("Container")
+        .setEntitySets(new ArrayList<>(Arrays.asList(newSet))));
+    assertSame(newSet, provider.getEntitySet(new FullQualifiedName(NS, "Container"), "Set"));
+  }
+
+  @Test
+  public void elementReplacedOrRenamed() throws Exception {
+    final CsdlEntityType replacement = new CsdlEntityType().setName("Replacement");
+    schema.getEntityTypes().set(3, replacement);
+    assertNull(provider.getEntityType(new FullQualifiedName(NS, "Type3")));
+    assertSame(replacement, provider.getEntityType(new FullQualifiedName(NS, "Replacement")));
+
+    final CsdlEntityType sameName = new CsdlEntityType().setName("Type4");
+    schema.getEntityTypes().set(4, sameName);
+    assertSame(sameName, provider.getEntityType(new FullQualifiedName(NS, "Type4")));
+
+    schema.getEntityTypes().get(5).setName("Renamed");
+    assertNull(provider.getEntityType(new FullQualifiedName(NS, "Type5")));
+    assertSame(schema.getEntityTypes().get(5), provider.getEntityType(new FullQualifiedName(NS, "Renamed")));
+  }
+
+  @Test
+  public void firstSchemaWins() throws Exception {
+    provider.addSchema(new CsdlSchema().setNamespace(NS)
+        .setEntityTypes(Arrays.asList(new CsdlEntityType().setName("Type42"))));
+    assertSame(schema.getEntityTypes().get(42), provider.getEntityType(new FullQualifiedName(NS, "Type42")));
+    assertEquals(2, provider.getSchemas().size());
+  }
+
+  @Test
+  public void referencedSchema() throws Exception {
+    final SchemaBasedEdmProvider referencing = new SchemaBasedEdmProvider();
+    referencing.addReferenceSchema(NS, provider);
+    assertSame(schema.getEntityTypes().get(7), referencing.getEntityType(new FullQualifiedName(NS, "Type7")));
+    assertSame(schema, referencing.getSchema(NS));
+    assertNull(referencing.getSchemaDirectly(NS));
+  }
+}
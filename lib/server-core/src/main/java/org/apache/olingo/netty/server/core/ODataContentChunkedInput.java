@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.netty.server.core;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.olingo.server.api.ODataContent;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.stream.ChunkedInput;
+import io.netty.handler.stream.ChunkedWriteHandler;
+
+/**
+ * Chunked input which produces the chunks of an {@link ODataContent} while they are sent.
+ * <p>The content is written by a task of the given executor into a bounded queue of chunks.
+ * If the client reads slower than the content is produced, the queue fills up and the
+ * writing task waits; so at most a few chunks are held in memory, independent of the size of the content.
+ * The chunks are handed over to Netty without copying.</p>
+ * <p>{@link #isEndOfInput()} and {@link #readChunk(ByteBufAllocator)} never wait, so that the event loop is not
+ * blocked: if no chunk has been produced yet, <code>readChunk</code> returns <code>null</code>, and the
+ * {@link ChunkedWriteHandler} of the channel's pipeline is resumed as soon as the next chunk is queued.
+ * If the content cannot be written completely, the channel is closed without the terminating chunk,
+ * so that the client can tell the response is incomplete.</p>
+ */
+public class ODataContentChunkedInput implements ChunkedInput<ByteBuf> {
+
+  public static final int DEFAULT_CHUNK_SIZE = ODataNettyHandlerImpl.COPY_BUFFER_SIZE;
+  public static final int DEFAULT_MAX_PENDING_CHUNKS = 4;
+
+  private static final byte[] END = new byte[0];
+  private static final byte[] FAILURE = new byte[0];
+  private static final long POLL_MILLIS = 100;
+
+  private final BlockingQueue<byte[]> chunks;
+  private final int chunkSize;
+  private final Channel channel;
+  private volatile boolean isClosed;
+  private volatile Exception failure;
+  private byte[] next;
+  private long progress;
+
+  public ODataContentChunkedInput(final ODataContent content, final Executor executor, final Channel channel) {
+    this(content, executor, channel, DEFAULT_CHUNK_SIZE, DEFAULT_MAX_PENDING_CHUNKS);
+  }
+
+  /**
+   * @param content the content
+   * @param executor executor for the task which writes the content
+   * @param channel the channel the input is written to by the {@link ChunkedWriteHandler} of its pipeline
+   * @param chunkSize maximum size of a chunk in bytes
+   * @param maxPendingChunks number of produced chunks which can wait to be sent
+   */
+  public ODataContentChunkedInput(final ODataContent content, final Executor executor, final Channel channel,
+      final int chunkSize, final int maxPendingChunks) {
+    this.chunkSize = chunkSize;
+    this.channel = channel;
+    chunks = new ArrayBlockingQueue<byte[]>(maxPendingChunks);
+    try {
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          final ChunkOutputStream stream = new ChunkOutputStream();
+          try {
+            content.write(stream);
+            stream.flush();
+            stream.end(END);
+          } catch (final IOException | RuntimeException e) {
+            failure = e;
+            stream.end(FAILURE);
+          }
+        }
+      });
+    } catch (final RejectedExecutionException e) {
+      failure = e;
+      chunks.add(FAILURE);
+    }
+  }
+
+  @Override
+  public boolean isEndOfInput() throws Exception {
+    if (next == null) {
+      if (isClosed) {
+        return true;
+      }
+      next = chunks.poll();
+    }
+    return next == END;
+  }
+
+  @Override
+  public void close() {
+    isClosed = true;
+    // Releases a waiting writer.
+    chunks.clear();
+  }
+
+  /** @deprecated Use {@link #readChunk(ByteBufAllocator)}. */
+  @Deprecated
+  @Override
+  public ByteBuf readChunk(final ChannelHandlerContext context) throws Exception {
+    return readChunk(context.alloc());
+  }
+
+  @Override
+  public ByteBuf readChunk(final ByteBufAllocator allocator) throws Exception {
+    if (isEndOfInput() || next == null) {
+      return null;
+    }
+    if (next == FAILURE) {
+      // Without the terminating chunk the client can tell that the content is incomplete.
+      if (channel != null) {
+        channel.close();
+      }
+      throw new IOException("The content could not be written completely.", failure);
+    }
+    final byte[] chunk = next;
+    next = null;
+    progress += chunk.length;
+    return Unpooled.wrappedBuffer(chunk);
+  }
+
+  @Override
+  public long length() {
+    return -1;
+  }
+
+  @Override
+  public long progress() {
+    return progress;
+  }
+
+  /** Collects the written bytes into chunks and queues full chunks. */
+  private class ChunkOutputStream extends OutputStream {
+    private byte[] buffer = new byte[chunkSize];
+    private int count;
+
+    @Override
+    public void write(final int b) throws IOException {
+      if (count == buffer.length) {
+        flush();
+      }
+      buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      int offset = off;
+      int remaining = len;
+      while (remaining > 0) {
+        if (count == buffer.length) {
+          flush();
+        }
+        final int length = Math.min(remaining, buffer.length - count);
+        System.arraycopy(b, offset, buffer, count, length);
+        count += length;
+        offset += length;
+        remaining -= length;
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      if (count > 0) {
+        final byte[] chunk = count == buffer.length ? buffer : Arrays.copyOf(buffer, count);
+        put(chunk);
+        buffer = new byte[chunkSize];
+        count = 0;
+      }
+    }
+
+    private void put(final byte[] chunk) throws IOException {
+      try {
+        while (!chunks.offer(chunk, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+          if (isClosed) {
+            throw new IOException("The response has been closed.");
+          }
+        }
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      }
+      resumeTransfer();
+    }
+
+    private void end(final byte[] marker) {
+      try {
+        put(marker);
+      } catch (final IOException e) {
+        // The response has been closed; nobody waits for the end.
+      }
+    }
+
+    private void resumeTransfer() {
+      final ChunkedWriteHandler writeHandler = channel == null ? null :
+          channel.pipeline().get(ChunkedWriteHandler.class);
+      if (writeHandler != null) {
+        writeHandler.resumeTransfer();
+      }
+    }
+  }
+}
@@ -20,6 +20,7 @@ package org.apache.olingo.netty.server.core;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channel;
 import java.nio.channels.Channels;
@@ -30,6 +31,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 import org.apache.olingo.commons.api.ex.ODataRuntimeException;
 import org.apache.olingo.commons.api.http.HttpHeader;
@@ -41,21 +43,29 @@ import org.apache.olingo.server.api.ODataLibraryException;
 import org.apache.olingo.server.api.ODataRequest;
 import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.ODataServerError;
+import org.apache.olingo.server.api.OlingoExtension;
 import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.processor.Processor;
 import org.apache.olingo.server.core.ODataExceptionHelper;
 import org.apache.olingo.server.core.ODataHandlerException;
 import org.apache.olingo.server.core.ODataHandlerImpl;
+import org.apache.olingo.server.core.ODataRequestContext;
+import org.apache.olingo.server.core.ResponseCompressor;
 import org.apache.olingo.server.core.debug.ServerCoreDebugger;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufInputStream;
 import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.HttpChunkedInput;
 import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMessage;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.stream.ChunkedStream;
 
 public class ODataNettyHandlerImpl implements ODataNettyHandler {
 
@@ -74,7 +84,8 @@ public class ODataNettyHandlerImpl implements ODataNettyHandler {
     handler = new ODataHandlerImpl(odata, serviceMetadata, debugger);
   }
   
-  private ODataResponse handleException(final ODataRequest odRequest, final Exception e) {
+  private ODataResponse handleException(final ODataRequest odRequest, final Exception e,
+      final ODataRequestContext context) {
     ODataResponse resp = new ODataResponse();
     ODataServerError serverError;
     if (e instanceof ODataHandlerException) {
@@ -84,7 +95,7 @@ public class ODataNettyHandlerImpl implements ODataNettyHandler {
     } else {
       serverError = ODataExceptionHelper.createServerErrorObject(e);
     }
-    handler.handleException(odRequest, resp, serverError, e);
+    handler.handleException(odRequest, resp, serverError, e, context);
     return resp;
   }
   
@@ -94,13 +105,7 @@ public class ODataNettyHandlerImpl implements ODataNettyHandler {
    * @param odResponse
    */
   static void convertToHttp(final HttpResponse response, final ODataResponse odResponse) {
-	    response.setStatus(HttpResponseStatus.valueOf(odResponse.getStatusCode()));
-
-	    for (Entry<String, List<String>> entry : odResponse.getAllHeaders().entrySet()) {
-	      for (String headerValue : entry.getValue()) {
-	        ((HttpMessage)response).headers().add(entry.getKey(), headerValue);
-	      }
-	    }
+	    convertStatusAndHeaders(response, odResponse);
 
 	    if (odResponse.getContent() != null) {
 	      copyContent(odResponse.getContent(), response);
@@ -109,6 +114,106 @@ public class ODataNettyHandlerImpl implements ODataNettyHandler {
 	    }
 	  }
   
+  /**
+   * Converts the OData response to the Netty response, compressing the content with the given coding.
+   * The content is compressed only if it exceeds the minimum size or if its length is known.
+   * @param encoding the content coding selected by the compressor or <code>null</code>
+   */
+  static void convertToHttp(final HttpResponse response, final ODataResponse odResponse,
+      final ResponseCompressor compressor, final String encoding) {
+    if (encoding == null) {
+      convertToHttp(response, odResponse);
+      return;
+    }
+    convertStatusAndHeaders(response, odResponse);
+    final HttpHeaders headers = ((HttpMessage) response).headers();
+    final boolean isLengthKnown = headers.contains(HttpHeader.CONTENT_LENGTH);
+    headers.remove(HttpHeader.CONTENT_LENGTH);
+    final ByteBuf content = ((HttpContent) response).content();
+    try (OutputStream output = compressor.wrap(new ByteBufOutputStream(content), encoding, isLengthKnown,
+        new ResponseCompressor.EncodingListener() {
+          @Override
+          public void encodingDecided(final String decidedEncoding) {
+            if (decidedEncoding != null) {
+              headers.set(HttpHeader.CONTENT_ENCODING, decidedEncoding);
+            }
+          }
+        })) {
+      ResponseCompressor.writeContent(odResponse, output);
+    } catch (IOException e) {
+      throw new ODataRuntimeException("Error on writing response content", e);
+    }
+    if (isLengthKnown) {
+      HttpUtil.setContentLength(response, content.readableBytes());
+    }
+  }
+
+  static void convertStatusAndHeaders(final HttpResponse response, final ODataResponse odResponse) {
+    response.setStatus(HttpResponseStatus.valueOf(odResponse.getStatusCode()));
+
+    for (Entry<String, List<String>> entry : odResponse.getAllHeaders().entrySet()) {
+      for (String headerValue : entry.getValue()) {
+        ((HttpMessage)response).headers().add(entry.getKey(), headerValue);
+      }
+    }
+  }
+
+  /**
+   * Convert the OData Response to a Netty Response with chunked content
+   * @param response
+   * @param odResponse
+   * @param executor executor for writing OData content
+   * @param channel the channel the response is written to
+   * @return the chunked content
+   */
+  static HttpChunkedInput convertToHttpChunked(final HttpResponse response, final ODataResponse odResponse,
+      final Executor executor, final io.netty.channel.Channel channel) {
+    return convertToHttpChunked(response, odResponse, executor, channel, null, null);
+  }
+
+  /**
+   * Converts the OData response to a Netty response with chunked content, compressed with the given coding.
+   * Since the headers are sent before the content, content of unknown length is always compressed.
+   * @param encoding the content coding selected by the compressor or <code>null</code>
+   */
+  static HttpChunkedInput convertToHttpChunked(final HttpResponse response, final ODataResponse odResponse,
+      final Executor executor, final io.netty.channel.Channel channel, final ResponseCompressor compressor,
+      final String encoding) {
+    convertStatusAndHeaders(response, odResponse);
+
+    if (encoding != null) {
+      final HttpHeaders headers = ((HttpMessage) response).headers();
+      headers.remove(HttpHeader.CONTENT_LENGTH);
+      headers.set(HttpHeader.CONTENT_ENCODING, encoding);
+      HttpUtil.setTransferEncodingChunked(response, true);
+      return new HttpChunkedInput(new ODataContentChunkedInput(new ODataContent() {
+        @Override
+        public void write(final WritableByteChannel channel) {
+          write(Channels.newOutputStream(channel));
+        }
+
+        @Override
+        public void write(final OutputStream stream) {
+          try (OutputStream output = compressor.wrap(stream, encoding, true, null)) {
+            ResponseCompressor.writeContent(odResponse, output);
+          } catch (IOException e) {
+            throw new ODataRuntimeException("Error on writing response content", e);
+          }
+        }
+      }, executor, channel));
+    }
+
+    if (odResponse.getContent() != null) {
+      HttpUtil.setTransferEncodingChunked(response, true);
+      return new HttpChunkedInput(new ChunkedStream(odResponse.getContent(), COPY_BUFFER_SIZE));
+    } else if (odResponse.getODataContent() != null) {
+      HttpUtil.setTransferEncodingChunked(response, true);
+      return new HttpChunkedInput(new ODataContentChunkedInput(odResponse.getODataContent(), executor, channel));
+    } else {
+      return new HttpChunkedInput(new ChunkedStream(new ByteBufInputStream(Unpooled.EMPTY_BUFFER)));
+    }
+  }
+
   /**
    * Write the odata content to netty response content
    * @param odataResponse
@@ -167,7 +272,9 @@ public class ODataNettyHandlerImpl implements ODataNettyHandler {
 	      final int split, final String contextPath) throws ODataLibraryException {
 	    final int requestHandle = debugger.startRuntimeMeasurement("ODataHttpHandlerImpl", "fillODataRequest");
 	    try {
-	    	ByteBuf byteBuf = ((HttpContent)httpRequest).content();
+	      // The stream reads the (possibly pooled and direct) request buffer without copying it.
+	    	ByteBuf byteBuf = httpRequest instanceof HttpContent ?
+	    	    ((HttpContent)httpRequest).content() : Unpooled.EMPTY_BUFFER;
 	    	ByteBufInputStream inputStream = new ByteBufInputStream(byteBuf);
 	      odRequest.setBody(inputStream);
 	      
@@ -295,13 +402,37 @@ public class ODataNettyHandlerImpl implements ODataNettyHandler {
 	  }
   }
   
-@SuppressWarnings("unused")
 @Override
 public void processNettyRequest(HttpRequest request, HttpResponse response, 
 		Map<String, String> requestParameters) {
+    final ODataResponse odResponse = processNettyRequest(request, requestParameters);
+    final ResponseCompressor compressor = handler.getResponseCompressor();
+    convertToHttp(response, odResponse, compressor, selectEncoding(compressor, request, odResponse));
+  }
+
+  @Override
+  public HttpChunkedInput processNettyRequestChunked(final HttpRequest request, final HttpResponse response,
+      final Map<String, String> requestParameters, final Executor executor, final io.netty.channel.Channel channel) {
+    final ODataResponse odResponse = processNettyRequest(request, requestParameters);
+    final ResponseCompressor compressor = handler.getResponseCompressor();
+    return convertToHttpChunked(response, odResponse, executor, channel, compressor,
+        selectEncoding(compressor, request, odResponse));
+  }
+
+  private static String selectEncoding(final ResponseCompressor compressor, final HttpRequest request,
+      final ODataResponse odResponse) {
+    return compressor == null ? null :
+        compressor.selectEncoding(request.headers().getAll(HttpHeader.ACCEPT_ENCODING),
+            io.netty.handler.codec.http.HttpMethod.HEAD.equals(request.method()), odResponse);
+  }
+
+  @SuppressWarnings("unused")
+  private ODataResponse processNettyRequest(final HttpRequest request,
+      final Map<String, String> requestParameters) {
 	  ODataRequest odRequest = new ODataRequest();
     Exception exception = null;
     ODataResponse odResponse;
+    final ODataRequestContext context = new ODataRequestContext(debugger);
     
     final int processMethodHandle = 
     		debugger.startRuntimeMeasurement("ODataNettyHandlerImpl", "process");
@@ -310,15 +441,15 @@ public void processNettyRequest(HttpRequest request, HttpResponse response,
           requestParameters.get(SPLIT) != null? Integer.parseInt(requestParameters.get(SPLIT)) : split, 
               requestParameters.get(CONTEXT_PATH));
 
-      odResponse = process(odRequest);
+      odResponse = handler.process(odRequest, context);
       // ALL future methods after process must not throw exceptions!
     } catch (Exception e) {
       exception = e;
-      odResponse = handleException(odRequest, e);
+      odResponse = handleException(odRequest, e, context);
     }
     debugger.stopRuntimeMeasurement(processMethodHandle);
 
-    convertToHttp(response, odResponse);
+    return odResponse;
   }
 
   public ODataResponse process(ODataRequest request) {
@@ -329,4 +460,9 @@ public void processNettyRequest(HttpRequest request, HttpResponse response,
   public void register(Processor processor) {
     handler.register(processor);
   }
+
+  @Override
+  public void register(final OlingoExtension extension) {
+    handler.register(extension);
+  }
 }
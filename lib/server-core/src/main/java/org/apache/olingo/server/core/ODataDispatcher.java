@@ -74,6 +74,7 @@ import org.apache.olingo.server.api.uri.UriResourcePrimitiveProperty;
 import org.apache.olingo.server.api.uri.UriResourceProperty;
 import org.apache.olingo.server.api.uri.UriResourceSingleton;
 import org.apache.olingo.server.core.batchhandler.BatchHandler;
+import org.apache.olingo.server.core.debug.ServerCoreDebugger;
 import org.apache.olingo.server.core.etag.PreconditionsValidator;
 
 public class ODataDispatcher {
@@ -81,13 +82,22 @@ public class ODataDispatcher {
   private static final String NOT_IMPLEMENTED_MESSAGE = "not implemented";
   private final UriInfo uriInfo;
   private final ODataHandlerImpl handler;
+  private final ServerCoreDebugger debugger;
   private static final String RETURN_MINIMAL = "return=minimal";
   private static final String RETURN_REPRESENTATION = "return=representation";
   private static final String EDMSTREAM = "Edm.Stream";
 
   public ODataDispatcher(final UriInfo uriInfo, final ODataHandlerImpl handler) {
+    this(uriInfo, handler, handler.getDebugger());
+  }
+
+  /**
+   * @param debugger the debugger of the request, also used for the requests of a batch request
+   */
+  public ODataDispatcher(final UriInfo uriInfo, final ODataHandlerImpl handler, final ServerCoreDebugger debugger) {
     this.uriInfo = uriInfo;
     this.handler = handler;
+    this.debugger = debugger;
   }
 
   public void dispatch(final ODataRequest request, final ODataResponse response) throws ODataApplicationException,
@@ -121,7 +131,7 @@ public class ODataDispatcher {
 
     case batch:
       checkMethod(request.getMethod(), HttpMethod.POST);
-      new BatchHandler(handler, handler.selectProcessor(BatchProcessor.class))
+      new BatchHandler(handler, handler.selectProcessor(BatchProcessor.class), debugger)
           .process(request, response, true);
       break;
 
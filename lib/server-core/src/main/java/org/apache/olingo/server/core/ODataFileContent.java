@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.server.api.ODataContent;
+
+/**
+ * Content of a file, e.g., the media stream of a media entity or the value of a stream property.
+ * <p>The content is transferred with {@link FileChannel#transferTo(long, long, WritableByteChannel)},
+ * so that it is not copied through the heap where the target channel allows it.
+ * A part of the content can be selected with {@link #range(long, long)}, which is used to answer
+ * HTTP range requests.</p>
+ */
+public class ODataFileContent implements ODataContent {
+  private final Path path;
+  private final FileChannel channel;
+  private final long offset;
+  private final long length;
+
+  /**
+   * Creates content consisting of the complete file.
+   * @param path the file; it is opened when the content is written
+   */
+  public ODataFileContent(final Path path) {
+    this(path, null, 0, -1);
+  }
+
+  /**
+   * Creates content consisting of the complete file of the channel.
+   * @param channel the file channel; it is closed after the content has been written
+   */
+  public ODataFileContent(final FileChannel channel) {
+    this(null, channel, 0, -1);
+  }
+
+  private ODataFileContent(final Path path, final FileChannel channel, final long offset, final long length) {
+    this.path = path;
+    this.channel = channel;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  /**
+   * Returns the content consisting of the given part of this content.
+   * @param start position of the first byte of the part within this content
+   * @param count number of bytes of the part
+   */
+  public ODataFileContent range(final long start, final long count) {
+    return new ODataFileContent(path, channel, offset + start, count);
+  }
+
+  /**
+   * Returns the number of bytes of this content.
+   */
+  public long getLength() throws IOException {
+    if (length >= 0) {
+      return length;
+    }
+    return (path == null ? channel.size() : Files.size(path)) - offset;
+  }
+
+  @Override
+  public void write(final WritableByteChannel target) {
+    try (FileChannel source = path == null ? channel : FileChannel.open(path, StandardOpenOption.READ)) {
+      final long end = offset + getLength(source);
+      long position = offset;
+      while (position < end) {
+        final long count = source.transferTo(position, end - position, target);
+        if (count <= 0) {
+          // The file is shorter than expected.
+          break;
+        }
+        position += count;
+      }
+    } catch (final IOException e) {
+      throw new ODataRuntimeException("Failed to write file content", e);
+    }
+  }
+
+  @Override
+  public void write(final OutputStream stream) {
+    write(Channels.newChannel(stream));
+  }
+
+  private long getLength(final FileChannel source) throws IOException {
+    return length >= 0 ? length : source.size() - offset;
+  }
+}
@@ -18,8 +18,8 @@
  */
 package org.apache.olingo.server.core;
 
-import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.olingo.commons.api.edm.constants.ODataServiceVersion;
 import org.apache.olingo.commons.api.ex.ODataRuntimeException;
@@ -34,7 +34,9 @@ import org.apache.olingo.server.api.ODataRequest;
 import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.ODataServerError;
 import org.apache.olingo.server.api.OlingoExtension;
+import org.apache.olingo.server.api.ResponseCompression;
 import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.batch.ParallelBatchSupport;
 import org.apache.olingo.server.api.deserializer.DeserializerException;
 import org.apache.olingo.server.api.etag.CustomETagSupport;
 import org.apache.olingo.server.api.etag.PreconditionException;
@@ -45,6 +47,7 @@ import org.apache.olingo.server.api.serializer.CustomContentTypeSupport;
 import org.apache.olingo.server.api.serializer.RepresentationType;
 import org.apache.olingo.server.api.serializer.SerializerException;
 import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.UriInfoCache;
 import org.apache.olingo.server.api.uri.queryoption.FormatOption;
 import org.apache.olingo.server.api.uri.queryoption.SystemQueryOptionKind;
 import org.apache.olingo.server.core.debug.ServerCoreDebugger;
@@ -56,18 +59,28 @@ import org.apache.olingo.server.core.uri.queryoption.FormatOptionImpl;
 import org.apache.olingo.server.core.uri.validator.UriValidationException;
 import org.apache.olingo.server.core.uri.validator.UriValidator;
 
+/**
+ * Handles OData requests.
+ * <p>The handler keeps no request state in its fields; the state of a request lives in an
+ * {@link ODataRequestContext}. Once all processors and extensions have been registered, one handler
+ * can therefore be shared by all threads of a server, provided that the registered processors
+ * are thread-safe as well.</p>
+ */
 public class ODataHandlerImpl implements ODataHandler {
 
   private final OData odata;
   private final ServiceMetadata serviceMetadata;
-  private final List<Processor> processors = new LinkedList<>();
+  private final List<Processor> processors = new CopyOnWriteArrayList<>();
   private final ServerCoreDebugger debugger;
 
-  private CustomContentTypeSupport customContentTypeSupport;
-  private CustomETagSupport customETagSupport;
+  private volatile CustomContentTypeSupport customContentTypeSupport;
+  private volatile CustomETagSupport customETagSupport;
+  private volatile ParallelBatchSupport parallelBatchSupport;
+  private volatile UriInfoCache uriInfoCache;
+  private volatile ResponseCompressor responseCompressor;
 
-  private UriInfo uriInfo;
-  private Exception lastThrownException;
+  /** Context of the request processed last in the current thread, for the deprecated getters. */
+  private final ThreadLocal<ODataRequestContext> lastContext = new ThreadLocal<>();
 
   public ODataHandlerImpl(final OData odata, final ServiceMetadata serviceMetadata, final ServerCoreDebugger debugger) {
     this.odata = odata;
@@ -79,53 +92,66 @@ public class ODataHandlerImpl implements ODataHandler {
   }
 
   public ODataResponse process(final ODataRequest request) {
+    return process(request, new ODataRequestContext(debugger));
+  }
+
+  /**
+   * Processes a request and keeps its state in the given context.
+   * @param request the OData request
+   * @param context the context of the request
+   * @return OData response
+   */
+  public ODataResponse process(final ODataRequest request, final ODataRequestContext context) {
+    lastContext.set(context);
+    final ServerCoreDebugger debugger = context.getDebugger();
     ODataResponse response = new ODataResponse();
     final int responseHandle = debugger.startRuntimeMeasurement("ODataHandler", "process");
     try {
-      processInternal(request, response);
+      processInternal(request, response, context);
     } catch (final UriValidationException e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e, null);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
     } catch (final UriParserSemanticException e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e, null);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
     } catch (final UriParserSyntaxException e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e, null);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
     } catch (final UriParserException e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e, null);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
     } catch (AcceptHeaderContentNegotiatorException e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e, null);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
     } catch (ContentNegotiatorException e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e, null);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
     } catch (SerializerException e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e, null);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
     } catch (DeserializerException e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e, null);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
     } catch (PreconditionException e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e, null);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
     } catch (ODataHandlerException e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e, null);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
     } catch (ODataApplicationException e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
     } catch (Exception e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
     }
     debugger.stopRuntimeMeasurement(responseHandle);
     return response;
   }
 
-  private void processInternal(final ODataRequest request, final ODataResponse response)
-      throws ODataApplicationException, ODataLibraryException {
+  private void processInternal(final ODataRequest request, final ODataResponse response,
+      final ODataRequestContext context) throws ODataApplicationException, ODataLibraryException {
+    final ServerCoreDebugger debugger = context.getDebugger();
     final int measurementHandle = debugger.startRuntimeMeasurement("ODataHandler", "processInternal");
 
     response.setHeader(HttpHeader.ODATA_VERSION, ODataServiceVersion.V40.toString());
@@ -138,8 +164,9 @@ public class ODataHandlerImpl implements ODataHandler {
     }
 
     final int measurementUriParser = debugger.startRuntimeMeasurement("Parser", "parseUri");
+    final UriInfo uriInfo;
     try {
-      uriInfo = new Parser(serviceMetadata.getEdm(), odata)
+      uriInfo = new Parser(serviceMetadata.getEdm(), odata, uriInfoCache)
           .parseUri(request.getRawODataPath(), request.getRawQueryPath(), null, request.getRawBaseUri());
     } catch (final ODataLibraryException e) {
       debugger.stopRuntimeMeasurement(measurementUriParser);
@@ -147,6 +174,7 @@ public class ODataHandlerImpl implements ODataHandler {
       throw e;
     }
     debugger.stopRuntimeMeasurement(measurementUriParser);
+    context.setUriInfo(uriInfo);
 
     final int measurementUriValidator = debugger.startRuntimeMeasurement("UriValidator", "validate");
     final HttpMethod method = request.getMethod();
@@ -161,17 +189,39 @@ public class ODataHandlerImpl implements ODataHandler {
 
     final int measurementDispatcher = debugger.startRuntimeMeasurement("ODataDispatcher", "dispatch");
     try {
-      new ODataDispatcher(uriInfo, this).dispatch(request, response);
+      new ODataDispatcher(uriInfo, this, debugger).dispatch(request, response);
     } finally {
       debugger.stopRuntimeMeasurement(measurementDispatcher);
       debugger.stopRuntimeMeasurement(measurementHandle);
     }
   }
 
+  /**
+   * Lets the registered {@link ErrorProcessor} write the error response for an exception
+   * which has been thrown during the processing of the request processed last in the current thread.
+   * @deprecated use {@link #handleException(ODataRequest, ODataResponse, ODataServerError, Exception,
+   * ODataRequestContext)} with the context of the request
+   */
+  @Deprecated
   public void handleException(final ODataRequest request, final ODataResponse response,
       final ODataServerError serverError, final Exception exception) {
+    ODataRequestContext context = lastContext.get();
+    if (context == null) {
+      context = new ODataRequestContext(debugger);
+      lastContext.set(context);
+    }
+    handleException(request, response, serverError, exception, context);
+  }
+
+  /**
+   * Lets the registered {@link ErrorProcessor} write the error response for an exception
+   * which has been thrown during the processing of the request with the given context.
+   */
+  public void handleException(final ODataRequest request, final ODataResponse response,
+      final ODataServerError serverError, final Exception exception, final ODataRequestContext context) {
+    final ServerCoreDebugger debugger = context.getDebugger();
     final int measurementHandle = debugger.startRuntimeMeasurement("ODataHandler", "handleException");
-    lastThrownException = exception;
+    context.setLastThrownException(exception);
     ErrorProcessor exceptionProcessor;
     try {
       exceptionProcessor = selectProcessor(ErrorProcessor.class);
@@ -181,7 +231,7 @@ public class ODataHandlerImpl implements ODataHandler {
     }
     ContentType requestedContentType;
     try {
-      final FormatOption formatOption = getFormatOption(request, uriInfo);
+      final FormatOption formatOption = getFormatOption(request, context.getUriInfo());
       requestedContentType = ContentNegotiator.doContentNegotiation(formatOption, request,
           getCustomContentTypeSupport(), RepresentationType.ERROR);
     } catch (final AcceptHeaderContentNegotiatorException e) {
@@ -261,12 +311,25 @@ public class ODataHandlerImpl implements ODataHandler {
       this.customContentTypeSupport = (CustomContentTypeSupport) extension;
     } else if(extension instanceof CustomETagSupport) {
       this.customETagSupport = (CustomETagSupport) extension;
+    } else if(extension instanceof ParallelBatchSupport) {
+      this.parallelBatchSupport = (ParallelBatchSupport) extension;
+    } else if(extension instanceof UriInfoCache) {
+      this.uriInfoCache = (UriInfoCache) extension;
+    } else if(extension instanceof ResponseCompression) {
+      this.responseCompressor = new ResponseCompressor((ResponseCompression) extension);
     } else {
       throw new ODataRuntimeException("Got not supported exception with class name " +
           extension.getClass().getSimpleName());
     }
   }
 
+  /**
+   * Returns the debugger for requests processed without a request context of their own.
+   */
+  public ServerCoreDebugger getDebugger() {
+    return debugger;
+  }
+
   public CustomContentTypeSupport getCustomContentTypeSupport() {
     return customContentTypeSupport;
   }
@@ -275,11 +338,39 @@ public class ODataHandlerImpl implements ODataHandler {
     return customETagSupport;
   }
 
+  public ParallelBatchSupport getParallelBatchSupport() {
+    return parallelBatchSupport;
+  }
+
+  public UriInfoCache getUriInfoCache() {
+    return uriInfoCache;
+  }
+
+  /**
+   * Returns the compressor for the registered {@link ResponseCompression}
+   * or <code>null</code> if responses are not compressed.
+   */
+  public ResponseCompressor getResponseCompressor() {
+    return responseCompressor;
+  }
+
+  /**
+   * Returns the exception of the request processed last by this handler in the current thread.
+   * @deprecated use {@link ODataRequestContext#getLastThrownException()} instead
+   */
+  @Deprecated
   public Exception getLastThrownException() {
-    return lastThrownException;
+    final ODataRequestContext context = lastContext.get();
+    return context == null ? null : context.getLastThrownException();
   }
 
+  /**
+   * Returns the parsed URI of the request processed last by this handler in the current thread.
+   * @deprecated use {@link ODataRequestContext#getUriInfo()} instead
+   */
+  @Deprecated
   public UriInfo getUriInfo() {
-    return uriInfo;
+    final ODataRequestContext context = lastContext.get();
+    return context == null ? null : context.getUriInfo();
   }
 }
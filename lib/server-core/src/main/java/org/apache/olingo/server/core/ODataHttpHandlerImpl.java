@@ -18,11 +18,14 @@
  */
 package org.apache.olingo.server.core;
 
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channel;
 import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.util.Collections;
@@ -31,6 +34,8 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -38,6 +43,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.olingo.commons.api.ex.ODataRuntimeException;
 import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
 import org.apache.olingo.server.api.OData;
 import org.apache.olingo.server.api.ODataContent;
 import org.apache.olingo.server.api.ODataHttpHandler;
@@ -54,17 +60,29 @@ import org.apache.olingo.server.api.processor.Processor;
 import org.apache.olingo.server.api.serializer.CustomContentTypeSupport;
 import org.apache.olingo.server.core.debug.ServerCoreDebugger;
 
+/**
+ * Handles HTTP requests as OData requests.
+ * <p>Each request gets its own {@link ODataRequestContext} and, if debug output has been requested,
+ * its own {@link ServerCoreDebugger}. After all processors and extensions have been registered,
+ * one instance can therefore serve all requests of a servlet concurrently, keeping the service metadata
+ * and everything the EDM has built lazily from the first request on.</p>
+ */
 public class ODataHttpHandlerImpl implements ODataHttpHandler {
 
   public static final int COPY_BUFFER_SIZE = 8192;
   private static final String REQUESTMAPPING = "requestMapping";
+  private static final Pattern BYTE_RANGE = Pattern.compile("bytes\\s*=\\s*(\\d*)\\s*-\\s*(\\d*)");
 
+  private final OData odata;
   private final ODataHandlerImpl handler;
+  /** Debugger of requests without debug output; it never records anything and can thus be shared. */
   private final ServerCoreDebugger debugger;
 
-  private int split = 0;
+  private volatile DebugSupport debugSupport;
+  private volatile int split = 0;
 
   public ODataHttpHandlerImpl(final OData odata, final ServiceMetadata serviceMetadata) {
+    this.odata = odata;
     debugger = new ServerCoreDebugger(odata);
     handler = new ODataHandlerImpl(odata, serviceMetadata, debugger);
   }
@@ -79,32 +97,49 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
     ODataRequest odRequest = new ODataRequest();
     Exception exception = null;
     ODataResponse odResponse;
-    debugger.resolveDebugMode(request);
+    final ODataRequestContext context = new ODataRequestContext(resolveDebugger(request));
+    final ServerCoreDebugger requestDebugger = context.getDebugger();
 
-    final int processMethodHandle = debugger.startRuntimeMeasurement("ODataHttpHandlerImpl", "process");
+    final int processMethodHandle = requestDebugger.startRuntimeMeasurement("ODataHttpHandlerImpl", "process");
     try {
-      fillODataRequest(odRequest, request, split);
+      fillODataRequest(odRequest, request, split, requestDebugger);
 
-      odResponse = process(odRequest);
+      odResponse = handler.process(odRequest, context);
       // ALL future methods after process must not throw exceptions!
     } catch (Exception e) {
       exception = e;
-      odResponse = handleException(odRequest, e);
+      odResponse = handleException(odRequest, e, context);
     }
-    debugger.stopRuntimeMeasurement(processMethodHandle);
+    requestDebugger.stopRuntimeMeasurement(processMethodHandle);
+    applyRange(odRequest, odResponse);
 
-    if (debugger.isDebugMode()) {
+    if (requestDebugger.isDebugMode()) {
       Map<String, String> serverEnvironmentVariables = createEnvironmentVariablesMap(request);
       if (exception == null) {
         // This is to ensure that we have access to the thrown OData Exception
-        exception = handler.getLastThrownException();
+        exception = context.getLastThrownException();
       }
       odResponse =
-          debugger.createDebugResponse(odRequest, odResponse, exception, handler.getUriInfo(),
+          requestDebugger.createDebugResponse(odRequest, odResponse, exception, context.getUriInfo(),
               serverEnvironmentVariables);
     }
 
-    convertToHttp(response, odResponse);
+    convertToHttp(response, odResponse, odRequest, handler.getResponseCompressor());
+  }
+
+  /**
+   * Returns a new debugger if debug output has been requested and the debug support is registered,
+   * otherwise the shared debugger which does not record anything.
+   */
+  private ServerCoreDebugger resolveDebugger(final HttpServletRequest request) {
+    final DebugSupport support = debugSupport;
+    if (support == null || request.getParameter(DebugSupport.ODATA_DEBUG_QUERY_PARAMETER) == null) {
+      return debugger;
+    }
+    final ServerCoreDebugger requestDebugger = new ServerCoreDebugger(odata);
+    requestDebugger.setDebugSupportProcessor(support);
+    requestDebugger.resolveDebugMode(request);
+    return requestDebugger;
   }
 
   private Map<String, String> createEnvironmentVariablesMap(final HttpServletRequest request) {
@@ -135,7 +170,8 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
     this.split = split;
   }
 
-  private ODataResponse handleException(final ODataRequest odRequest, final Exception e) {
+  private ODataResponse handleException(final ODataRequest odRequest, final Exception e,
+      final ODataRequestContext context) {
     ODataResponse resp = new ODataResponse();
     ODataServerError serverError;
     if (e instanceof ODataHandlerException) {
@@ -145,7 +181,7 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
     } else {
       serverError = ODataExceptionHelper.createServerErrorObject(e);
     }
-    handler.handleException(odRequest, resp, serverError, e);
+    handler.handleException(odRequest, resp, serverError, e, context);
     return resp;
   }
 
@@ -165,6 +201,114 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
     }
   }
   
+  /**
+   * Converts the response like {@link #convertToHttp(HttpServletResponse, ODataResponse)}
+   * but compresses the content if the request accepts a content coding of the given compressor.
+   * @param compressor the compressor or <code>null</code> if the content is not to be compressed
+   */
+  static void convertToHttp(final HttpServletResponse response, final ODataResponse odResponse,
+      final ODataRequest odRequest, final ResponseCompressor compressor) {
+    final String encoding = compressor == null ? null :
+        compressor.selectEncoding(odRequest.getHeaders(HttpHeader.ACCEPT_ENCODING),
+            odRequest.getMethod() == HttpMethod.HEAD, odResponse);
+    if (encoding == null) {
+      convertToHttp(response, odResponse);
+      return;
+    }
+
+    response.setStatus(odResponse.getStatusCode());
+    for (Entry<String, List<String>> entry : odResponse.getAllHeaders().entrySet()) {
+      // The length of the compressed content is not known in advance.
+      if (!HttpHeader.CONTENT_LENGTH.equalsIgnoreCase(entry.getKey())) {
+        for (String headerValue : entry.getValue()) {
+          response.addHeader(entry.getKey(), headerValue);
+        }
+      }
+    }
+    final boolean isLengthKnown = ResponseCompressor.getContentLength(odResponse) >= 0;
+    if (isLengthKnown) {
+      response.setHeader(HttpHeader.CONTENT_ENCODING, encoding);
+    }
+    try (OutputStream output = compressor.wrap(response.getOutputStream(), encoding, isLengthKnown,
+        new ResponseCompressor.EncodingListener() {
+          @Override
+          public void encodingDecided(final String decidedEncoding) {
+            if (decidedEncoding != null && !isLengthKnown) {
+              response.setHeader(HttpHeader.CONTENT_ENCODING, decidedEncoding);
+            }
+          }
+        })) {
+      ResponseCompressor.writeContent(odResponse, output);
+    } catch (IOException e) {
+      throw new ODataRuntimeException("Error on writing response content", e);
+    }
+  }
+
+  /**
+   * Restricts the content of a successful response with file content to the byte range
+   * requested in the Range header. Only a single range is supported; if several ranges
+   * are requested, the complete content is sent, as allowed by RFC 7233.
+   * An If-Range header is honored only with a strong ETag that matches the strong ETag of the response;
+   * in all other cases the complete content is sent.
+   */
+  static void applyRange(final ODataRequest request, final ODataResponse response) {
+    if (response.getStatusCode() != HttpStatusCode.OK.getStatusCode()
+        || !(response.getODataContent() instanceof ODataFileContent)) {
+      return;
+    }
+    response.setHeader(HttpHeader.ACCEPT_RANGES, "bytes");
+    final String range = request.getHeader(HttpHeader.RANGE);
+    final String ifRange = request.getHeader(HttpHeader.IF_RANGE);
+    if (range == null || request.getMethod() != HttpMethod.GET
+        || ifRange != null && !isStrongMatch(ifRange.trim(), response.getHeader(HttpHeader.ETAG))) {
+      return;
+    }
+    final Matcher matcher = BYTE_RANGE.matcher(range.trim());
+    if (!matcher.matches() || matcher.group(1).isEmpty() && matcher.group(2).isEmpty()) {
+      return;
+    }
+    final ODataFileContent content = (ODataFileContent) response.getODataContent();
+    final long length;
+    final long first;
+    long last;
+    try {
+      length = content.getLength();
+      if (matcher.group(1).isEmpty()) {
+        first = Math.max(0, length - Long.parseLong(matcher.group(2)));
+        last = length - 1;
+      } else {
+        first = Long.parseLong(matcher.group(1));
+        last = length - 1;
+        if (!matcher.group(2).isEmpty()) {
+          final long requestedLast = Long.parseLong(matcher.group(2));
+          if (requestedLast < first) {
+            // syntactically invalid; the header is ignored
+            return;
+          }
+          last = Math.min(requestedLast, last);
+        }
+      }
+    } catch (final IOException | NumberFormatException e) {
+      return;
+    }
+
+    if (first > last) {
+      response.setStatusCode(HttpStatusCode.RANGE_NOT_SATISFIABLE.getStatusCode());
+      response.setHeader(HttpHeader.CONTENT_RANGE, "bytes */" + length);
+      response.setODataContent(null);
+    } else {
+      response.setStatusCode(HttpStatusCode.PARTIAL_CONTENT.getStatusCode());
+      response.setHeader(HttpHeader.CONTENT_RANGE, "bytes " + first + "-" + last + "/" + length);
+      response.setHeader(HttpHeader.CONTENT_LENGTH, Long.toString(last - first + 1));
+      response.setODataContent(content.range(first, last - first + 1));
+    }
+  }
+
+  /** RFC 7232 strong comparison: both entity tags must not be weak and must be identical. */
+  private static boolean isStrongMatch(final String eTag, final String currentETag) {
+    return currentETag != null && eTag.startsWith("\"") && eTag.equals(currentETag.trim());
+  }
+
   static void writeContent(final ODataResponse odataResponse, final HttpServletResponse servletResponse) {
     try {
       ODataContent res = odataResponse.getODataContent();
@@ -175,11 +319,23 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
   }
 
   static void copyContent(final InputStream inputStream, final HttpServletResponse servletResponse) {
-    copyContent(Channels.newChannel(inputStream), servletResponse);
+    copyContent(inputStream instanceof FileInputStream ?
+        ((FileInputStream) inputStream).getChannel() :
+        Channels.newChannel(inputStream),
+        servletResponse);
   }
 
   static void copyContent(final ReadableByteChannel input, final HttpServletResponse servletResponse) {
     try (WritableByteChannel output = Channels.newChannel(servletResponse.getOutputStream());) {
+      if (input instanceof FileChannel) {
+        final FileChannel file = (FileChannel) input;
+        long position = file.position();
+        long count;
+        while ((count = file.transferTo(position, file.size() - position, output)) > 0) {
+          position += count;
+        }
+        return;
+      }
       ByteBuffer inBuffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
       while (input.read(inBuffer) > 0) {
         inBuffer.flip();
@@ -204,7 +360,7 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
   }
   
   private ODataRequest fillODataRequest(final ODataRequest odRequest, final HttpServletRequest httpRequest,
-      final int split) throws ODataLibraryException {
+      final int split, final ServerCoreDebugger debugger) throws ODataLibraryException {
     final int requestHandle = debugger.startRuntimeMeasurement("ODataHttpHandlerImpl", "fillODataRequest");
     try {
       odRequest.setBody(httpRequest.getInputStream());
@@ -342,6 +498,6 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
 
   @Override
   public void register(final DebugSupport debugSupport) {
-    debugger.setDebugSupportProcessor(debugSupport);
+    this.debugSupport = debugSupport;
   }
 }
@@ -51,6 +51,7 @@ import org.apache.olingo.server.core.debug.DebugResponseHelperImpl;
 import org.apache.olingo.server.core.debug.ServerCoreDebugger;
 import org.apache.olingo.server.core.deserializer.FixedFormatDeserializerImpl;
 import org.apache.olingo.server.core.deserializer.json.ODataJsonDeserializer;
+import org.apache.olingo.server.core.deserializer.json.ODataJsonStreamingDeserializer;
 import org.apache.olingo.server.core.deserializer.xml.ODataXmlDeserializer;
 import org.apache.olingo.server.core.etag.ETagHelperImpl;
 import org.apache.olingo.server.core.prefer.PreferencesImpl;
@@ -59,6 +60,7 @@ import org.apache.olingo.server.core.serializer.json.EdmAssistedJsonSerializer;
 import org.apache.olingo.server.core.serializer.json.ODataJsonSerializer;
 import org.apache.olingo.server.core.serializer.json.JsonDeltaSerializer;
 import org.apache.olingo.server.core.serializer.json.JsonDeltaSerializerWithNavigations;
+import org.apache.olingo.server.core.serializer.utils.ContentTypeHelper;
 import org.apache.olingo.server.core.serializer.xml.ODataXmlSerializer;
 import org.apache.olingo.server.core.uri.UriHelperImpl;
 
@@ -218,7 +220,9 @@ public class ODataImpl extends OData {
   @Override
   public ODataDeserializer createDeserializer(final ContentType contentType) throws DeserializerException {
     if (contentType != null && contentType.isCompatible(ContentType.JSON)) {
-      return new ODataJsonDeserializer(contentType);
+      return ContentTypeHelper.isODataStreaming(contentType) ?
+          new ODataJsonStreamingDeserializer(contentType) :
+          new ODataJsonDeserializer(contentType);
     } else if (contentType != null && (contentType.isCompatible(ContentType.APPLICATION_XML)
         || contentType.isCompatible(ContentType.APPLICATION_ATOM_XML))) {
       return new ODataXmlDeserializer();
@@ -233,7 +237,9 @@ public class ODataImpl extends OData {
   public ODataDeserializer createDeserializer(final ContentType contentType,
       ServiceMetadata metadata) throws DeserializerException {
     if (contentType != null && contentType.isCompatible(ContentType.JSON)) {
-      return new ODataJsonDeserializer(contentType, metadata);
+      return ContentTypeHelper.isODataStreaming(contentType) ?
+          new ODataJsonStreamingDeserializer(contentType, metadata) :
+          new ODataJsonDeserializer(contentType, metadata);
     } else if (contentType != null && (contentType.isCompatible(ContentType.APPLICATION_XML)
         || contentType.isCompatible(ContentType.APPLICATION_ATOM_XML))) {
       return new ODataXmlDeserializer(metadata);
@@ -275,7 +281,9 @@ public class ODataImpl extends OData {
       constants = new Constantsv01() ;
     }
     if (contentType != null && contentType.isCompatible(ContentType.JSON)) {
-      return new ODataJsonDeserializer(contentType, constants);
+      return ContentTypeHelper.isODataStreaming(contentType) ?
+          new ODataJsonStreamingDeserializer(contentType, constants) :
+          new ODataJsonDeserializer(contentType, constants);
     } else if (contentType != null && (contentType.isCompatible(ContentType.APPLICATION_XML)
         || contentType.isCompatible(ContentType.APPLICATION_ATOM_XML))) {
       return new ODataXmlDeserializer();
@@ -296,7 +304,9 @@ public class ODataImpl extends OData {
       constants = new Constantsv01() ;
     }
     if (contentType != null && contentType.isCompatible(ContentType.JSON)) {
-      return new ODataJsonDeserializer(contentType, metadata, constants);
+      return ContentTypeHelper.isODataStreaming(contentType) ?
+          new ODataJsonStreamingDeserializer(contentType, metadata, constants) :
+          new ODataJsonDeserializer(contentType, metadata, constants);
     } else if (contentType != null && (contentType.isCompatible(ContentType.APPLICATION_XML)
         || contentType.isCompatible(ContentType.APPLICATION_ATOM_XML))) {
       return new ODataXmlDeserializer(metadata);
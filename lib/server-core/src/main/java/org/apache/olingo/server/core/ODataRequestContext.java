@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.core.debug.ServerCoreDebugger;
+
+/**
+ * State of the processing of a single request.
+ * <p>The handlers keep no request state in their own fields, so that one handler
+ * can process requests from several threads at the same time; everything that belongs
+ * to one request is collected here instead.</p>
+ */
+public class ODataRequestContext {
+
+  private final ServerCoreDebugger debugger;
+  private UriInfo uriInfo;
+  private Exception lastThrownException;
+
+  public ODataRequestContext(final ServerCoreDebugger debugger) {
+    this.debugger = debugger;
+  }
+
+  /**
+   * Returns the debugger which records the runtime measurements of the request.
+   */
+  public ServerCoreDebugger getDebugger() {
+    return debugger;
+  }
+
+  /**
+   * Returns the parsed request URI or <code>null</code> if the URI has not been parsed (successfully).
+   */
+  public UriInfo getUriInfo() {
+    return uriInfo;
+  }
+
+  void setUriInfo(final UriInfo uriInfo) {
+    this.uriInfo = uriInfo;
+  }
+
+  /**
+   * Returns the exception which has been handled during processing or <code>null</code> if there was none.
+   */
+  public Exception getLastThrownException() {
+    return lastThrownException;
+  }
+
+  void setLastThrownException(final Exception exception) {
+    lastThrownException = exception;
+  }
+}
@@ -52,12 +52,20 @@ import org.apache.olingo.server.core.serializer.xml.ODataXmlSerializer;
 public class ODataWritableContent implements ODataContent {
   private StreamContent streamContent;
 
+  /**
+   * Writes content directly into the output stream of the response.
+   */
+  public interface ContentWriter {
+    void write(OutputStream outputStream) throws SerializerException;
+  }
+
   private static abstract class StreamContent {
     protected EntityIterator iterator;
     protected ServiceMetadata metadata;
     protected EdmEntityType entityType;
     protected EntityCollectionSerializerOptions options;
     protected EntityMediaObject mediaEntity;
+    protected ODataContentWriteErrorCallback errorCallback;
 
     public StreamContent(EntityIterator iterator, EdmEntityType entityType, ServiceMetadata metadata,
         EntityCollectionSerializerOptions options) {
@@ -65,6 +73,7 @@ public class ODataWritableContent implements ODataContent {
       this.entityType = entityType;
       this.metadata = metadata;
       this.options = options;
+      errorCallback = options == null ? null : options.getODataContentWriteErrorCallback();
     }
 
     public StreamContent(EntityMediaObject mediaEntity) {
@@ -84,7 +93,6 @@ public class ODataWritableContent implements ODataContent {
     		  writeBinary(mediaEntity, out);
     	  }
       } catch (SerializerException e) {
-        final ODataContentWriteErrorCallback errorCallback = options.getODataContentWriteErrorCallback();
         if (errorCallback != null) {
           final WriteErrorContext errorContext = new WriteErrorContext(e);
           errorCallback.handleError(errorContext, Channels.newChannel(out));
@@ -141,6 +149,32 @@ public class ODataWritableContent implements ODataContent {
 		}
 	  }
 
+  private static class StreamContentForWriter extends StreamContent {
+    private final ContentWriter writer;
+
+    public StreamContentForWriter(ContentWriter writer, ODataContentWriteErrorCallback errorCallback) {
+      super(null, null, null, null);
+      this.writer = writer;
+      this.errorCallback = errorCallback;
+    }
+
+    @Override
+    protected void writeEntity(EntityIterator entity, OutputStream outputStream) throws SerializerException {
+      writer.write(outputStream);
+      try {
+        outputStream.flush();
+      } catch (final IOException e) {
+        throw new ODataRuntimeException("Failed content serialization", e);
+      }
+    }
+
+    @Override
+    protected void writeBinary(EntityMediaObject mediaEntity, OutputStream outputStream)
+        throws SerializerException {
+      throw new ODataRuntimeException("Not Implemented in Writer Handling");
+    }
+  }
+
   private static class StreamContentForXml extends StreamContent {
     private ODataXmlSerializer xmlSerializer;
 
@@ -187,6 +221,17 @@ public class ODataWritableContent implements ODataContent {
     return new ODataWritableContentBuilder(iterator, entityType, serializer, metadata, options);
   }
   
+  /**
+   * Creates a builder for content that is written by the given writer
+   * only when the response is written.
+   * @param writer the writer of the content
+   * @param errorCallback the callback for errors during write or <code>null</code>
+   */
+  public static ODataWritableContentBuilder with(ContentWriter writer,
+      ODataContentWriteErrorCallback errorCallback) {
+    return new ODataWritableContentBuilder(writer, errorCallback);
+  }
+
   public static ODataWritableContentBuilder with(EntityMediaObject mediaEntity, 
 		  FixedFormatSerializerImpl fixedFormatSerializer) {
 	  return new ODataWritableContentBuilder(mediaEntity, fixedFormatSerializer);
@@ -218,6 +263,8 @@ public class ODataWritableContent implements ODataContent {
     private EntityCollectionSerializerOptions options;
     private FixedFormatSerializerImpl fixedFormatSerializer;
     private EntityMediaObject mediaEntity;
+    private ContentWriter writer;
+    private ODataContentWriteErrorCallback errorCallback;
 
     public ODataWritableContentBuilder(EntityIterator entities, EdmEntityType entityType,
         ODataSerializer serializer,
@@ -234,8 +281,15 @@ public class ODataWritableContent implements ODataContent {
     	this.fixedFormatSerializer = fixedFormatSerializer;
     }
     
+    public ODataWritableContentBuilder(ContentWriter writer, ODataContentWriteErrorCallback errorCallback) {
+      this.writer = writer;
+      this.errorCallback = errorCallback;
+    }
+
     public ODataContent buildContent() {
-      if (serializer instanceof ODataJsonSerializer) {
+      if (writer != null) {
+        return new ODataWritableContent(new StreamContentForWriter(writer, errorCallback));
+      } else if (serializer instanceof ODataJsonSerializer) {
         StreamContent input = new StreamContentForJson(entities, entityType,
             (ODataJsonSerializer) serializer, metadata, options);
         return new ODataWritableContent(input);
@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.RenderedDocumentCache;
+import org.apache.olingo.server.api.ResponseCompression;
+
+/**
+ * Compresses the content of responses according to the registered {@link ResponseCompression}.
+ * <p>The compression is streamed: the content is compressed while it is written to the client,
+ * without holding it in memory. For content of unknown length, only up to the minimum size
+ * is buffered until it is decided whether to compress it.</p>
+ */
+public class ResponseCompressor {
+
+  private static final int BUFFER_SIZE = 8192;
+
+  /** Informed as soon as it has been decided whether content of unknown length is compressed. */
+  public interface EncodingListener {
+    /**
+     * Called before the first byte is written to the target.
+     * @param encoding the content coding or <code>null</code> if the content is not compressed
+     */
+    void encodingDecided(String encoding);
+  }
+
+  private final ResponseCompression compression;
+
+  public ResponseCompressor(final ResponseCompression compression) {
+    this.compression = compression;
+  }
+
+  /**
+   * Selects the content coding for a response.
+   * <p>If the response is eligible for compression, the <code>Vary</code> header is set.
+   * If the selected coding is returned and the length of the content is known,
+   * the content has to be compressed and must be sent without its <code>Content-Length</code> header;
+   * otherwise the decision is up to the stream returned by
+   * {@link #wrap(OutputStream, String, boolean, EncodingListener)}.</p>
+   * <p>Content from the {@link RenderedDocumentCache} is replaced with the cached compressed document;
+   * then the <code>Content-Encoding</code> header is set and <code>null</code> is returned.</p>
+   * @param acceptEncodings the values of the <code>Accept-Encoding</code> headers of the request (may be NULL)
+   * @param isHead whether the request method is HEAD
+   * @param response the response
+   * @return the content coding or <code>null</code> if the content is not compressed
+   */
+  public String selectEncoding(final List<String> acceptEncodings, final boolean isHead,
+      final ODataResponse response) {
+    final int statusCode = response.getStatusCode();
+    if (isHead
+        || response.getContent() == null && response.getODataContent() == null
+        || statusCode < HttpStatusCode.OK.getStatusCode()
+        || statusCode == HttpStatusCode.NO_CONTENT.getStatusCode()
+        || statusCode == HttpStatusCode.PARTIAL_CONTENT.getStatusCode()
+        || statusCode == HttpStatusCode.NOT_MODIFIED.getStatusCode()
+        || response.getHeader(HttpHeader.CONTENT_ENCODING) != null
+        || response.getHeader(HttpHeader.CONTENT_RANGE) != null) {
+      return null;
+    }
+    addVary(response);
+    final String encoding = compression.selectEncoding(acceptEncodings);
+    final long length = getContentLength(response);
+    if (encoding == null || length >= 0 && length < compression.getMinimumSize()) {
+      return null;
+    }
+    if (response.getContent() instanceof RenderedDocumentCache.ContentStream) {
+      final byte[] content = ((RenderedDocumentCache.ContentStream) response.getContent()).getDocument()
+          .getContent(encoding, compression.getLevel());
+      response.setContent(new ByteArrayInputStream(content));
+      response.setHeader(HttpHeader.CONTENT_ENCODING, encoding);
+      response.setHeader(HttpHeader.CONTENT_LENGTH, Integer.toString(content.length));
+      return null;
+    }
+    return encoding;
+  }
+
+  /**
+   * Returns the length of the content as given in the <code>Content-Length</code> header
+   * or <code>-1</code> if it is unknown.
+   */
+  public static long getContentLength(final ODataResponse response) {
+    final String contentLength = response.getHeader(HttpHeader.CONTENT_LENGTH);
+    if (contentLength != null) {
+      try {
+        return Long.parseLong(contentLength.trim());
+      } catch (final NumberFormatException e) {
+        return -1;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Writes the content of the response, given as stream or as {@link org.apache.olingo.server.api.ODataContent},
+   * to the output; the output is not closed.
+   */
+  public static void writeContent(final ODataResponse response, final OutputStream output) throws IOException {
+    final InputStream input = response.getContent();
+    if (input == null) {
+      response.getODataContent().write(output);
+      return;
+    }
+    try {
+      final byte[] buffer = new byte[BUFFER_SIZE];
+      int count;
+      while ((count = input.read(buffer)) >= 0) {
+        output.write(buffer, 0, count);
+      }
+    } finally {
+      try {
+        input.close();
+      } catch (final IOException e) {
+        // ignore
+      }
+    }
+  }
+
+  private static void addVary(final ODataResponse response) {
+    final List<String> vary = response.getHeaders(HttpHeader.VARY);
+    if (vary != null) {
+      for (final String value : vary) {
+        for (final String name : value.split(",")) {
+          if (HttpHeader.ACCEPT_ENCODING.equalsIgnoreCase(name.trim()) || "*".equals(name.trim())) {
+            return;
+          }
+        }
+      }
+    }
+    response.addHeader(HttpHeader.VARY, HttpHeader.ACCEPT_ENCODING);
+  }
+
+  /**
+   * Wraps the target stream with a stream that compresses the content.
+   * Closing the returned stream completes the compressed data and closes the target.
+   * @param target the target stream
+   * @param encoding the content coding selected by {@link #selectEncoding(List, boolean, ODataResponse)}
+   * @param isLengthKnown whether the length of the content is known; content of unknown length is compressed
+   *                      only if it exceeds the minimum size
+   * @param listener informed about the decision for content of unknown length (may be NULL)
+   */
+  public OutputStream wrap(final OutputStream target, final String encoding, final boolean isLengthKnown,
+      final EncodingListener listener) {
+    return new CompressingOutputStream(target, encoding, isLengthKnown ? 0 : compression.getMinimumSize(),
+        listener);
+  }
+
+  private class CompressingOutputStream extends OutputStream {
+    private final OutputStream target;
+    private final String encoding;
+    private final EncodingListener listener;
+    private byte[] pending;
+    private int pendingCount;
+    private OutputStream output;
+    /** The deflater of the deflate coding; it is not released by the stream itself. */
+    private Deflater deflater;
+
+    private CompressingOutputStream(final OutputStream target, final String encoding, final int minimumSize,
+        final EncodingListener listener) {
+      this.target = target;
+      this.encoding = encoding;
+      this.listener = listener;
+      pending = new byte[minimumSize];
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+      write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      if (output == null) {
+        if (pendingCount + len <= pending.length && len < pending.length) {
+          System.arraycopy(b, off, pending, pendingCount, len);
+          pendingCount += len;
+          return;
+        }
+        decide(true);
+      }
+      output.write(b, off, len);
+    }
+
+    /** Starts writing to the target; before, the content is only buffered. */
+    private void decide(final boolean compress) throws IOException {
+      if (compress && ResponseCompression.GZIP.equals(encoding)) {
+        output = new GzipOutputStream(target, compression.getLevel());
+      } else if (compress) {
+        deflater = new Deflater(compression.getLevel());
+        output = new DeflaterOutputStream(target, deflater, BUFFER_SIZE, true);
+      } else {
+        output = target;
+      }
+      if (listener != null) {
+        listener.encodingDecided(compress ? encoding : null);
+      }
+      if (pendingCount > 0) {
+        output.write(pending, 0, pendingCount);
+      }
+      pending = null;
+    }
+
+    /** Flushes only content which has already been compressed; buffered content is kept for the decision. */
+    @Override
+    public void flush() throws IOException {
+      if (output != null) {
+        output.flush();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        if (output == null) {
+          decide(pendingCount >= pending.length);
+        }
+        output.close();
+      } finally {
+        if (deflater != null) {
+          deflater.end();
+        }
+      }
+    }
+  }
+
+  /** GZIP output stream with a configurable compression level; flushing it flushes the compressed data. */
+  private static class GzipOutputStream extends GZIPOutputStream {
+    private GzipOutputStream(final OutputStream out, final int level) throws IOException {
+      super(out, BUFFER_SIZE, true);
+      def.setLevel(level);
+    }
+  }
+}
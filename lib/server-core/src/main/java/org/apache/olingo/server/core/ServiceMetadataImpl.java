@@ -27,6 +27,7 @@ import org.apache.olingo.commons.api.edm.constants.ODataServiceVersion;
 import org.apache.olingo.commons.api.edm.provider.CsdlEdmProvider;
 import org.apache.olingo.commons.api.edmx.EdmxReference;
 import org.apache.olingo.commons.core.edm.EdmProviderImpl;
+import org.apache.olingo.server.api.RenderedDocumentCache;
 import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.etag.ServiceMetadataETagSupport;
 
@@ -37,6 +38,7 @@ public class ServiceMetadataImpl implements ServiceMetadata {
   private final Edm edm;
   private final List<EdmxReference> references;
   private final ServiceMetadataETagSupport serviceMetadataETagSupport;
+  private final RenderedDocumentCache renderedDocumentCache;
 
   public ServiceMetadataImpl(final CsdlEdmProvider edmProvider, final List<EdmxReference> references,
       final ServiceMetadataETagSupport serviceMetadataETagSupport) {
@@ -44,6 +46,7 @@ public class ServiceMetadataImpl implements ServiceMetadata {
     this.references = new ArrayList<>();
     this.references.addAll(references);
     this.serviceMetadataETagSupport = serviceMetadataETagSupport;
+    renderedDocumentCache = serviceMetadataETagSupport == null ? null : new RenderedDocumentCache();
   }
 
   @Override
@@ -65,4 +68,9 @@ public class ServiceMetadataImpl implements ServiceMetadata {
   public ServiceMetadataETagSupport getServiceMetadataETagSupport() {
     return serviceMetadataETagSupport;
   }
+
+  @Override
+  public RenderedDocumentCache getRenderedDocumentCache() {
+    return renderedDocumentCache;
+  }
 }
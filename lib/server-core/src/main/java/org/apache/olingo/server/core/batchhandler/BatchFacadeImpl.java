@@ -18,6 +18,8 @@
  */
 package org.apache.olingo.server.core.batchhandler;
 
+import java.util.List;
+
 import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.ODataHandler;
 import org.apache.olingo.server.api.ODataLibraryException;
@@ -41,7 +43,19 @@ public class BatchFacadeImpl implements BatchFacade {
    */
   public BatchFacadeImpl(final ODataHandler oDataHandler, final BatchProcessor batchProcessor,
                          final boolean isStrict) {
-    partHandler = new BatchPartHandler(oDataHandler, batchProcessor, this);
+    this(oDataHandler, batchProcessor, isStrict, null);
+  }
+
+  /**
+   * Creates a new BatchFacade.
+   * @param oDataHandler       handler
+   * @param batchProcessor     batch processor
+   * @param isStrict           mode switch (currently not used)
+   * @param concurrentExecutor executor for independent requests (optional)
+   */
+  public BatchFacadeImpl(final ODataHandler oDataHandler, final BatchProcessor batchProcessor,
+                         final boolean isStrict, final ConcurrentBatchExecutor concurrentExecutor) {
+    partHandler = new BatchPartHandler(oDataHandler, batchProcessor, this, concurrentExecutor);
   }
 
   @Override
@@ -56,6 +70,12 @@ public class BatchFacadeImpl implements BatchFacade {
     return partHandler.handleBatchRequest(request);
   }
 
+  @Override
+  public List<ODataResponsePart> handleBatchRequests(final List<BatchRequestPart> requests,
+      final boolean continueOnError) throws ODataApplicationException, ODataLibraryException {
+    return partHandler.handleBatchRequests(requests, continueOnError);
+  }
+
   @Override
   public String extractBoundaryFromContentType(final String contentType) throws BatchDeserializerException {
     return BatchParserCommon.getBoundary(contentType, 0);
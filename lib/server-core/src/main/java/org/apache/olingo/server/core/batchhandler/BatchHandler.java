@@ -28,23 +28,34 @@ import org.apache.olingo.server.api.ODataLibraryException;
 import org.apache.olingo.server.api.ODataRequest;
 import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.batch.BatchFacade;
+import org.apache.olingo.server.api.batch.ParallelBatchSupport;
 import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
 import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException.MessageKeys;
 import org.apache.olingo.server.api.processor.BatchProcessor;
 import org.apache.olingo.server.core.ODataHandlerException;
 import org.apache.olingo.server.core.ODataHandlerImpl;
+import org.apache.olingo.server.core.debug.ServerCoreDebugger;
 import org.apache.olingo.server.core.deserializer.batch.BatchParserCommon;
 
 public class BatchHandler {
   private final BatchProcessor batchProcessor;
   private final ODataHandlerImpl oDataHandler;
+  private final ServerCoreDebugger debugger;
   private static final String RETURN_MINIMAL = "return=minimal";
   private static final String RETURN_REPRESENTATION = "return=representation";
 
   public BatchHandler(final ODataHandlerImpl oDataHandler, final BatchProcessor batchProcessor) {
+    this(oDataHandler, batchProcessor, oDataHandler.getDebugger());
+  }
 
+  /**
+   * @param debugger the debugger of the batch request, also used for requests processed concurrently
+   */
+  public BatchHandler(final ODataHandlerImpl oDataHandler, final BatchProcessor batchProcessor,
+      final ServerCoreDebugger debugger) {
     this.batchProcessor = batchProcessor;
     this.oDataHandler = oDataHandler;
+    this.debugger = debugger;
   }
 
   public void process(final ODataRequest request, final ODataResponse response, final boolean isStrict)
@@ -52,7 +63,10 @@ public class BatchHandler {
     validateRequest(request);
     validatePreferHeader(request);
 
-    final BatchFacade operation = new BatchFacadeImpl(oDataHandler, batchProcessor, isStrict);
+    final ParallelBatchSupport parallelBatchSupport = oDataHandler.getParallelBatchSupport();
+    final BatchFacade operation = new BatchFacadeImpl(oDataHandler, batchProcessor, isStrict,
+        parallelBatchSupport != null && parallelBatchSupport.getMaxParallelism() > 1 ?
+            new ConcurrentBatchExecutor(oDataHandler, parallelBatchSupport, debugger) : null);
     batchProcessor.processBatch(operation, request, response);
   }
   
@@ -18,7 +18,11 @@
  */
 package org.apache.olingo.server.core.batchhandler;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
 import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.ODataHandler;
 import org.apache.olingo.server.api.ODataLibraryException;
@@ -36,12 +40,23 @@ public class BatchPartHandler {
   private final BatchProcessor batchProcessor;
   private final BatchFacade batchFacade;
   private final BatchReferenceRewriter rewriter;
+  private final ConcurrentBatchExecutor concurrentExecutor;
 
   public BatchPartHandler(final ODataHandler oDataHandler, final BatchProcessor processor,
                           final BatchFacade batchFacade) {
+    this(oDataHandler, processor, batchFacade, null);
+  }
+
+  /**
+   * @param concurrentExecutor executor for independent requests;
+   *                           if <code>null</code>, all requests are processed one after the other
+   */
+  public BatchPartHandler(final ODataHandler oDataHandler, final BatchProcessor processor,
+                          final BatchFacade batchFacade, final ConcurrentBatchExecutor concurrentExecutor) {
     this.oDataHandler = oDataHandler;
     batchProcessor = processor;
     this.batchFacade = batchFacade;
+    this.concurrentExecutor = concurrentExecutor;
     rewriter = new BatchReferenceRewriter();
   }
 
@@ -60,6 +75,58 @@ public class BatchPartHandler {
     }
   }
 
+  public List<ODataResponsePart> handleBatchRequests(final List<BatchRequestPart> requests,
+      final boolean continueOnError) throws ODataApplicationException, ODataLibraryException {
+    final List<ODataResponsePart> responseParts = new ArrayList<>(requests.size());
+    int index = 0;
+    while (index < requests.size()) {
+      int end = index;
+      while (concurrentExecutor != null && end < requests.size() && isIndependent(requests.get(end))) {
+        end++;
+      }
+      if (end - index > 1) {
+        final List<ODataRequest> independentRequests = new ArrayList<>(end - index);
+        for (final BatchRequestPart part : requests.subList(index, end)) {
+          independentRequests.add(part.getRequests().get(0));
+        }
+        final List<ODataResponse> responses = concurrentExecutor.process(independentRequests, continueOnError);
+        for (int i = 0; i < responses.size(); i++) {
+          setContentId(independentRequests.get(i), responses.get(i));
+          final ODataResponsePart responsePart = new ODataResponsePart(responses.get(i), false);
+          responseParts.add(responsePart);
+          if (!continueOnError && isFailed(responsePart)) {
+            return responseParts;
+          }
+        }
+        index = end;
+      } else {
+        final ODataResponsePart responsePart = handleBatchRequest(requests.get(index++));
+        responseParts.add(responsePart);
+        if (!continueOnError && isFailed(responsePart)) {
+          return responseParts;
+        }
+      }
+    }
+    return responseParts;
+  }
+
+  /**
+   * Requests which read data and are not part of a change set do not depend on each other;
+   * content-ID references are only allowed within change sets.
+   */
+  private boolean isIndependent(final BatchRequestPart request) {
+    return !request.isChangeSet() && request.getRequests().get(0).getMethod() == HttpMethod.GET;
+  }
+
+  private boolean isFailed(final ODataResponsePart responsePart) {
+    for (final ODataResponse response : responsePart.getResponses()) {
+      if (ConcurrentBatchExecutor.isFailed(response)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   public ODataResponse handle(final ODataRequest request, final boolean isChangeSet)
       throws BatchDeserializerException {
     ODataResponse response;
@@ -74,13 +141,17 @@ public class BatchPartHandler {
       response = oDataHandler.process(request);
     }
 
+    setContentId(request, response);
+
+    return response;
+  }
+
+  private void setContentId(final ODataRequest request, final ODataResponse response) {
     // Add content id to response
     final String contentId = request.getHeader(HttpHeader.CONTENT_ID);
     if (contentId != null) {
       response.setHeader(HttpHeader.CONTENT_ID, contentId);
     }
-
-    return response;
   }
 
   private ODataResponsePart handleChangeSet(final BatchRequestPart request) throws ODataApplicationException,
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.batchhandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.batch.ParallelBatchSupport;
+import org.apache.olingo.server.core.ODataHandlerImpl;
+import org.apache.olingo.server.core.ODataRequestContext;
+import org.apache.olingo.server.core.debug.ServerCoreDebugger;
+
+/**
+ * Executes independent requests of a batch request concurrently.
+ * Each request is processed with its own request context, and at most the configured number
+ * of requests of one batch request are running at the same time.
+ */
+public class ConcurrentBatchExecutor {
+  private final ODataHandlerImpl oDataHandler;
+  private final Executor executor;
+  private final int maxParallelism;
+  private final ServerCoreDebugger debugger;
+
+  public ConcurrentBatchExecutor(final ODataHandlerImpl oDataHandler, final ParallelBatchSupport parallelBatchSupport) {
+    this(oDataHandler, parallelBatchSupport, oDataHandler.getDebugger());
+  }
+
+  /**
+   * @param debugger the debugger of the batch request; it records the runtime measurements of all requests
+   */
+  public ConcurrentBatchExecutor(final ODataHandlerImpl oDataHandler, final ParallelBatchSupport parallelBatchSupport,
+      final ServerCoreDebugger debugger) {
+    this.oDataHandler = oDataHandler;
+    executor = parallelBatchSupport.getExecutor();
+    maxParallelism = Math.max(1, parallelBatchSupport.getMaxParallelism());
+    this.debugger = debugger;
+  }
+
+  /**
+   * Processes the given requests.
+   * @param requests the requests to process
+   * @return the responses in the order of the requests
+   */
+  public List<ODataResponse> process(final List<ODataRequest> requests) {
+    return process(requests, true);
+  }
+
+  /**
+   * Processes the given requests.
+   * @param requests the requests to process
+   * @param continueOnError if <code>false</code>, no further requests are started once a request has failed
+   * @return the responses in the order of the requests; if a request has failed and <code>continueOnError</code>
+   * is <code>false</code>, the list ends with the response to the first failed request
+   */
+  public List<ODataResponse> process(final List<ODataRequest> requests, final boolean continueOnError) {
+    final List<FutureTask<ODataResponse>> tasks = new ArrayList<>(requests.size());
+    final AtomicBoolean isFailed = new AtomicBoolean();
+    boolean isComplete = false;
+    try {
+      for (final ODataRequest request : requests) {
+        if (tasks.size() >= maxParallelism) {
+          await(tasks.get(tasks.size() - maxParallelism));
+        }
+        if (!continueOnError && isFailed.get()) {
+          break;
+        }
+        final FutureTask<ODataResponse> task = new FutureTask<>(new Callable<ODataResponse>() {
+          @Override
+          public ODataResponse call() {
+            final ODataResponse response = oDataHandler.process(request, new ODataRequestContext(debugger));
+            if (isFailed(response)) {
+              isFailed.set(true);
+            }
+            return response;
+          }
+        });
+        tasks.add(task);
+        try {
+          executor.execute(task);
+        } catch (final RejectedExecutionException e) {
+          // A saturated executor must not fail the batch request.
+          task.run();
+        }
+      }
+
+      final List<ODataResponse> responses = new ArrayList<>(tasks.size());
+      for (final FutureTask<ODataResponse> task : tasks) {
+        final ODataResponse response = await(task);
+        responses.add(response);
+        if (!continueOnError && isFailed(response)) {
+          // The responses of the following requests are not needed; those not yet started are skipped.
+          for (final FutureTask<ODataResponse> followingTask : tasks.subList(responses.size(), tasks.size())) {
+            followingTask.cancel(false);
+          }
+          break;
+        }
+      }
+      isComplete = true;
+      return responses;
+    } finally {
+      if (!isComplete) {
+        for (final FutureTask<ODataResponse> task : tasks) {
+          task.cancel(true);
+        }
+      }
+    }
+  }
+
+  static boolean isFailed(final ODataResponse response) {
+    return response.getStatusCode() >= 400 && response.getStatusCode() <= 600;
+  }
+
+  private ODataResponse await(final FutureTask<ODataResponse> task) {
+    try {
+      return task.get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ODataRuntimeException("Interrupted while processing batch request", e);
+    } catch (final ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new ODataRuntimeException((Exception) cause);
+    }
+  }
+}
@@ -108,26 +108,31 @@ public class ServerCoreDebugger {
 
   public int startRuntimeMeasurement(final String className, final String methodName) {
     if (isDebugMode) {
-      int handleId = runtimeInformation.size();
-
       final RuntimeMeasurement measurement = new RuntimeMeasurement();
       measurement.setTimeStarted(System.nanoTime());
       measurement.setClassName(className);
       measurement.setMethodName(methodName);
 
-      runtimeInformation.add(measurement);
-
-      return handleId;
+      // Requests of a batch request may be processed concurrently with the same debugger.
+      synchronized (runtimeInformation) {
+        final int handleId = runtimeInformation.size();
+        runtimeInformation.add(measurement);
+        return handleId;
+      }
     } else {
       return 0;
     }
   }
 
   public void stopRuntimeMeasurement(final int handle) {
-    if (isDebugMode && handle < runtimeInformation.size()) {
-      RuntimeMeasurement runtimeMeasurement = runtimeInformation.get(handle);
-      if (runtimeMeasurement != null) {
-        runtimeMeasurement.setTimeStopped(System.nanoTime());
+    if (isDebugMode) {
+      synchronized (runtimeInformation) {
+        if (handle < runtimeInformation.size()) {
+          RuntimeMeasurement runtimeMeasurement = runtimeInformation.get(handle);
+          if (runtimeMeasurement != null) {
+            runtimeMeasurement.setTimeStopped(System.nanoTime());
+          }
+        }
       }
     }
   }
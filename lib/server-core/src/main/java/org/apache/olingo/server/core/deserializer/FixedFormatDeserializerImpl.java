@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.StringWriter;
+import java.util.Iterator;
 import java.util.List;
 
 import org.apache.olingo.commons.api.data.Parameter;
@@ -34,11 +35,14 @@ import org.apache.olingo.commons.api.edm.EdmProperty;
 import org.apache.olingo.commons.api.edm.EdmType;
 import org.apache.olingo.commons.api.edm.constants.EdmTypeKind;
 import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.ODataLibraryException;
 import org.apache.olingo.server.api.deserializer.DeserializerException;
 import org.apache.olingo.server.api.deserializer.FixedFormatDeserializer;
 import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
 import org.apache.olingo.server.api.deserializer.batch.BatchOptions;
 import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPartHandler;
 import org.apache.olingo.server.core.deserializer.batch.BatchParser;
 import org.apache.olingo.server.core.deserializer.json.ODataJsonDeserializer;
 
@@ -133,4 +137,16 @@ public class FixedFormatDeserializerImpl implements FixedFormatDeserializer {
 
     return parser.parseBatchRequest(content, boundary, options);
   }
+
+  @Override
+  public void parseBatchRequest(final InputStream content, final String boundary, final BatchOptions options,
+      final BatchRequestPartHandler handler) throws ODataApplicationException, ODataLibraryException {
+    new BatchParser().parseBatchRequest(content, boundary, options, handler);
+  }
+
+  @Override
+  public Iterator<BatchRequestPart> parseBatchRequestLazily(final InputStream content, final String boundary,
+      final BatchOptions options) {
+    return new BatchParser().parseBatchRequestLazily(content, boundary, options);
+  }
 }
@@ -49,7 +49,7 @@ public class BatchBodyPart implements BatchPart {
     return this;
   }
 
-  private boolean isChangeSet(final Header headers) throws BatchDeserializerException {
+  static boolean isChangeSet(final Header headers) throws BatchDeserializerException {
     final List<String> contentTypes = headers.getHeaders(HttpHeader.CONTENT_TYPE);
 
     if (contentTypes.isEmpty()) {
@@ -111,7 +111,7 @@ public class BatchBodyPart implements BatchPart {
     return requestList;
   }
 
-  private boolean isContentTypeMultiPartMixed(final String contentType) {
+  private static boolean isContentTypeMultiPartMixed(final String contentType) {
     try {
       BatchParserCommon.parseContentType(contentType, ContentType.MULTIPART_MIXED, 0);
       return true;
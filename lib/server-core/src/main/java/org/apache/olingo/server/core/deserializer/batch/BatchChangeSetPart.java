@@ -18,6 +18,7 @@
  */
 package org.apache.olingo.server.core.deserializer.batch;
 
+import java.io.InputStream;
 import java.util.List;
 
 import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
@@ -29,12 +30,16 @@ public class BatchChangeSetPart extends BatchQueryOperation {
     super(message, isStrict);
   }
 
+  public BatchChangeSetPart(final List<Line> message, final InputStream bodyContent, final boolean isStrict) {
+    super(message, bodyContent, isStrict);
+  }
+
   @Override
   public BatchChangeSetPart parse() throws BatchDeserializerException {
     headers = BatchParserCommon.consumeHeaders(message);
     BatchParserCommon.consumeBlankLine(message, isStrict);
 
-    request = new BatchQueryOperation(message, isStrict).parse();
+    request = new BatchQueryOperation(message, bodyContent, isStrict).parse();
 
     return this;
   }
@@ -48,6 +53,11 @@ public class BatchChangeSetPart extends BatchQueryOperation {
     return request.getBody();
   }
 
+  @Override
+  public InputStream getBodyContent() {
+    return request.getBodyContent();
+  }
+
   @Override
   public Line getHttpStatusLine() {
     return request.getHttpStatusLine();
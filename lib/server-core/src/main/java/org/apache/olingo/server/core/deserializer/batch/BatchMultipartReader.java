@@ -0,0 +1,324 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.deserializer.batch;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
+
+/**
+ * Reads the body parts of a multipart message one after the other directly from an input stream.
+ * <p>
+ * The content of the current body part is available as input stream which ends before the line break
+ * preceding the next boundary delimiter. Moving on to the next body part skips whatever has not been read
+ * of the current one. Independent of the size of the message, only a buffer of a few kilobytes is held.
+ */
+public class BatchMultipartReader {
+  private static final byte CR = '\r';
+  private static final byte LF = '\n';
+  private static final byte DASH = '-';
+  private static final int BUFFER_SIZE = 8192;
+  private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+  private final InputStream in;
+  private final byte[] delimiter;
+  private byte[] buffer;
+  private int head;
+  private int tail;
+  private boolean isEndOfInput;
+  private int lineNumber;
+
+  private boolean isStarted;
+  private boolean isCloseDelimiterFound;
+  private boolean isLastDelimiterClose;
+  private PartInputStream currentPart;
+
+  public BatchMultipartReader(final InputStream in, final String boundary) {
+    this(in, boundary, 1);
+  }
+
+  /**
+   * @param in the multipart message
+   * @param boundary the boundary of the multipart message
+   * @param lineNumber number of the first line of the message within the whole batch request
+   */
+  public BatchMultipartReader(final InputStream in, final String boundary, final int lineNumber) {
+    this.in = in;
+    delimiter = (BatchLineReader.DOUBLE_DASH + boundary).getBytes(ISO_8859_1);
+    buffer = new byte[Math.max(BUFFER_SIZE, 2 * delimiter.length)];
+    this.lineNumber = lineNumber;
+  }
+
+  /**
+   * Moves to the next body part, skipping the preamble or the rest of the current body part.
+   * @return <code>false</code> if the close delimiter has been reached
+   * @throws MissingCloseDelimiterException if the input ends before the close delimiter
+   */
+  public boolean nextPart() throws IOException {
+    if (!isStarted) {
+      isStarted = true;
+      // The first delimiter may start at the very beginning, without a preceding line break.
+      final int end = matchDelimiter(0);
+      if (end >= 0) {
+        consume(end);
+        isCloseDelimiterFound = isLastDelimiterClose;
+      } else {
+        new PartInputStream().skipRemaining();
+      }
+    } else if (currentPart != null) {
+      currentPart.skipRemaining();
+    }
+    currentPart = isCloseDelimiterFound ? null : new PartInputStream();
+    return currentPart != null;
+  }
+
+  /**
+   * Returns the content of the current body part.
+   * The stream must not be used after {@link #nextPart()} has been called again.
+   */
+  public InputStream getPart() {
+    return currentPart;
+  }
+
+  /**
+   * Reads the next line of the current body part, including its line break,
+   * decoded as ISO-8859-1 like the lines of {@link BatchLineReader}.
+   * @return the line or <code>null</code> at the end of the body part
+   */
+  public String readLine() throws IOException {
+    if (currentPart == null) {
+      return null;
+    }
+    ByteArrayOutputStream line = new ByteArrayOutputStream();
+    int current;
+    while ((current = currentPart.read()) != -1) {
+      line.write(current);
+      if (current == LF) {
+        break;
+      } else if (current == CR) {
+        if (currentPart.peek() == LF) {
+          line.write(currentPart.read());
+        }
+        break;
+      }
+    }
+    return line.size() == 0 ? null : new String(line.toByteArray(), ISO_8859_1);
+  }
+
+  /**
+   * Returns the number of the line at the current read position.
+   */
+  public int getLineNumber() {
+    return lineNumber;
+  }
+
+  /**
+   * Tries to match a complete delimiter line starting at the given offset from the read position.
+   * @return the offset of the end of the delimiter line or -1 if there is no delimiter
+   */
+  private int matchDelimiter(final int offset) throws IOException {
+    if (!ensure(offset + delimiter.length)) {
+      return -1;
+    }
+    for (int i = 0; i < delimiter.length; i++) {
+      if (buffer[head + offset + i] != delimiter[i]) {
+        return -1;
+      }
+    }
+    int position = offset + delimiter.length;
+    boolean isClose = false;
+    if (ensure(position + 2) && buffer[head + position] == DASH && buffer[head + position + 1] == DASH) {
+      isClose = true;
+      position += 2;
+    }
+    while (ensure(position + 1) && (buffer[head + position] == ' ' || buffer[head + position] == '\t')) {
+      position++;
+    }
+    if (ensure(position + 1)) {
+      if (buffer[head + position] == CR) {
+        position++;
+        if (ensure(position + 1) && buffer[head + position] == LF) {
+          position++;
+        }
+      } else if (buffer[head + position] == LF) {
+        position++;
+      } else {
+        return -1;
+      }
+    }
+    isLastDelimiterClose = isClose;
+    return position;
+  }
+
+  /**
+   * Makes sure that at least <code>length</code> bytes are available from the read position on.
+   * @return <code>false</code> if the input ends before
+   */
+  private boolean ensure(final int length) throws IOException {
+    while (tail - head < length) {
+      if (isEndOfInput) {
+        return false;
+      }
+      if (head + length > buffer.length) {
+        final byte[] target = length > buffer.length ? new byte[Math.max(2 * buffer.length, length)] : buffer;
+        System.arraycopy(buffer, head, target, 0, tail - head);
+        buffer = target;
+        tail -= head;
+        head = 0;
+      }
+      final int count = in.read(buffer, tail, buffer.length - tail);
+      if (count < 0) {
+        isEndOfInput = true;
+      } else {
+        tail += count;
+      }
+    }
+    return true;
+  }
+
+  private void consume(final int length) {
+    for (int i = head; i < head + length; i++) {
+      if (buffer[i] == LF) {
+        lineNumber++;
+      }
+    }
+    head += length;
+  }
+
+  /**
+   * Thrown if the input ends before the close delimiter of the multipart message.
+   */
+  public static class MissingCloseDelimiterException extends IOException {
+    private static final long serialVersionUID = 3165422735232493047L;
+
+    private final int lineNumber;
+
+    public MissingCloseDelimiterException(final int lineNumber) {
+      super("Missing close delimiter at line " + lineNumber);
+      this.lineNumber = lineNumber;
+    }
+
+    public int getLineNumber() {
+      return lineNumber;
+    }
+
+    public BatchDeserializerException toDeserializerException() {
+      return new BatchDeserializerException("Missing close boundary delimiter", this,
+          BatchDeserializerException.MessageKeys.MISSING_CLOSE_DELIMITER, Integer.toString(lineNumber));
+    }
+  }
+
+  /**
+   * Content of a body part; ends before the line break preceding the next delimiter.
+   */
+  private class PartInputStream extends InputStream {
+    /** Number of bytes from the read position on which are known to belong to the body part. */
+    private int available;
+    private boolean isEnded;
+
+    @Override
+    public int read() throws IOException {
+      if (available == 0 && !findContent()) {
+        return -1;
+      }
+      available--;
+      consume(1);
+      return buffer[head - 1] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (available == 0 && !findContent()) {
+        return -1;
+      }
+      final int count = Math.min(len, available);
+      System.arraycopy(buffer, head, b, off, count);
+      available -= count;
+      consume(count);
+      return count;
+    }
+
+    @Override
+    public int available() {
+      return available;
+    }
+
+    private int peek() throws IOException {
+      return available == 0 && !findContent() ? -1 : buffer[head] & 0xFF;
+    }
+
+    private void skipRemaining() throws IOException {
+      while (available > 0 || findContent()) {
+        consume(available);
+        available = 0;
+      }
+    }
+
+    /**
+     * Determines how many bytes from the read position on belong to the body part.
+     * @return <code>false</code> at the end of the body part
+     */
+    private boolean findContent() throws IOException {
+      while (!isEnded) {
+        int lf = head;
+        while (lf < tail && buffer[lf] != LF) {
+          lf++;
+        }
+        if (lf == tail) {
+          // Without a further line break no delimiter can follow.
+          if (isEndOfInput) {
+            throw new MissingCloseDelimiterException(lineNumber);
+          }
+          // A carriage return at the end may be the start of a line break.
+          final int count = tail > head && buffer[tail - 1] == CR ? tail - head - 1 : tail - head;
+          if (count > 0) {
+            available = count;
+            return true;
+          }
+          ensure(tail - head + 1);
+        } else {
+          final int lineBreak = lf > head && buffer[lf - 1] == CR ? lf - 1 : lf;
+          if (lineBreak > head) {
+            available = lineBreak - head;
+            return true;
+          }
+          final int afterLineBreak = lf - head + 1;
+          final int end = matchDelimiter(afterLineBreak);
+          if (end >= 0) {
+            consume(end);
+            isEnded = true;
+            isCloseDelimiterFound = isLastDelimiterClose;
+          } else if (isEndOfInput && head + afterLineBreak == tail) {
+            throw new MissingCloseDelimiterException(lineNumber);
+          } else {
+            available = afterLineBreak;
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+  }
+}
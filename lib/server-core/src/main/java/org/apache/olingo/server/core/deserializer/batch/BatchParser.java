@@ -18,59 +18,206 @@
  */
 package org.apache.olingo.server.core.deserializer.batch;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.NoSuchElementException;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.ODataLibraryException;
 import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
 import org.apache.olingo.server.api.deserializer.batch.BatchOptions;
 import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPartHandler;
+import org.apache.olingo.server.core.deserializer.batch.BatchMultipartReader.MissingCloseDelimiterException;
 
+/**
+ * Parses a batch request directly from its input stream, one body part after the other.
+ * Only the request lines and headers are read into lines; request bodies are passed on as streams.
+ */
 public class BatchParser {
+  private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
 
   private BatchOptions options;
+  private BatchRequestTransformator transformator;
 
   public List<BatchRequestPart> parseBatchRequest(final InputStream content, final String boundary,
       final BatchOptions options)
       throws BatchDeserializerException {
-    this.options = options;
+    init(options);
+    final List<BatchRequestPart> resultList = new LinkedList<>();
+    final BatchMultipartReader reader = new BatchMultipartReader(content, boundary);
+    BatchRequestPart part;
+    while ((part = readPart(reader, boundary, true)) != null) {
+      resultList.add(part);
+    }
 
-    BatchRequestTransformator transformator = new BatchRequestTransformator(options.getRawBaseUri(),
-        options.getRawServiceResolutionUri());
-    return parse(content, boundary, transformator);
+    return resultList;
   }
 
-  private List<BatchRequestPart> parse(final InputStream in, final String boundary,
-      final BatchRequestTransformator transformator)
-      throws BatchDeserializerException {
+  /**
+   * Parses a batch request and passes each part to the handler as soon as it has been read.
+   * The body of a request outside of a change set is read from the batch request itself
+   * and is therefore only available while the handler processes the part.
+   */
+  public void parseBatchRequest(final InputStream content, final String boundary, final BatchOptions options,
+      final BatchRequestPartHandler handler) throws ODataApplicationException, ODataLibraryException {
+    init(options);
+    final BatchMultipartReader reader = new BatchMultipartReader(content, boundary);
+    boolean isContinue = true;
+    while (isContinue) {
+      final BatchRequestPart part = readPart(reader, boundary, false);
+      isContinue = part != null && handler.handle(part);
+    }
+  }
+
+  /**
+   * Parses a batch request while the returned iterator is advanced; each part is read on demand.
+   * The body of a request outside of a change set is read from the batch request itself
+   * and is therefore only available until the iterator is advanced again.
+   * Errors in the batch request are thrown as {@link ODataRuntimeException} with the
+   * {@link BatchDeserializerException} as cause.
+   */
+  public Iterator<BatchRequestPart> parseBatchRequestLazily(final InputStream content, final String boundary,
+      final BatchOptions options) {
+    init(options);
+    final BatchMultipartReader reader = new BatchMultipartReader(content, boundary);
+    return new Iterator<BatchRequestPart>() {
+      private BatchRequestPart next;
+      private boolean isEnd;
+
+      @Override
+      public boolean hasNext() {
+        if (next == null && !isEnd) {
+          try {
+            next = readPart(reader, boundary, false);
+          } catch (final BatchDeserializerException e) {
+            throw new ODataRuntimeException(e);
+          }
+          isEnd = next == null;
+        }
+        return next != null;
+      }
+
+      @Override
+      public BatchRequestPart next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        final BatchRequestPart part = next;
+        next = null;
+        return part;
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  private void init(final BatchOptions options) {
+    this.options = options;
+    transformator = new BatchRequestTransformator(options.getRawBaseUri(), options.getRawServiceResolutionUri());
+  }
+
+  private BatchRequestPart readPart(final BatchMultipartReader reader, final String boundary,
+      final boolean isBuffered) throws BatchDeserializerException {
     try {
-      return parseBatch(in, boundary, transformator);
-    } catch (IOException e) {
+      if (!reader.nextPart()) {
+        return null;
+      }
+      final List<Line> message = readHeaderBlock(reader);
+      final Header headers = BatchParserCommon.consumeHeaders(message);
+      BatchParserCommon.consumeBlankLine(message, options.isStrict());
+
+      if (BatchBodyPart.isChangeSet(headers)) {
+        return transformator.transform(headers, true, readChangeSet(reader, message, headers, boundary));
+      } else {
+        if (message.isEmpty()) {
+          readLine(reader, message);
+        }
+        message.addAll(readHeaderBlock(reader));
+        final InputStream body = isBuffered ? buffer(reader.getPart()) : reader.getPart();
+        return transformator.transform(headers, false, Collections.<BatchQueryOperation> singletonList(
+            new BatchQueryOperation(message, body, options.isStrict()).parse()));
+      }
+    } catch (final MissingCloseDelimiterException e) {
+      throw e.toDeserializerException();
+    } catch (final IOException e) {
       throw new ODataRuntimeException(e);
     }
   }
 
-  private List<BatchRequestPart> parseBatch(final InputStream in, final String boundary,
-      final BatchRequestTransformator transformator) throws IOException, BatchDeserializerException {
-    final List<BatchRequestPart> resultList = new LinkedList<>();
-    final List<List<Line>> bodyPartStrings = splitBodyParts(in, boundary);
+  /**
+   * Reads the operations of a change set.
+   * The bodies are buffered because the change set is handed over as a whole.
+   */
+  private List<BatchQueryOperation> readChangeSet(final BatchMultipartReader reader, final List<Line> message,
+      final Header headers, final String boundary) throws IOException, BatchDeserializerException {
+    final HeaderField contentTypeField = headers.getHeaderField(HttpHeader.CONTENT_TYPE);
+    final String changeSetBoundary = BatchParserCommon.getBoundary(contentTypeField.getValue(),
+        contentTypeField.getLineNumber());
+    if (changeSetBoundary.equals(boundary)) {
+      throw new BatchDeserializerException("Change set boundary is equals to batch request boundary",
+          BatchDeserializerException.MessageKeys.INVALID_BOUNDARY,
+          Integer.toString(contentTypeField.getLineNumber()));
+    }
 
-    for (List<Line> bodyPartString : bodyPartStrings) {
-      BatchBodyPart bodyPart = new BatchBodyPart(bodyPartString, boundary, options.isStrict()).parse();
-      resultList.addAll(transformator.transform(bodyPart));
+    final BatchMultipartReader changeSetReader = message.isEmpty() ?
+        new BatchMultipartReader(reader.getPart(), changeSetBoundary, reader.getLineNumber()) :
+        new BatchMultipartReader(new SequenceInputStream(
+            BatchParserCommon.convertLineListToInputStream(message, ISO_8859_1), reader.getPart()),
+            changeSetBoundary, message.get(0).getLineNumber());
+    final List<BatchQueryOperation> requestList = new LinkedList<>();
+    while (changeSetReader.nextPart()) {
+      final List<Line> changeRequest = readHeaderBlock(changeSetReader);
+      if (!changeRequest.isEmpty() && BatchParserCommon.isBlankLine(changeRequest.get(changeRequest.size() - 1))) {
+        readLine(changeSetReader, changeRequest);
+      }
+      changeRequest.addAll(readHeaderBlock(changeSetReader));
+      requestList.add(new BatchChangeSetPart(changeRequest, buffer(changeSetReader.getPart()), options.isStrict())
+          .parse());
     }
 
-    return resultList;
+    return requestList;
   }
 
-  private List<List<Line>> splitBodyParts(final InputStream in, final String boundary) throws IOException,
-      BatchDeserializerException {
-    final BatchLineReader reader = new BatchLineReader(in);
-    final List<Line> message = reader.toLineList();
-    reader.close();
+  /**
+   * Reads header lines up to and including the first line which is not a header line.
+   */
+  private List<Line> readHeaderBlock(final BatchMultipartReader reader) throws IOException {
+    final List<Line> lines = new LinkedList<>();
+    Line line;
+    do {
+      line = readLine(reader, lines);
+    } while (line != null && BatchParserCommon.isHeaderLine(line));
+
+    return lines;
+  }
+
+  private Line readLine(final BatchMultipartReader reader, final List<Line> lines) throws IOException {
+    final int lineNumber = reader.getLineNumber();
+    final String content = reader.readLine();
+    if (content == null) {
+      return null;
+    }
+    final Line line = new Line(content, lineNumber);
+    lines.add(line);
+
+    return line;
+  }
 
-    return BatchParserCommon.splitMessageByBoundary(message, boundary);
+  private InputStream buffer(final InputStream content) throws IOException {
+    return new ByteArrayInputStream(IOUtils.toByteArray(content));
   }
 }
@@ -169,6 +169,14 @@ public class BatchParserCommon {
     }
   }
 
+  public static boolean isHeaderLine(final Line line) {
+    return PATTERN_HEADER_LINE.matcher(line.toString()).matches();
+  }
+
+  public static boolean isBlankLine(final Line line) {
+    return line.toString().matches("\\s*\r?\n\\s*");
+  }
+
   public static Header consumeHeaders(final List<Line> remainingMessage) {
     final int headerLineNumber = !remainingMessage.isEmpty() ? remainingMessage.get(0).getLineNumber() : 0;
     final Header headers = new Header(headerLineNumber);
@@ -197,7 +205,7 @@ public class BatchParserCommon {
 
   public static void consumeBlankLine(final List<Line> remainingMessage, final boolean isStrict)
       throws BatchDeserializerException {
-    if (!remainingMessage.isEmpty() && remainingMessage.get(0).toString().matches("\\s*\r?\n\\s*")) {
+    if (!remainingMessage.isEmpty() && isBlankLine(remainingMessage.get(0))) {
       remainingMessage.remove(0);
     } else {
       if (isStrict) {
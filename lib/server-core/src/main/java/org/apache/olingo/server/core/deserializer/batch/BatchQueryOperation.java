@@ -18,6 +18,7 @@
  */
 package org.apache.olingo.server.core.deserializer.batch;
 
+import java.io.InputStream;
 import java.util.List;
 
 import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
@@ -30,12 +31,24 @@ public class BatchQueryOperation implements BatchPart {
   protected List<Line> body;
   protected int bodySize;
   protected List<Line> message;
+  protected InputStream bodyContent;
 
   public BatchQueryOperation(final List<Line> message, final boolean isStrict) {
     this.isStrict = isStrict;
     this.message = message;
   }
 
+  /**
+   * Creates an operation whose body continues after the given lines in <code>bodyContent</code>.
+   * @param message the request line, the headers, and the line after the headers
+   * @param bodyContent the remaining content of the body part
+   * @param isStrict whether parsing is strict
+   */
+  public BatchQueryOperation(final List<Line> message, final InputStream bodyContent, final boolean isStrict) {
+    this(message, isStrict);
+    this.bodyContent = bodyContent;
+  }
+
   public BatchQueryOperation parse() throws BatchDeserializerException {
     httpStatusLine = consumeHttpStatusLine(message);
     headers = BatchParserCommon.consumeHeaders(message);
@@ -66,6 +79,14 @@ public class BatchQueryOperation implements BatchPart {
     return body;
   }
 
+  /**
+   * Returns the content of the body following the lines of {@link #getBody()}
+   * or <code>null</code> if the body consists of these lines only.
+   */
+  public InputStream getBodyContent() {
+    return bodyContent;
+  }
+
   public int getBodySize() {
     return bodySize;
   }
@@ -19,12 +19,16 @@
 package org.apache.olingo.server.core.deserializer.batch;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.commons.api.http.HttpMethod;
@@ -32,8 +36,10 @@ import org.apache.olingo.server.api.ODataRequest;
 import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
 import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException.MessageKeys;
 import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.core.deserializer.batch.BatchMultipartReader.MissingCloseDelimiterException;
 
 public class BatchRequestTransformator {
+  private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
   private final String baseUri;
   private final String rawServiceResolutionUri;
 
@@ -43,29 +49,40 @@ public class BatchRequestTransformator {
   }
 
   public List<BatchRequestPart> transform(final BatchBodyPart bodyPart) throws BatchDeserializerException {
-    final List<ODataRequest> requests = new LinkedList<>();
     final List<BatchRequestPart> resultList = new ArrayList<>();
+    resultList.add(transform(bodyPart.getHeaders(), bodyPart.isChangeSet(), bodyPart.getRequests()));
+    return resultList;
+  }
 
-    validateHeaders(bodyPart.getHeaders(), bodyPart.isChangeSet());
+  /**
+   * Transforms the operations of a single body part.
+   * @param headers the MIME headers of the body part
+   * @param isChangeSet whether the body part is a change set
+   * @param operations the parsed operations of the body part
+   */
+  BatchRequestPart transform(final Header headers, final boolean isChangeSet,
+      final List<BatchQueryOperation> operations) throws BatchDeserializerException {
+    final List<ODataRequest> requests = new LinkedList<>();
 
-    for (BatchQueryOperation queryOperation : bodyPart.getRequests()) {
-      requests.add(processQueryOperation(bodyPart, baseUri, queryOperation));
+    validateHeaders(headers, isChangeSet);
+
+    for (BatchQueryOperation queryOperation : operations) {
+      requests.add(processQueryOperation(isChangeSet, baseUri, queryOperation));
     }
 
-    resultList.add(new BatchRequestPart(bodyPart.isChangeSet(), requests));
-    return resultList;
+    return new BatchRequestPart(isChangeSet, requests);
   }
 
-  private ODataRequest processQueryOperation(final BatchBodyPart bodyPart, final String baseUri,
+  private ODataRequest processQueryOperation(final boolean isChangeSet, final String baseUri,
       final BatchQueryOperation queryOperation) throws BatchDeserializerException {
-    if (bodyPart.isChangeSet()) {
+    if (isChangeSet) {
       BatchQueryOperation encapsulatedQueryOperation = ((BatchChangeSetPart) queryOperation).getRequest();
       handleContentId(queryOperation, encapsulatedQueryOperation);
       validateHeaders(queryOperation.getHeaders(), false);
 
-      return createRequest(encapsulatedQueryOperation, baseUri, bodyPart.isChangeSet());
+      return createRequest(encapsulatedQueryOperation, baseUri, isChangeSet);
     } else {
-      return createRequest(queryOperation, baseUri, bodyPart.isChangeSet());
+      return createRequest(queryOperation, baseUri, isChangeSet);
     }
   }
 
@@ -159,7 +176,13 @@ public class BatchRequestTransformator {
     } else {
       int contentLength = BatchTransformatorCommon.getContentLength(operation.getHeaders());
 
-      if (contentLength == -1) {
+      if (operation.getBodyContent() != null) {
+        // The lines read so far are ISO-8859-1 decoded; the remaining content is passed on unchanged.
+        final InputStream body = operation.getBody().isEmpty() ? operation.getBodyContent() :
+            new SequenceInputStream(BatchParserCommon.convertLineListToInputStream(operation.getBody(), ISO_8859_1),
+                operation.getBodyContent());
+        return contentLength == -1 ? body : new BoundedInputStream(body, contentLength);
+      } else if (contentLength == -1) {
         return BatchParserCommon.convertLineListToInputStream(operation.getBody(), charset);
       } else {
         return BatchParserCommon.convertLineListToInputStream(operation.getBody(), charset, contentLength);
@@ -175,11 +198,33 @@ public class BatchRequestTransformator {
     }
   }
 
-  private boolean isInvalidGetRequestBody(final BatchQueryOperation operation) {
+  private boolean isInvalidGetRequestBody(final BatchQueryOperation operation) throws BatchDeserializerException {
+    if (operation.getBodyContent() != null) {
+      return isInvalidGetRequestBody(new SequenceInputStream(
+          BatchParserCommon.convertLineListToInputStream(operation.getBody(), ISO_8859_1),
+          operation.getBodyContent()));
+    }
     return operation.getBody().size() > 1
         || operation.getBody().size() == 1 && !operation.getBody().get(0).toString().trim().isEmpty();
   }
 
+  /** A GET request may have a body of at most a single line of whitespace. */
+  private boolean isInvalidGetRequestBody(final InputStream body) throws BatchDeserializerException {
+    try {
+      int current;
+      while ((current = body.read()) != -1) {
+        if (current > ' ' || current == '\r' || current == '\n') {
+          return true;
+        }
+      }
+      return false;
+    } catch (final MissingCloseDelimiterException e) {
+      throw e.toDeserializerException();
+    } catch (final IOException e) {
+      throw new ODataRuntimeException(e);
+    }
+  }
+
   private void validateHeaders(final Header headers, final boolean isChangeSet) throws BatchDeserializerException {
     if (isChangeSet) {
       BatchTransformatorCommon.validateContentType(headers, ContentType.MULTIPART_MIXED);
@@ -86,14 +86,12 @@ import org.apache.olingo.server.core.deserializer.DeserializerResultImpl;
 import org.apache.olingo.server.core.deserializer.helper.ExpandTreeBuilder;
 import org.apache.olingo.server.core.deserializer.helper.ExpandTreeBuilderImpl;
 import org.apache.olingo.server.core.serializer.utils.ContentTypeHelper;
+import org.apache.olingo.server.core.serializer.utils.JsonFactoryProvider;
 
-import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
@@ -121,7 +119,7 @@ public class ODataJsonDeserializer implements ODataDeserializer {
 
   private final boolean isIEEE754Compatible;
   private ServiceMetadata serviceMetadata;
-  private IConstants constants;
+  IConstants constants;
   private ODataJsonInstanceAnnotationDeserializer instanceAnnotDeserializer;
 
   public ODataJsonDeserializer(final ContentType contentType) {
@@ -243,7 +241,7 @@ public class ODataJsonDeserializer implements ODataDeserializer {
     return entity;
   }
 
-  private void consumeDeltaJsonNodeFields(EdmEntityType edmEntityType, ObjectNode node,
+  void consumeDeltaJsonNodeFields(EdmEntityType edmEntityType, ObjectNode node,
       Entity entity, ExpandTreeBuilder expandBuilder) 
       throws DeserializerException {
     if (constants instanceof Constantsv01) {
@@ -299,7 +297,7 @@ public class ODataJsonDeserializer implements ODataDeserializer {
 
   }
 
-  private void consumeId(ObjectNode node, Entity entity) 
+  void consumeId(ObjectNode node, Entity entity) 
       throws DeserializerException {
     if (node.get(constants.getId()) != null && constants instanceof Constantsv01) {
       try {
@@ -340,10 +338,7 @@ public class ODataJsonDeserializer implements ODataDeserializer {
   }
 
   private ObjectNode parseJsonTree(final InputStream stream) throws IOException, DeserializerException {
-    ObjectMapper objectMapper = new ObjectMapper();
-    objectMapper.configure(DeserializationFeature.FAIL_ON_READING_DUP_TREE_KEY, true);
-    objectMapper.configure(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS, true);
-    JsonParser parser = new JsonFactory(objectMapper).createParser(stream);
+    JsonParser parser = JsonFactoryProvider.createPayloadParser(stream);
     final JsonNode tree = parser.getCodec().readTree(parser);
     if (tree == null || !tree.isObject()) {
       throw new DeserializerException("Invalid JSON syntax.",
@@ -420,9 +415,7 @@ public class ODataJsonDeserializer implements ODataDeserializer {
   /** Reads a parameter value from a String. */
   public Parameter parameter(final String content, final EdmParameter parameter) throws DeserializerException {
     try {
-      JsonParser parser = new JsonFactory(new ObjectMapper()
-          .configure(DeserializationFeature.FAIL_ON_READING_DUP_TREE_KEY, true))
-              .createParser(content);
+      JsonParser parser = JsonFactoryProvider.createValueParser(content);
       JsonNode node = parser.getCodec().readTree(parser);
       if (node == null) {
         throw new DeserializerException("Invalid JSON syntax.",
@@ -448,7 +441,7 @@ public class ODataJsonDeserializer implements ODataDeserializer {
    * @param entity entity instance which is filled
    * @throws DeserializerException if an exception during consumation occurs
    */
-  private void consumeRemainingJsonNodeFields(final EdmEntityType edmEntityType, final ObjectNode node,
+  void consumeRemainingJsonNodeFields(final EdmEntityType edmEntityType, final ObjectNode node,
       final Entity entity) throws DeserializerException {
     final List<String> toRemove = new ArrayList<>();
     Iterator<Entry<String, JsonNode>> fieldsIterator = node.fields();
@@ -546,21 +539,24 @@ public class ODataJsonDeserializer implements ODataDeserializer {
     for (String propertyName : propertyNames) {
       JsonNode jsonNode = node.get(propertyName);
       if (jsonNode != null) {
-        EdmProperty edmProperty = (EdmProperty) edmEntityType.getProperty(propertyName);
-        if (jsonNode.isNull() && !edmProperty.isNullable()) {
-          throw new DeserializerException("Property: " + propertyName + " must not be null.",
-              DeserializerException.MessageKeys.INVALID_NULL_PROPERTY, propertyName);
-        }
-        Property property = consumePropertyNode(edmProperty.getName(), edmProperty.getType(),
-            edmProperty.isCollection(), edmProperty.isNullable(), edmProperty.getMaxLength(),
-            edmProperty.getPrecision(), edmProperty.getScale(), edmProperty.isUnicode(), edmProperty.getMapping(),
-            jsonNode);
-        entity.addProperty(property);
+        entity.addProperty(consumeEntityProperty((EdmProperty) edmEntityType.getProperty(propertyName), jsonNode));
         node.remove(propertyName);
       }
     }
   }
 
+  Property consumeEntityProperty(final EdmProperty edmProperty, final JsonNode jsonNode)
+      throws DeserializerException {
+    if (jsonNode.isNull() && !edmProperty.isNullable()) {
+      throw new DeserializerException("Property: " + edmProperty.getName() + " must not be null.",
+          DeserializerException.MessageKeys.INVALID_NULL_PROPERTY, edmProperty.getName());
+    }
+    return consumePropertyNode(edmProperty.getName(), edmProperty.getType(),
+        edmProperty.isCollection(), edmProperty.isNullable(), edmProperty.getMaxLength(),
+        edmProperty.getPrecision(), edmProperty.getScale(), edmProperty.isUnicode(), edmProperty.getMapping(),
+        jsonNode);
+  }
+
   private void consumeExpandedNavigationProperties(final EdmEntityType edmEntityType, final ObjectNode node,
       final Entity entity, final ExpandTreeBuilder expandBuilder) throws DeserializerException {
     List<String> navigationPropertyNames = edmEntityType.getNavigationPropertyNames();
@@ -585,7 +581,7 @@ public class ODataJsonDeserializer implements ODataDeserializer {
    * @param edmNavigationProperty related navigation property
    * @throws DeserializerException if jsonNode is not null or if null but nullable or collection navigationProperty
    */
-  private void checkNotNullOrValidNull(final JsonNode jsonNode,
+  void checkNotNullOrValidNull(final JsonNode jsonNode,
       final EdmNavigationProperty edmNavigationProperty) throws DeserializerException {
     boolean isNullable = edmNavigationProperty.isNullable();
     if ((jsonNode.isNull() && !isNullable) || (jsonNode.isNull() && edmNavigationProperty.isCollection())) {
@@ -594,7 +590,7 @@ public class ODataJsonDeserializer implements ODataDeserializer {
     }
   }
 
-  private Link createLink(final ExpandTreeBuilder expandBuilder, final String navigationPropertyName,
+  Link createLink(final ExpandTreeBuilder expandBuilder, final String navigationPropertyName,
       final JsonNode jsonNode,
       final EdmNavigationProperty edmNavigationProperty) throws DeserializerException {
     Link link = new Link();
@@ -1007,7 +1003,7 @@ public class ODataJsonDeserializer implements ODataDeserializer {
     }
   }
 
-  private void removeAnnotations(final ObjectNode tree) throws DeserializerException {
+  void removeAnnotations(final ObjectNode tree) throws DeserializerException {
     List<String> toRemove = new ArrayList<>();
     Iterator<Entry<String, JsonNode>> fieldsIterator = tree.fields();
     while (fieldsIterator.hasNext()) {
@@ -1034,7 +1030,7 @@ public class ODataJsonDeserializer implements ODataDeserializer {
    * @param node node to be checked
    * @throws DeserializerException if node is not empty
    */
-  private void assertJsonNodeIsEmpty(final JsonNode node) throws DeserializerException {
+  void assertJsonNodeIsEmpty(final JsonNode node) throws DeserializerException {
     if (node.size() != 0) {
       final String unknownField = node.fieldNames().next();
       throw new DeserializerException("Tree should be empty but still has content left: " + unknownField,
@@ -1168,7 +1164,7 @@ public class ODataJsonDeserializer implements ODataDeserializer {
     }
   }
 
-  private DeserializerException wrapParseException(final IOException e) {
+  DeserializerException wrapParseException(final IOException e) {
     if (e instanceof JsonParseException) {
       return new DeserializerException("A JsonParseException occurred.", e,
           DeserializerException.MessageKeys.JSON_SYNTAX_EXCEPTION);
@@ -1184,29 +1180,32 @@ public class ODataJsonDeserializer implements ODataDeserializer {
   private EdmType getDerivedType(final EdmStructuredType edmType, final JsonNode jsonNode)
       throws DeserializerException {
     JsonNode odataTypeNode = jsonNode.get(constants.getType());
-    if (odataTypeNode != null) {
-      String odataType = odataTypeNode.asText();
-      if (!odataType.isEmpty()) {
-        odataType = odataType.substring(1);
-
-        if (odataType.equalsIgnoreCase(edmType.getFullQualifiedName().getFullQualifiedNameAsString())) {
-          return edmType;
-        } else if (this.serviceMetadata == null) {
-          throw new DeserializerException(
-              "Failed to resolve Odata type " + odataType + " due to metadata is not available",
-              DeserializerException.MessageKeys.UNKNOWN_CONTENT);
-        }
+    return odataTypeNode == null ? edmType : getDerivedType(edmType, odataTypeNode.asText());
+  }
 
-        final EdmStructuredType currentEdmType = edmType.getKind() == EdmTypeKind.ENTITY ?
-            serviceMetadata.getEdm().getEntityType(new FullQualifiedName(odataType)) :
-            serviceMetadata.getEdm().getComplexType(new FullQualifiedName(odataType));
-        if (!isAssignable(edmType, currentEdmType)) {
-          throw new DeserializerException("Odata type " + odataType + " not allowed here",
-              DeserializerException.MessageKeys.UNKNOWN_CONTENT);
-        }
+  EdmType getDerivedType(final EdmStructuredType edmType, final String typeAnnotation)
+      throws DeserializerException {
+    String odataType = typeAnnotation;
+    if (!odataType.isEmpty()) {
+      odataType = odataType.substring(1);
 
-        return currentEdmType;
+      if (odataType.equalsIgnoreCase(edmType.getFullQualifiedName().getFullQualifiedNameAsString())) {
+        return edmType;
+      } else if (this.serviceMetadata == null) {
+        throw new DeserializerException(
+            "Failed to resolve Odata type " + odataType + " due to metadata is not available",
+            DeserializerException.MessageKeys.UNKNOWN_CONTENT);
       }
+
+      final EdmStructuredType currentEdmType = edmType.getKind() == EdmTypeKind.ENTITY ?
+          serviceMetadata.getEdm().getEntityType(new FullQualifiedName(odataType)) :
+          serviceMetadata.getEdm().getComplexType(new FullQualifiedName(odataType));
+      if (!isAssignable(edmType, currentEdmType)) {
+        throw new DeserializerException("Odata type " + odataType + " not allowed here",
+            DeserializerException.MessageKeys.UNKNOWN_CONTENT);
+      }
+
+      return currentEdmType;
     }
     return edmType;
   }
@@ -0,0 +1,330 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.deserializer.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.olingo.commons.api.Constants;
+import org.apache.olingo.commons.api.IConstants;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.Link;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.deserializer.DeserializerException;
+import org.apache.olingo.server.api.deserializer.DeserializerResult;
+import org.apache.olingo.server.core.deserializer.DeserializerResultImpl;
+import org.apache.olingo.server.core.deserializer.helper.ExpandTreeBuilder;
+import org.apache.olingo.server.core.deserializer.helper.ExpandTreeBuilderImpl;
+import org.apache.olingo.server.core.serializer.utils.JsonFactoryProvider;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * JSON deserializer which reads entities and entity collections token by token
+ * instead of building a tree for the whole payload first.
+ * <p>
+ * Only the values of single properties and annotations are materialized as JSON trees;
+ * entities inside the <code>value</code> array of a collection and inside expanded navigation
+ * properties are mapped as soon as they have been read, so the memory needed for a request
+ * no longer grows with the size of the JSON document on top of the resulting entities.
+ * The result and the reported errors are the same as for {@link ODataJsonDeserializer}.
+ * <p>
+ * It is selected by {@link org.apache.olingo.server.api.OData#createDeserializer(ContentType)}
+ * when the content type carries the parameter <code>odata.streaming=true</code>.
+ */
+public class ODataJsonStreamingDeserializer extends ODataJsonDeserializer {
+
+  /** Positions of the properties and navigation properties in the definitions of the types read so far. */
+  private final Map<EdmEntityType, Map<String, Integer>> ordinals = new HashMap<>();
+
+  public ODataJsonStreamingDeserializer(final ContentType contentType) {
+    super(contentType);
+  }
+
+  public ODataJsonStreamingDeserializer(final ContentType contentType, final ServiceMetadata serviceMetadata) {
+    super(contentType, serviceMetadata);
+  }
+
+  public ODataJsonStreamingDeserializer(final ContentType contentType, final ServiceMetadata serviceMetadata,
+      final IConstants constants) {
+    super(contentType, serviceMetadata, constants);
+  }
+
+  public ODataJsonStreamingDeserializer(final ContentType contentType, final IConstants constants) {
+    super(contentType, constants);
+  }
+
+  @Override
+  public DeserializerResult entityCollection(final InputStream stream, final EdmEntityType edmEntityType)
+      throws DeserializerException {
+    try {
+      final JsonParser parser = createParser(stream);
+      EntityCollection entityCollection = new EntityCollection();
+      ObjectNode remaining = JsonNodeFactory.instance.objectNode();
+      Set<String> fieldNames = new HashSet<>();
+      boolean valueFound = false;
+      while (nextToken(parser) == JsonToken.FIELD_NAME) {
+        final String name = parser.getCurrentName();
+        checkUnique(fieldNames, name);
+        final JsonToken token = nextToken(parser);
+        if (Constants.VALUE.equals(name)) {
+          if (token != JsonToken.START_ARRAY) {
+            throw new DeserializerException("The content of the value tag must be an Array but is not.",
+                DeserializerException.MessageKeys.VALUE_TAG_MUST_BE_AN_ARRAY);
+          }
+          readEntities(parser, edmEntityType, null, entityCollection.getEntities());
+          valueFound = true;
+        } else {
+          remaining.set(name, readTree(parser));
+        }
+      }
+      if (!valueFound) {
+        throw new DeserializerException("Could not find value array.",
+            DeserializerException.MessageKeys.VALUE_ARRAY_NOT_PRESENT);
+      }
+      removeAnnotations(remaining);
+      assertJsonNodeIsEmpty(remaining);
+
+      return DeserializerResultImpl.with().entityCollection(entityCollection).build();
+    } catch (final IOException e) {
+      throw wrapParseException(e);
+    }
+  }
+
+  @Override
+  public DeserializerResult entity(final InputStream stream, final EdmEntityType edmEntityType)
+      throws DeserializerException {
+    try {
+      final JsonParser parser = createParser(stream);
+      final ExpandTreeBuilder expandBuilder = ExpandTreeBuilderImpl.create();
+
+      return DeserializerResultImpl.with().entity(readEntity(parser, edmEntityType, expandBuilder))
+          .expandOption(expandBuilder.build())
+          .build();
+    } catch (final IOException e) {
+      throw wrapParseException(e);
+    }
+  }
+
+  private JsonParser createParser(final InputStream stream) throws IOException, DeserializerException {
+    final JsonParser parser = JsonFactoryProvider.createPayloadParser(stream);
+    if (parser.nextToken() != JsonToken.START_OBJECT) {
+      throw new DeserializerException("Invalid JSON syntax.",
+          DeserializerException.MessageKeys.JSON_SYNTAX_EXCEPTION);
+    }
+    return parser;
+  }
+
+  /**
+   * Reads the entities of a JSON array; the parser must be positioned at the start of the array.
+   */
+  private void readEntities(final JsonParser parser, final EdmEntityType edmEntityType,
+      final ExpandTreeBuilder expandBuilder, final List<Entity> entities) throws IOException, DeserializerException {
+    JsonToken token;
+    while ((token = nextToken(parser)) != JsonToken.END_ARRAY) {
+      if (token != JsonToken.START_OBJECT) {
+        throw new DeserializerException("Nested Arrays and primitive values are not allowed for an entity value.",
+            DeserializerException.MessageKeys.INVALID_ENTITY);
+      }
+      entities.add(readEntity(parser, edmEntityType, expandBuilder));
+    }
+  }
+
+  /**
+   * Reads an entity; the parser must be positioned at the start of the JSON object.
+   * <p>
+   * Properties and expanded navigation properties are mapped while they are read.
+   * Everything else (annotations, binding links, and properties of a derived type
+   * which is announced only after them) is collected and handled after the end of the object,
+   * in the same way the tree-based deserializer handles it.
+   */
+  private Entity readEntity(final JsonParser parser, final EdmEntityType edmEntityType,
+      final ExpandTreeBuilder expandBuilder) throws IOException, DeserializerException {
+    Entity entity = new Entity();
+    EdmEntityType derivedEdmEntityType = edmEntityType;
+    ObjectNode remaining = JsonNodeFactory.instance.objectNode();
+    Set<String> fieldNames = new HashSet<>();
+
+    while (nextToken(parser) == JsonToken.FIELD_NAME) {
+      final String name = parser.getCurrentName();
+      checkUnique(fieldNames, name);
+      final JsonToken token = nextToken(parser);
+      final EdmProperty edmProperty = derivedEdmEntityType.getStructuralProperty(name);
+      final EdmNavigationProperty edmNavigationProperty = edmProperty == null ?
+          derivedEdmEntityType.getNavigationProperty(name) : null;
+      if (edmProperty != null) {
+        entity.addProperty(consumeEntityProperty(edmProperty, readTree(parser)));
+      } else if (edmNavigationProperty != null) {
+        entity.getNavigationLinks().add(readLink(parser, token, edmNavigationProperty, expandBuilder));
+      } else {
+        final JsonNode value = readTree(parser);
+        if (name.equals(constants.getType())) {
+          derivedEdmEntityType = (EdmEntityType) getDerivedType(edmEntityType, value.asText());
+        }
+        remaining.set(name, value);
+      }
+    }
+
+    // Fields which only became known with the type annotation.
+    if (derivedEdmEntityType != edmEntityType) {
+      for (final String name : new ArrayList<>(fieldNames)) {
+        final JsonNode value = remaining.get(name);
+        if (value == null) {
+          continue;
+        }
+        final EdmProperty edmProperty = derivedEdmEntityType.getStructuralProperty(name);
+        final EdmNavigationProperty edmNavigationProperty = derivedEdmEntityType.getNavigationProperty(name);
+        if (edmProperty != null) {
+          entity.addProperty(consumeEntityProperty(edmProperty, value));
+          remaining.remove(name);
+        } else if (edmNavigationProperty != null) {
+          checkNotNullOrValidNull(value, edmNavigationProperty);
+          entity.getNavigationLinks().add(createLink(expandBuilder, name, value, edmNavigationProperty));
+          remaining.remove(name);
+        }
+      }
+    }
+    sortByEdmOrder(entity, derivedEdmEntityType);
+    entity.setType(derivedEdmEntityType.getFullQualifiedName().getFullQualifiedNameAsString());
+
+    consumeId(remaining, entity);
+    consumeDeltaJsonNodeFields(derivedEdmEntityType, remaining, entity, expandBuilder);
+    consumeRemainingJsonNodeFields(derivedEdmEntityType, remaining, entity);
+    assertJsonNodeIsEmpty(remaining);
+
+    return entity;
+  }
+
+  private Link readLink(final JsonParser parser, final JsonToken token,
+      final EdmNavigationProperty edmNavigationProperty, final ExpandTreeBuilder expandBuilder)
+      throws IOException, DeserializerException {
+    final String name = edmNavigationProperty.getName();
+    if (token == JsonToken.START_ARRAY && edmNavigationProperty.isCollection()) {
+      Link link = new Link();
+      link.setTitle(name);
+      link.setType(Constants.ENTITY_SET_NAVIGATION_LINK_TYPE);
+      EntityCollection inlineEntitySet = new EntityCollection();
+      readEntities(parser, edmNavigationProperty.getType(),
+          expandBuilder == null ? null : expandBuilder.expand(edmNavigationProperty),
+          inlineEntitySet.getEntities());
+      link.setInlineEntitySet(inlineEntitySet);
+      return link;
+    } else if (token == JsonToken.START_OBJECT && !edmNavigationProperty.isCollection()) {
+      Link link = new Link();
+      link.setTitle(name);
+      link.setType(Constants.ENTITY_NAVIGATION_LINK_TYPE);
+      link.setInlineEntity(readEntity(parser, edmNavigationProperty.getType(),
+          expandBuilder == null ? null : expandBuilder.expand(edmNavigationProperty)));
+      return link;
+    } else {
+      // null or invalid values are small; let the tree-based code handle and report them
+      final JsonNode value = readTree(parser);
+      checkNotNullOrValidNull(value, edmNavigationProperty);
+      return createLink(expandBuilder, name, value, edmNavigationProperty);
+    }
+  }
+
+  /**
+   * Brings properties and navigation links into the order of the type definition,
+   * which is the order the tree-based deserializer produces.
+   */
+  private void sortByEdmOrder(final Entity entity, final EdmEntityType edmEntityType) {
+    final Map<String, Integer> typeOrdinals = getOrdinals(edmEntityType);
+    Collections.sort(entity.getProperties(), new Comparator<Property>() {
+      @Override
+      public int compare(final Property property1, final Property property2) {
+        return Integer.compare(getOrdinal(typeOrdinals, property1.getName()),
+            getOrdinal(typeOrdinals, property2.getName()));
+      }
+    });
+    Collections.sort(entity.getNavigationLinks(), new Comparator<Link>() {
+      @Override
+      public int compare(final Link link1, final Link link2) {
+        return Integer.compare(getOrdinal(typeOrdinals, link1.getTitle()),
+            getOrdinal(typeOrdinals, link2.getTitle()));
+      }
+    });
+  }
+
+  /**
+   * Gets the positions of the property names and of the navigation-property names in the type definition;
+   * the names of properties and navigation properties are unique within a type.
+   */
+  private Map<String, Integer> getOrdinals(final EdmEntityType edmEntityType) {
+    Map<String, Integer> typeOrdinals = ordinals.get(edmEntityType);
+    if (typeOrdinals == null) {
+      typeOrdinals = new HashMap<>();
+      final List<String> propertyNames = edmEntityType.getPropertyNames();
+      for (int i = 0; i < propertyNames.size(); i++) {
+        typeOrdinals.put(propertyNames.get(i), i);
+      }
+      final List<String> navigationPropertyNames = edmEntityType.getNavigationPropertyNames();
+      for (int i = 0; i < navigationPropertyNames.size(); i++) {
+        typeOrdinals.put(navigationPropertyNames.get(i), i);
+      }
+      ordinals.put(edmEntityType, typeOrdinals);
+    }
+    return typeOrdinals;
+  }
+
+  private static int getOrdinal(final Map<String, Integer> typeOrdinals, final String name) {
+    final Integer ordinal = typeOrdinals.get(name);
+    return ordinal == null ? -1 : ordinal;
+  }
+
+  private void checkUnique(final Set<String> fieldNames, final String name) throws DeserializerException {
+    if (!fieldNames.add(name)) {
+      throw new DeserializerException("Duplicate json property detected.",
+          DeserializerException.MessageKeys.DUPLICATE_PROPERTY);
+    }
+  }
+
+  private JsonToken nextToken(final JsonParser parser) throws IOException, DeserializerException {
+    final JsonToken token = parser.nextToken();
+    if (token == null) {
+      throw new DeserializerException("Invalid JSON syntax.",
+          DeserializerException.MessageKeys.JSON_SYNTAX_EXCEPTION);
+    }
+    return token;
+  }
+
+  private JsonNode readTree(final JsonParser parser) throws IOException {
+    final JsonNode node = parser.readValueAsTree();
+    return node == null ? NullNode.getInstance() : node;
+  }
+}
@@ -0,0 +1,556 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.query;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmEnumType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.api.edm.EdmTypeDefinition;
+import org.apache.olingo.commons.api.edm.constants.EdmTypeKind;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriInfoResource;
+import org.apache.olingo.server.api.uri.UriParameter;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceComplexProperty;
+import org.apache.olingo.server.api.uri.UriResourceCount;
+import org.apache.olingo.server.api.uri.UriResourceEntitySet;
+import org.apache.olingo.server.api.uri.UriResourcePrimitiveProperty;
+import org.apache.olingo.server.api.uri.UriResourceProperty;
+import org.apache.olingo.server.api.uri.queryoption.ApplyItem;
+import org.apache.olingo.server.api.uri.queryoption.ApplyOption;
+import org.apache.olingo.server.api.uri.queryoption.OrderByItem;
+import org.apache.olingo.server.api.uri.queryoption.SelectItem;
+import org.apache.olingo.server.api.uri.queryoption.apply.Aggregate;
+import org.apache.olingo.server.api.uri.queryoption.apply.AggregateExpression;
+import org.apache.olingo.server.api.uri.queryoption.apply.Filter;
+import org.apache.olingo.server.api.uri.queryoption.apply.GroupBy;
+import org.apache.olingo.server.api.uri.queryoption.apply.GroupByItem;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitor;
+import org.apache.olingo.server.api.uri.queryoption.expression.Literal;
+import org.apache.olingo.server.api.uri.queryoption.expression.Member;
+import org.apache.olingo.server.api.uri.queryoption.expression.MethodKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.UnaryOperatorKind;
+import org.apache.olingo.server.core.query.RelationalExpression.Operator;
+import org.apache.olingo.server.core.query.RelationalQuery.Aggregation;
+
+/**
+ * Translates the resource path and the system query options of a request for an entity set into a
+ * {@link RelationalQuery}, so that a backend can restrict, order, page, and aggregate the data itself
+ * instead of loading the whole entity set into memory.
+ * <p>
+ * Supported are key predicates, <code>$filter</code>, <code>$orderby</code>, <code>$skip</code>,
+ * <code>$top</code>, <code>$count</code>, <code>$select</code> of single-valued properties, and a
+ * <code>$apply</code> consisting of <code>filter</code> transformations followed by one
+ * <code>aggregate</code> or <code>groupby</code> transformation with standard aggregation methods
+ * and <code>$count</code>. Expressions may use members with single-valued primitive and complex properties,
+ * literals of non-geospatial types, the logical, comparison, arithmetic, and <code>in</code> operators,
+ * and the string, date, and rounding functions. <code>$expand</code> is not part of the query;
+ * expanded entities have to be retrieved separately.
+ * <p>
+ * For anything else, e.g., navigation, lambda expressions, parameter aliases, or <code>$search</code>,
+ * translation fails with status {@link HttpStatusCode#NOT_IMPLEMENTED} so that the caller can fall back to
+ * processing the request in memory. Subclasses can extend the translation by overriding the protected methods
+ * or the methods of {@link ExpressionTranslator}.
+ */
+public class QueryTranslator {
+
+  protected static final EdmPrimitiveType BOOLEAN =
+      EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Boolean);
+  protected static final EdmPrimitiveType INT32 = EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Int32);
+  protected static final EdmPrimitiveType DECIMAL =
+      EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Decimal);
+  protected static final EdmPrimitiveType STRING =
+      EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.String);
+
+  /**
+   * Translates a request for an entity set, optionally with key predicates or followed by <code>$count</code>.
+   * @param uriInfo the parsed request URI
+   * @return the relational query
+   * @throws ODataApplicationException with status {@link HttpStatusCode#NOT_IMPLEMENTED}
+   * if the request cannot be translated
+   */
+  public RelationalQuery translate(final UriInfoResource uriInfo)
+      throws ExpressionVisitException, ODataApplicationException {
+    final List<UriResource> parts = uriInfo.getUriResourceParts();
+    if (parts.isEmpty() || !(parts.get(0) instanceof UriResourceEntitySet)) {
+      throw notImplemented("Only requests for entity sets can be translated.");
+    }
+    final UriResourceEntitySet resource = (UriResourceEntitySet) parts.get(0);
+    final boolean isCount = parts.size() == 2 && parts.get(1) instanceof UriResourceCount;
+    if (parts.size() > 1 && !isCount
+        || resource.getTypeFilterOnCollection() != null || resource.getTypeFilterOnEntry() != null) {
+      throw notImplemented("Only requests for entity sets can be translated.");
+    }
+    if (uriInfo.getSearchOption() != null) {
+      throw notImplemented("$search cannot be translated.");
+    }
+
+    final EdmEntitySet entitySet = resource.getEntitySet();
+    RelationalQuery query = new RelationalQuery(entitySet);
+    for (final UriParameter key : resource.getKeyPredicates()) {
+      query.restrict(translateKeyPredicate(entitySet.getEntityType(), key));
+    }
+    if (uriInfo.getApplyOption() != null) {
+      translateApply(query, uriInfo.getApplyOption());
+    }
+    if (uriInfo.getFilterOption() != null) {
+      if (query.isAggregated()) {
+        throw notImplemented("$filter on aggregated values cannot be translated.");
+      }
+      query.restrict(translateExpression(uriInfo.getFilterOption().getExpression()));
+    }
+    if (uriInfo.getSelectOption() != null) {
+      if (query.isAggregated()) {
+        throw notImplemented("$select on aggregated values cannot be translated.");
+      }
+      translateSelect(query, entitySet.getEntityType(), uriInfo.getSelectOption().getSelectItems());
+    }
+    if (uriInfo.getOrderByOption() != null) {
+      for (final OrderByItem item : uriInfo.getOrderByOption().getOrders()) {
+        query.getOrderings().add(
+            new RelationalQuery.Ordering(translateExpression(item.getExpression()), item.isDescending()));
+      }
+    }
+    if (uriInfo.getSkipOption() != null) {
+      query.setOffset(uriInfo.getSkipOption().getValue());
+    }
+    if (uriInfo.getTopOption() != null) {
+      query.setLimit(uriInfo.getTopOption().getValue());
+    }
+    query.setCountRequested(uriInfo.getCountOption() != null && uriInfo.getCountOption().getValue());
+    query.setCountOnly(isCount);
+    return query;
+  }
+
+  /**
+   * Translates a common expression.
+   * @throws ODataApplicationException with status {@link HttpStatusCode#NOT_IMPLEMENTED}
+   * if the expression cannot be translated
+   */
+  public RelationalExpression translateExpression(final Expression expression)
+      throws ExpressionVisitException, ODataApplicationException {
+    return expression.accept(createExpressionTranslator());
+  }
+
+  /** Creates the visitor used to translate common expressions; subclasses may return an extended one. */
+  protected ExpressionTranslator createExpressionTranslator() {
+    return new ExpressionTranslator();
+  }
+
+  protected RelationalExpression translateKeyPredicate(final EdmEntityType entityType, final UriParameter key)
+      throws ODataApplicationException {
+    final EdmProperty property = entityType.getStructuralProperty(key.getName());
+    if (key.getAlias() != null || key.getText() == null || property == null) {
+      throw notImplemented("Key predicate " + key.getName() + " cannot be translated.");
+    }
+    final EdmPrimitiveType type = getPrimitiveType(property.getType());
+    return RelationalExpression.operation(Operator.EQ, BOOLEAN,
+        RelationalExpression.column(Collections.singletonList(property.getName()), type),
+        RelationalExpression.value(parseLiteral(key.getText(), type), type));
+  }
+
+  protected void translateSelect(final RelationalQuery query, final EdmEntityType entityType,
+      final List<SelectItem> selectItems) throws ODataApplicationException {
+    List<RelationalExpression> columns = new ArrayList<RelationalExpression>();
+    for (final String keyName : entityType.getKeyPredicateNames()) {
+      addColumns(columns, Collections.<String> emptyList(), entityType.getStructuralProperty(keyName));
+    }
+    for (final SelectItem item : selectItems) {
+      if (item.isStar()) {
+        return;
+      } else if (item.isAllOperationsInSchema()) {
+        continue;
+      }
+      final List<UriResource> parts = item.getResourcePath() == null ? Collections.<UriResource> emptyList() :
+          item.getResourcePath().getUriResourceParts();
+      if (parts.isEmpty() || item.getStartTypeFilter() != null) {
+        throw notImplemented("$select cannot be translated.");
+      }
+      List<String> path = new ArrayList<String>();
+      for (int i = 0; i < parts.size() - 1; i++) {
+        if (!(parts.get(i) instanceof UriResourceComplexProperty)
+            || ((UriResourceComplexProperty) parts.get(i)).isCollection()) {
+          throw notImplemented("$select cannot be translated.");
+        }
+        path.add(((UriResourceProperty) parts.get(i)).getProperty().getName());
+      }
+      final UriResource last = parts.get(parts.size() - 1);
+      if (!(last instanceof UriResourceProperty)) {
+        throw notImplemented("$select cannot be translated.");
+      }
+      addColumns(columns, path, ((UriResourceProperty) last).getProperty());
+    }
+    query.getColumns().addAll(columns);
+  }
+
+  /** Adds the column(s) of a property; complex properties contribute the columns of all their properties. */
+  private void addColumns(List<RelationalExpression> columns, final List<String> parentPath,
+      final EdmProperty property) throws ODataApplicationException {
+    if (property.isCollection()) {
+      throw notImplemented("Collection property " + property.getName() + " cannot be translated.");
+    }
+    List<String> path = new ArrayList<String>(parentPath);
+    path.add(property.getName());
+    if (property.getType().getKind() == EdmTypeKind.COMPLEX) {
+      final EdmStructuredType complexType = (EdmStructuredType) property.getType();
+      for (final String name : complexType.getPropertyNames()) {
+        final EdmProperty complexProperty = complexType.getStructuralProperty(name);
+        if (complexProperty != null) {
+          addColumns(columns, path, complexProperty);
+        }
+      }
+    } else {
+      final RelationalExpression column = RelationalExpression.column(path, getPrimitiveType(property.getType()));
+      if (!columns.contains(column)) {
+        columns.add(column);
+      }
+    }
+  }
+
+  protected void translateApply(RelationalQuery query, final ApplyOption applyOption)
+      throws ExpressionVisitException, ODataApplicationException {
+    for (final ApplyItem item : applyOption.getApplyItems()) {
+      if (query.isAggregated()) {
+        throw notImplemented("Transformations after aggregation cannot be translated.");
+      }
+      switch (item.getKind()) {
+      case FILTER:
+        query.restrict(translateExpression(((Filter) item).getFilterOption().getExpression()));
+        break;
+      case AGGREGATE:
+        for (final AggregateExpression expression : ((Aggregate) item).getExpressions()) {
+          query.getAggregations().add(translateAggregateExpression(expression));
+        }
+        break;
+      case GROUP_BY:
+        translateGroupBy(query, (GroupBy) item);
+        break;
+      default:
+        throw notImplemented("Transformation " + item.getKind() + " cannot be translated.");
+      }
+    }
+  }
+
+  private void translateGroupBy(RelationalQuery query, final GroupBy groupBy)
+      throws ExpressionVisitException, ODataApplicationException {
+    for (final GroupByItem item : groupBy.getGroupByItems()) {
+      if (item.isRollupAll() || !item.getRollup().isEmpty()) {
+        throw notImplemented("rollup cannot be translated.");
+      }
+      query.getGroupBy().add(translatePropertyPath(item.getPath()));
+    }
+    if (groupBy.getApplyOption() != null) {
+      for (final ApplyItem item : groupBy.getApplyOption().getApplyItems()) {
+        if (item.getKind() != ApplyItem.Kind.AGGREGATE) {
+          throw notImplemented("Transformation " + item.getKind() + " within groupby cannot be translated.");
+        }
+        for (final AggregateExpression expression : ((Aggregate) item).getExpressions()) {
+          query.getAggregations().add(translateAggregateExpression(expression));
+        }
+      }
+    }
+  }
+
+  protected Aggregation translateAggregateExpression(final AggregateExpression aggregateExpression)
+      throws ExpressionVisitException, ODataApplicationException {
+    if (aggregateExpression.getInlineAggregateExpression() != null
+        || !aggregateExpression.getFrom().isEmpty()
+        || aggregateExpression.getCustomMethod() != null) {
+      throw notImplemented("Aggregate expression cannot be translated.");
+    }
+    final List<UriResource> path = aggregateExpression.getPath();
+    if (path != null && path.size() == 1 && path.get(0) instanceof UriResourceCount) {
+      return new Aggregation(Aggregation.Function.COUNT, null, aggregateExpression.getAlias(), DECIMAL);
+    }
+    if (aggregateExpression.getExpression() == null || aggregateExpression.getStandardMethod() == null) {
+      throw notImplemented("Aggregate expression cannot be translated.");
+    }
+    final RelationalExpression expression = translateExpression(aggregateExpression.getExpression());
+    switch (aggregateExpression.getStandardMethod()) {
+    case SUM:
+      return new Aggregation(Aggregation.Function.SUM, expression, aggregateExpression.getAlias(), DECIMAL);
+    case AVERAGE:
+      return new Aggregation(Aggregation.Function.AVERAGE, expression, aggregateExpression.getAlias(), DECIMAL);
+    case COUNT_DISTINCT:
+      return new Aggregation(Aggregation.Function.COUNT_DISTINCT, expression, aggregateExpression.getAlias(),
+          DECIMAL);
+    case MIN:
+      return new Aggregation(Aggregation.Function.MIN, expression, aggregateExpression.getAlias(),
+          expression.getType());
+    case MAX:
+      return new Aggregation(Aggregation.Function.MAX, expression, aggregateExpression.getAlias(),
+          expression.getType());
+    default:
+      throw notImplemented("Aggregate expression cannot be translated.");
+    }
+  }
+
+  /** Translates a path of single-valued complex properties ending with a primitive property into a column. */
+  protected RelationalExpression translatePropertyPath(final List<UriResource> parts)
+      throws ODataApplicationException {
+    if (parts == null || parts.isEmpty()) {
+      throw notImplemented("Empty property path cannot be translated.");
+    }
+    List<String> path = new ArrayList<String>(parts.size());
+    EdmType type = null;
+    for (int i = 0; i < parts.size(); i++) {
+      final UriResource part = parts.get(i);
+      final boolean isLast = i == parts.size() - 1;
+      if (part instanceof UriResourceComplexProperty && !isLast
+          && ((UriResourceComplexProperty) part).getComplexTypeFilter() == null
+          || part instanceof UriResourcePrimitiveProperty && isLast) {
+        final UriResourceProperty property = (UriResourceProperty) part;
+        if (property.isCollection()) {
+          throw notImplemented("Collection property " + property.getSegmentValue() + " cannot be translated.");
+        }
+        path.add(property.getProperty().getName());
+        type = property.getProperty().getType();
+      } else {
+        throw notImplemented("Path segment " + part.getSegmentValue() + " cannot be translated.");
+      }
+    }
+    return RelationalExpression.column(path, getPrimitiveType(type));
+  }
+
+  /**
+   * Returns the primitive type for a type that is primitive or a type definition.
+   * An unknown type, as for aggregated values with custom aggregation, results in <code>null</code>.
+   */
+  protected EdmPrimitiveType getPrimitiveType(final EdmType type) throws ODataApplicationException {
+    if (type == null) {
+      return null;
+    } else if (type.getKind() == EdmTypeKind.PRIMITIVE) {
+      return (EdmPrimitiveType) type;
+    } else if (type.getKind() == EdmTypeKind.DEFINITION) {
+      return ((EdmTypeDefinition) type).getUnderlyingType();
+    } else {
+      throw notImplemented("Values of type " + type.getFullQualifiedName() + " cannot be translated.");
+    }
+  }
+
+  /** Parses a literal into the default Java type of the given primitive type. */
+  protected Object parseLiteral(final String literal, final EdmPrimitiveType type) throws ODataApplicationException {
+    try {
+      final String value = type.fromUriLiteral(literal);
+      // Without facets, Edm.Decimal would only accept integer values.
+      return type.equals(DECIMAL) ? new BigDecimal(value) :
+          type.valueOfString(value, null, null, null, null, null, type.getDefaultType());
+    } catch (final EdmPrimitiveTypeException e) {
+      throw new ODataApplicationException("Invalid literal " + literal,
+          HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT, e);
+    } catch (final NumberFormatException e) {
+      throw new ODataApplicationException("Invalid literal " + literal,
+          HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT, e);
+    }
+  }
+
+  protected static ODataApplicationException notImplemented(final String message) {
+    return new ODataApplicationException(message, HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), Locale.ROOT);
+  }
+
+  /** Translates common expressions into relational expressions. */
+  protected class ExpressionTranslator implements ExpressionVisitor<RelationalExpression> {
+
+    @Override
+    public RelationalExpression visitBinaryOperator(final BinaryOperatorKind operator,
+        final RelationalExpression left, final RelationalExpression right)
+        throws ExpressionVisitException, ODataApplicationException {
+      switch (operator) {
+      case AND:
+        return RelationalExpression.operation(Operator.AND, BOOLEAN, left, right);
+      case OR:
+        return RelationalExpression.operation(Operator.OR, BOOLEAN, left, right);
+      case EQ:
+      case NE:
+        if (left.isNull() || right.isNull()) {
+          final RelationalExpression operand = left.isNull() ? right : left;
+          if (operand.isNull()) {
+            return RelationalExpression.value(operator == BinaryOperatorKind.EQ, BOOLEAN);
+          }
+          return RelationalExpression.operation(
+              operator == BinaryOperatorKind.EQ ? Operator.IS_NULL : Operator.IS_NOT_NULL, BOOLEAN, operand);
+        }
+        return RelationalExpression.operation(operator == BinaryOperatorKind.EQ ? Operator.EQ : Operator.NE,
+            BOOLEAN, left, right);
+      case GT:
+        return RelationalExpression.operation(Operator.GT, BOOLEAN, left, right);
+      case GE:
+        return RelationalExpression.operation(Operator.GE, BOOLEAN, left, right);
+      case LT:
+        return RelationalExpression.operation(Operator.LT, BOOLEAN, left, right);
+      case LE:
+        return RelationalExpression.operation(Operator.LE, BOOLEAN, left, right);
+      case ADD:
+        return RelationalExpression.operation(Operator.ADD, left.getType(), left, right);
+      case SUB:
+        return RelationalExpression.operation(Operator.SUB, left.getType(), left, right);
+      case MUL:
+        return RelationalExpression.operation(Operator.MUL, left.getType(), left, right);
+      case DIV:
+        return RelationalExpression.operation(Operator.DIV, left.getType(), left, right);
+      case MOD:
+        return RelationalExpression.operation(Operator.MOD, left.getType(), left, right);
+      default:
+        throw notImplemented("Operator " + operator + " cannot be translated.");
+      }
+    }
+
+    @Override
+    public RelationalExpression visitBinaryOperator(final BinaryOperatorKind operator,
+        final RelationalExpression left, final List<RelationalExpression> right)
+        throws ExpressionVisitException, ODataApplicationException {
+      if (operator != BinaryOperatorKind.IN || right.isEmpty()) {
+        throw notImplemented("Operator " + operator + " cannot be translated.");
+      }
+      List<RelationalExpression> operands = new ArrayList<RelationalExpression>(right.size() + 1);
+      operands.add(left);
+      operands.addAll(right);
+      return RelationalExpression.operation(Operator.IN, BOOLEAN, operands);
+    }
+
+    @Override
+    public RelationalExpression visitUnaryOperator(final UnaryOperatorKind operator,
+        final RelationalExpression operand) throws ExpressionVisitException, ODataApplicationException {
+      return operator == UnaryOperatorKind.NOT ?
+          RelationalExpression.operation(Operator.NOT, BOOLEAN, operand) :
+          RelationalExpression.operation(Operator.NEGATE, operand.getType(), operand);
+    }
+
+    @Override
+    public RelationalExpression visitMethodCall(final MethodKind methodCall,
+        final List<RelationalExpression> parameters) throws ExpressionVisitException, ODataApplicationException {
+      switch (methodCall) {
+      case CONTAINS:
+        return RelationalExpression.operation(Operator.CONTAINS, BOOLEAN, parameters);
+      case STARTSWITH:
+        return RelationalExpression.operation(Operator.STARTS_WITH, BOOLEAN, parameters);
+      case ENDSWITH:
+        return RelationalExpression.operation(Operator.ENDS_WITH, BOOLEAN, parameters);
+      case LENGTH:
+        return RelationalExpression.operation(Operator.LENGTH, INT32, parameters);
+      case INDEXOF:
+        return RelationalExpression.operation(Operator.INDEX_OF, INT32, parameters);
+      case SUBSTRING:
+        return RelationalExpression.operation(Operator.SUBSTRING, STRING, parameters);
+      case TOLOWER:
+        return RelationalExpression.operation(Operator.TO_LOWER, STRING, parameters);
+      case TOUPPER:
+        return RelationalExpression.operation(Operator.TO_UPPER, STRING, parameters);
+      case TRIM:
+        return RelationalExpression.operation(Operator.TRIM, STRING, parameters);
+      case CONCAT:
+        return RelationalExpression.operation(Operator.CONCAT, STRING, parameters);
+      case YEAR:
+        return RelationalExpression.operation(Operator.YEAR, INT32, parameters);
+      case MONTH:
+        return RelationalExpression.operation(Operator.MONTH, INT32, parameters);
+      case DAY:
+        return RelationalExpression.operation(Operator.DAY, INT32, parameters);
+      case HOUR:
+        return RelationalExpression.operation(Operator.HOUR, INT32, parameters);
+      case MINUTE:
+        return RelationalExpression.operation(Operator.MINUTE, INT32, parameters);
+      case SECOND:
+        return RelationalExpression.operation(Operator.SECOND, INT32, parameters);
+      case ROUND:
+        return RelationalExpression.operation(Operator.ROUND, parameters.get(0).getType(), parameters);
+      case FLOOR:
+        return RelationalExpression.operation(Operator.FLOOR, parameters.get(0).getType(), parameters);
+      case CEILING:
+        return RelationalExpression.operation(Operator.CEILING, parameters.get(0).getType(), parameters);
+      default:
+        throw notImplemented("Method " + methodCall + " cannot be translated.");
+      }
+    }
+
+    @Override
+    public RelationalExpression visitLiteral(final Literal literal)
+        throws ExpressionVisitException, ODataApplicationException {
+      final EdmType type = literal.getType();
+      if (type == null) {
+        if ("null".equals(literal.getText())) {
+          return RelationalExpression.value(null, null);
+        }
+        throw notImplemented("Literal " + literal.getText() + " cannot be translated.");
+      }
+      final EdmPrimitiveType primitiveType = getPrimitiveType(type);
+      final EdmPrimitiveTypeKind kind = EdmPrimitiveTypeKind.valueOfFQN(primitiveType.getFullQualifiedName());
+      if (kind.isGeospatial() || kind == EdmPrimitiveTypeKind.Stream) {
+        throw notImplemented("Literal " + literal.getText() + " cannot be translated.");
+      }
+      return RelationalExpression.value(parseLiteral(literal.getText(), primitiveType), primitiveType);
+    }
+
+    @Override
+    public RelationalExpression visitMember(final Member member)
+        throws ExpressionVisitException, ODataApplicationException {
+      if (member.isCollection() || member.getStartTypeFilter() != null) {
+        throw notImplemented("Member " + member + " cannot be translated.");
+      }
+      return translatePropertyPath(member.getResourcePath().getUriResourceParts());
+    }
+
+    @Override
+    public RelationalExpression visitEnum(final EdmEnumType type, final List<String> enumValues)
+        throws ExpressionVisitException, ODataApplicationException {
+      throw notImplemented("Enumeration values cannot be translated.");
+    }
+
+    @Override
+    public RelationalExpression visitLambdaExpression(final String lambdaFunction, final String lambdaVariable,
+        final Expression expression) throws ExpressionVisitException, ODataApplicationException {
+      throw notImplemented("Lambda expressions cannot be translated.");
+    }
+
+    @Override
+    public RelationalExpression visitLambdaReference(final String variableName)
+        throws ExpressionVisitException, ODataApplicationException {
+      throw notImplemented("Lambda expressions cannot be translated.");
+    }
+
+    @Override
+    public RelationalExpression visitAlias(final String aliasName)
+        throws ExpressionVisitException, ODataApplicationException {
+      throw notImplemented("Parameter aliases cannot be translated.");
+    }
+
+    @Override
+    public RelationalExpression visitTypeLiteral(final EdmType type)
+        throws ExpressionVisitException, ODataApplicationException {
+      throw notImplemented("Type literals cannot be translated.");
+    }
+  }
+}
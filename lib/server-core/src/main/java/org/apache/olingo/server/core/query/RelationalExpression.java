@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.query;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+
+/**
+ * Backend-neutral expression of a {@link RelationalQuery}: a column, a constant value, or an operation
+ * on other expressions.
+ * <p>
+ * Columns are identified by the path of property names from the queried entity type (or by the alias of an
+ * aggregation); how a path maps to a column of a table is up to the backend.
+ * Values are held in the default Java type of their EDM primitive type.
+ * Instances are immutable.
+ */
+public final class RelationalExpression {
+
+  public enum Kind {
+    COLUMN,
+    VALUE,
+    OPERATION
+  }
+
+  public enum Operator {
+    AND,
+    OR,
+    NOT,
+    EQ,
+    NE,
+    GT,
+    GE,
+    LT,
+    LE,
+    /** The only operand is <code>null</code>. */
+    IS_NULL,
+    /** The only operand is not <code>null</code>. */
+    IS_NOT_NULL,
+    /** The first operand is equal to one of the other operands. */
+    IN,
+    ADD,
+    SUB,
+    MUL,
+    DIV,
+    MOD,
+    NEGATE,
+    CONTAINS,
+    STARTS_WITH,
+    ENDS_WITH,
+    LENGTH,
+    /** Zero-based position of the second operand in the first one, -1 if not found. */
+    INDEX_OF,
+    /** Zero-based start position as second operand and optional length as third operand. */
+    SUBSTRING,
+    TO_LOWER,
+    TO_UPPER,
+    TRIM,
+    CONCAT,
+    YEAR,
+    MONTH,
+    DAY,
+    HOUR,
+    MINUTE,
+    SECOND,
+    ROUND,
+    FLOOR,
+    CEILING
+  }
+
+  private final Kind kind;
+  private final List<String> path;
+  private final Object value;
+  private final Operator operator;
+  private final List<RelationalExpression> operands;
+  private final EdmPrimitiveType type;
+
+  private RelationalExpression(final Kind kind, final List<String> path, final Object value,
+      final Operator operator, final List<RelationalExpression> operands, final EdmPrimitiveType type) {
+    this.kind = kind;
+    this.path = path;
+    this.value = value;
+    this.operator = operator;
+    this.operands = operands;
+    this.type = type;
+  }
+
+  /**
+   * Creates a column expression.
+   * @param path the names of the (complex and finally primitive) properties leading to the column
+   * @param type the type of the column or <code>null</code> if unknown
+   */
+  public static RelationalExpression column(final List<String> path, final EdmPrimitiveType type) {
+    return new RelationalExpression(Kind.COLUMN, Collections.unmodifiableList(path), null, null,
+        Collections.<RelationalExpression> emptyList(), type);
+  }
+
+  /**
+   * Creates a constant-value expression.
+   * @param value the value in the default Java type of its EDM type; <code>null</code> for the null literal
+   * @param type the type of the value or <code>null</code> for the null literal
+   */
+  public static RelationalExpression value(final Object value, final EdmPrimitiveType type) {
+    return new RelationalExpression(Kind.VALUE, Collections.<String> emptyList(), value, null,
+        Collections.<RelationalExpression> emptyList(), type);
+  }
+
+  /**
+   * Creates an operation.
+   * @param operator the operator
+   * @param type the result type or <code>null</code> if unknown
+   * @param operands the operands
+   */
+  public static RelationalExpression operation(final Operator operator, final EdmPrimitiveType type,
+      final RelationalExpression... operands) {
+    return operation(operator, type, Arrays.asList(operands));
+  }
+
+  /**
+   * Creates an operation.
+   * @param operator the operator
+   * @param type the result type or <code>null</code> if unknown
+   * @param operands the operands
+   */
+  public static RelationalExpression operation(final Operator operator, final EdmPrimitiveType type,
+      final List<RelationalExpression> operands) {
+    return new RelationalExpression(Kind.OPERATION, Collections.<String> emptyList(), null, operator,
+        Collections.unmodifiableList(operands), type);
+  }
+
+  public Kind getKind() {
+    return kind;
+  }
+
+  /** Returns the property path of a column, or an empty list for other kinds. */
+  public List<String> getPath() {
+    return path;
+  }
+
+  /** Returns the value of a constant value, or <code>null</code> for other kinds. */
+  public Object getValue() {
+    return value;
+  }
+
+  /** Returns the operator of an operation, or <code>null</code> for other kinds. */
+  public Operator getOperator() {
+    return operator;
+  }
+
+  /** Returns the operands of an operation, or an empty list for other kinds. */
+  public List<RelationalExpression> getOperands() {
+    return operands;
+  }
+
+  /** Returns the EDM type of the expression or <code>null</code> if it is unknown. */
+  public EdmPrimitiveType getType() {
+    return type;
+  }
+
+  /** Whether this is the null literal. */
+  public boolean isNull() {
+    return kind == Kind.VALUE && value == null;
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    final RelationalExpression other = (RelationalExpression) obj;
+    return kind == other.kind
+        && path.equals(other.path)
+        && (value == null ? other.value == null : value.equals(other.value))
+        && operator == other.operator
+        && operands.equals(other.operands);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = kind.hashCode();
+    result = 31 * result + path.hashCode();
+    result = 31 * result + (value == null ? 0 : value.hashCode());
+    result = 31 * result + (operator == null ? 0 : operator.hashCode());
+    result = 31 * result + operands.hashCode();
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    switch (kind) {
+    case COLUMN:
+      return path.toString();
+    case VALUE:
+      return value instanceof String ? "'" + value + "'" : String.valueOf(value);
+    default:
+      return operator + operands.toString();
+    }
+  }
+}
@@ -0,0 +1,252 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
+
+/**
+ * Backend-neutral relational query for the entities of one entity set, as translated from the resource path
+ * and the system query options of an OData request by {@link QueryTranslator}.
+ * <p>
+ * The query selects either columns (all of them if none are given) or, if grouping columns or aggregations
+ * are present, one row per group with the grouping columns and the aggregated values.
+ * The restriction applies before grouping; ordering, offset, and limit apply to the result.
+ * All parts can be changed before the query is handed to a backend.
+ */
+public class RelationalQuery {
+
+  /** Ordering of the result by an expression. */
+  public static final class Ordering {
+    private final RelationalExpression expression;
+    private final boolean descending;
+
+    public Ordering(final RelationalExpression expression, final boolean descending) {
+      this.expression = expression;
+      this.descending = descending;
+    }
+
+    public RelationalExpression getExpression() {
+      return expression;
+    }
+
+    public boolean isDescending() {
+      return descending;
+    }
+
+    @Override
+    public String toString() {
+      return expression + (descending ? " desc" : " asc");
+    }
+  }
+
+  /** Aggregation of the values of an expression over a group of rows. */
+  public static final class Aggregation {
+
+    public enum Function {
+      /** Number of rows; there is no expression. */
+      COUNT,
+      SUM,
+      MIN,
+      MAX,
+      AVERAGE,
+      COUNT_DISTINCT
+    }
+
+    private final Function function;
+    private final RelationalExpression expression;
+    private final String alias;
+    private final EdmPrimitiveType type;
+
+    /**
+     * @param function the aggregation function
+     * @param expression the aggregated expression; <code>null</code> for {@link Function#COUNT}
+     * @param alias the name of the aggregated value in the result
+     * @param type the type of the aggregated value or <code>null</code> if unknown
+     */
+    public Aggregation(final Function function, final RelationalExpression expression, final String alias,
+        final EdmPrimitiveType type) {
+      this.function = function;
+      this.expression = expression;
+      this.alias = alias;
+      this.type = type;
+    }
+
+    public Function getFunction() {
+      return function;
+    }
+
+    public RelationalExpression getExpression() {
+      return expression;
+    }
+
+    public String getAlias() {
+      return alias;
+    }
+
+    public EdmPrimitiveType getType() {
+      return type;
+    }
+
+    @Override
+    public String toString() {
+      return function + "(" + (expression == null ? "" : expression) + ") as " + alias;
+    }
+  }
+
+  private final EdmEntitySet entitySet;
+  private final List<RelationalExpression> columns = new ArrayList<RelationalExpression>();
+  private RelationalExpression restriction;
+  private final List<RelationalExpression> groupBy = new ArrayList<RelationalExpression>();
+  private final List<Aggregation> aggregations = new ArrayList<Aggregation>();
+  private final List<Ordering> orderings = new ArrayList<Ordering>();
+  private Integer offset;
+  private Integer limit;
+  private boolean countRequested;
+  private boolean countOnly;
+
+  public RelationalQuery(final EdmEntitySet entitySet) {
+    this.entitySet = entitySet;
+  }
+
+  public EdmEntitySet getEntitySet() {
+    return entitySet;
+  }
+
+  /** Returns the selected columns; an empty list means all columns. The list can be modified. */
+  public List<RelationalExpression> getColumns() {
+    return columns;
+  }
+
+  /** Returns the condition the rows must fulfill or <code>null</code> if all rows are queried. */
+  public RelationalExpression getRestriction() {
+    return restriction;
+  }
+
+  public RelationalQuery setRestriction(final RelationalExpression restriction) {
+    this.restriction = restriction;
+    return this;
+  }
+
+  /**
+   * Adds a condition the rows must fulfill in addition to the existing restriction.
+   * @param condition the condition
+   */
+  public RelationalQuery restrict(final RelationalExpression condition) {
+    restriction = restriction == null ? condition :
+        RelationalExpression.operation(RelationalExpression.Operator.AND,
+            EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Boolean), restriction, condition);
+    return this;
+  }
+
+  /** Returns the grouping columns. The list can be modified. */
+  public List<RelationalExpression> getGroupBy() {
+    return groupBy;
+  }
+
+  /** Returns the aggregations. The list can be modified. */
+  public List<Aggregation> getAggregations() {
+    return aggregations;
+  }
+
+  /** Whether the query returns groups or aggregated values instead of rows. */
+  public boolean isAggregated() {
+    return !groupBy.isEmpty() || !aggregations.isEmpty();
+  }
+
+  /** Returns the orderings of the result, the most significant first. The list can be modified. */
+  public List<Ordering> getOrderings() {
+    return orderings;
+  }
+
+  /** Returns the number of result rows to skip or <code>null</code> if none are skipped. */
+  public Integer getOffset() {
+    return offset;
+  }
+
+  public RelationalQuery setOffset(final Integer offset) {
+    this.offset = offset;
+    return this;
+  }
+
+  /** Returns the maximum number of result rows or <code>null</code> if there is no limit. */
+  public Integer getLimit() {
+    return limit;
+  }
+
+  public RelationalQuery setLimit(final Integer limit) {
+    this.limit = limit;
+    return this;
+  }
+
+  /**
+   * Whether the total number of result rows (without regard to offset and limit) is requested
+   * in addition to the rows themselves.
+   */
+  public boolean isCountRequested() {
+    return countRequested;
+  }
+
+  public RelationalQuery setCountRequested(final boolean countRequested) {
+    this.countRequested = countRequested;
+    return this;
+  }
+
+  /** Whether only the number of result rows is requested, as for a path ending with <code>$count</code>. */
+  public boolean isCountOnly() {
+    return countOnly;
+  }
+
+  public RelationalQuery setCountOnly(final boolean countOnly) {
+    this.countOnly = countOnly;
+    return this;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder(entitySet == null ? "?" : entitySet.getName());
+    if (!columns.isEmpty()) {
+      result.append(" columns ").append(columns);
+    }
+    if (restriction != null) {
+      result.append(" where ").append(restriction);
+    }
+    if (!groupBy.isEmpty()) {
+      result.append(" group by ").append(groupBy);
+    }
+    if (!aggregations.isEmpty()) {
+      result.append(" aggregate ").append(aggregations);
+    }
+    if (!orderings.isEmpty()) {
+      result.append(" order by ").append(orderings);
+    }
+    if (offset != null) {
+      result.append(" offset ").append(offset);
+    }
+    if (limit != null) {
+      result.append(" limit ").append(limit);
+    }
+    return result.toString();
+  }
+}
@@ -0,0 +1,525 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.query.sql;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.core.query.RelationalExpression;
+import org.apache.olingo.server.core.query.RelationalExpression.Kind;
+import org.apache.olingo.server.core.query.RelationalExpression.Operator;
+import org.apache.olingo.server.core.query.RelationalQuery;
+import org.apache.olingo.server.core.query.RelationalQuery.Aggregation;
+import org.apache.olingo.server.core.query.RelationalQuery.Ordering;
+
+/**
+ * Renders a {@link RelationalQuery} as SQL <code>SELECT</code> statement with parameter markers for all values.
+ * <p>
+ * The default rendering uses standard SQL as understood, e.g., by H2 and PostgreSQL: the table of an entity set
+ * has the name of the entity set, a column has the name of its property (the property names of a path
+ * joined with '_'), identifiers are quoted, and paging uses <code>OFFSET ... ROWS FETCH FIRST ... ROWS ONLY</code>.
+ * To conform to OData, null values come first in ascending order, and <code>ne</code> with a value
+ * as well as the negation of a comparison are also true for null columns.
+ * Subclasses can adapt the mapping to the database schema and the dialect by overriding the protected methods.
+ * The renderer has no state; one instance can be used concurrently.
+ */
+public class SqlRenderer {
+
+  private static final EdmPrimitiveType DATE = EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Date);
+  private static final EdmPrimitiveType TIME_OF_DAY =
+      EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.TimeOfDay);
+  private static final char LIKE_ESCAPE = '\\';
+
+  /** Text of a statement under construction together with its parameter values. */
+  protected static final class SqlBuilder {
+    private final StringBuilder sql = new StringBuilder();
+    private final List<Object> parameters = new ArrayList<Object>();
+    private final Set<String> aliases = new HashSet<String>();
+
+    public SqlBuilder append(final String text) {
+      sql.append(text);
+      return this;
+    }
+
+    /** Appends a parameter marker for the given value. */
+    public SqlBuilder appendParameter(final Object value) {
+      sql.append('?');
+      parameters.add(value);
+      return this;
+    }
+
+    /** Whether the given name is the alias of an aggregated value. */
+    public boolean isAlias(final String name) {
+      return aliases.contains(name);
+    }
+
+    private SqlStatement build() {
+      return new SqlStatement(sql.toString(), parameters);
+    }
+  }
+
+  /**
+   * Renders the query; if only the count is requested, the count query is rendered.
+   * @throws ODataApplicationException if the query contains a construct the renderer does not support
+   */
+  public SqlStatement render(final RelationalQuery query) throws ODataApplicationException {
+    if (query.isCountOnly()) {
+      return renderCount(query);
+    }
+    SqlBuilder builder = createBuilder(query);
+    renderSelect(query, builder);
+    if (!query.getOrderings().isEmpty()) {
+      builder.append(" ORDER BY ");
+      boolean first = true;
+      for (final Ordering ordering : query.getOrderings()) {
+        builder.append(first ? "" : ", ");
+        first = false;
+        renderOrdering(ordering, builder);
+      }
+    }
+    renderPaging(query.getOffset(), query.getLimit(), builder);
+    return builder.build();
+  }
+
+  /**
+   * Renders a query for the number of result rows, regardless of ordering, offset, and limit.
+   * @throws ODataApplicationException if the query contains a construct the renderer does not support
+   */
+  public SqlStatement renderCount(final RelationalQuery query) throws ODataApplicationException {
+    SqlBuilder builder = createBuilder(query);
+    if (query.isAggregated()) {
+      builder.append("SELECT COUNT(*) FROM (");
+      renderSelect(query, builder);
+      builder.append(") ").append(quote("groups"));
+    } else {
+      builder.append("SELECT COUNT(*) FROM ").append(getTableName(query.getEntitySet()));
+      renderWhere(query, builder);
+    }
+    return builder.build();
+  }
+
+  private SqlBuilder createBuilder(final RelationalQuery query) {
+    SqlBuilder builder = new SqlBuilder();
+    for (final Aggregation aggregation : query.getAggregations()) {
+      builder.aliases.add(aggregation.getAlias());
+    }
+    return builder;
+  }
+
+  private void renderSelect(final RelationalQuery query, SqlBuilder builder) throws ODataApplicationException {
+    builder.append("SELECT ");
+    if (query.isAggregated()) {
+      boolean first = true;
+      for (final RelationalExpression column : query.getGroupBy()) {
+        builder.append(first ? "" : ", ");
+        first = false;
+        renderExpression(column, builder);
+      }
+      for (final Aggregation aggregation : query.getAggregations()) {
+        builder.append(first ? "" : ", ");
+        first = false;
+        renderAggregation(aggregation, builder);
+        builder.append(" AS ").append(quote(aggregation.getAlias()));
+      }
+    } else if (query.getColumns().isEmpty()) {
+      builder.append("*");
+    } else {
+      boolean first = true;
+      for (final RelationalExpression column : query.getColumns()) {
+        builder.append(first ? "" : ", ");
+        first = false;
+        renderExpression(column, builder);
+      }
+    }
+    builder.append(" FROM ").append(getTableName(query.getEntitySet()));
+    renderWhere(query, builder);
+    if (!query.getGroupBy().isEmpty()) {
+      builder.append(" GROUP BY ");
+      boolean first = true;
+      for (final RelationalExpression column : query.getGroupBy()) {
+        builder.append(first ? "" : ", ");
+        first = false;
+        renderExpression(column, builder);
+      }
+    }
+  }
+
+  private void renderWhere(final RelationalQuery query, SqlBuilder builder) throws ODataApplicationException {
+    if (query.getRestriction() != null) {
+      builder.append(" WHERE ");
+      renderExpression(query.getRestriction(), builder);
+    }
+  }
+
+  /** Returns the (quoted) name of the table holding the entities of the given entity set. */
+  protected String getTableName(final EdmEntitySet entitySet) {
+    return quote(entitySet.getName());
+  }
+
+  /** Returns the (quoted) name of the column for the given property path. */
+  protected String getColumnName(final List<String> path) {
+    StringBuilder name = new StringBuilder();
+    for (final String segment : path) {
+      name.append(name.length() == 0 ? "" : "_").append(segment);
+    }
+    return quote(name.toString());
+  }
+
+  /** Quotes an identifier. */
+  protected String quote(final String identifier) {
+    return '"' + identifier.replace("\"", "\"\"") + '"';
+  }
+
+  protected void renderOrdering(final Ordering ordering, SqlBuilder builder) throws ODataApplicationException {
+    renderExpression(ordering.getExpression(), builder);
+    builder.append(ordering.isDescending() ? " DESC NULLS LAST" : " ASC NULLS FIRST");
+  }
+
+  protected void renderPaging(final Integer offset, final Integer limit, SqlBuilder builder) {
+    if (offset != null && offset > 0) {
+      builder.append(" OFFSET ").appendParameter(offset).append(" ROWS");
+    }
+    if (limit != null) {
+      builder.append(" FETCH FIRST ").appendParameter(limit).append(" ROWS ONLY");
+    }
+  }
+
+  protected void renderAggregation(final Aggregation aggregation, SqlBuilder builder)
+      throws ODataApplicationException {
+    switch (aggregation.getFunction()) {
+    case COUNT:
+      builder.append("COUNT(*)");
+      return;
+    case SUM:
+      builder.append("SUM(");
+      break;
+    case MIN:
+      builder.append("MIN(");
+      break;
+    case MAX:
+      builder.append("MAX(");
+      break;
+    case AVERAGE:
+      builder.append("AVG(");
+      break;
+    case COUNT_DISTINCT:
+      builder.append("COUNT(DISTINCT ");
+      break;
+    default:
+      throw notImplemented("Aggregation " + aggregation.getFunction());
+    }
+    renderExpression(aggregation.getExpression(), builder);
+    builder.append(")");
+  }
+
+  /**
+   * Renders an expression. Operations are enclosed in parentheses so that no precedence rules are needed.
+   * @throws ODataApplicationException if the expression contains an operator the renderer does not support
+   */
+  protected void renderExpression(final RelationalExpression expression, SqlBuilder builder)
+      throws ODataApplicationException {
+    switch (expression.getKind()) {
+    case COLUMN:
+      final List<String> path = expression.getPath();
+      builder.append(path.size() == 1 && builder.isAlias(path.get(0)) ? quote(path.get(0)) : getColumnName(path));
+      break;
+    case VALUE:
+      if (expression.isNull()) {
+        builder.append("NULL");
+      } else {
+        builder.appendParameter(toJdbcValue(expression.getValue(), expression.getType()));
+      }
+      break;
+    default:
+      renderOperation(expression.getOperator(), expression.getOperands(), builder);
+    }
+  }
+
+  protected void renderOperation(final Operator operator, final List<RelationalExpression> operands,
+      SqlBuilder builder) throws ODataApplicationException {
+    switch (operator) {
+    case AND:
+      renderInfix(" AND ", operands, builder);
+      break;
+    case OR:
+      renderInfix(" OR ", operands, builder);
+      break;
+    case NOT:
+      renderNot(operands.get(0), builder);
+      break;
+    case EQ:
+      renderInfix(" = ", operands, builder);
+      break;
+    case NE:
+      renderNotEquals(operands.get(0), operands.get(1), builder);
+      break;
+    case GT:
+      renderInfix(" > ", operands, builder);
+      break;
+    case GE:
+      renderInfix(" >= ", operands, builder);
+      break;
+    case LT:
+      renderInfix(" < ", operands, builder);
+      break;
+    case LE:
+      renderInfix(" <= ", operands, builder);
+      break;
+    case IS_NULL:
+      builder.append("(");
+      renderExpression(operands.get(0), builder);
+      builder.append(" IS NULL)");
+      break;
+    case IS_NOT_NULL:
+      builder.append("(");
+      renderExpression(operands.get(0), builder);
+      builder.append(" IS NOT NULL)");
+      break;
+    case IN:
+      builder.append("(");
+      renderExpression(operands.get(0), builder);
+      builder.append(" IN ");
+      renderFunction("(", operands.subList(1, operands.size()), builder);
+      builder.append(")");
+      break;
+    case ADD:
+      renderInfix(" + ", operands, builder);
+      break;
+    case SUB:
+      renderInfix(" - ", operands, builder);
+      break;
+    case MUL:
+      renderInfix(" * ", operands, builder);
+      break;
+    case DIV:
+      renderInfix(" / ", operands, builder);
+      break;
+    case MOD:
+      renderFunction("MOD(", operands, builder);
+      break;
+    case NEGATE:
+      renderFunction("(- ", operands, builder);
+      break;
+    case CONTAINS:
+    case STARTS_WITH:
+    case ENDS_WITH:
+      renderStringMatch(operator, operands.get(0), operands.get(1), builder);
+      break;
+    case LENGTH:
+      renderFunction("CHAR_LENGTH(", operands, builder);
+      break;
+    case INDEX_OF:
+      builder.append("(POSITION(");
+      renderExpression(operands.get(1), builder);
+      builder.append(" IN ");
+      renderExpression(operands.get(0), builder);
+      builder.append(") - 1)");
+      break;
+    case SUBSTRING:
+      builder.append("SUBSTRING(");
+      renderExpression(operands.get(0), builder);
+      builder.append(" FROM ");
+      renderExpression(operands.get(1), builder);
+      builder.append(" + 1");
+      if (operands.size() > 2) {
+        builder.append(" FOR ");
+        renderExpression(operands.get(2), builder);
+      }
+      builder.append(")");
+      break;
+    case TO_LOWER:
+      renderFunction("LOWER(", operands, builder);
+      break;
+    case TO_UPPER:
+      renderFunction("UPPER(", operands, builder);
+      break;
+    case TRIM:
+      renderFunction("TRIM(", operands, builder);
+      break;
+    case CONCAT:
+      renderInfix(" || ", operands, builder);
+      break;
+    case YEAR:
+    case MONTH:
+    case DAY:
+    case HOUR:
+    case MINUTE:
+    case SECOND:
+      builder.append("EXTRACT(").append(operator.name()).append(" FROM ");
+      renderExpression(operands.get(0), builder);
+      builder.append(")");
+      break;
+    case ROUND:
+      renderFunction("ROUND(", operands, builder);
+      break;
+    case FLOOR:
+      renderFunction("FLOOR(", operands, builder);
+      break;
+    case CEILING:
+      renderFunction("CEILING(", operands, builder);
+      break;
+    default:
+      throw notImplemented("Operator " + operator);
+    }
+  }
+
+  /**
+   * Renders <code>not</code>. In OData, a comparison with null is false, while in SQL it is unknown,
+   * and <code>NOT</code> keeps it unknown; so the negation of an operation is rendered as
+   * <code>IS NOT TRUE</code>. A boolean column which is null stays null, as in OData.
+   */
+  protected void renderNot(final RelationalExpression operand, SqlBuilder builder)
+      throws ODataApplicationException {
+    builder.append("(");
+    if (operand.getKind() == Kind.OPERATION) {
+      renderExpression(operand, builder);
+      builder.append(" IS NOT TRUE");
+    } else {
+      builder.append("NOT ");
+      renderExpression(operand, builder);
+    }
+    builder.append(")");
+  }
+
+  /**
+   * Renders <code>ne</code>; if one operand is a column and the other one a value,
+   * the result is also true if the column is null.
+   */
+  protected void renderNotEquals(final RelationalExpression left, final RelationalExpression right,
+      SqlBuilder builder) throws ODataApplicationException {
+    final RelationalExpression column = left.getKind() == Kind.COLUMN && right.getKind() == Kind.VALUE ? left :
+        right.getKind() == Kind.COLUMN && left.getKind() == Kind.VALUE ? right : null;
+    builder.append("(");
+    renderExpression(left, builder);
+    builder.append(" <> ");
+    renderExpression(right, builder);
+    if (column != null) {
+      builder.append(" OR ");
+      renderExpression(column, builder);
+      builder.append(" IS NULL");
+    }
+    builder.append(")");
+  }
+
+  /**
+   * Renders <code>contains</code>, <code>startswith</code>, and <code>endswith</code>;
+   * with a string value as second operand as <code>LIKE</code> pattern, otherwise with string functions.
+   */
+  protected void renderStringMatch(final Operator operator, final RelationalExpression string,
+      final RelationalExpression part, SqlBuilder builder) throws ODataApplicationException {
+    if (part.getKind() == Kind.VALUE && part.getValue() instanceof String) {
+      final String escaped = escapeLike((String) part.getValue());
+      builder.append("(");
+      renderExpression(string, builder);
+      builder.append(" LIKE ")
+          .appendParameter(operator == Operator.STARTS_WITH ? escaped + '%' :
+              operator == Operator.ENDS_WITH ? '%' + escaped : '%' + escaped + '%')
+          .append(" ESCAPE '" + LIKE_ESCAPE + "')");
+    } else if (operator == Operator.ENDS_WITH) {
+      builder.append("(SUBSTRING(");
+      renderExpression(string, builder);
+      builder.append(" FROM CHAR_LENGTH(");
+      renderExpression(string, builder);
+      builder.append(") - CHAR_LENGTH(");
+      renderExpression(part, builder);
+      builder.append(") + 1) = ");
+      renderExpression(part, builder);
+      builder.append(")");
+    } else {
+      builder.append("(POSITION(");
+      renderExpression(part, builder);
+      builder.append(" IN ");
+      renderExpression(string, builder);
+      builder.append(operator == Operator.STARTS_WITH ? ") = 1)" : ") > 0)");
+    }
+  }
+
+  private static String escapeLike(final String value) {
+    StringBuilder result = new StringBuilder(value.length());
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+        result.append(LIKE_ESCAPE);
+      }
+      result.append(c);
+    }
+    return result.toString();
+  }
+
+  private void renderInfix(final String operator, final List<RelationalExpression> operands, SqlBuilder builder)
+      throws ODataApplicationException {
+    builder.append("(");
+    boolean first = true;
+    for (final RelationalExpression operand : operands) {
+      builder.append(first ? "" : operator);
+      first = false;
+      renderExpression(operand, builder);
+    }
+    builder.append(")");
+  }
+
+  /** Renders the operands separated by commas after the given start and a closing parenthesis. */
+  private void renderFunction(final String start, final List<RelationalExpression> operands,
+      SqlBuilder builder) throws ODataApplicationException {
+    builder.append(start);
+    boolean first = true;
+    for (final RelationalExpression operand : operands) {
+      builder.append(first ? "" : ", ");
+      first = false;
+      renderExpression(operand, builder);
+    }
+    builder.append(")");
+  }
+
+  /**
+   * Converts a value from the default Java type of its EDM type to a type the JDBC driver can bind;
+   * dates and times of day become {@link java.sql.Date} and {@link java.sql.Time} values.
+   */
+  protected Object toJdbcValue(final Object value, final EdmPrimitiveType type) throws ODataApplicationException {
+    try {
+      if (DATE.equals(type)) {
+        return type.valueOfString(type.valueToString(value, null, null, null, null, null),
+            null, null, null, null, null, java.sql.Date.class);
+      } else if (TIME_OF_DAY.equals(type)) {
+        return type.valueOfString(type.valueToString(value, null, null, 12, null, null),
+            null, null, 12, null, null, java.sql.Time.class);
+      } else {
+        return value;
+      }
+    } catch (final EdmPrimitiveTypeException e) {
+      throw new ODataApplicationException("Value " + value + " cannot be converted.",
+          HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(), Locale.ROOT, e);
+    }
+  }
+
+  private static ODataApplicationException notImplemented(final String construct) {
+    return new ODataApplicationException(construct + " cannot be rendered as SQL.",
+        HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), Locale.ROOT);
+  }
+}
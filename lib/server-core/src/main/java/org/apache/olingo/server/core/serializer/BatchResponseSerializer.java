@@ -18,15 +18,19 @@
  */
 package org.apache.olingo.server.core.serializer;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -51,16 +55,28 @@ public class BatchResponseSerializer {
 
   public InputStream serialize(final List<ODataResponsePart> responses, final String boundary)
       throws BatchSerializerException {
-    BodyBuilder builder = createBody(responses, boundary);
+    final ByteArrayOutputStream output = new ByteArrayOutputStream(BUFFER_SIZE);
+    createBody(responses.iterator(), boundary, new BodyBuilder(output, false));
 
-    return new ByteArrayInputStream(builder.getContent());
+    return new ByteArrayInputStream(output.toByteArray());
   }
 
-  private BodyBuilder createBody(final List<ODataResponsePart> batchResponses, final String boundary)
-      throws BatchSerializerException {
-    final BodyBuilder builder = new BodyBuilder();
+  /**
+   * Creates content which serializes the response parts only when it is written.
+   * Each part is written to the channel as soon as the iterator has returned it,
+   * so the parts can be produced while the response is written.
+   * Bodies given as {@link ODataContent} are written directly, without Content-Length header.
+   * @param responses the response parts
+   * @param boundary the boundary between the parts
+   */
+  public ODataContent serializeStreamed(final Iterator<ODataResponsePart> responses, final String boundary) {
+    return new StreamedBatchContent(responses, boundary);
+  }
 
-    for (final ODataResponsePart part : batchResponses) {
+  private void createBody(final Iterator<ODataResponsePart> batchResponses, final String boundary,
+      final BodyBuilder builder) throws BatchSerializerException {
+    while (batchResponses.hasNext()) {
+      final ODataResponsePart part = batchResponses.next();
       builder.append(getDashBoundary(boundary));
 
       if (part.isChangeSet()) {
@@ -68,10 +84,10 @@ public class BatchResponseSerializer {
       } else {
         appendBodyPart(part.getResponses().get(0), builder, false);
       }
+      builder.flush();
     }
     builder.append(getCloseDelimiter(boundary));
-
-    return builder;
+    builder.flush();
   }
 
   private void appendChangeSet(final ODataResponsePart part, final BodyBuilder builder)
@@ -96,11 +112,19 @@ public class BatchResponseSerializer {
     builder.append(CRLF);
 
     appendStatusLine(response, builder);
-    Body body = new Body(response);
-    appendResponseHeader(response, body.getLength(), builder);
-    builder.append(CRLF);
-
-    builder.append(body);
+    if (builder.isStreamed() && response.getContent() == null && response.getODataContent() != null) {
+      // The length is not known in advance; the body ends with the next delimiter.
+      appendResponseHeader(response, -1, builder);
+      builder.append(CRLF);
+
+      builder.append(response.getODataContent());
+    } else {
+      Body body = new Body(response);
+      appendResponseHeader(response, body.getLength(), builder);
+      builder.append(CRLF);
+
+      builder.append(body);
+    }
     builder.append(CRLF);
   }
 
@@ -145,7 +169,9 @@ public class BatchResponseSerializer {
       }
     }
 
-    appendHeader(HttpHeader.CONTENT_LENGTH, Integer.toString(contentLength), builder);
+    if (contentLength >= 0) {
+      appendHeader(HttpHeader.CONTENT_LENGTH, Integer.toString(contentLength), builder);
+    }
   }
 
   private void appendBodyPartHeader(final ODataResponse response, final BodyBuilder builder,
@@ -175,39 +201,53 @@ public class BatchResponseSerializer {
   }
 
   /**
-   * Builder class to create the body and the header.
+   * Batch response which is serialized while it is written.
+   */
+  private class StreamedBatchContent implements ODataContent {
+    private final Iterator<ODataResponsePart> responses;
+    private final String boundary;
+
+    StreamedBatchContent(final Iterator<ODataResponsePart> responses, final String boundary) {
+      this.responses = responses;
+      this.boundary = boundary;
+    }
+
+    @Override
+    public void write(final WritableByteChannel channel) {
+      write(Channels.newOutputStream(channel));
+    }
+
+    @Override
+    public void write(final OutputStream stream) {
+      try {
+        createBody(responses, boundary, new BodyBuilder(new BufferedOutputStream(stream, BUFFER_SIZE), true));
+      } catch (final BatchSerializerException e) {
+        throw new ODataRuntimeException("Error on writing batch response", e);
+      }
+    }
+  }
+
+  /**
+   * Builder class to write the body and the header.
    */
   private static class BodyBuilder {
     private static final Charset CHARSET_ISO_8859_1 = Charset.forName("iso-8859-1");
-    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
-    private boolean isClosed = false;
-
-    public byte[] getContent() {
-      isClosed = true;
-      byte[] tmp = new byte[buffer.position()];
-      buffer.flip();
-      buffer.get(tmp, 0, buffer.limit());
-      return tmp;
+    private final OutputStream output;
+    private final boolean isStreamed;
+
+    BodyBuilder(final OutputStream output, final boolean isStreamed) {
+      this.output = output;
+      this.isStreamed = isStreamed;
     }
 
-    public BodyBuilder append(final String string) {
-      byte[] b = string.getBytes(CHARSET_ISO_8859_1);
-      put(b);
-      return this;
+    /** Whether bodies given as {@link ODataContent} are written directly. */
+    public boolean isStreamed() {
+      return isStreamed;
     }
 
-    private void put(final byte[] b) {
-      if (isClosed) {
-        throw new ODataRuntimeException("BodyBuilder is closed.");
-      }
-      if (buffer.remaining() < b.length) {
-        buffer.flip();
-        int newSize = (buffer.limit() * 2) + b.length;
-        ByteBuffer tmp = ByteBuffer.allocate(newSize);
-        tmp.put(buffer);
-        buffer = tmp;
-      }
-      buffer.put(b);
+    public BodyBuilder append(final String string) {
+      write(string.getBytes(CHARSET_ISO_8859_1));
+      return this;
     }
 
     public BodyBuilder append(final int statusCode) {
@@ -215,13 +255,40 @@ public class BatchResponseSerializer {
     }
 
     public BodyBuilder append(final Body body) {
-      put(body.getContent());
+      write(body.getContent());
       return this;
     }
 
-    @Override
-    public String toString() {
-      return new String(buffer.array(), 0, buffer.position(), CHARSET_ISO_8859_1);
+    public BodyBuilder append(final ODataContent content) {
+      // Serializers close the stream when they are done, but further parts follow.
+      content.write(new FilterOutputStream(output) {
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+          out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+          flush();
+        }
+      });
+      return this;
+    }
+
+    public void flush() {
+      try {
+        output.flush();
+      } catch (final IOException e) {
+        throw new ODataRuntimeException("Error on writing batch response", e);
+      }
+    }
+
+    private void write(final byte[] b) {
+      try {
+        output.write(b);
+      } catch (final IOException e) {
+        throw new ODataRuntimeException("Error on writing batch response", e);
+      }
     }
   }
 
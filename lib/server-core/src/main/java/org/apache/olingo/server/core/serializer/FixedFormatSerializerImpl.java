@@ -23,6 +23,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Iterator;
 import java.util.List;
 
 import org.apache.olingo.commons.api.data.EntityMediaObject;
@@ -35,6 +38,7 @@ import org.apache.olingo.server.api.serializer.FixedFormatSerializer;
 import org.apache.olingo.server.api.serializer.PrimitiveValueSerializerOptions;
 import org.apache.olingo.server.api.serializer.SerializerException;
 import org.apache.olingo.server.api.serializer.SerializerStreamResult;
+import org.apache.olingo.server.core.ODataFileContent;
 import org.apache.olingo.server.core.ODataWritableContent;
 
 public class FixedFormatSerializerImpl implements FixedFormatSerializer {
@@ -63,6 +67,16 @@ public class FixedFormatSerializerImpl implements FixedFormatSerializer {
 	  return ODataWritableContent.with(mediaEntity, this).build();
   }
 
+  @Override
+  public SerializerStreamResult binaryStreamed(final Path file) throws SerializerException {
+    return SerializerStreamResultImpl.with().content(new ODataFileContent(file)).build();
+  }
+
+  @Override
+  public SerializerStreamResult binaryStreamed(final FileChannel file) throws SerializerException {
+    return SerializerStreamResultImpl.with().content(new ODataFileContent(file)).build();
+  }
+
   @Override
   public InputStream count(final Integer count) throws SerializerException {
     try {
@@ -104,4 +118,12 @@ public class FixedFormatSerializerImpl implements FixedFormatSerializer {
 
     return serializer.serialize(batchResponses, boundary);
   }
+
+  @Override
+  public SerializerStreamResult batchResponseStreamed(final Iterator<ODataResponsePart> batchResponses,
+      final String boundary) throws BatchSerializerException {
+    return SerializerStreamResultImpl.with()
+        .content(new BatchResponseSerializer().serializeStreamed(batchResponses, boundary))
+        .build();
+  }
 }
@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.net.URI;
+import java.util.Iterator;
 import java.util.List;
 
 import org.apache.olingo.commons.api.Constants;
@@ -59,8 +60,8 @@ import org.apache.olingo.server.core.serializer.SerializerResultImpl;
 import org.apache.olingo.server.core.serializer.utils.CircleStreamBuffer;
 import org.apache.olingo.server.core.serializer.utils.ContentTypeHelper;
 import org.apache.olingo.server.core.serializer.utils.ContextURLBuilder;
+import org.apache.olingo.server.core.serializer.utils.JsonFactoryProvider;
 
-import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 
 public class EdmAssistedJsonSerializer implements EdmAssistedSerializer {
@@ -110,7 +111,7 @@ public class EdmAssistedJsonSerializer implements EdmAssistedSerializer {
     
     CircleStreamBuffer buffer = new CircleStreamBuffer();
     outputStream = buffer.getOutputStream();
-    try (JsonGenerator json = new JsonFactory().createGenerator(outputStream)) {
+    try (JsonGenerator json = JsonFactoryProvider.createGenerator(outputStream)) {
       if (obj instanceof AbstractEntityCollection) {
         doSerialize(entityType, (AbstractEntityCollection) obj, contextURLString, metadataETag, json);
       } else if (obj instanceof Entity) {
@@ -250,9 +251,9 @@ public class EdmAssistedJsonSerializer implements EdmAssistedSerializer {
       if (link.getInlineEntity() != null) {
         json.writeFieldName(name);
         doSerialize(targetType, link.getInlineEntity(), null, null, json);
-      } else if (link.getInlineEntitySet() != null) {
+      } else if (link.getInlineEntityCollection() != null) {
         json.writeArrayFieldStart(name);
-        for (final Entity subEntry : link.getInlineEntitySet().getEntities()) {
+        for (final Entity subEntry : link.getInlineEntityCollection()) {
           doSerialize(targetType, subEntry, null, null, json);
         }
         json.writeEndArray();
@@ -261,7 +262,7 @@ public class EdmAssistedJsonSerializer implements EdmAssistedSerializer {
   }
 
   private void collection(final JsonGenerator json, final EdmType itemType, final String typeName,
-      final EdmProperty edmProperty, final ValueType valueType, final List<?> value)
+      final EdmProperty edmProperty, final ValueType valueType, final Iterable<?> value)
       throws IOException, SerializerException {
 
     json.writeStartArray();
@@ -370,7 +371,7 @@ public class EdmAssistedJsonSerializer implements EdmAssistedSerializer {
     if (value.isNull()) {
       json.writeNull();
     } else if (value.isCollection()) {
-      collection(json, type, typeName, edmProperty, value.getValueType(), value.asCollection());
+      collection(json, type, typeName, edmProperty, value.getValueType(), value.asIterable());
     } else if (value.isPrimitive()) {
       primitiveValue(json, (EdmPrimitiveType) type, typeName, edmProperty, value.asPrimitive());
     } else if (value.isComplex()) {
@@ -389,8 +390,9 @@ public class EdmAssistedJsonSerializer implements EdmAssistedSerializer {
       String typeName = valuable.getType();
       if (typeName == null && type == null && valuable.isPrimitive()) {
         if (valuable.isCollection()) {
-          if (!valuable.asCollection().isEmpty()) {
-            final EdmPrimitiveTypeKind kind = EdmTypeInfo.determineTypeKind(valuable.asCollection().get(0));
+          final Iterator<?> iterator = valuable.asIterable().iterator();
+          if (iterator.hasNext()) {
+            final EdmPrimitiveTypeKind kind = EdmTypeInfo.determineTypeKind(iterator.next());
             if (kind != null) {
               typeName = "Collection(" + kind.getFullQualifiedName().getFullQualifiedNameAsString() + ')';
             }
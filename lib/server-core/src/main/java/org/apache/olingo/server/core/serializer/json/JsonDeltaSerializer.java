@@ -33,6 +33,7 @@ import org.apache.olingo.commons.api.data.DeletedEntity;
 import org.apache.olingo.commons.api.data.Delta;
 import org.apache.olingo.commons.api.data.DeltaLink;
 import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityIterator;
 import org.apache.olingo.commons.api.data.Link;
 import org.apache.olingo.commons.api.data.Property;
 import org.apache.olingo.commons.api.edm.EdmComplexType;
@@ -52,17 +53,20 @@ import org.apache.olingo.server.api.serializer.EdmDeltaSerializer;
 import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
 import org.apache.olingo.server.api.serializer.SerializerException;
 import org.apache.olingo.server.api.serializer.SerializerResult;
+import org.apache.olingo.server.api.serializer.SerializerStreamResult;
 import org.apache.olingo.server.api.uri.UriHelper;
 import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
 import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+import org.apache.olingo.server.core.ODataWritableContent;
+import org.apache.olingo.server.core.ODataWritableContent.ContentWriter;
 import org.apache.olingo.server.core.serializer.SerializerResultImpl;
 import org.apache.olingo.server.core.serializer.utils.CircleStreamBuffer;
 import org.apache.olingo.server.core.serializer.utils.ContentTypeHelper;
 import org.apache.olingo.server.core.serializer.utils.ContextURLBuilder;
 import org.apache.olingo.server.core.serializer.utils.ExpandSelectHelper;
+import org.apache.olingo.server.core.serializer.utils.JsonFactoryProvider;
 import org.apache.olingo.server.core.uri.UriHelperImpl;
 
-import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 
 public class JsonDeltaSerializer implements EdmDeltaSerializer {
@@ -90,10 +94,37 @@ public class JsonDeltaSerializer implements EdmDeltaSerializer {
       EntityCollectionSerializerOptions options) throws SerializerException {
     OutputStream outputStream = null;
     SerializerException cachedException = null;
+    CircleStreamBuffer buffer = new CircleStreamBuffer();
+    outputStream = buffer.getOutputStream();
     try {
-      CircleStreamBuffer buffer = new CircleStreamBuffer();
-      outputStream = buffer.getOutputStream();
-      JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+      entityCollectionIntoStream(metadata, referencedEntityType, delta.getEntities(), delta, options, outputStream);
+      return SerializerResultImpl.with().content(buffer.getInputStream()).build();
+    } catch (final SerializerException e) {
+      cachedException = e;
+      throw cachedException;
+    } finally {
+      closeCircleStreamBufferOutput(outputStream, cachedException);
+    }
+  }
+
+  @Override
+  public SerializerStreamResult entityCollectionStreamed(final ServiceMetadata metadata,
+      final EdmEntityType referencedEntityType, final EntityIterator entities, final Delta delta,
+      final EntityCollectionSerializerOptions options) throws SerializerException {
+    checkContextURL(options == null ? null : options.getContextURL());
+    return ODataWritableContent.with(new ContentWriter() {
+      @Override
+      public void write(final OutputStream outputStream) throws SerializerException {
+        entityCollectionIntoStream(metadata, referencedEntityType, entities, delta, options, outputStream);
+      }
+    }, options == null ? null : options.getODataContentWriteErrorCallback()).build();
+  }
+
+  protected void entityCollectionIntoStream(final ServiceMetadata metadata, final EdmEntityType referencedEntityType,
+      final Iterable<Entity> entities, final Delta delta, final EntityCollectionSerializerOptions options,
+      final OutputStream outputStream) throws SerializerException {
+    try {
+      JsonGenerator json = JsonFactoryProvider.createGenerator(outputStream);
       boolean pagination = false;
       json.writeStartObject();
 
@@ -104,30 +135,30 @@ public class JsonDeltaSerializer implements EdmDeltaSerializer {
         writeInlineCount(delta.getCount(), json);
       }
       json.writeFieldName(Constants.VALUE);
-      writeEntitySet(metadata, referencedEntityType, delta, options, json);
+      writeEntitySet(metadata, referencedEntityType, entities, delta, options, json);
 
       pagination = writeNextLink(delta, json);
       writeDeltaLink(delta, json, pagination);
 
       json.close();
-      outputStream.close();
-      return SerializerResultImpl.with().content(buffer.getInputStream()).build();
     } catch (final IOException e) {
-      cachedException =
-          new SerializerException(IO_EXCEPTION_TEXT, e, SerializerException.MessageKeys.IO_EXCEPTION);
-      throw cachedException;
-    } finally {
-      closeCircleStreamBufferOutput(outputStream, cachedException);
+      throw new SerializerException(IO_EXCEPTION_TEXT, e, SerializerException.MessageKeys.IO_EXCEPTION);
     }
-
   }
 
+
   protected void writeEntitySet(final ServiceMetadata metadata, final EdmEntityType entityType,
       final Delta entitySet, final EntityCollectionSerializerOptions options,
       final JsonGenerator json) throws IOException,
       SerializerException {
+    writeEntitySet(metadata, entityType, entitySet.getEntities(), entitySet, options, json);
+  }
+
+  protected void writeEntitySet(final ServiceMetadata metadata, final EdmEntityType entityType,
+      final Iterable<Entity> entities, final Delta entitySet, final EntityCollectionSerializerOptions options,
+      final JsonGenerator json) throws IOException, SerializerException {
     json.writeStartArray();
-    for (final Entity entity : entitySet.getEntities()) {
+    for (final Entity entity : entities) {
       writeAddedUpdatedEntity(metadata, entityType, entity, options.getExpand(),
           options.getSelect(), options.getContextURL(), false, options.getContextURL()
               .getEntitySetOrSingletonOrType(), json);
@@ -323,7 +354,7 @@ public class JsonDeltaSerializer implements EdmDeltaSerializer {
       final Boolean isUnicode, final JsonGenerator json)
       throws IOException, SerializerException {
     json.writeStartArray();
-    for (Object value : property.asCollection()) {
+    for (Object value : property.asIterable()) {
       switch (property.getValueType()) {
       case COLLECTION_PRIMITIVE:
       case COLLECTION_ENUM:
@@ -352,7 +383,7 @@ public class JsonDeltaSerializer implements EdmDeltaSerializer {
       final Set<List<String>> selectedPaths, final JsonGenerator json)
       throws IOException, SerializerException {
     json.writeStartArray();
-    for (Object value : property.asCollection()) {
+    for (Object value : property.asIterable()) {
       switch (property.getValueType()) {
       case COLLECTION_COMPLEX:
         json.writeStartObject();
@@ -34,6 +34,7 @@ import org.apache.olingo.commons.api.data.DeletedEntity;
 import org.apache.olingo.commons.api.data.Delta;
 import org.apache.olingo.commons.api.data.DeltaLink;
 import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityIterator;
 import org.apache.olingo.commons.api.data.Link;
 import org.apache.olingo.commons.api.data.Linked;
 import org.apache.olingo.commons.api.data.Property;
@@ -56,19 +57,22 @@ import org.apache.olingo.server.api.serializer.EdmDeltaSerializer;
 import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
 import org.apache.olingo.server.api.serializer.SerializerException;
 import org.apache.olingo.server.api.serializer.SerializerResult;
+import org.apache.olingo.server.api.serializer.SerializerStreamResult;
 import org.apache.olingo.server.api.uri.UriHelper;
 import org.apache.olingo.server.api.uri.queryoption.CountOption;
 import org.apache.olingo.server.api.uri.queryoption.ExpandItem;
 import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
 import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+import org.apache.olingo.server.core.ODataWritableContent;
+import org.apache.olingo.server.core.ODataWritableContent.ContentWriter;
 import org.apache.olingo.server.core.serializer.SerializerResultImpl;
 import org.apache.olingo.server.core.serializer.utils.CircleStreamBuffer;
 import org.apache.olingo.server.core.serializer.utils.ContentTypeHelper;
 import org.apache.olingo.server.core.serializer.utils.ContextURLBuilder;
 import org.apache.olingo.server.core.serializer.utils.ExpandSelectHelper;
+import org.apache.olingo.server.core.serializer.utils.JsonFactoryProvider;
 import org.apache.olingo.server.core.uri.UriHelperImpl;
 
-import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 
 public class JsonDeltaSerializerWithNavigations implements EdmDeltaSerializer {
@@ -88,36 +92,58 @@ public class JsonDeltaSerializerWithNavigations implements EdmDeltaSerializer {
       EntityCollectionSerializerOptions options) throws SerializerException {
     OutputStream outputStream = null;
     SerializerException cachedException = null;
-    boolean pagination = false;
-    
-      CircleStreamBuffer buffer = new CircleStreamBuffer();
-      outputStream = buffer.getOutputStream();
-      try (JsonGenerator json = new JsonFactory().createGenerator(outputStream)) {
-        json.writeStartObject();
-
-        final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
-        writeContextURL(contextURL, json);
-
-        if (options != null && options.getCount() != null && options.getCount().getValue()) {
-          writeInlineCount(delta.getCount(), json);
-        }
-        json.writeFieldName(Constants.VALUE);
-        writeEntitySet(metadata, referencedEntityType, delta, options, json);
-
-        pagination = writeNextLink(delta, json);
-        writeDeltaLink(delta, json, pagination);
-
-        json.close();
-        return SerializerResultImpl.with().content(buffer.getInputStream()).build();
-      } catch (final IOException e) {
-      cachedException =
-          new SerializerException(IO_EXCEPTION_TEXT, e, SerializerException.MessageKeys.IO_EXCEPTION);
+    CircleStreamBuffer buffer = new CircleStreamBuffer();
+    outputStream = buffer.getOutputStream();
+    try {
+      entityCollectionIntoStream(metadata, referencedEntityType, delta.getEntities(), delta, options, outputStream);
+      return SerializerResultImpl.with().content(buffer.getInputStream()).build();
+    } catch (final SerializerException e) {
+      cachedException = e;
       throw cachedException;
     } finally {
       closeCircleStreamBufferOutput(outputStream, cachedException);
     }
+  }
+
+  @Override
+  public SerializerStreamResult entityCollectionStreamed(final ServiceMetadata metadata,
+      final EdmEntityType referencedEntityType, final EntityIterator entities, final Delta delta,
+      final EntityCollectionSerializerOptions options) throws SerializerException {
+    checkContextURL(options == null ? null : options.getContextURL());
+    return ODataWritableContent.with(new ContentWriter() {
+      @Override
+      public void write(final OutputStream outputStream) throws SerializerException {
+        entityCollectionIntoStream(metadata, referencedEntityType, entities, delta, options, outputStream);
+      }
+    }, options == null ? null : options.getODataContentWriteErrorCallback()).build();
+  }
 
+  protected void entityCollectionIntoStream(final ServiceMetadata metadata, final EdmEntityType referencedEntityType,
+      final Iterable<Entity> entities, final Delta delta, final EntityCollectionSerializerOptions options,
+      final OutputStream outputStream) throws SerializerException {
+    try {
+      JsonGenerator json = JsonFactoryProvider.createGenerator(outputStream);
+      boolean pagination = false;
+      json.writeStartObject();
+
+      final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
+      writeContextURL(contextURL, json);
+
+      if (options != null && options.getCount() != null && options.getCount().getValue()) {
+        writeInlineCount(delta.getCount(), json);
+      }
+      json.writeFieldName(Constants.VALUE);
+      writeEntitySet(metadata, referencedEntityType, entities, delta, options, json);
+
+      pagination = writeNextLink(delta, json);
+      writeDeltaLink(delta, json, pagination);
+
+      json.close();
+    } catch (final IOException e) {
+      throw new SerializerException(IO_EXCEPTION_TEXT, e, SerializerException.MessageKeys.IO_EXCEPTION);
+    }
   }
+
   
   protected void closeCircleStreamBufferOutput(final OutputStream outputStream,
       final SerializerException cachedException)
@@ -139,8 +165,14 @@ public class JsonDeltaSerializerWithNavigations implements EdmDeltaSerializer {
       final Delta entitySet, final EntityCollectionSerializerOptions options,
       final JsonGenerator json) throws IOException,
       SerializerException {
+    writeEntitySet(metadata, entityType, entitySet.getEntities(), entitySet, options, json);
+  }
+
+  protected void writeEntitySet(final ServiceMetadata metadata, final EdmEntityType entityType,
+      final Iterable<Entity> entities, final Delta entitySet, final EntityCollectionSerializerOptions options,
+      final JsonGenerator json) throws IOException, SerializerException {
     json.writeStartArray();
-    for (final Entity entity : entitySet.getEntities()) {
+    for (final Entity entity : entities) {
       writeAddedUpdatedEntity(metadata, entityType, entity, options.getExpand(), options.getSelect(),
           options.getContextURL(), false, options.getContextURL().getEntitySetOrSingletonOrType(), json,
           options.isFullRepresentation());
@@ -359,7 +391,7 @@ public class JsonDeltaSerializerWithNavigations implements EdmDeltaSerializer {
       final Boolean isUnicode, final JsonGenerator json)
       throws IOException, SerializerException {
     json.writeStartArray();
-    for (Object value : property.asCollection()) {
+    for (Object value : property.asIterable()) {
       switch (property.getValueType()) {
       case COLLECTION_PRIMITIVE:
       case COLLECTION_ENUM:
@@ -388,7 +420,7 @@ public class JsonDeltaSerializerWithNavigations implements EdmDeltaSerializer {
       final Set<List<String>> selectedPaths, final JsonGenerator json)
       throws IOException, SerializerException {
     json.writeStartArray();
-    for (Object value : property.asCollection()) {
+    for (Object value : property.asIterable()) {
       switch (property.getValueType()) {
       case COLLECTION_COMPLEX:
         json.writeStartObject();
@@ -598,17 +630,17 @@ public class JsonDeltaSerializerWithNavigations implements EdmDeltaSerializer {
       final JsonGenerator json, boolean isFullRepresentation) throws IOException, SerializerException {
 
     if (property.isCollection()) {
-      if (navigationLink == null || navigationLink.getInlineEntitySet() == null) {
+      if (navigationLink == null || navigationLink.getInlineEntityCollection() == null) {
         json.writeFieldName(property.getName());
         json.writeStartArray();
         json.writeEndArray();
-      } else if (navigationLink != null && navigationLink.getInlineEntitySet() != null) {
+      } else if (navigationLink != null && navigationLink.getInlineEntityCollection() != null) {
         if (isFullRepresentation) {
           json.writeFieldName(property.getName());
         } else {
           json.writeFieldName(property.getName() + Constants.AT + Constants.DELTAVALUE);
         }
-        writeEntitySet(metadata, property.getType(), navigationLink.getInlineEntitySet(), innerExpand,
+        writeEntitySet(metadata, property.getType(), navigationLink.getInlineEntityCollection(), innerExpand,
             innerSelect, writeOnlyRef, name, json, isFullRepresentation);
       }
 
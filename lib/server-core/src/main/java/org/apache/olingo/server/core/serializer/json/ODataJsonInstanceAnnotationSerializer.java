@@ -92,7 +92,6 @@ public class ODataJsonInstanceAnnotationSerializer {
 		}
 	}
 
-	@SuppressWarnings({ "unchecked", "rawtypes" })
 	private void writeInstanceAnnotation(final JsonGenerator json, Valuable annotation, String name)
 			throws IOException, SerializerException, DecoderException {
 		try {
@@ -115,8 +114,7 @@ public class ODataJsonInstanceAnnotationSerializer {
 					json.writeFieldName(name);
 				}
 				json.writeStartArray();
-				List list = annotation.asCollection();
-				for (Object value : list) {
+				for (Object value : annotation.asIterable()) {
 					writeInstanceAnnotOnPrimitiveProperty(json, annotation, value);
 				}
 				json.writeEndArray();
@@ -140,9 +138,8 @@ public class ODataJsonInstanceAnnotationSerializer {
 					json.writeFieldName(name);
 				}
 				json.writeStartArray();
-				List<ComplexValue> complexValues = (List<ComplexValue>) annotation.asCollection();
-				for (ComplexValue complxValue : complexValues) {
-					writeInstanceAnnotOnComplexProperty(json, annotation, complxValue);
+				for (Object item : annotation.asIterable()) {
+					writeInstanceAnnotOnComplexProperty(json, annotation, (ComplexValue) item);
 				}
 				json.writeEndArray();
 				break;
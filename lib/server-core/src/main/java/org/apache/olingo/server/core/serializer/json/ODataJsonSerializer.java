@@ -40,6 +40,7 @@ import org.apache.olingo.commons.api.data.Entity;
 import org.apache.olingo.commons.api.data.EntityIterator;
 import org.apache.olingo.commons.api.data.Link;
 import org.apache.olingo.commons.api.data.Linked;
+import org.apache.olingo.commons.api.data.NamedList;
 import org.apache.olingo.commons.api.data.Operation;
 import org.apache.olingo.commons.api.data.Property;
 import org.apache.olingo.commons.api.edm.EdmComplexType;
@@ -84,16 +85,17 @@ import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
 import org.apache.olingo.server.api.uri.queryoption.LevelsExpandOption;
 import org.apache.olingo.server.api.uri.queryoption.SelectOption;
 import org.apache.olingo.server.core.ODataWritableContent;
+import org.apache.olingo.server.core.ODataWritableContent.ContentWriter;
 import org.apache.olingo.server.core.serializer.AbstractODataSerializer;
 import org.apache.olingo.server.core.serializer.SerializerResultImpl;
 import org.apache.olingo.server.core.serializer.utils.CircleStreamBuffer;
 import org.apache.olingo.server.core.serializer.utils.ContentTypeHelper;
 import org.apache.olingo.server.core.serializer.utils.ContextURLBuilder;
 import org.apache.olingo.server.core.serializer.utils.ExpandSelectHelper;
+import org.apache.olingo.server.core.serializer.utils.JsonFactoryProvider;
 import org.apache.olingo.server.core.uri.UriHelperImpl;
 import org.apache.olingo.server.core.uri.queryoption.ExpandOptionImpl;
 
-import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 
 public class ODataJsonSerializer extends AbstractODataSerializer {
@@ -141,7 +143,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
 
     CircleStreamBuffer buffer = new CircleStreamBuffer();
     outputStream = buffer.getOutputStream();
-    try (JsonGenerator json = new JsonFactory().createGenerator(outputStream)) {
+    try (JsonGenerator json = JsonFactoryProvider.createGenerator(outputStream)) {
       new ServiceDocumentJsonSerializer(metadata, serviceRoot, isODataMetadataNone).writeServiceDocument(json);
 
       json.close();
@@ -163,7 +165,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     
     CircleStreamBuffer buffer = new CircleStreamBuffer();
     outputStream = buffer.getOutputStream();
-    try (JsonGenerator json = new JsonFactory().createGenerator(outputStream)) {
+    try (JsonGenerator json = JsonFactoryProvider.createGenerator(outputStream)) {
       new MetadataDocumentJsonSerializer(serviceMetadata).writeMetadataDocument(json);
       json.close();
       return SerializerResultImpl.with().content(buffer.getInputStream()).build();
@@ -183,7 +185,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     
     CircleStreamBuffer buffer = new CircleStreamBuffer();
     outputStream = buffer.getOutputStream();
-    try (JsonGenerator json = new JsonFactory().createGenerator(outputStream)) {
+    try (JsonGenerator json = JsonFactoryProvider.createGenerator(outputStream)) {
       new ODataErrorSerializer().writeErrorDocument(json, error);
 
       json.close();
@@ -207,7 +209,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     
     CircleStreamBuffer buffer = new CircleStreamBuffer();
     outputStream = buffer.getOutputStream();
-    try (JsonGenerator json = new JsonFactory().createGenerator(outputStream)) {
+    try (JsonGenerator json = JsonFactoryProvider.createGenerator(outputStream)) {
       json.writeStartObject();
 
       final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
@@ -256,7 +258,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     SerializerException cachedException;
     boolean pagination = false;
     try {
-      JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+      JsonGenerator json = JsonFactoryProvider.createGenerator(outputStream);
       json.writeStartObject();
 
       final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
@@ -295,7 +297,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
     CircleStreamBuffer buffer = new CircleStreamBuffer();
     outputStream = buffer.getOutputStream();
-    try (JsonGenerator json = new JsonFactory().createGenerator(outputStream)) {
+    try (JsonGenerator json = JsonFactoryProvider.createGenerator(outputStream)) {
       String name =  contextURL == null ? null:contextURL.getEntitySetOrSingletonOrType();
       writeEntity(metadata, entityType, entity, contextURL,
           options == null ? null : options.getExpand(),
@@ -516,14 +518,16 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
         ExpandSelectHelper.getSelectedPropertyNames(select.getSelectItems());
     addKeyPropertiesToSelected(selected, type);
     Set<List<String>> expandedPaths = ExpandSelectHelper.getExpandedItemsPath(expand);
+    int position = 0;
     for (final String propertyName : type.getPropertyNames()) {
       if (all || selected.contains(propertyName)) {
         final EdmProperty edmProperty = type.getStructuralProperty(propertyName);
-        final Property property = findProperty(propertyName, properties);
+        final Property property = findProperty(propertyName, position, properties);
         final Set<List<String>> selectedPaths = all || edmProperty.isPrimitive() ? null :
             ExpandSelectHelper.getSelectedPaths(select.getSelectItems(), propertyName);
         writeProperty(metadata, edmProperty, property, selectedPaths, json, expandedPaths, linked, expand);
       }
+      position++;
     }
   }
   
@@ -640,13 +644,13 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
 
     if (property.isCollection()) {
       if (writeOnlyCount) {
-        if (navigationLink == null || navigationLink.getInlineEntitySet() == null) {
+        if (navigationLink == null || navigationLink.getInlineEntityCollection() == null) {
           writeInlineCount(property.getName(), 0, json);
         } else {
-          writeInlineCount(property.getName(), navigationLink.getInlineEntitySet().getCount(), json);
+          writeInlineCount(property.getName(), navigationLink.getInlineEntityCollection().getCount(), json);
         }
       } else {
-        if (navigationLink == null || navigationLink.getInlineEntitySet() == null) {
+        if (navigationLink == null || navigationLink.getInlineEntityCollection() == null) {
           if (innerCount != null && innerCount.getValue()) {
             writeInlineCount(property.getName(), 0, json);
           }
@@ -655,10 +659,10 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
           json.writeEndArray();
         } else {
           if (innerCount != null && innerCount.getValue()) {
-            writeInlineCount(property.getName(), navigationLink.getInlineEntitySet().getCount(), json);
+            writeInlineCount(property.getName(), navigationLink.getInlineEntityCollection().getCount(), json);
           }
           json.writeFieldName(property.getName());
-          writeEntitySet(metadata, property.getType(), navigationLink.getInlineEntitySet(), innerExpand, toDepth,
+          writeEntitySet(metadata, property.getType(), navigationLink.getInlineEntityCollection(), innerExpand, toDepth,
               innerSelect, writeOnlyRef, ancestors, name, json);
         }
       }
@@ -843,7 +847,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       final Boolean isUnicode, final JsonGenerator json)
       throws IOException, SerializerException {
     json.writeStartArray();
-    for (Object value : property.asCollection()) {
+    for (Object value : property.asIterable()) {
       switch (property.getValueType()) {
       case COLLECTION_PRIMITIVE:
       case COLLECTION_ENUM:
@@ -874,7 +878,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     EdmComplexType derivedType = type;
     Set<List<String>> expandedPaths1 = expandedPaths != null && !expandedPaths.isEmpty() ? 
         expandedPaths : ExpandSelectHelper.getExpandedItemsPath(expand);
-    for (Object value : property.asCollection()) {
+    for (Object value : property.asIterable()) {
       expandedPaths = expandedPaths1;
       derivedType = ((ComplexValue) value).getTypeName()!=null ? metadata.getEdm().getComplexType
           (new FullQualifiedName(((ComplexValue) value).getTypeName())): type;          
@@ -1078,8 +1082,9 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       }
     }
     
+    int position = 0;
     for (final String propertyName : type.getPropertyNames()) {
-      final Property property = findProperty(propertyName, properties);
+      final Property property = findProperty(propertyName, position++, properties);
       if (selectedPaths == null || ExpandSelectHelper.isSelected(selectedPaths, propertyName)) {
         writeProperty(metadata, (EdmProperty) type.getProperty(propertyName), property,
             selectedPaths == null ? null : ExpandSelectHelper.getReducedSelectedPaths(selectedPaths, propertyName),
@@ -1094,7 +1099,11 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
   }
     
 
-  private Property findProperty(final String propertyName, final List<Property> properties) {
+  private Property findProperty(final String propertyName, final int position, final List<Property> properties) {
+    if (properties instanceof NamedList) {
+      // Properties in the order of the type are found without looking up their names.
+      return ((NamedList<Property>) properties).getByName(position, propertyName);
+    }
     for (final Property property : properties) {
       if (propertyName.equals(property.getName())) {
         return property;
@@ -1112,7 +1121,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
     CircleStreamBuffer buffer = new CircleStreamBuffer();
     outputStream = buffer.getOutputStream();
-    try (JsonGenerator json = new JsonFactory().createGenerator(outputStream)) {
+    try (JsonGenerator json = JsonFactoryProvider.createGenerator(outputStream)) {
       json.writeStartObject();
       writeContextURL(contextURL, json);
       writeMetadataETag(metadata, json);
@@ -1157,7 +1166,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
         contextURL.getEntitySetOrSingletonOrType();
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+      JsonGenerator json = JsonFactoryProvider.createGenerator(outputStream);
       json.writeStartObject();
       writeContextURL(contextURL, json);
       writeMetadataETag(metadata, json);      
@@ -1209,10 +1218,38 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     OutputStream outputStream = null;
     SerializerException cachedException = null;
     
-    final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
     CircleStreamBuffer buffer = new CircleStreamBuffer();
     outputStream = buffer.getOutputStream();
-    try (JsonGenerator json = new JsonFactory().createGenerator(outputStream)) {
+    try {
+      primitiveCollectionIntoStream(metadata, type, property, options, outputStream);
+      return SerializerResultImpl.with().content(buffer.getInputStream()).build();
+    } catch (final SerializerException e) {
+      cachedException = e;
+      throw cachedException;
+    } finally {
+      closeCircleStreamBufferOutput(outputStream, cachedException);
+    }
+  }
+
+  @Override
+  public SerializerStreamResult primitiveCollectionStreamed(final ServiceMetadata metadata,
+      final EdmPrimitiveType type, final Property property, final PrimitiveSerializerOptions options)
+      throws SerializerException {
+    checkContextURL(options == null ? null : options.getContextURL());
+    return ODataWritableContent.with(new ContentWriter() {
+      @Override
+      public void write(final OutputStream outputStream) throws SerializerException {
+        primitiveCollectionIntoStream(metadata, type, property, options, outputStream);
+      }
+    }, options == null ? null : options.getODataContentWriteErrorCallback()).build();
+  }
+
+  protected void primitiveCollectionIntoStream(final ServiceMetadata metadata, final EdmPrimitiveType type,
+      final Property property, final PrimitiveSerializerOptions options, final OutputStream outputStream)
+      throws SerializerException {
+    final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
+    try {
+      JsonGenerator json = JsonFactoryProvider.createGenerator(outputStream);
       json.writeStartObject();
       writeContextURL(contextURL, json);
       writeMetadataETag(metadata, json);
@@ -1230,13 +1267,8 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       json.writeEndObject();
 
       json.close();
-      return SerializerResultImpl.with().content(buffer.getInputStream()).build();
     } catch (final IOException e) {
-      cachedException =
-          new SerializerException(IO_EXCEPTION_TEXT, e, SerializerException.MessageKeys.IO_EXCEPTION);
-      throw cachedException;
-    } finally {
-      closeCircleStreamBufferOutput(outputStream, cachedException);
+      throw new SerializerException(IO_EXCEPTION_TEXT, e, SerializerException.MessageKeys.IO_EXCEPTION);
     }
   }
 
@@ -1247,10 +1279,38 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     OutputStream outputStream = null;
     SerializerException cachedException = null;
     
-    final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
     CircleStreamBuffer buffer = new CircleStreamBuffer();
     outputStream = buffer.getOutputStream();
-    try (JsonGenerator json = new JsonFactory().createGenerator(outputStream)) {
+    try {
+      complexCollectionIntoStream(metadata, type, property, options, outputStream);
+      return SerializerResultImpl.with().content(buffer.getInputStream()).build();
+    } catch (final SerializerException e) {
+      cachedException = e;
+      throw cachedException;
+    } finally {
+      closeCircleStreamBufferOutput(outputStream, cachedException);
+    }
+  }
+
+  @Override
+  public SerializerStreamResult complexCollectionStreamed(final ServiceMetadata metadata,
+      final EdmComplexType type, final Property property, final ComplexSerializerOptions options)
+      throws SerializerException {
+    checkContextURL(options == null ? null : options.getContextURL());
+    return ODataWritableContent.with(new ContentWriter() {
+      @Override
+      public void write(final OutputStream outputStream) throws SerializerException {
+        complexCollectionIntoStream(metadata, type, property, options, outputStream);
+      }
+    }, options == null ? null : options.getODataContentWriteErrorCallback()).build();
+  }
+
+  protected void complexCollectionIntoStream(final ServiceMetadata metadata, final EdmComplexType type,
+      final Property property, final ComplexSerializerOptions options, final OutputStream outputStream)
+      throws SerializerException {
+    final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
+    try {
+      JsonGenerator json = JsonFactoryProvider.createGenerator(outputStream);
       json.writeStartObject();
       writeContextURL(contextURL, json);
       writeMetadataETag(metadata, json);
@@ -1275,13 +1335,8 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       json.writeEndObject();
 
       json.close();
-      return SerializerResultImpl.with().content(buffer.getInputStream()).build();
     } catch (final IOException | DecoderException e) {
-      cachedException =
-          new SerializerException(IO_EXCEPTION_TEXT, e, SerializerException.MessageKeys.IO_EXCEPTION);
-      throw cachedException;
-    } finally {
-      closeCircleStreamBufferOutput(outputStream, cachedException);
+      throw new SerializerException(IO_EXCEPTION_TEXT, e, SerializerException.MessageKeys.IO_EXCEPTION);
     }
   }
 
@@ -1296,7 +1351,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     CircleStreamBuffer buffer = new CircleStreamBuffer();
     final UriHelper uriHelper = new UriHelperImpl();
     outputStream = buffer.getOutputStream();
-    try (final JsonGenerator json = new JsonFactory().createGenerator(outputStream)) {
+    try (final JsonGenerator json = JsonFactoryProvider.createGenerator(outputStream)) {
 
       json.writeStartObject();
       writeContextURL(contextURL, json);
@@ -1320,13 +1375,42 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       throws SerializerException {
     OutputStream outputStream = null;
     SerializerException cachedException = null;
+
+    CircleStreamBuffer buffer = new CircleStreamBuffer();
+    outputStream = buffer.getOutputStream();
+    try {
+      referenceCollectionIntoStream(metadata, edmEntitySet, entityCollection, options, outputStream);
+      return SerializerResultImpl.with().content(buffer.getInputStream()).build();
+    } catch (final SerializerException e) {
+      cachedException = e;
+      throw cachedException;
+    } finally {
+      closeCircleStreamBufferOutput(outputStream, cachedException);
+    }
+  }
+
+  @Override
+  public SerializerStreamResult referenceCollectionStreamed(final ServiceMetadata metadata,
+      final EdmEntitySet edmEntitySet, final EntityIterator entities,
+      final ReferenceCollectionSerializerOptions options) throws SerializerException {
+    checkContextURL(options == null ? null : options.getContextURL());
+    return ODataWritableContent.with(new ContentWriter() {
+      @Override
+      public void write(final OutputStream outputStream) throws SerializerException {
+        referenceCollectionIntoStream(metadata, edmEntitySet, entities, options, outputStream);
+      }
+    }, options == null ? null : options.getODataContentWriteErrorCallback()).build();
+  }
+
+  protected void referenceCollectionIntoStream(final ServiceMetadata metadata, final EdmEntitySet edmEntitySet,
+      final AbstractEntityCollection entityCollection, final ReferenceCollectionSerializerOptions options,
+      final OutputStream outputStream) throws SerializerException {
     boolean pagination = false ;
 
     final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
-    CircleStreamBuffer buffer = new CircleStreamBuffer();
     final UriHelper uriHelper = new UriHelperImpl();
-    outputStream = buffer.getOutputStream();
-    try (final JsonGenerator json = new JsonFactory().createGenerator(outputStream)) {
+    try {
+      JsonGenerator json = JsonFactoryProvider.createGenerator(outputStream);
       json.writeStartObject();
 
       writeContextURL(contextURL, json);
@@ -1347,15 +1431,9 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       json.writeEndObject();
 
       json.close();
-      return SerializerResultImpl.with().content(buffer.getInputStream()).build();
     } catch (final IOException e) {
-      cachedException =
-          new SerializerException(IO_EXCEPTION_TEXT, e, SerializerException.MessageKeys.IO_EXCEPTION);
-      throw cachedException;
-    } finally {
-      closeCircleStreamBufferOutput(outputStream, cachedException);
+      throw new SerializerException(IO_EXCEPTION_TEXT, e, SerializerException.MessageKeys.IO_EXCEPTION);
     }
-
   }
 
   void writeContextURL(final ContextURL contextURL, final JsonGenerator json) throws IOException {
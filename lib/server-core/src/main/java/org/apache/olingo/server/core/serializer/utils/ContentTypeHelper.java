@@ -38,6 +38,12 @@ public class ContentTypeHelper {
             contentType.getParameter(ContentType.PARAMETER_ODATA_METADATA));
   }
 
+  public static boolean isODataStreaming(final ContentType contentType) {
+    return contentType.isCompatible(ContentType.APPLICATION_JSON)
+        && Boolean.TRUE.toString().equalsIgnoreCase(
+            contentType.getParameter(ContentType.PARAMETER_ODATA_STREAMING));
+  }
+
   public static boolean isODataIEEE754Compatible(final ContentType contentType) {
     return Boolean.TRUE.toString().equalsIgnoreCase(
         contentType.getParameter(ContentType.PARAMETER_IEEE754_COMPATIBLE));
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.TSFBuilder;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * <p>Process-wide holder of the Jackson factories used by the server JSON serializers and deserializers.</p>
+ * <p>{@link JsonFactory} and a fully configured {@link ObjectMapper} are thread-safe and expensive to create
+ * (symbol tables, buffer recyclers, serializer caches), so they are created once and shared
+ * instead of being re-created for every request.</p>
+ * <p>How the output buffers of the generators are recycled can be chosen with
+ * {@link #setBufferRecycling(BufferRecycling)} or with the system property
+ * {@value #BUFFER_RECYCLING_PROPERTY}.</p>
+ */
+public final class JsonFactoryProvider {
+
+  /** System property to choose the initial {@link BufferRecycling} policy by name. */
+  public static final String BUFFER_RECYCLING_PROPERTY = "org.apache.olingo.server.json.bufferRecycling";
+
+  /** Policy for the recycling of the internal read and write buffers of Jackson parsers and generators. */
+  public enum BufferRecycling {
+    /** Buffers are kept per thread (softly referenced) and reused by subsequent parsers and generators. */
+    THREAD_LOCAL,
+    /** Every parser and generator allocates its own buffers, e.g., for short-lived or very many threads. */
+    NONE
+  }
+
+  private static volatile Factories factories = new Factories(initialBufferRecycling());
+
+  private JsonFactoryProvider() {
+    // Private constructor for utility classes
+  }
+
+  /** Gets the shared factory for JSON generators and streaming parsers. */
+  public static JsonFactory getFactory() {
+    return factories.factory;
+  }
+
+  /**
+   * Gets the shared object mapper for reading JSON trees of request payloads:
+   * duplicate keys are rejected and floating-point numbers are read as BigDecimal.
+   */
+  public static ObjectMapper getPayloadMapper() {
+    return factories.payloadMapper;
+  }
+
+  /** Gets the shared object mapper for reading JSON trees of single values; duplicate keys are rejected. */
+  public static ObjectMapper getValueMapper() {
+    return factories.valueMapper;
+  }
+
+  /** Creates a new generator on the shared factory writing in UTF-8 into the given stream. */
+  public static JsonGenerator createGenerator(final OutputStream outputStream) throws IOException {
+    return factories.factory.createGenerator(outputStream);
+  }
+
+  /** Creates a new parser on the shared payload mapper; its codec can read trees. */
+  public static JsonParser createPayloadParser(final InputStream inputStream) throws IOException {
+    return factories.payloadMapper.getFactory().createParser(inputStream);
+  }
+
+  /** Creates a new parser on the shared value mapper; its codec can read trees. */
+  public static JsonParser createValueParser(final String content) throws IOException {
+    return factories.valueMapper.getFactory().createParser(content);
+  }
+
+  public static BufferRecycling getBufferRecycling() {
+    return factories.bufferRecycling;
+  }
+
+  /**
+   * Sets the buffer-recycling policy. The shared factories are replaced by new ones configured
+   * accordingly; parsers and generators created before keep working with the old ones.
+   * @param bufferRecycling the policy; must not be <code>null</code>
+   */
+  public static synchronized void setBufferRecycling(final BufferRecycling bufferRecycling) {
+    if (bufferRecycling == null) {
+      throw new IllegalArgumentException("The buffer-recycling policy must not be null.");
+    }
+    if (bufferRecycling != factories.bufferRecycling) {
+      factories = new Factories(bufferRecycling);
+    }
+  }
+
+  private static BufferRecycling initialBufferRecycling() {
+    final String value = System.getProperty(BUFFER_RECYCLING_PROPERTY);
+    if (value != null) {
+      for (final BufferRecycling policy : BufferRecycling.values()) {
+        if (policy.name().equalsIgnoreCase(value.trim())) {
+          return policy;
+        }
+      }
+    }
+    return BufferRecycling.THREAD_LOCAL;
+  }
+
+  /** Immutable set of factories, replaced as a whole to stay consistent for concurrent readers. */
+  private static final class Factories {
+    private final BufferRecycling bufferRecycling;
+    private final JsonFactory factory;
+    private final ObjectMapper payloadMapper;
+    private final ObjectMapper valueMapper;
+
+    private Factories(final BufferRecycling bufferRecycling) {
+      this.bufferRecycling = bufferRecycling;
+      factory = createFactory(bufferRecycling);
+      payloadMapper = new ObjectMapper(createFactory(bufferRecycling))
+          .configure(DeserializationFeature.FAIL_ON_READING_DUP_TREE_KEY, true)
+          .configure(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS, true);
+      valueMapper = new ObjectMapper(createFactory(bufferRecycling))
+          .configure(DeserializationFeature.FAIL_ON_READING_DUP_TREE_KEY, true);
+    }
+
+    private static JsonFactory createFactory(final BufferRecycling bufferRecycling) {
+      final TSFBuilder<?, ?> builder = JsonFactory.builder();
+      if (bufferRecycling == BufferRecycling.THREAD_LOCAL) {
+        builder.enable(JsonFactory.Feature.USE_THREAD_LOCAL_FOR_BUFFER_RECYCLING);
+      } else {
+        builder.disable(JsonFactory.Feature.USE_THREAD_LOCAL_FOR_BUFFER_RECYCLING);
+      }
+      return builder.build();
+    }
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer.utils;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+
+import javax.xml.stream.FactoryConfigurationError;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * <p>Process-wide holder of the StAX factories used by the server XML serializers and deserializers.</p>
+ * <p>Looking up a StAX implementation goes through the JAXP service-provider lookup, which can mean
+ * scanning the class path, so the factories are looked up once and shared instead of being
+ * re-created for every request. Once configured, the factories are thread-safe.</p>
+ * <p>The implementations can be chosen by class name with the system properties
+ * {@value #INPUT_FACTORY_PROPERTY} and {@value #OUTPUT_FACTORY_PROPERTY} (e.g., the factories of
+ * Woodstox or Aalto) or set with {@link #setInputFactory(XMLInputFactory)} and
+ * {@link #setOutputFactory(XMLOutputFactory)}; otherwise the JAXP default lookup is used.
+ * Input factories never support DTDs and external entities.</p>
+ */
+public final class XmlFactoryProvider {
+
+  /** System property with the class name of the {@link XMLInputFactory} implementation. */
+  public static final String INPUT_FACTORY_PROPERTY = "org.apache.olingo.server.xml.inputFactory";
+  /** System property with the class name of the {@link XMLOutputFactory} implementation. */
+  public static final String OUTPUT_FACTORY_PROPERTY = "org.apache.olingo.server.xml.outputFactory";
+
+  private static volatile XMLInputFactory inputFactory;
+  private static volatile XMLOutputFactory outputFactory;
+
+  private XmlFactoryProvider() {
+    // Private constructor for utility classes
+  }
+
+  /** Gets the shared factory for XML readers; it must not be re-configured. */
+  public static XMLInputFactory getInputFactory() {
+    XMLInputFactory factory = inputFactory;
+    if (factory == null) {
+      synchronized (XmlFactoryProvider.class) {
+        factory = inputFactory;
+        if (factory == null) {
+          final XMLInputFactory configured = create(XMLInputFactory.class, INPUT_FACTORY_PROPERTY);
+          factory = secure(configured == null ? XMLInputFactory.newFactory() : configured);
+          inputFactory = factory;
+        }
+      }
+    }
+    return factory;
+  }
+
+  /** Gets the shared factory for XML writers; it must not be re-configured. */
+  public static XMLOutputFactory getOutputFactory() {
+    XMLOutputFactory factory = outputFactory;
+    if (factory == null) {
+      synchronized (XmlFactoryProvider.class) {
+        factory = outputFactory;
+        if (factory == null) {
+          final XMLOutputFactory configured = create(XMLOutputFactory.class, OUTPUT_FACTORY_PROPERTY);
+          factory = configured == null ? XMLOutputFactory.newFactory() : configured;
+          outputFactory = factory;
+        }
+      }
+    }
+    return factory;
+  }
+
+  /**
+   * Sets the factory for XML readers. Support for DTDs and external entities is switched off.
+   * @param factory the factory or <code>null</code> to look up the default again
+   */
+  public static synchronized void setInputFactory(final XMLInputFactory factory) {
+    inputFactory = factory == null ? null : secure(factory);
+  }
+
+  /**
+   * Sets the factory for XML writers.
+   * @param factory the factory or <code>null</code> to look up the default again
+   */
+  public static synchronized void setOutputFactory(final XMLOutputFactory factory) {
+    outputFactory = factory;
+  }
+
+  /** Creates a new event reader on the shared input factory. */
+  public static XMLEventReader createEventReader(final InputStream inputStream) throws XMLStreamException {
+    return getInputFactory().createXMLEventReader(inputStream);
+  }
+
+  /** Creates a new event reader on the shared input factory. */
+  public static XMLEventReader createEventReader(final Reader reader) throws XMLStreamException {
+    return getInputFactory().createXMLEventReader(reader);
+  }
+
+  /** Creates a new stream writer on the shared output factory writing into the given stream. */
+  public static XMLStreamWriter createStreamWriter(final OutputStream outputStream, final String encoding)
+      throws XMLStreamException {
+    return getOutputFactory().createXMLStreamWriter(outputStream, encoding);
+  }
+
+  /** Creates an instance of the class named in the system property or returns <code>null</code>. */
+  private static <T> T create(final Class<T> type, final String property) {
+    final String className = System.getProperty(property);
+    if (className == null || className.trim().isEmpty()) {
+      return null;
+    }
+    try {
+      return type.cast(Class.forName(className.trim(), true, XmlFactoryProvider.class.getClassLoader())
+          .getDeclaredConstructor().newInstance());
+    } catch (final ReflectiveOperationException | ClassCastException e) {
+      throw new FactoryConfigurationError(e, "Cannot create the StAX factory " + className + ".");
+    }
+  }
+
+  private static XMLInputFactory secure(final XMLInputFactory factory) {
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    return factory;
+  }
+}
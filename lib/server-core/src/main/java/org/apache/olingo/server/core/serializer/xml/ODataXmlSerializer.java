@@ -27,7 +27,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
-import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
 
@@ -40,6 +39,7 @@ import org.apache.olingo.commons.api.data.EntityCollection;
 import org.apache.olingo.commons.api.data.EntityIterator;
 import org.apache.olingo.commons.api.data.Link;
 import org.apache.olingo.commons.api.data.Linked;
+import org.apache.olingo.commons.api.data.NamedList;
 import org.apache.olingo.commons.api.data.Operation;
 import org.apache.olingo.commons.api.data.Property;
 import org.apache.olingo.commons.api.edm.EdmComplexType;
@@ -75,11 +75,13 @@ import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
 import org.apache.olingo.server.api.uri.queryoption.LevelsExpandOption;
 import org.apache.olingo.server.api.uri.queryoption.SelectOption;
 import org.apache.olingo.server.core.ODataWritableContent;
+import org.apache.olingo.server.core.ODataWritableContent.ContentWriter;
 import org.apache.olingo.server.core.serializer.AbstractODataSerializer;
 import org.apache.olingo.server.core.serializer.SerializerResultImpl;
 import org.apache.olingo.server.core.serializer.utils.CircleStreamBuffer;
 import org.apache.olingo.server.core.serializer.utils.ContextURLBuilder;
 import org.apache.olingo.server.core.serializer.utils.ExpandSelectHelper;
+import org.apache.olingo.server.core.serializer.utils.XmlFactoryProvider;
 import org.apache.olingo.server.core.uri.UriHelperImpl;
 import org.apache.olingo.server.core.uri.queryoption.ExpandOptionImpl;
 
@@ -101,7 +103,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
     try {
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
+      XMLStreamWriter writer = XmlFactoryProvider.createStreamWriter(outputStream, DEFAULT_CHARSET);
       ServiceDocumentXmlSerializer serializer = new ServiceDocumentXmlSerializer(metadata, serviceRoot);
       serializer.writeServiceDocument(writer);
 
@@ -126,7 +128,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
     try {
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
+      XMLStreamWriter writer = XmlFactoryProvider.createStreamWriter(outputStream, DEFAULT_CHARSET);
       MetadataDocumentXmlSerializer serializer = new MetadataDocumentXmlSerializer(serviceMetadata);
       serializer.writeMetadataDocument(writer);
 
@@ -160,7 +162,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
     try {
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
+      XMLStreamWriter writer = XmlFactoryProvider.createStreamWriter(outputStream, DEFAULT_CHARSET);
       writer.writeStartDocument(DEFAULT_CHARSET, "1.0");
 
       writer.writeStartElement("error");
@@ -232,7 +234,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
     try {
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
+      XMLStreamWriter writer = XmlFactoryProvider.createStreamWriter(outputStream, DEFAULT_CHARSET);
       writer.writeStartDocument(DEFAULT_CHARSET, "1.0");
       writer.writeStartElement(ATOM, Constants.ATOM_ELEM_FEED, NS_ATOM);
       writer.writeNamespace(ATOM, NS_ATOM);
@@ -294,7 +296,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
     final String name = contextURL == null ? null : contextURL.getEntitySetOrSingletonOrType();
     SerializerException cachedException;
     try {
-      XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
+      XMLStreamWriter writer = XmlFactoryProvider.createStreamWriter(outputStream, DEFAULT_CHARSET);
       writer.writeStartDocument(DEFAULT_CHARSET, "1.0");
       writer.writeStartElement(ATOM, Constants.ATOM_ELEM_FEED, NS_ATOM);
       writer.writeNamespace(ATOM, NS_ATOM);
@@ -359,7 +361,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
     try {
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
+      XMLStreamWriter writer = XmlFactoryProvider.createStreamWriter(outputStream, DEFAULT_CHARSET);
       writer.writeStartDocument(DEFAULT_CHARSET, "1.0");
       writeEntity(metadata, entityType, entity, contextURL,
           options == null ? null : options.getExpand(),
@@ -630,15 +632,17 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
         ExpandSelectHelper.getSelectedPropertyNames(select.getSelectItems());
     addKeyPropertiesToSelected(selected, type);
     Set<List<String>> expandedPaths = ExpandSelectHelper.getExpandedItemsPath(expand);
+    int position = 0;
     for (final String propertyName : type.getPropertyNames()) {
       if (all || selected.contains(propertyName)) {
         final EdmProperty edmProperty = type.getStructuralProperty(propertyName);
-        final Property property = findProperty(propertyName, properties);
+        final Property property = findProperty(propertyName, position, properties);
         final Set<List<String>> selectedPaths = all || edmProperty.isPrimitive() ? null :
             ExpandSelectHelper.getSelectedPaths(select.getSelectItems(), propertyName);
         writeProperty(metadata, edmProperty, property, selectedPaths, 
             xml10InvalidCharReplacement, writer, expandedPaths, linked, expand);
       }
+      position++;
     }
   }
 
@@ -758,16 +762,16 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
       final Set<String> ancestors, String name,
       final XMLStreamWriter writer) throws XMLStreamException, SerializerException {
     if (property.isCollection()) {
-      if (navigationLink != null && navigationLink.getInlineEntitySet() != null) {
+      if (navigationLink != null && navigationLink.getInlineEntityCollection() != null) {
         writer.writeStartElement(ATOM, Constants.ATOM_ELEM_FEED, NS_ATOM);
         if (writeNavigationCount) {
-          writeCount(navigationLink.getInlineEntitySet(), writer);
+          writeCount(navigationLink.getInlineEntityCollection(), writer);
         } else {
           if (coutOption != null && coutOption.getValue()) {
-            writeCount(navigationLink.getInlineEntitySet(), writer);
+            writeCount(navigationLink.getInlineEntityCollection(), writer);
           }
-          writeEntitySet(metadata, property.getType(), navigationLink.getInlineEntitySet(), innerExpand, toDepth,
-              innerSelect, xml10InvalidCharReplacement, writer, writeOnlyRef, name, ancestors);
+          writeEntitySet(metadata, property.getType(), navigationLink.getInlineEntityCollection(), innerExpand,
+              toDepth, innerSelect, xml10InvalidCharReplacement, writer, writeOnlyRef, name, ancestors);
         }
         writer.writeEndElement();
       }
@@ -902,7 +906,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
       final Boolean isNullable, final Integer maxLength, final Integer precision, final Integer scale,
       final Boolean isUnicode, final String xml10InvalidCharReplacement,
       final XMLStreamWriter writer) throws XMLStreamException, EdmPrimitiveTypeException, SerializerException {
-    for (Object value : property.asCollection()) {
+    for (Object value : property.asIterable()) {
       writer.writeStartElement(METADATA, Constants.ELEM_ELEMENT, NS_METADATA);
       switch (property.getValueType()) {
       case COLLECTION_PRIMITIVE:
@@ -929,7 +933,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
     EdmComplexType complexType = type;
     Set<List<String>> expandedPaths1 = expandedPaths != null && !expandedPaths.isEmpty() ? 
         expandedPaths : ExpandSelectHelper.getExpandedItemsPath(expand);
-    for (Object value : property.asCollection()) {
+    for (Object value : property.asIterable()) {
       expandedPaths = expandedPaths1;
       writer.writeStartElement(METADATA, Constants.ELEM_ELEMENT, NS_METADATA);
       String typeName = ((ComplexValue)value).getTypeName();
@@ -1014,8 +1018,9 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
       }
     }
     
+    int position = 0;
     for (final String propertyName : type.getPropertyNames()) {
-      final Property property = findProperty(propertyName, properties);
+      final Property property = findProperty(propertyName, position++, properties);
       if (selectedPaths == null || ExpandSelectHelper.isSelected(selectedPaths, propertyName)) {
         writeProperty(metadata, (EdmProperty) type.getProperty(propertyName), property,
             selectedPaths == null ? null : ExpandSelectHelper.getReducedSelectedPaths(selectedPaths, propertyName),
@@ -1026,7 +1031,11 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
         expand, null, xml10InvalidCharReplacement, null, complexPropName, writer);
   }
 
-  private Property findProperty(final String propertyName, final List<Property> properties) {
+  private Property findProperty(final String propertyName, final int position, final List<Property> properties) {
+    if (properties instanceof NamedList) {
+      // Properties in the order of the type are found without looking up their names.
+      return ((NamedList<Property>) properties).getByName(position, propertyName);
+    }
     for (final Property property : properties) {
       if (propertyName.equals(property.getName())) {
         return property;
@@ -1045,7 +1054,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
     try {
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
+      XMLStreamWriter writer = XmlFactoryProvider.createStreamWriter(outputStream, DEFAULT_CHARSET);
 
       writer.writeStartDocument(DEFAULT_CHARSET, "1.0");
       writer.writeStartElement(METADATA, Constants.VALUE, NS_METADATA);
@@ -1116,7 +1125,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
       }
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
+      XMLStreamWriter writer = XmlFactoryProvider.createStreamWriter(outputStream, DEFAULT_CHARSET);
       writer.writeStartDocument(DEFAULT_CHARSET, "1.0");
       writer.writeStartElement(METADATA, Constants.VALUE, NS_METADATA);
       writer.writeNamespace(METADATA, NS_METADATA);
@@ -1158,14 +1167,40 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
   @Override
   public SerializerResult primitiveCollection(final ServiceMetadata metadata, final EdmPrimitiveType type,
       final Property property, final PrimitiveSerializerOptions options) throws SerializerException {
-    final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
-
     OutputStream outputStream = null;
     SerializerException cachedException = null;
+    CircleStreamBuffer buffer = new CircleStreamBuffer();
+    outputStream = buffer.getOutputStream();
     try {
-      CircleStreamBuffer buffer = new CircleStreamBuffer();
-      outputStream = buffer.getOutputStream();
-      XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
+      primitiveCollectionIntoStream(metadata, type, property, options, outputStream);
+      return SerializerResultImpl.with().content(buffer.getInputStream()).build();
+    } catch (final SerializerException e) {
+      cachedException = e;
+      throw cachedException;
+    } finally {
+      closeCircleStreamBufferOutput(outputStream, cachedException);
+    }
+  }
+
+  @Override
+  public SerializerStreamResult primitiveCollectionStreamed(final ServiceMetadata metadata,
+      final EdmPrimitiveType type, final Property property, final PrimitiveSerializerOptions options)
+      throws SerializerException {
+    checkContextURL(options == null ? null : options.getContextURL());
+    return ODataWritableContent.with(new ContentWriter() {
+      @Override
+      public void write(final OutputStream outputStream) throws SerializerException {
+        primitiveCollectionIntoStream(metadata, type, property, options, outputStream);
+      }
+    }, options == null ? null : options.getODataContentWriteErrorCallback()).build();
+  }
+
+  protected void primitiveCollectionIntoStream(final ServiceMetadata metadata, final EdmPrimitiveType type,
+      final Property property, final PrimitiveSerializerOptions options, final OutputStream outputStream)
+      throws SerializerException {
+    final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
+    try {
+      XMLStreamWriter writer = XmlFactoryProvider.createStreamWriter(outputStream, DEFAULT_CHARSET);
 
       writer.writeStartDocument(DEFAULT_CHARSET, "1.0");
       writer.writeStartElement(METADATA, Constants.VALUE, NS_METADATA);
@@ -1187,39 +1222,52 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
       writer.writeEndElement();
       writer.writeEndDocument();
       writer.flush();
-      writer.close();
-      outputStream.close();
-
-      return SerializerResultImpl.with().content(buffer.getInputStream()).build();
     } catch (final XMLStreamException e) {
-      cachedException = new SerializerException(IO_EXCEPTION_TEXT, e,
-          SerializerException.MessageKeys.IO_EXCEPTION);
-      throw cachedException;
+      throw new SerializerException(IO_EXCEPTION_TEXT, e, SerializerException.MessageKeys.IO_EXCEPTION);
     } catch (final EdmPrimitiveTypeException e) {
-      cachedException = new SerializerException("Wrong value for property!", e,
+      throw new SerializerException("Wrong value for property!", e,
           SerializerException.MessageKeys.WRONG_PROPERTY_VALUE,
           property.getName(), property.getValue().toString());
-      throw cachedException;
-    } catch (IOException e) {
-      cachedException =
-          new SerializerException(IO_EXCEPTION_TEXT, e, SerializerException.MessageKeys.IO_EXCEPTION);
-      throw cachedException;
-    } finally {
-      closeCircleStreamBufferOutput(outputStream, cachedException);
     }
   }
 
   @Override
   public SerializerResult complexCollection(final ServiceMetadata metadata, final EdmComplexType type,
       final Property property, final ComplexSerializerOptions options) throws SerializerException {
-    final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
-
     OutputStream outputStream = null;
     SerializerException cachedException = null;
+    CircleStreamBuffer buffer = new CircleStreamBuffer();
+    outputStream = buffer.getOutputStream();
     try {
-      CircleStreamBuffer buffer = new CircleStreamBuffer();
-      outputStream = buffer.getOutputStream();
-      XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
+      complexCollectionIntoStream(metadata, type, property, options, outputStream);
+      return SerializerResultImpl.with().content(buffer.getInputStream()).build();
+    } catch (final SerializerException e) {
+      cachedException = e;
+      throw cachedException;
+    } finally {
+      closeCircleStreamBufferOutput(outputStream, cachedException);
+    }
+  }
+
+  @Override
+  public SerializerStreamResult complexCollectionStreamed(final ServiceMetadata metadata,
+      final EdmComplexType type, final Property property, final ComplexSerializerOptions options)
+      throws SerializerException {
+    checkContextURL(options == null ? null : options.getContextURL());
+    return ODataWritableContent.with(new ContentWriter() {
+      @Override
+      public void write(final OutputStream outputStream) throws SerializerException {
+        complexCollectionIntoStream(metadata, type, property, options, outputStream);
+      }
+    }, options == null ? null : options.getODataContentWriteErrorCallback()).build();
+  }
+
+  protected void complexCollectionIntoStream(final ServiceMetadata metadata, final EdmComplexType type,
+      final Property property, final ComplexSerializerOptions options, final OutputStream outputStream)
+      throws SerializerException {
+    final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
+    try {
+      XMLStreamWriter writer = XmlFactoryProvider.createStreamWriter(outputStream, DEFAULT_CHARSET);
       writer.writeStartDocument(DEFAULT_CHARSET, "1.0");
       writer.writeStartElement(METADATA, Constants.VALUE, NS_METADATA);
       writer.writeNamespace(METADATA, NS_METADATA);
@@ -1246,19 +1294,8 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
       writer.writeEndElement();
       writer.writeEndDocument();
       writer.flush();
-      writer.close();
-      outputStream.close();
-      return SerializerResultImpl.with().content(buffer.getInputStream()).build();
     } catch (final XMLStreamException e) {
-      cachedException =
-          new SerializerException(IO_EXCEPTION_TEXT, e, SerializerException.MessageKeys.IO_EXCEPTION);
-      throw cachedException;
-    } catch (IOException e) {
-      cachedException =
-          new SerializerException(IO_EXCEPTION_TEXT, e, SerializerException.MessageKeys.IO_EXCEPTION);
-      throw cachedException;
-    } finally {
-      closeCircleStreamBufferOutput(outputStream, cachedException);
+      throw new SerializerException(IO_EXCEPTION_TEXT, e, SerializerException.MessageKeys.IO_EXCEPTION);
     }
   }
 
@@ -1275,7 +1312,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
     try {
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
+      XMLStreamWriter writer = XmlFactoryProvider.createStreamWriter(outputStream, DEFAULT_CHARSET);
       writer.writeStartDocument(DEFAULT_CHARSET, "1.0");
       writeReference(entity, options == null ? null : options.getContextURL(), writer, true);
       writer.writeEndDocument();
@@ -1323,10 +1360,36 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
       final ReferenceCollectionSerializerOptions options) throws SerializerException {
     OutputStream outputStream = null;
     SerializerException cachedException = null;
+    CircleStreamBuffer buffer = new CircleStreamBuffer();
+    outputStream = buffer.getOutputStream();
     try {
-      CircleStreamBuffer buffer = new CircleStreamBuffer();
-      outputStream = buffer.getOutputStream();
-      XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
+      entityReferenceCollectionIntoStream(entitySet, options, outputStream);
+      return SerializerResultImpl.with().content(buffer.getInputStream()).build();
+    } catch (final SerializerException e) {
+      cachedException = e;
+      throw cachedException;
+    } finally {
+      closeCircleStreamBufferOutput(outputStream, cachedException);
+    }
+  }
+
+  @Override
+  public SerializerStreamResult referenceCollectionStreamed(final ServiceMetadata metadata,
+      final EdmEntitySet edmEntitySet, final EntityIterator entities,
+      final ReferenceCollectionSerializerOptions options) throws SerializerException {
+    return ODataWritableContent.with(new ContentWriter() {
+      @Override
+      public void write(final OutputStream outputStream) throws SerializerException {
+        entityReferenceCollectionIntoStream(entities, options, outputStream);
+      }
+    }, options == null ? null : options.getODataContentWriteErrorCallback()).build();
+  }
+
+  protected void entityReferenceCollectionIntoStream(final AbstractEntityCollection entitySet,
+      final ReferenceCollectionSerializerOptions options, final OutputStream outputStream)
+      throws SerializerException {
+    try {
+      XMLStreamWriter writer = XmlFactoryProvider.createStreamWriter(outputStream, DEFAULT_CHARSET);
       writer.writeStartDocument(DEFAULT_CHARSET, "1.0");
       writer.writeStartElement(ATOM, Constants.ATOM_ELEM_FEED, NS_ATOM);
       writer.writeNamespace(ATOM, NS_ATOM);
@@ -1348,20 +1411,8 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
       writer.writeEndElement();
       writer.writeEndDocument();
       writer.flush();
-      writer.close();
-      outputStream.close();
-
-      return SerializerResultImpl.with().content(buffer.getInputStream()).build();
     } catch (final XMLStreamException e) {
-      cachedException =
-          new SerializerException(IO_EXCEPTION_TEXT, e, SerializerException.MessageKeys.IO_EXCEPTION);
-      throw cachedException;
-    } catch (IOException e) {
-      cachedException =
-          new SerializerException(IO_EXCEPTION_TEXT, e, SerializerException.MessageKeys.IO_EXCEPTION);
-      throw cachedException;
-    } finally {
-      closeCircleStreamBufferOutput(outputStream, cachedException);
+      throw new SerializerException(IO_EXCEPTION_TEXT, e, SerializerException.MessageKeys.IO_EXCEPTION);
     }
   }
 
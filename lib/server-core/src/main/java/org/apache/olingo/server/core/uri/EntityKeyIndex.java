@@ -0,0 +1,312 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.data.ComplexValue;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmKeyPropertyRef;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriParameter;
+import org.apache.olingo.server.api.uri.queryoption.expression.Literal;
+
+/**
+ * Hash index from the key values of entities held in memory to the entities,
+ * used to find the entity addressed by the key predicates of a URI without looking at every entity.
+ * <p>
+ * Key properties may be composite and may be nested in complex properties (with an alias as key predicate name).
+ * The text of a key predicate is converted into the Java class of the key values of the indexed entities and
+ * compared with {@link Object#equals(Object)}, so an index lookup finds the same entity as
+ * {@link #find(EdmEntityType, Collection, List)}, which compares the key predicates with each entity in turn.
+ * The index has to be told about every entity which is added or removed, and about changed key values.
+ * Instances are thread-safe.
+ */
+public class EntityKeyIndex {
+
+  private final List<String> keyPredicateNames;
+  private final List<EdmKeyPropertyRef> keyPropertyRefs = new ArrayList<EdmKeyPropertyRef>();
+  private final Class<?>[] valueTypes;
+  private boolean isUniform = true;
+  private final Map<List<Object>, Entity> entities = new HashMap<List<Object>, Entity>();
+  private final Map<List<Object>, List<Entity>> duplicates = new HashMap<List<Object>, List<Entity>>();
+  private final Map<Entity, List<Object>> keys = new IdentityHashMap<Entity, List<Object>>();
+  private final List<Map<Object, Integer>> valueCounts = new ArrayList<Map<Object, Integer>>();
+  private final EdmEntityType entityType;
+
+  /**
+   * Creates an empty index.
+   * @param entityType the type of the entities; its key defines the key values
+   */
+  public EntityKeyIndex(final EdmEntityType entityType) {
+    this.entityType = entityType;
+    keyPredicateNames = entityType.getKeyPredicateNames();
+    for (final String keyPredicateName : keyPredicateNames) {
+      keyPropertyRefs.add(entityType.getKeyPropertyRef(keyPredicateName));
+      valueCounts.add(new HashMap<Object, Integer>());
+    }
+    valueTypes = new Class<?>[keyPredicateNames.size()];
+  }
+
+  /**
+   * Adds the given entities to the index.
+   * @param entities the entities
+   */
+  public synchronized void addAll(final Collection<Entity> entities) {
+    for (final Entity entity : entities) {
+      add(entity);
+    }
+  }
+
+  /**
+   * Adds an entity to the index. If the entity is already in the index, its key values are updated.
+   * If another entity with the same key values is in the index, lookups keep returning the other entity
+   * until it is removed.
+   * @param entity the entity
+   */
+  public synchronized void add(final Entity entity) {
+    remove(entity);
+    final List<Object> key = getKey(entity);
+    keys.put(entity, key);
+    if (entities.containsKey(key)) {
+      List<Entity> others = duplicates.get(key);
+      if (others == null) {
+        others = new ArrayList<Entity>(1);
+        duplicates.put(key, others);
+      }
+      others.add(entity);
+    } else {
+      entities.put(key, entity);
+    }
+    for (int i = 0; i < valueTypes.length; i++) {
+      final Object value = key.get(i);
+      if (value != null) {
+        final Class<?> valueType = value instanceof Calendar ? Calendar.class : value.getClass();
+        if (valueTypes[i] == null) {
+          valueTypes[i] = valueType;
+        } else if (valueTypes[i] != valueType) {
+          isUniform = false;
+        }
+        final Integer count = valueCounts.get(i).get(value);
+        valueCounts.get(i).put(value, count == null ? 1 : count + 1);
+      }
+    }
+  }
+
+  /**
+   * Removes an entity from the index.
+   * @param entity the entity
+   * @return whether the entity has been in the index
+   */
+  public synchronized boolean remove(final Entity entity) {
+    final List<Object> key = keys.remove(entity);
+    if (key == null) {
+      return false;
+    }
+    final List<Entity> others = duplicates.get(key);
+    if (entities.get(key) == entity) {
+      if (others == null) {
+        entities.remove(key);
+      } else {
+        entities.put(key, others.remove(0));
+      }
+    } else if (others != null) {
+      for (int i = 0; i < others.size(); i++) {
+        if (others.get(i) == entity) {
+          others.remove(i);
+          break;
+        }
+      }
+    }
+    if (others != null && others.isEmpty()) {
+      duplicates.remove(key);
+    }
+    for (int i = 0; i < valueTypes.length; i++) {
+      final Object value = key.get(i);
+      if (value != null) {
+        final int count = valueCounts.get(i).get(value);
+        if (count == 1) {
+          valueCounts.get(i).remove(value);
+        } else {
+          valueCounts.get(i).put(value, count - 1);
+        }
+      }
+    }
+    return true;
+  }
+
+  /** Removes all entities from the index. */
+  public synchronized void clear() {
+    entities.clear();
+    duplicates.clear();
+    keys.clear();
+    for (final Map<Object, Integer> counts : valueCounts) {
+      counts.clear();
+    }
+    Arrays.fill(valueTypes, null);
+    isUniform = true;
+  }
+
+  /**
+   * Returns whether the entity is in the index.
+   * @param entity the entity
+   */
+  public synchronized boolean contains(final Entity entity) {
+    return keys.containsKey(entity);
+  }
+
+  /** Returns the number of entities in the index. */
+  public synchronized int size() {
+    return keys.size();
+  }
+
+  /**
+   * Returns whether an entity in the index has the given value for the key property with the given name,
+   * e.g., to find a free value for a new entity.
+   * @param keyPredicateName the name of the key property, or its alias
+   * @param value the value
+   */
+  public synchronized boolean isUsed(final String keyPredicateName, final Object value) {
+    final int position = keyPredicateNames.indexOf(keyPredicateName);
+    return position >= 0 && value != null && valueCounts.get(position).containsKey(value);
+  }
+
+  /**
+   * Returns the entity with the given key.
+   * @param keyPredicates the key predicates, e.g., from the URI
+   * @return the entity or <code>null</code> if no entity in the index has this key
+   * @throws ODataApplicationException if a key predicate is not a literal or cannot be converted
+   */
+  public synchronized Entity get(final List<UriParameter> keyPredicates) throws ODataApplicationException {
+    if (keys.isEmpty()) {
+      return null;
+    }
+    if (!isUniform || keyPredicates.size() != keyPredicateNames.size()) {
+      return find(entityType, keys.keySet(), keyPredicates);
+    }
+    Object[] values = new Object[keyPredicateNames.size()];
+    for (final UriParameter keyPredicate : keyPredicates) {
+      final int position = keyPredicateNames.indexOf(keyPredicate.getName());
+      if (position < 0 || values[position] != null) {
+        return find(entityType, keys.keySet(), keyPredicates);
+      }
+      if (valueTypes[position] == null) {
+        return null;
+      }
+      values[position] = getKeyValue(keyPropertyRefs.get(position), keyPredicate, valueTypes[position]);
+    }
+    return entities.get(Arrays.asList(values));
+  }
+
+  /**
+   * Returns the first entity with the given key, comparing the key predicates with each entity in turn.
+   * This can be used for collections which are not worth indexing, e.g., the entities of a navigation.
+   * @param entityType the type of the entities
+   * @param entities the entities
+   * @param keyPredicates the key predicates, e.g., from the URI; all entities matching them are candidates
+   * @return the entity or <code>null</code> if no entity matches
+   * @throws ODataApplicationException if a key predicate is not a literal or cannot be converted
+   */
+  public static Entity find(final EdmEntityType entityType, final Collection<Entity> entities,
+      final List<UriParameter> keyPredicates) throws ODataApplicationException {
+    for (final Entity entity : entities) {
+      boolean found = true;
+      for (final UriParameter keyPredicate : keyPredicates) {
+        final EdmKeyPropertyRef keyPropertyRef = entityType.getKeyPropertyRef(keyPredicate.getName());
+        final Object value = getKeyValue(entity, keyPropertyRef);
+        if (value == null || !value.equals(getKeyValue(keyPropertyRef, keyPredicate,
+            value instanceof Calendar ? Calendar.class : value.getClass()))) {
+          found = false;
+          break;
+        }
+      }
+      if (found) {
+        return entity;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the value of a key property of an entity, following the path of the key property
+   * through complex properties.
+   * @param entity the entity
+   * @param keyPropertyRef the key property
+   * @return the value or <code>null</code> if the entity has no such property
+   */
+  public static Object getKeyValue(final Entity entity, final EdmKeyPropertyRef keyPropertyRef) {
+    final String[] path = keyPropertyRef.getName().split("/");
+    Property property = entity.getProperty(path[0]);
+    for (int i = 1; i < path.length && property != null; i++) {
+      final ComplexValue complexValue = property.asComplex();
+      property = null;
+      if (complexValue != null) {
+        for (final Property innerProperty : complexValue.getValue()) {
+          if (path[i].equals(innerProperty.getName())) {
+            property = innerProperty;
+            break;
+          }
+        }
+      }
+    }
+    return property == null ? null : property.getValue();
+  }
+
+  private List<Object> getKey(final Entity entity) {
+    Object[] values = new Object[keyPropertyRefs.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = getKeyValue(entity, keyPropertyRefs.get(i));
+    }
+    return Arrays.asList(values);
+  }
+
+  private static Object getKeyValue(final EdmKeyPropertyRef keyPropertyRef, final UriParameter keyPredicate,
+      final Class<?> valueType) throws ODataApplicationException {
+    if (keyPredicate.getExpression() != null && !(keyPredicate.getExpression() instanceof Literal)) {
+      throw new ODataApplicationException("Expression in key value is not supported yet!",
+          HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), Locale.ROOT);
+    }
+    final String text = keyPredicate.getAlias() == null ?
+        keyPredicate.getText() :
+        ((Literal) keyPredicate.getExpression()).getText();
+    final EdmProperty property = keyPropertyRef.getProperty();
+    final EdmPrimitiveType type = (EdmPrimitiveType) property.getType();
+    try {
+      return type.valueOfString(type.fromUriLiteral(text),
+          property.isNullable(), property.getMaxLength(), property.getPrecision(), property.getScale(),
+          property.isUnicode(), valueType);
+    } catch (final EdmPrimitiveTypeException e) {
+      throw new ODataApplicationException("Wrong key!", HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT, e);
+    }
+  }
+}
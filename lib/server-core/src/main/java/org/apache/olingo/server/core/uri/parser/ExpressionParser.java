@@ -25,8 +25,10 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.olingo.commons.api.edm.Edm;
 import org.apache.olingo.commons.api.edm.EdmComplexType;
@@ -119,6 +121,16 @@ public class ExpressionParser {
     tokenToBinaryOperator = Collections.unmodifiableMap(temp);
   }
 
+  private static final Set<TokenKind> EQUALITY_OPERATORS =
+      EnumSet.of(TokenKind.EqualsOperator, TokenKind.NotEqualsOperator);
+  private static final Set<TokenKind> RELATIONAL_OPERATORS =
+      EnumSet.of(TokenKind.GreaterThanOperator, TokenKind.GreaterThanOrEqualsOperator,
+          TokenKind.LessThanOperator, TokenKind.LessThanOrEqualsOperator);
+  private static final Set<TokenKind> ADDITIVE_OPERATORS =
+      EnumSet.of(TokenKind.AddOperator, TokenKind.SubOperator);
+  private static final Set<TokenKind> MULTIPLICATIVE_OPERATORS =
+      EnumSet.of(TokenKind.MulOperator, TokenKind.DivOperator, TokenKind.ModOperator);
+
   // 'cast' and 'isof' are handled specially.
   private static final Map<TokenKind, MethodKind> tokenToMethod;
   static {
@@ -216,14 +228,14 @@ public class ExpressionParser {
 
   private Expression parseExprEquality() throws UriParserException, UriValidationException {
     Expression left = parseExprRel();
-    TokenKind operatorTokenKind = ParserHelper.next(tokenizer, TokenKind.EqualsOperator, TokenKind.NotEqualsOperator);
+    TokenKind operatorTokenKind = tokenizer.nextBinaryOperator(EQUALITY_OPERATORS);
     // Null for everything other than EQ or NE
     while (operatorTokenKind != null) {
       final Expression right = parseExprEquality();
       checkEqualityTypes(left, right);
       left = new BinaryImpl(left, tokenToBinaryOperator.get(operatorTokenKind), right,
           odata.createPrimitiveTypeInstance(EdmPrimitiveTypeKind.Boolean));
-      operatorTokenKind = ParserHelper.next(tokenizer, TokenKind.EqualsOperator, TokenKind.NotEqualsOperator);
+      operatorTokenKind = tokenizer.nextBinaryOperator(EQUALITY_OPERATORS);
     }
     return left;
   }
@@ -234,18 +246,14 @@ public class ExpressionParser {
       return parseIsOfOrCastMethod(MethodKind.ISOF);
     } else {
       Expression left = parseExprAdd();
-      TokenKind operatorTokenKind = ParserHelper.next(tokenizer,
-          TokenKind.GreaterThanOperator, TokenKind.GreaterThanOrEqualsOperator,
-          TokenKind.LessThanOperator, TokenKind.LessThanOrEqualsOperator);
+      TokenKind operatorTokenKind = tokenizer.nextBinaryOperator(RELATIONAL_OPERATORS);
       // Null for everything other than GT or GE or LT or LE
       while (operatorTokenKind != null) {
         final Expression right = parseExprAdd();
         checkRelationTypes(left, right);
         left = new BinaryImpl(left, tokenToBinaryOperator.get(operatorTokenKind), right,
             odata.createPrimitiveTypeInstance(EdmPrimitiveTypeKind.Boolean));
-        operatorTokenKind = ParserHelper.next(tokenizer,
-            TokenKind.GreaterThanOperator, TokenKind.GreaterThanOrEqualsOperator,
-            TokenKind.LessThanOperator, TokenKind.LessThanOrEqualsOperator);
+        operatorTokenKind = tokenizer.nextBinaryOperator(RELATIONAL_OPERATORS);
       }
       return left;
     }
@@ -277,22 +285,21 @@ public class ExpressionParser {
 
   private Expression parseExprAdd() throws UriParserException, UriValidationException {
     Expression left = parseExprMul();
-    TokenKind operatorTokenKind = ParserHelper.next(tokenizer, TokenKind.AddOperator, TokenKind.SubOperator);
+    TokenKind operatorTokenKind = tokenizer.nextBinaryOperator(ADDITIVE_OPERATORS);
     // Null for everything other than ADD or SUB
     while (operatorTokenKind != null) {
       final Expression right = parseExprMul();
       final EdmType resultType = getAddSubTypeAndCheckLeftAndRight(left, right,
           operatorTokenKind == TokenKind.SubOperator);
       left = new BinaryImpl(left, tokenToBinaryOperator.get(operatorTokenKind), right, resultType);
-      operatorTokenKind = ParserHelper.next(tokenizer, TokenKind.AddOperator, TokenKind.SubOperator);
+      operatorTokenKind = tokenizer.nextBinaryOperator(ADDITIVE_OPERATORS);
     }
     return left;
   }
 
   private Expression parseExprMul() throws UriParserException, UriValidationException {
     Expression left = parseExprUnary();
-    TokenKind operatorTokenKind = ParserHelper.next(tokenizer,
-        TokenKind.MulOperator, TokenKind.DivOperator, TokenKind.ModOperator);
+    TokenKind operatorTokenKind = tokenizer.nextBinaryOperator(MULTIPLICATIVE_OPERATORS);
     // Null for everything other than MUL or DIV or MOD
     while (operatorTokenKind != null) {
       checkNumericType(left);
@@ -300,8 +307,7 @@ public class ExpressionParser {
       checkNumericType(right);
       left = new BinaryImpl(left, tokenToBinaryOperator.get(operatorTokenKind), right,
           odata.createPrimitiveTypeInstance(EdmPrimitiveTypeKind.Double));
-      operatorTokenKind = ParserHelper.next(tokenizer,
-          TokenKind.MulOperator, TokenKind.DivOperator, TokenKind.ModOperator);
+      operatorTokenKind = tokenizer.nextBinaryOperator(MULTIPLICATIVE_OPERATORS);
     }
     return left;
   }
@@ -430,8 +436,7 @@ public class ExpressionParser {
       return parsePrimitive(nextPrimitive);
     }
 
-    final TokenKind nextMethod =
-        ParserHelper.next(tokenizer, tokenToMethod.keySet().toArray(new TokenKind[tokenToMethod.size()]));
+    final TokenKind nextMethod = tokenizer.nextMethod(tokenToMethod.keySet());
     if (nextMethod != null) {
       return parseMethod(nextMethod);
     }
@@ -29,6 +29,8 @@ import org.apache.olingo.commons.api.edm.EdmType;
 import org.apache.olingo.commons.api.ex.ODataRuntimeException;
 import org.apache.olingo.server.api.OData;
 import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.UriInfoCache;
+import org.apache.olingo.server.api.uri.UriInfoCache.EntryKind;
 import org.apache.olingo.server.api.uri.UriInfoKind;
 import org.apache.olingo.server.api.uri.UriResource;
 import org.apache.olingo.server.api.uri.UriResourceAction;
@@ -85,14 +87,42 @@ public class Parser {
 
   private final Edm edm;
   private final OData odata;
+  private final UriInfoCache cache;
 
   public Parser(final Edm edm, final OData odata) {
+    this(edm, odata, null);
+  }
+
+  /**
+   * Creates a parser which looks up parsed URIs and system query options in the given cache
+   * before parsing them.
+   * @param edm the Entity Data Model
+   * @param odata the OData instance
+   * @param cache the cache or <code>null</code> to parse every URI completely
+   */
+  public Parser(final Edm edm, final OData odata, final UriInfoCache cache) {
     this.edm = edm;
     this.odata = odata;
+    this.cache = cache;
   }
 
-  public UriInfo parseUri(final String path, final String query, final String fragment, String baseUri)
+  public UriInfo parseUri(final String path, final String query, final String fragment, final String baseUri)
       throws UriParserException, UriValidationException {
+    if (cache == null) {
+      return parse(path, query, fragment, baseUri, null);
+    }
+    final String queryKey = query == null ? null : createQueryKey(query);
+    final String key = createUriKey(path, queryKey, fragment, baseUri);
+    UriInfo uriInfo = (UriInfo) cache.get(EntryKind.URI, edm, key);
+    if (uriInfo == null) {
+      uriInfo = parse(path, query, fragment, baseUri, queryKey);
+      cache.put(EntryKind.URI, edm, key, uriInfo);
+    }
+    return uriInfo;
+  }
+
+  private UriInfo parse(final String path, final String query, final String fragment, String baseUri,
+      final String queryKey) throws UriParserException, UriValidationException {
 
     UriInfoImpl contextUriInfo = new UriInfoImpl();
    
@@ -272,6 +302,20 @@ public class Parser {
     }
 
     // Post-process system query options that need context information from the resource path.
+    // Their result depends only on the query and on that context, not on key values in the resource path,
+    // so it can be taken over from an earlier request of the same shape.
+    TemplateKey templateKey = null;
+    if (queryKey != null && cache.isTemplateCachingEnabled()
+        && contextUriInfo.getKind() != UriInfoKind.entityId && hasContextDependentOption(contextUriInfo)) {
+      templateKey = new TemplateKey(queryKey, contextType, contextIsCollection, contextUriInfo.getKind(),
+          contextUriInfo.getEntitySetNames());
+      final UriInfo template = (UriInfo) cache.get(EntryKind.TEMPLATE, edm, templateKey);
+      if (template != null) {
+        copyContextDependentOptions(template, contextUriInfo);
+        return contextUriInfo;
+      }
+    }
+
     if (contextType instanceof EdmStructuredType && contextUriInfo.getApplyOption() != null) {
       // Data aggregation may change the structure of the result.
       contextType = new DynamicStructuredType((EdmStructuredType) contextType);
@@ -287,9 +331,76 @@ public class Parser {
         contextUriInfo.getAliasMap());
     parseSelectOption(contextUriInfo.getSelectOption(), contextType, contextIsCollection);
 
+    if (templateKey != null) {
+      cache.put(EntryKind.TEMPLATE, edm, templateKey, contextUriInfo);
+    }
     return contextUriInfo;
   }
 
+  /**
+   * Creates the cache key of the query; names and values of the query options are decoded,
+   * so that different percent-encodings of the same query share the key.
+   */
+  private static String createQueryKey(final String query) throws UriParserSyntaxException {
+    StringBuilder key = new StringBuilder(query.length() + 16);
+    for (final QueryOption option : UriDecoder.splitAndDecodeOptions(query)) {
+      appendKeyPart(key, option.getName());
+      appendKeyPart(key, option.getText());
+    }
+    return key.toString();
+  }
+
+  private static String createUriKey(final String path, final String queryKey, final String fragment,
+      final String baseUri) throws UriParserSyntaxException {
+    StringBuilder key = new StringBuilder();
+    for (final String segment : UriDecoder.splitAndDecodePath(path)) {
+      appendKeyPart(key, segment);
+    }
+    key.append(queryKey == null ? "-" : "?" + queryKey);
+    key.append(fragment == null ? "-" : "#" + fragment.length() + ':' + fragment);
+    // The base URI is relevant for absolute URIs in the $id system query option.
+    appendKeyPart(key, baseUri == null ? "" : baseUri);
+    return key.toString();
+  }
+
+  /** Appends the part with its length as prefix so that the key cannot be ambiguous. */
+  private static void appendKeyPart(StringBuilder key, final String part) {
+    key.append(part.length()).append(':').append(part);
+  }
+
+  private static boolean hasContextDependentOption(final UriInfo uriInfo) {
+    return uriInfo.getApplyOption() != null || uriInfo.getFilterOption() != null
+        || uriInfo.getOrderByOption() != null || uriInfo.getExpandOption() != null
+        || uriInfo.getSelectOption() != null;
+  }
+
+  /** Takes over the results of the post-processing of system query options from a template. */
+  private static void copyContextDependentOptions(final UriInfo template, UriInfoImpl uriInfo) {
+    if (template.getApplyOption() != null) {
+      ApplyOptionImpl applyOption = (ApplyOptionImpl) uriInfo.getApplyOption();
+      for (final ApplyItem item : template.getApplyOption().getApplyItems()) {
+        applyOption.add(item);
+      }
+      applyOption.setEdmStructuredType(template.getApplyOption().getEdmStructuredType());
+    }
+    if (template.getFilterOption() != null) {
+      ((FilterOptionImpl) uriInfo.getFilterOption()).setExpression(template.getFilterOption().getExpression());
+    }
+    if (template.getOrderByOption() != null) {
+      for (final OrderByItem item : template.getOrderByOption().getOrders()) {
+        ((OrderByOptionImpl) uriInfo.getOrderByOption()).addOrder(item);
+      }
+    }
+    if (template.getExpandOption() != null) {
+      for (final ExpandItem item : template.getExpandOption().getExpandItems()) {
+        ((ExpandOptionImpl) uriInfo.getExpandOption()).addExpandItem(item);
+      }
+    }
+    if (template.getSelectOption() != null) {
+      ((SelectOptionImpl) uriInfo.getSelectOption()).setSelectItems(template.getSelectOption().getSelectItems());
+    }
+  }
+
   private String getFormEncodedValue(String value) {
     if(value.contains("+")){
       value = value.replaceAll("\\+", " ");
@@ -506,4 +617,51 @@ public class Parser {
           optionName, optionValue);
     }
   }
+
+  /**
+   * Key of the cached system query options of a request shape: the query and the context
+   * resulting from the resource path. EDM types are compared by identity since the
+   * Entity Data Model hands out the same instance for a type.
+   */
+  private static final class TemplateKey {
+    private final String query;
+    private final EdmType contextType;
+    private final boolean contextIsCollection;
+    private final UriInfoKind kind;
+    private final List<String> entitySetNames;
+
+    private TemplateKey(final String query, final EdmType contextType, final boolean contextIsCollection,
+        final UriInfoKind kind, final List<String> entitySetNames) {
+      this.query = query;
+      this.contextType = contextType;
+      this.contextIsCollection = contextIsCollection;
+      this.kind = kind;
+      this.entitySetNames = entitySetNames;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof TemplateKey)) {
+        return false;
+      }
+      final TemplateKey other = (TemplateKey) obj;
+      return contextType == other.contextType
+          && contextIsCollection == other.contextIsCollection
+          && kind == other.kind
+          && query.equals(other.query)
+          && entitySetNames.equals(other.entitySetNames);
+    }
+
+    @Override
+    public int hashCode() {
+      int result = query.hashCode();
+      result = 31 * result + (contextType == null ? 0 : System.identityHashCode(contextType));
+      result = 31 * result + (contextIsCollection ? 1 : 0);
+      result = 31 * result + kind.hashCode();
+      return 31 * result + entitySetNames.hashCode();
+    }
+  }
 }
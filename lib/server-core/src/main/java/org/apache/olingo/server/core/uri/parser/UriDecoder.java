@@ -19,7 +19,6 @@
 package org.apache.olingo.server.core.uri.parser;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 
 import org.apache.olingo.commons.core.Decoder;
@@ -75,7 +74,7 @@ public class UriDecoder {
    * @return list of elements (can be empty)
    */
   private static List<String> split(final String input, final char c) {
-    List<String> list = new LinkedList<>();
+    List<String> list = new ArrayList<>();
 
     int start = 0;
     int end;
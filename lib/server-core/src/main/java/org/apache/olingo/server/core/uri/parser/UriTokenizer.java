@@ -18,6 +18,8 @@
  */
 package org.apache.olingo.server.core.uri.parser;
 
+import java.util.Set;
+
 /**
  * <p>Simple OData URI tokenizer that works on a given string by keeping an index.</p>
  * <p>As far as feasible, it tries to work on character basis, assuming this to be faster than string operations.
@@ -197,6 +199,84 @@ public class UriTokenizer {
     DescSuffix
   }
 
+  /** Method names (without the opening parenthesis) of all method and transformation tokens. */
+  private static final KeywordTrie METHODS = new KeywordTrie();
+  static {
+    METHODS.put("cast", TokenKind.CastMethod);
+    METHODS.put("ceiling", TokenKind.CeilingMethod);
+    METHODS.put("concat", TokenKind.ConcatMethod);
+    METHODS.put("contains", TokenKind.ContainsMethod);
+    METHODS.put("date", TokenKind.DateMethod);
+    METHODS.put("day", TokenKind.DayMethod);
+    METHODS.put("endswith", TokenKind.EndswithMethod);
+    METHODS.put("floor", TokenKind.FloorMethod);
+    METHODS.put("fractionalseconds", TokenKind.FractionalsecondsMethod);
+    METHODS.put("geo.distance", TokenKind.GeoDistanceMethod);
+    METHODS.put("geo.intersects", TokenKind.GeoIntersectsMethod);
+    METHODS.put("geo.length", TokenKind.GeoLengthMethod);
+    METHODS.put("hour", TokenKind.HourMethod);
+    METHODS.put("indexof", TokenKind.IndexofMethod);
+    METHODS.put("isof", TokenKind.IsofMethod);
+    METHODS.put("length", TokenKind.LengthMethod);
+    METHODS.put("maxdatetime", TokenKind.MaxdatetimeMethod);
+    METHODS.put("mindatetime", TokenKind.MindatetimeMethod);
+    METHODS.put("minute", TokenKind.MinuteMethod);
+    METHODS.put("month", TokenKind.MonthMethod);
+    METHODS.put("now", TokenKind.NowMethod);
+    METHODS.put("round", TokenKind.RoundMethod);
+    METHODS.put("second", TokenKind.SecondMethod);
+    METHODS.put("startswith", TokenKind.StartswithMethod);
+    METHODS.put("substring", TokenKind.SubstringMethod);
+    METHODS.put("time", TokenKind.TimeMethod);
+    METHODS.put("tolower", TokenKind.TolowerMethod);
+    METHODS.put("totaloffsetminutes", TokenKind.TotaloffsetminutesMethod);
+    METHODS.put("totalseconds", TokenKind.TotalsecondsMethod);
+    METHODS.put("toupper", TokenKind.ToupperMethod);
+    METHODS.put("trim", TokenKind.TrimMethod);
+    METHODS.put("year", TokenKind.YearMethod);
+    METHODS.put("substringof", TokenKind.SubstringofMethod);
+    METHODS.put("isdefined", TokenKind.IsDefinedMethod);
+    METHODS.put("aggregate", TokenKind.AggregateTrafo);
+    METHODS.put("bottomcount", TokenKind.BottomCountTrafo);
+    METHODS.put("bottompercent", TokenKind.BottomPercentTrafo);
+    METHODS.put("bottomsum", TokenKind.BottomSumTrafo);
+    METHODS.put("compute", TokenKind.ComputeTrafo);
+    METHODS.put("expand", TokenKind.ExpandTrafo);
+    METHODS.put("filter", TokenKind.FilterTrafo);
+    METHODS.put("groupby", TokenKind.GroupByTrafo);
+    METHODS.put("search", TokenKind.SearchTrafo);
+    METHODS.put("topcount", TokenKind.TopCountTrafo);
+    METHODS.put("toppercent", TokenKind.TopPercentTrafo);
+    METHODS.put("topsum", TokenKind.TopSumTrafo);
+    METHODS.put("orderby", TokenKind.OrderByTrafo);
+    METHODS.put("top", TokenKind.TopTrafo);
+    METHODS.put("skip", TokenKind.SkipTrafo);
+    METHODS.put("rollup", TokenKind.RollUpSpec);
+  }
+
+  /** Names of all whitespace-surrounded binary operators in common expressions. */
+  private static final KeywordTrie BINARY_OPERATORS = new KeywordTrie();
+  static {
+    BINARY_OPERATORS.put("or", TokenKind.OrOperator);
+    BINARY_OPERATORS.put("and", TokenKind.AndOperator);
+    BINARY_OPERATORS.put("eq", TokenKind.EqualsOperator);
+    BINARY_OPERATORS.put("ne", TokenKind.NotEqualsOperator);
+    BINARY_OPERATORS.put("gt", TokenKind.GreaterThanOperator);
+    BINARY_OPERATORS.put("ge", TokenKind.GreaterThanOrEqualsOperator);
+    BINARY_OPERATORS.put("lt", TokenKind.LessThanOperator);
+    BINARY_OPERATORS.put("le", TokenKind.LessThanOrEqualsOperator);
+    BINARY_OPERATORS.put("has", TokenKind.HasOperator);
+    BINARY_OPERATORS.put("in", TokenKind.InOperator);
+    BINARY_OPERATORS.put("add", TokenKind.AddOperator);
+    BINARY_OPERATORS.put("sub", TokenKind.SubOperator);
+    BINARY_OPERATORS.put("mul", TokenKind.MulOperator);
+    BINARY_OPERATORS.put("div", TokenKind.DivOperator);
+    BINARY_OPERATORS.put("mod", TokenKind.ModOperator);
+    BINARY_OPERATORS.put("as", TokenKind.AsOperator);
+    BINARY_OPERATORS.put("from", TokenKind.FromOperator);
+    BINARY_OPERATORS.put("with", TokenKind.WithOperator);
+  }
+
   private final String parseString;
 
   private int startIndex = 0;
@@ -724,6 +804,68 @@ public class UriTokenizer {
     return found;
   }
 
+  /**
+   * Tries to find a method token of one of the given kinds at the current index.
+   * In contrast to calling {@link #next(TokenKind)} for each kind in turn, the method name
+   * is read only once and looked up in a keyword trie.
+   * The index is advanced to the end of this token (including the opening parenthesis) if the token is found.
+   * @param allowedTokenKinds the method (or transformation) token kinds to expect
+   * @return the kind of the found token or <code>null</code> if no such token is found
+   * @see #getText()
+   */
+  public TokenKind nextMethod(final Set<TokenKind> allowedTokenKinds) {
+    final int previousIndex = index;
+    final TokenKind kind = nextKeyword(METHODS);
+    if (kind != null && allowedTokenKinds.contains(kind) && nextCharacter('(')) {
+      startIndex = previousIndex;
+      return kind;
+    }
+    index = previousIndex;
+    return null;
+  }
+
+  /**
+   * Tries to find a whitespace-surrounded binary operator of one of the given kinds at the current index.
+   * In contrast to calling {@link #next(TokenKind)} for each kind in turn, the whitespace and the operator name
+   * are read only once and the name is looked up in a keyword trie.
+   * The index is advanced to the end of this token if the token is found.
+   * @param allowedTokenKinds the operator token kinds to expect
+   * @return the kind of the found token or <code>null</code> if no such token is found
+   * @see #getText()
+   */
+  public TokenKind nextBinaryOperator(final Set<TokenKind> allowedTokenKinds) {
+    final int previousIndex = index;
+    if (nextWhitespace()) {
+      final TokenKind kind = nextKeyword(BINARY_OPERATORS);
+      if (kind != null && allowedTokenKinds.contains(kind) && nextWhitespace()) {
+        startIndex = previousIndex;
+        return kind;
+      }
+    }
+    index = previousIndex;
+    return null;
+  }
+
+  /**
+   * Moves past the longest sequence of characters at the current index that forms a path in the given trie.
+   * All keywords are followed by a character that cannot be part of a keyword, so only a complete keyword
+   * can lead to a match.
+   * @return the token kind of the keyword ending there or <code>null</code> if no keyword has been found
+   * (in that case the index may have been moved)
+   */
+  private TokenKind nextKeyword(final KeywordTrie trie) {
+    KeywordTrie node = trie;
+    while (index < parseString.length()) {
+      final KeywordTrie child = node.getChild(parseString.charAt(index));
+      if (child == null) {
+        break;
+      }
+      node = child;
+      index++;
+    }
+    return node.kind;
+  }
+
   /**
    * Moves past the given string constant if found; otherwise leaves the index unchanged.
    * @return whether the constant has been found at the current index
@@ -743,8 +885,7 @@ public class UriTokenizer {
    */
   private boolean nextConstantIgnoreCase(final String constant) {
     final int length = constant.length();
-    if (index + length <= parseString.length()
-        && constant.equalsIgnoreCase(parseString.substring(index, index + length))) {
+    if (parseString.regionMatches(true, index, constant, 0, length)) {
       index += length;
       return true;
     } else {
@@ -1541,8 +1682,12 @@ public class UriTokenizer {
         break;
       }
     }
-    final String word = parseString.substring(index - count, index);
-    return count > 0 && !("OR".equals(word) || "AND".equals(word) || "NOT".equals(word));
+    final int start = index - count;
+    return count > 0 && !(isWord(start, "OR") || isWord(start, "AND") || isWord(start, "NOT"));
+  }
+
+  private boolean isWord(final int start, final String word) {
+    return index - start == word.length() && parseString.startsWith(word, start);
   }
 
   private boolean nextPhrase() {
@@ -1562,4 +1707,34 @@ public class UriTokenizer {
     }
     return false;
   }
+
+  /**
+   * Node of a trie of lower-case keywords (consisting of the characters 'a' to 'z' and '.')
+   * mapping each keyword to its token kind.
+   */
+  private static final class KeywordTrie {
+    private final KeywordTrie[] children = new KeywordTrie['z' - 'a' + 2];
+    private TokenKind kind;
+
+    private void put(final String keyword, final TokenKind tokenKind) {
+      KeywordTrie node = this;
+      for (int i = 0; i < keyword.length(); i++) {
+        final int position = position(keyword.charAt(i));
+        if (node.children[position] == null) {
+          node.children[position] = new KeywordTrie();
+        }
+        node = node.children[position];
+      }
+      node.kind = tokenKind;
+    }
+
+    private KeywordTrie getChild(final char character) {
+      final int position = position(character);
+      return position < 0 ? null : children[position];
+    }
+
+    private static int position(final char character) {
+      return character >= 'a' && character <= 'z' ? character - 'a' : character == '.' ? 'z' - 'a' + 1 : -1;
+    }
+  }
 }
@@ -0,0 +1,948 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.apply;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.function.Predicate;
+
+import org.apache.olingo.commons.api.data.AbstractEntityCollection;
+import org.apache.olingo.commons.api.data.ComplexValue;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.Link;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.api.edm.constants.EdmTypeKind;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceCount;
+import org.apache.olingo.server.api.uri.UriResourceNavigation;
+import org.apache.olingo.server.api.uri.UriResourcePrimitiveProperty;
+import org.apache.olingo.server.api.uri.UriResourceProperty;
+import org.apache.olingo.server.api.uri.queryoption.ApplyItem;
+import org.apache.olingo.server.api.uri.queryoption.ApplyOption;
+import org.apache.olingo.server.api.uri.queryoption.apply.Aggregate;
+import org.apache.olingo.server.api.uri.queryoption.apply.AggregateExpression;
+import org.apache.olingo.server.api.uri.queryoption.apply.AggregateExpression.StandardMethod;
+import org.apache.olingo.server.api.uri.queryoption.apply.BottomTop;
+import org.apache.olingo.server.api.uri.queryoption.apply.Compute;
+import org.apache.olingo.server.api.uri.queryoption.apply.ComputeExpression;
+import org.apache.olingo.server.api.uri.queryoption.apply.Concat;
+import org.apache.olingo.server.api.uri.queryoption.apply.Filter;
+import org.apache.olingo.server.api.uri.queryoption.apply.GroupBy;
+import org.apache.olingo.server.api.uri.queryoption.apply.GroupByItem;
+import org.apache.olingo.server.api.uri.queryoption.apply.OrderBy;
+import org.apache.olingo.server.api.uri.queryoption.apply.Skip;
+import org.apache.olingo.server.api.uri.queryoption.apply.Top;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
+import org.apache.olingo.server.core.uri.queryoption.expression.CompiledValue;
+import org.apache.olingo.server.core.uri.queryoption.expression.ExpressionCompiler;
+
+/**
+ * Evaluates the transformations of a <code>$apply</code> system query option for entities held in memory.
+ * <p>
+ * Supported are the transformations <code>identity</code>, <code>filter</code>, <code>compute</code>,
+ * <code>orderby</code>, <code>top</code>, <code>skip</code>, <code>aggregate</code>, <code>groupby</code>
+ * without rollup, <code>concat</code>, and <code>bottomcount</code>, <code>bottompercent</code>,
+ * <code>bottomsum</code>, <code>topcount</code>, <code>toppercent</code>, and <code>topsum</code>.
+ * Aggregate expressions may be <code>$count</code> or apply one of the standard aggregation methods
+ * <code>sum</code>, <code>min</code>, <code>max</code>, <code>average</code>, and <code>countdistinct</code>
+ * to an expression the {@link ExpressionCompiler} supports. For anything else, e.g., custom aggregates,
+ * <code>from</code>, or <code>search</code>, evaluation fails with status {@link HttpStatusCode#NOT_IMPLEMENTED}.
+ * <p>
+ * An <code>aggregate</code> transformation, and a <code>groupby</code> transformation with at most an
+ * <code>aggregate</code> transformation inside, is evaluated in a single pass over its input: each entity is
+ * looked up in a hash table of groups and its values are added to the accumulators of its group, so that
+ * entities from an {@link org.apache.olingo.commons.api.data.EntityIterator EntityIterator} are never held
+ * in memory all at once. If an executor has been given, large collections are split into partitions which are
+ * aggregated in parallel and merged afterwards.
+ * <p>
+ * The result entities contain the grouping properties, nested in complex values or in an inline entity as in
+ * the grouping path, and the computed and aggregated values named by their aliases. Their properties carry the
+ * names of their EDM types, so that they can be written by an
+ * {@link org.apache.olingo.server.api.serializer.EdmAssistedSerializer EdmAssistedSerializer}.
+ * Aggregated entities have no entity id. The input entities are never modified.
+ * Instances are immutable and thread-safe.
+ */
+public class ApplyEvaluator {
+
+  /** Number of entities from which on aggregation is done in parallel if an executor has been given. */
+  public static final int PARALLEL_THRESHOLD = 10000;
+
+  private static final EdmPrimitiveType DECIMAL =
+      EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Decimal);
+
+  private final Executor executor;
+  private final int parallelism;
+
+  /** Creates an evaluator which does all work in the calling thread. */
+  public ApplyEvaluator() {
+    this(null, 1);
+  }
+
+  /**
+   * Creates an evaluator which aggregates large collections in parallel.
+   * @param executor executes the aggregation of partitions; the calling thread aggregates one of them itself
+   * @param parallelism the maximum number of partitions
+   */
+  public ApplyEvaluator(final Executor executor, final int parallelism) {
+    this.executor = executor;
+    this.parallelism = Math.max(1, parallelism);
+  }
+
+  /**
+   * Evaluates the transformations of the <code>$apply</code> system query option.
+   * @param applyOption the parsed <code>$apply</code> system query option
+   * @param entities the entities to transform; an entity iterator is consumed
+   * @return the transformed entities
+   * @throws ODataApplicationException if a transformation or expression is not supported or invalid
+   */
+  public EntityCollection evaluate(final ApplyOption applyOption, final AbstractEntityCollection entities)
+      throws ExpressionVisitException, ODataApplicationException {
+    final Rows rows = apply(applyOption.getApplyItems(),
+        entities instanceof EntityCollection ?
+            new Rows(((EntityCollection) entities).getEntities()) :
+            new Rows(entities.iterator()));
+    EntityCollection result = new EntityCollection();
+    if (rows.list == null) {
+      while (rows.iterator.hasNext()) {
+        result.getEntities().add(rows.iterator.next());
+      }
+    } else {
+      result.getEntities().addAll(rows.list);
+    }
+    return result;
+  }
+
+  private Rows apply(final List<ApplyItem> items, final Rows input)
+      throws ExpressionVisitException, ODataApplicationException {
+    Rows rows = input;
+    for (final ApplyItem item : items) {
+      switch (item.getKind()) {
+      case IDENTITY:
+        break;
+      case FILTER:
+        rows = filter(rows, ExpressionCompiler.compileFilter(((Filter) item).getFilterOption()));
+        break;
+      case COMPUTE:
+        rows = compute(rows, ((Compute) item).getExpressions());
+        break;
+      case ORDERBY:
+        List<Entity> sorted = new ArrayList<Entity>(rows.toList());
+        ExpressionCompiler.compileOrderBy(((OrderBy) item).getOrderByOption()).sort(sorted);
+        rows = new Rows(sorted);
+        break;
+      case TOP:
+        rows = limit(rows, 0, ((Top) item).getTopOption().getValue());
+        break;
+      case SKIP:
+        rows = limit(rows, ((Skip) item).getSkipOption().getValue(), Integer.MAX_VALUE);
+        break;
+      case AGGREGATE:
+        rows = aggregate(rows, Collections.<Grouping> emptyList(), compileAggregate((Aggregate) item), false);
+        break;
+      case GROUP_BY:
+        rows = groupBy(rows, (GroupBy) item);
+        break;
+      case BOTTOM_TOP:
+        rows = bottomTop(rows, (BottomTop) item);
+        break;
+      case CONCAT:
+        rows = concat(rows, (Concat) item);
+        break;
+      default:
+        throw notImplemented("The transformation " + item.getKind() + " is not supported.");
+      }
+    }
+    return rows;
+  }
+
+  private static Rows filter(final Rows rows, final Predicate<Entity> predicate) {
+    return transform(rows, new Transformation() {
+      @Override
+      Entity apply(final Entity entity) {
+        return predicate.test(entity) ? entity : null;
+      }
+    });
+  }
+
+  private static Rows compute(final Rows rows, final List<ComputeExpression> expressions)
+      throws ExpressionVisitException, ODataApplicationException {
+    final String[] aliases = new String[expressions.size()];
+    final CompiledValue[] values = new CompiledValue[expressions.size()];
+    for (int i = 0; i < values.length; i++) {
+      aliases[i] = expressions.get(i).getAlias();
+      values[i] = ExpressionCompiler.compileValue(expressions.get(i).getExpression());
+    }
+    return transform(rows, new Transformation() {
+      @Override
+      Entity apply(final Entity entity) {
+        Entity result = copy(entity);
+        for (int i = 0; i < values.length; i++) {
+          result.addProperty(createProperty(aliases[i], values[i].getType(), values[i].evaluate(entity)));
+        }
+        return result;
+      }
+    });
+  }
+
+  private static Rows limit(final Rows rows, final int skip, final int top) {
+    if (rows.list != null) {
+      final int size = rows.list.size();
+      final int from = Math.min(skip, size);
+      return new Rows(new ArrayList<Entity>(rows.list.subList(from, (int) Math.min((long) from + top, size))));
+    }
+    final Iterator<Entity> source = rows.iterator;
+    return new Rows(new Iterator<Entity>() {
+      private int skipped;
+      private int returned;
+
+      @Override
+      public boolean hasNext() {
+        while (skipped < skip && source.hasNext()) {
+          source.next();
+          skipped++;
+        }
+        return returned < top && source.hasNext();
+      }
+
+      @Override
+      public Entity next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        returned++;
+        return source.next();
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    });
+  }
+
+  private Rows groupBy(final Rows rows, final GroupBy groupBy)
+      throws ExpressionVisitException, ODataApplicationException {
+    List<Grouping> groupings = new ArrayList<Grouping>();
+    for (final GroupByItem item : groupBy.getGroupByItems()) {
+      groupings.add(compileGrouping(item));
+    }
+    final ApplyOption applyOption = groupBy.getApplyOption();
+    if (applyOption == null || applyOption.getApplyItems().isEmpty()) {
+      return aggregate(rows, groupings, Collections.<Aggregation> emptyList(), true);
+    }
+    final List<ApplyItem> items = applyOption.getApplyItems();
+    if (items.size() == 1 && items.get(0).getKind() == ApplyItem.Kind.AGGREGATE) {
+      return aggregate(rows, groupings, compileAggregate((Aggregate) items.get(0)), true);
+    }
+
+    // Other transformations need the entities of each group.
+    Map<GroupKey, List<Entity>> groups = new LinkedHashMap<GroupKey, List<Entity>>();
+    final Iterator<Entity> iterator = rows.iterator();
+    while (iterator.hasNext()) {
+      final Entity entity = iterator.next();
+      final GroupKey key = GroupKey.of(entity, groupings);
+      List<Entity> group = groups.get(key);
+      if (group == null) {
+        group = new ArrayList<Entity>();
+        groups.put(key, group);
+      }
+      group.add(entity);
+    }
+    List<Entity> result = new ArrayList<Entity>();
+    for (final Map.Entry<GroupKey, List<Entity>> group : groups.entrySet()) {
+      final Iterator<Entity> groupResult = apply(items, new Rows(group.getValue())).iterator();
+      while (groupResult.hasNext()) {
+        Entity entity = copy(groupResult.next());
+        for (int i = 0; i < groupings.size(); i++) {
+          if (!groupings.get(i).isSet(entity)) {
+            groupings.get(i).set(entity, group.getKey().values[i]);
+          }
+        }
+        result.add(entity);
+      }
+    }
+    return new Rows(result);
+  }
+
+  private Rows aggregate(final Rows rows, final List<Grouping> groupings, final List<Aggregation> aggregations,
+      final boolean isGrouped) throws ODataApplicationException {
+    final Map<GroupKey, Accumulator[]> groups =
+        executor != null && parallelism > 1 && rows.list != null && rows.list.size() >= PARALLEL_THRESHOLD ?
+            aggregateInParallel(rows.list, groupings, aggregations) :
+            aggregatePartition(rows.iterator(), groupings, aggregations);
+    if (groups.isEmpty() && !isGrouped) {
+      // Aggregating an empty collection results in one entity with the aggregated values of no values.
+      groups.put(GroupKey.of(null, groupings), createAccumulators(aggregations));
+    }
+    List<Entity> result = new ArrayList<Entity>(groups.size());
+    for (final Map.Entry<GroupKey, Accumulator[]> group : groups.entrySet()) {
+      Entity entity = new Entity();
+      for (int i = 0; i < groupings.size(); i++) {
+        groupings.get(i).set(entity, group.getKey().values[i]);
+      }
+      for (int i = 0; i < aggregations.size(); i++) {
+        final Aggregation aggregation = aggregations.get(i);
+        entity.addProperty(createProperty(aggregation.alias, aggregation.type, group.getValue()[i].getResult()));
+      }
+      result.add(entity);
+    }
+    return new Rows(result);
+  }
+
+  private static Map<GroupKey, Accumulator[]> aggregatePartition(final Iterator<Entity> entities,
+      final List<Grouping> groupings, final List<Aggregation> aggregations) {
+    Map<GroupKey, Accumulator[]> groups = new LinkedHashMap<GroupKey, Accumulator[]>();
+    while (entities.hasNext()) {
+      final Entity entity = entities.next();
+      final GroupKey key = GroupKey.of(entity, groupings);
+      Accumulator[] accumulators = groups.get(key);
+      if (accumulators == null) {
+        accumulators = createAccumulators(aggregations);
+        groups.put(key, accumulators);
+      }
+      for (int i = 0; i < accumulators.length; i++) {
+        final CompiledValue value = aggregations.get(i).value;
+        accumulators[i].add(value == null ? null : value.evaluate(entity));
+      }
+    }
+    return groups;
+  }
+
+  private Map<GroupKey, Accumulator[]> aggregateInParallel(final List<Entity> entities,
+      final List<Grouping> groupings, final List<Aggregation> aggregations) throws ODataApplicationException {
+    final int partitionSize = (entities.size() + parallelism - 1) / parallelism;
+    List<FutureTask<Map<GroupKey, Accumulator[]>>> tasks = new ArrayList<FutureTask<Map<GroupKey, Accumulator[]>>>();
+    for (int start = partitionSize; start < entities.size(); start += partitionSize) {
+      final List<Entity> partition = entities.subList(start, Math.min(start + partitionSize, entities.size()));
+      final FutureTask<Map<GroupKey, Accumulator[]>> task = new FutureTask<Map<GroupKey, Accumulator[]>>(
+          new Callable<Map<GroupKey, Accumulator[]>>() {
+            @Override
+            public Map<GroupKey, Accumulator[]> call() {
+              return aggregatePartition(partition.iterator(), groupings, aggregations);
+            }
+          });
+      executor.execute(task);
+      tasks.add(task);
+    }
+    Map<GroupKey, Accumulator[]> groups =
+        aggregatePartition(entities.subList(0, partitionSize).iterator(), groupings, aggregations);
+
+    // The partial results are merged in the order of the partitions to keep the groups in order of appearance.
+    try {
+      for (final FutureTask<Map<GroupKey, Accumulator[]>> task : tasks) {
+        for (final Map.Entry<GroupKey, Accumulator[]> partial : task.get().entrySet()) {
+          final Accumulator[] accumulators = groups.get(partial.getKey());
+          if (accumulators == null) {
+            groups.put(partial.getKey(), partial.getValue());
+          } else {
+            for (int i = 0; i < accumulators.length; i++) {
+              accumulators[i].merge(partial.getValue()[i]);
+            }
+          }
+        }
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ODataApplicationException("The aggregation has been interrupted.",
+          HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(), Locale.ROOT, e);
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      } else if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw new ODataApplicationException("The aggregation has failed.",
+          HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(), Locale.ROOT, e);
+    }
+    return groups;
+  }
+
+  private Rows bottomTop(final Rows rows, final BottomTop bottomTop)
+      throws ExpressionVisitException, ODataApplicationException {
+    final CompiledValue number = ExpressionCompiler.compileValue(bottomTop.getNumber());
+    final Object limit = number.isConstant() ? number.evaluate(null) : null;
+    if (!(limit instanceof Number)) {
+      throw badRequest("The first parameter of " + bottomTop.getMethod() + " must be a number.");
+    }
+    final CompiledValue value = ExpressionCompiler.compileValue(bottomTop.getValue());
+    if (!value.isNumeric()) {
+      throw badRequest("The second parameter of " + bottomTop.getMethod() + " must be numeric.");
+    }
+    final boolean isTop = bottomTop.getMethod() == BottomTop.Method.TOP_COUNT
+        || bottomTop.getMethod() == BottomTop.Method.TOP_PERCENT
+        || bottomTop.getMethod() == BottomTop.Method.TOP_SUM;
+
+    List<Entity> entities = rows.toList();
+    final Object[] values = new Object[entities.size()];
+    Integer[] order = new Integer[entities.size()];
+    Sum total = new Sum(false);
+    for (int i = 0; i < values.length; i++) {
+      values[i] = value.evaluate(entities.get(i));
+      order[i] = i;
+      total.add(values[i]);
+    }
+    // Null values come last, the order of equal values is stable.
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(final Integer index1, final Integer index2) {
+        final Object value1 = values[index1];
+        final Object value2 = values[index2];
+        if (value1 == null || value2 == null) {
+          return value1 == null ? value2 == null ? 0 : 1 : -1;
+        }
+        return isTop ? value.compare(value2, value1) : value.compare(value1, value2);
+      }
+    });
+
+    List<Entity> result = new ArrayList<Entity>();
+    switch (bottomTop.getMethod()) {
+    case BOTTOM_COUNT:
+    case TOP_COUNT:
+      for (int i = 0; i < order.length && i < ((Number) limit).longValue(); i++) {
+        result.add(entities.get(order[i]));
+      }
+      break;
+    case BOTTOM_PERCENT:
+    case TOP_PERCENT:
+    case BOTTOM_SUM:
+    case TOP_SUM:
+      BigDecimal threshold = toBigDecimal((Number) limit);
+      if (bottomTop.getMethod() == BottomTop.Method.BOTTOM_PERCENT
+          || bottomTop.getMethod() == BottomTop.Method.TOP_PERCENT) {
+        if (threshold.signum() < 0 || threshold.compareTo(BigDecimal.valueOf(100)) > 0) {
+          throw badRequest("The percentage for " + bottomTop.getMethod() + " must be between 0 and 100.");
+        }
+        threshold = total.getSum().multiply(threshold).movePointLeft(2);
+      }
+      // The result is the smallest set of entities with the highest or lowest values
+      // whose values add up to at least the threshold.
+      Sum sum = new Sum(false);
+      for (int i = 0; i < order.length && values[order[i]] != null && sum.getSum().compareTo(threshold) < 0; i++) {
+        result.add(entities.get(order[i]));
+        sum.add(values[order[i]]);
+      }
+      break;
+    default:
+      throw notImplemented("The transformation " + bottomTop.getMethod() + " is not supported.");
+    }
+    return new Rows(result);
+  }
+
+  private Rows concat(final Rows rows, final Concat concat)
+      throws ExpressionVisitException, ODataApplicationException {
+    final List<Entity> entities = rows.toList();
+    List<Entity> result = new ArrayList<Entity>();
+    for (final ApplyOption applyOption : concat.getApplyOptions()) {
+      final Iterator<Entity> iterator = apply(applyOption.getApplyItems(), new Rows(entities)).iterator();
+      while (iterator.hasNext()) {
+        result.add(iterator.next());
+      }
+    }
+    return new Rows(result);
+  }
+
+  private static List<Aggregation> compileAggregate(final Aggregate aggregate)
+      throws ExpressionVisitException, ODataApplicationException {
+    List<Aggregation> aggregations = new ArrayList<Aggregation>();
+    for (final AggregateExpression expression : aggregate.getExpressions()) {
+      if (expression.getInlineAggregateExpression() != null || !expression.getFrom().isEmpty()
+          || expression.getCustomMethod() != null) {
+        throw notImplemented("Only $count and standard aggregation methods are supported.");
+      }
+      final List<UriResource> path = expression.getPath();
+      if (path != null && path.size() == 1 && path.get(0) instanceof UriResourceCount) {
+        aggregations.add(new Aggregation(expression.getAlias(), null, null));
+      } else if (expression.getExpression() == null || expression.getStandardMethod() == null) {
+        throw notImplemented("Only $count and standard aggregation methods are supported.");
+      } else {
+        final CompiledValue value = ExpressionCompiler.compileValue(expression.getExpression());
+        final StandardMethod method = expression.getStandardMethod();
+        if ((method == StandardMethod.SUM || method == StandardMethod.AVERAGE) && !value.isNumeric()) {
+          throw badRequest("The aggregation method " + method + " needs numeric values.");
+        }
+        aggregations.add(new Aggregation(expression.getAlias(), method, value));
+      }
+    }
+    return aggregations;
+  }
+
+  private static Grouping compileGrouping(final GroupByItem item) throws ODataApplicationException {
+    if (item.isRollupAll() || !item.getRollup().isEmpty()) {
+      throw notImplemented("Grouping with rollup is not supported.");
+    }
+    final List<UriResource> path = item.getPath();
+    if (path == null || path.isEmpty() || !(path.get(path.size() - 1) instanceof UriResourcePrimitiveProperty)) {
+      throw notImplemented("Only grouping by primitive properties is supported.");
+    }
+    final CompiledValue value = ExpressionCompiler.compilePath(path);
+    final boolean isNavigation = path.get(0) instanceof UriResourceNavigation;
+    List<EdmProperty> properties = new ArrayList<EdmProperty>(path.size());
+    for (final UriResource part : isNavigation ? path.subList(1, path.size()) : path) {
+      properties.add(((UriResourceProperty) part).getProperty());
+    }
+    return new Grouping(
+        isNavigation ? ((UriResourceNavigation) path.get(0)).getProperty().getName() : null,
+        properties, value);
+  }
+
+  private static Accumulator[] createAccumulators(final List<Aggregation> aggregations) {
+    Accumulator[] accumulators = new Accumulator[aggregations.size()];
+    for (int i = 0; i < accumulators.length; i++) {
+      accumulators[i] = aggregations.get(i).createAccumulator();
+    }
+    return accumulators;
+  }
+
+  private static Rows transform(final Rows rows, final Transformation transformation) {
+    if (rows.list != null) {
+      List<Entity> result = new ArrayList<Entity>(rows.list.size());
+      for (final Entity entity : rows.list) {
+        final Entity transformed = transformation.apply(entity);
+        if (transformed != null) {
+          result.add(transformed);
+        }
+      }
+      return new Rows(result);
+    }
+    final Iterator<Entity> source = rows.iterator;
+    return new Rows(new Iterator<Entity>() {
+      private Entity next;
+
+      @Override
+      public boolean hasNext() {
+        while (next == null && source.hasNext()) {
+          next = transformation.apply(source.next());
+        }
+        return next != null;
+      }
+
+      @Override
+      public Entity next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        final Entity entity = next;
+        next = null;
+        return entity;
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    });
+  }
+
+  /** Copies the entity so that properties can be added without modifying the original. */
+  private static Entity copy(final Entity entity) {
+    Entity copy = new Entity();
+    copy.setType(entity.getType());
+    copy.setId(entity.getId());
+    copy.setETag(entity.getETag());
+    copy.setEditLink(entity.getEditLink());
+    copy.getProperties().addAll(entity.getProperties());
+    copy.getNavigationLinks().addAll(entity.getNavigationLinks());
+    return copy;
+  }
+
+  private static Property createProperty(final String name, final EdmType type, final Object value) {
+    return new Property(type == null ? null : type.getFullQualifiedName().getFullQualifiedNameAsString(), name,
+        type != null && type.getKind() == EdmTypeKind.ENUM ? ValueType.ENUM : ValueType.PRIMITIVE,
+        value);
+  }
+
+  private static Property getProperty(final List<Property> properties, final String name) {
+    for (final Property property : properties) {
+      if (name.equals(property.getName())) {
+        return property;
+      }
+    }
+    return null;
+  }
+
+  static BigDecimal toBigDecimal(final Number value) {
+    if (value instanceof BigDecimal) {
+      return (BigDecimal) value;
+    } else if (value instanceof BigInteger) {
+      return new BigDecimal((BigInteger) value);
+    } else if (value instanceof Long || value instanceof Integer || value instanceof Short
+        || value instanceof Byte) {
+      return BigDecimal.valueOf(value.longValue());
+    } else {
+      // The decimal representation avoids binary rounding artifacts of float values, e.g., for 1.1f.
+      return new BigDecimal(value.toString());
+    }
+  }
+
+  private static ODataApplicationException notImplemented(final String message) {
+    return new ODataApplicationException(message, HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), Locale.ROOT);
+  }
+
+  private static ODataApplicationException badRequest(final String message) {
+    return new ODataApplicationException(message, HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT);
+  }
+
+  /** The entities between two transformations; either a list or an iterator which is consumed only once. */
+  private static final class Rows {
+    private final List<Entity> list;
+    private final Iterator<Entity> iterator;
+
+    private Rows(final List<Entity> list) {
+      this.list = list;
+      iterator = null;
+    }
+
+    private Rows(final Iterator<Entity> iterator) {
+      list = null;
+      this.iterator = iterator;
+    }
+
+    private Iterator<Entity> iterator() {
+      return list == null ? iterator : list.iterator();
+    }
+
+    private List<Entity> toList() {
+      if (list != null) {
+        return list;
+      }
+      List<Entity> result = new ArrayList<Entity>();
+      while (iterator.hasNext()) {
+        result.add(iterator.next());
+      }
+      return result;
+    }
+  }
+
+  /** Transforms one entity into another one or into <code>null</code> to drop it. */
+  private abstract static class Transformation {
+    abstract Entity apply(Entity entity);
+  }
+
+  /** A property path of a <code>groupby</code> transformation. */
+  private static final class Grouping {
+    private final String navigationProperty;
+    private final List<EdmProperty> properties;
+    private final CompiledValue value;
+
+    private Grouping(final String navigationProperty, final List<EdmProperty> properties,
+        final CompiledValue value) {
+      this.navigationProperty = navigationProperty;
+      this.properties = properties;
+      this.value = value;
+    }
+
+    private boolean isSet(final Entity entity) {
+      return navigationProperty == null ?
+          getProperty(entity.getProperties(), properties.get(0).getName()) != null :
+          entity.getNavigationLink(navigationProperty) != null;
+    }
+
+    /** Sets the value in the given result entity, creating complex values and the inline entity as needed. */
+    private void set(final Entity entity, final Object groupValue) {
+      Entity target = entity;
+      if (navigationProperty != null) {
+        Link link = entity.getNavigationLink(navigationProperty);
+        if (link == null) {
+          link = new Link();
+          link.setTitle(navigationProperty);
+          link.setInlineEntity(new Entity());
+          entity.getNavigationLinks().add(link);
+        }
+        target = link.getInlineEntity();
+      }
+      List<Property> targetProperties = target.getProperties();
+      final int last = properties.size() - 1;
+      for (int i = 0; i < last; i++) {
+        final EdmProperty edmProperty = properties.get(i);
+        Property property = getProperty(targetProperties, edmProperty.getName());
+        if (property == null) {
+          property = new Property(edmProperty.getType().getFullQualifiedName().getFullQualifiedNameAsString(),
+              edmProperty.getName(), ValueType.COMPLEX, new ComplexValue());
+          targetProperties.add(property);
+        }
+        targetProperties = property.asComplex().getValue();
+      }
+      targetProperties.add(createProperty(properties.get(last).getName(), properties.get(last).getType(),
+          groupValue));
+    }
+  }
+
+  /** The values of the grouping properties; equal values in different representations form one group. */
+  private static final class GroupKey {
+    private final Object[] values;
+    private final Object[] normalizedValues;
+    private final int hashCode;
+
+    private GroupKey(final Object[] values, final Object[] normalizedValues) {
+      this.values = values;
+      this.normalizedValues = normalizedValues;
+      hashCode = Arrays.deepHashCode(normalizedValues);
+    }
+
+    private static GroupKey of(final Entity entity, final List<Grouping> groupings) {
+      Object[] values = new Object[groupings.size()];
+      Object[] normalizedValues = new Object[groupings.size()];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = groupings.get(i).value.evaluate(entity);
+        normalizedValues[i] = normalize(values[i]);
+      }
+      return new GroupKey(values, normalizedValues);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+      return other instanceof GroupKey && Arrays.deepEquals(normalizedValues, ((GroupKey) other).normalizedValues);
+    }
+  }
+
+  /** Returns a representation of the value whose equality does not depend on the scale or on array identity. */
+  private static Object normalize(final Object value) {
+    if (value instanceof BigDecimal) {
+      return ((BigDecimal) value).signum() == 0 ? BigDecimal.ZERO : ((BigDecimal) value).stripTrailingZeros();
+    } else if (value instanceof byte[]) {
+      return ByteBuffer.wrap((byte[]) value);
+    } else {
+      return value;
+    }
+  }
+
+  /** An aggregate expression with its alias. */
+  private static final class Aggregation {
+    private final String alias;
+    /** The standard aggregation method; <code>null</code> for <code>$count</code> */
+    private final StandardMethod method;
+    private final CompiledValue value;
+    private final EdmType type;
+
+    private Aggregation(final String alias, final StandardMethod method, final CompiledValue value) {
+      this.alias = alias;
+      this.method = method;
+      this.value = value;
+      type = method == StandardMethod.MIN || method == StandardMethod.MAX ? value.getType() : DECIMAL;
+    }
+
+    private Accumulator createAccumulator() {
+      if (method == null) {
+        return new Count();
+      }
+      switch (method) {
+      case SUM:
+        return new Sum(false);
+      case AVERAGE:
+        return new Sum(true);
+      case MIN:
+        return new Extremum(value, false);
+      case MAX:
+        return new Extremum(value, true);
+      case COUNT_DISTINCT:
+        return new CountDistinct();
+      default:
+        throw new IllegalStateException("Unknown aggregation method " + method);
+      }
+    }
+  }
+
+  /**
+   * Aggregates the values of the entities of a group one after the other.
+   * Accumulators of partial aggregations can be merged.
+   */
+  private abstract static class Accumulator {
+    abstract void add(Object value);
+
+    abstract void merge(Accumulator other);
+
+    abstract Object getResult();
+  }
+
+  /** Counts the entities for <code>$count</code>. */
+  private static final class Count extends Accumulator {
+    private long count;
+
+    @Override
+    void add(final Object value) {
+      count++;
+    }
+
+    @Override
+    void merge(final Accumulator other) {
+      count += ((Count) other).count;
+    }
+
+    @Override
+    Object getResult() {
+      return BigDecimal.valueOf(count);
+    }
+  }
+
+  /** Adds up numbers for <code>sum</code> and <code>average</code>; integers are added without boxing. */
+  private static final class Sum extends Accumulator {
+    private final boolean isAverage;
+    private long count;
+    private long integerSum;
+    private BigDecimal decimalSum;
+    /** The sum of non-finite floating-point values, i.e., infinity or NaN, which have no decimal representation */
+    private Double nonFiniteSum;
+
+    private Sum(final boolean isAverage) {
+      this.isAverage = isAverage;
+    }
+
+    @Override
+    void add(final Object value) {
+      if (value == null) {
+        return;
+      }
+      count++;
+      final Number number = (Number) value;
+      if (number instanceof Long || number instanceof Integer || number instanceof Short || number instanceof Byte) {
+        try {
+          integerSum = Math.addExact(integerSum, number.longValue());
+        } catch (final ArithmeticException e) {
+          addDecimal(BigDecimal.valueOf(number.longValue()));
+        }
+      } else if ((number instanceof Double || number instanceof Float)
+          && (Double.isNaN(number.doubleValue()) || Double.isInfinite(number.doubleValue()))) {
+        nonFiniteSum = nonFiniteSum == null ? number.doubleValue() : nonFiniteSum + number.doubleValue();
+      } else {
+        addDecimal(toBigDecimal(number));
+      }
+    }
+
+    private void addDecimal(final BigDecimal value) {
+      decimalSum = decimalSum == null ? value : decimalSum.add(value);
+    }
+
+    @Override
+    void merge(final Accumulator other) {
+      final Sum sum = (Sum) other;
+      count += sum.count;
+      try {
+        integerSum = Math.addExact(integerSum, sum.integerSum);
+      } catch (final ArithmeticException e) {
+        addDecimal(BigDecimal.valueOf(sum.integerSum));
+      }
+      if (sum.decimalSum != null) {
+        addDecimal(sum.decimalSum);
+      }
+      if (sum.nonFiniteSum != null) {
+        nonFiniteSum = nonFiniteSum == null ? sum.nonFiniteSum : nonFiniteSum + sum.nonFiniteSum;
+      }
+    }
+
+    private BigDecimal getSum() {
+      final BigDecimal sum = BigDecimal.valueOf(integerSum);
+      return decimalSum == null ? sum : sum.add(decimalSum);
+    }
+
+    @Override
+    Object getResult() {
+      if (isAverage) {
+        return count == 0 ? null :
+            nonFiniteSum == null ?
+                getSum().divide(BigDecimal.valueOf(count), MathContext.DECIMAL128) :
+                nonFiniteSum;
+      }
+      return nonFiniteSum == null ? getSum() : nonFiniteSum;
+    }
+  }
+
+  /** Keeps the smallest or the largest value for <code>min</code> and <code>max</code>. */
+  private static final class Extremum extends Accumulator {
+    private final CompiledValue value;
+    private final boolean isMaximum;
+    private Object extremum;
+
+    private Extremum(final CompiledValue value, final boolean isMaximum) {
+      this.value = value;
+      this.isMaximum = isMaximum;
+    }
+
+    @Override
+    void add(final Object candidate) {
+      if (candidate != null && (extremum == null
+          || (isMaximum ? value.compare(candidate, extremum) > 0 : value.compare(candidate, extremum) < 0))) {
+        extremum = candidate;
+      }
+    }
+
+    @Override
+    void merge(final Accumulator other) {
+      add(((Extremum) other).extremum);
+    }
+
+    @Override
+    Object getResult() {
+      return extremum;
+    }
+  }
+
+  /** Collects the distinct non-null values for <code>countdistinct</code>. */
+  private static final class CountDistinct extends Accumulator {
+    private final Set<Object> values = new HashSet<Object>();
+
+    @Override
+    void add(final Object value) {
+      if (value != null) {
+        values.add(normalize(value));
+      }
+    }
+
+    @Override
+    void merge(final Accumulator other) {
+      values.addAll(((CountDistinct) other).values);
+    }
+
+    @Override
+    Object getResult() {
+      return BigDecimal.valueOf(values.size());
+    }
+  }
+}
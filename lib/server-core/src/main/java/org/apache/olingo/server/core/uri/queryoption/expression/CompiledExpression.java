@@ -0,0 +1,739 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.expression;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.TimeZone;
+
+import org.apache.olingo.commons.api.data.ComplexValue;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Link;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.edm.EdmEnumType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.api.edm.EdmTypeDefinition;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.MethodKind;
+
+/**
+ * Node of an expression tree compiled by the {@link ExpressionCompiler}.
+ * <p>
+ * Nodes are immutable and can be evaluated concurrently. Values are the Java values of the entity properties;
+ * <code>null</code> represents the OData null value. The value kind of a node is determined at compile time
+ * so that operators can be specialized for the types of their operands.
+ */
+abstract class CompiledExpression {
+
+  /** Value kinds which determine how values are compared and computed. */
+  enum ValueKind {
+    NULL, BOOLEAN, INTEGER, DECIMAL, STRING, DATE, DATE_TIME_OFFSET, TIME_OF_DAY, DURATION, GUID, ENUM, OTHER;
+
+    boolean isNumeric() {
+      return this == INTEGER || this == DECIMAL;
+    }
+
+    static ValueKind of(final EdmType type) {
+      if (type == null) {
+        return NULL;
+      }
+      switch (type.getKind()) {
+      case ENUM:
+        return ENUM;
+      case DEFINITION:
+        return of(((EdmTypeDefinition) type).getUnderlyingType());
+      case PRIMITIVE:
+        final EdmPrimitiveTypeKind kind = EdmPrimitiveTypeKind.valueOfFQN(type.getFullQualifiedName());
+        switch (kind) {
+        case Boolean:
+          return BOOLEAN;
+        case SByte:
+        case Byte:
+        case Int16:
+        case Int32:
+        case Int64:
+          return INTEGER;
+        case Single:
+        case Double:
+        case Decimal:
+          return DECIMAL;
+        case String:
+          return STRING;
+        case Date:
+          return DATE;
+        case DateTimeOffset:
+          return DATE_TIME_OFFSET;
+        case TimeOfDay:
+          return TIME_OF_DAY;
+        case Duration:
+          return DURATION;
+        case Guid:
+          return GUID;
+        default:
+          return OTHER;
+        }
+      default:
+        return OTHER;
+      }
+    }
+  }
+
+  /** Result of a {@link ValueComparator} for values which cannot be ordered. */
+  static final int INCOMPARABLE = Integer.MIN_VALUE;
+
+  private static final TimeZone GMT = TimeZone.getTimeZone("GMT");
+  private static final BigDecimal NANOS_PER_SECOND = BigDecimal.valueOf(1000 * 1000 * 1000);
+  private static final BigDecimal MILLIS_PER_SECOND = BigDecimal.valueOf(1000);
+
+  final ValueKind kind;
+  final EdmType type;
+
+  CompiledExpression(final ValueKind kind, final EdmType type) {
+    this.kind = kind;
+    this.type = type;
+  }
+
+  /**
+   * Evaluates the expression for the given entity.
+   * @param entity the entity; <code>null</code> for expressions which do not depend on an entity
+   * @return the value or <code>null</code>
+   */
+  abstract Object evaluate(Entity entity);
+
+  boolean isConstant() {
+    return false;
+  }
+
+  /** A value which does not depend on the entity, e.g., a literal. */
+  static final class Constant extends CompiledExpression {
+    private final Object value;
+
+    Constant(final Object value, final ValueKind kind, final EdmType type) {
+      super(value == null && kind != ValueKind.NULL && type == null ? ValueKind.NULL : kind, type);
+      this.value = value;
+    }
+
+    @Override
+    Object evaluate(final Entity entity) {
+      return value;
+    }
+
+    @Override
+    boolean isConstant() {
+      return true;
+    }
+  }
+
+  /** The value of a property, following single-valued complex properties and an expanded navigation property. */
+  static final class PropertyPath extends CompiledExpression {
+    private final String navigationProperty;
+    private final String[] path;
+
+    PropertyPath(final String navigationProperty, final List<String> path, final EdmType type) {
+      super(ValueKind.of(type), type);
+      this.navigationProperty = navigationProperty;
+      this.path = path.toArray(new String[path.size()]);
+    }
+
+    @Override
+    Object evaluate(final Entity entity) {
+      Entity target = entity;
+      if (navigationProperty != null) {
+        final Link link = entity.getNavigationLink(navigationProperty);
+        target = link == null ? null : link.getInlineEntity();
+        if (target == null) {
+          return null;
+        }
+      }
+      Property property = target.getProperty(path[0]);
+      for (int i = 1; i < path.length && property != null; i++) {
+        final ComplexValue complexValue = property.isNull() ? null : property.asComplex();
+        property = complexValue == null ? null : getProperty(complexValue.getValue(), path[i]);
+      }
+      return property == null ? null : property.getValue();
+    }
+
+    private static Property getProperty(final List<Property> properties, final String name) {
+      for (final Property property : properties) {
+        if (name.equals(property.getName())) {
+          return property;
+        }
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Comparison operators <code>eq</code>, <code>ne</code>, <code>gt</code>, <code>ge</code>, <code>lt</code>,
+   * and <code>le</code>.
+   */
+  static final class Comparison extends CompiledExpression {
+    private final BinaryOperatorKind operator;
+    private final CompiledExpression left;
+    private final CompiledExpression right;
+    private final ValueComparator comparator;
+
+    Comparison(final BinaryOperatorKind operator, final CompiledExpression left, final CompiledExpression right,
+        final ValueComparator comparator, final EdmType booleanType) {
+      super(ValueKind.BOOLEAN, booleanType);
+      this.operator = operator;
+      this.left = left;
+      this.right = right;
+      this.comparator = comparator;
+    }
+
+    @Override
+    Object evaluate(final Entity entity) {
+      final Object leftValue = left.evaluate(entity);
+      final Object rightValue = right.evaluate(entity);
+      if (leftValue == null || rightValue == null) {
+        // null is equal to null and neither less nor greater than any value.
+        final boolean bothNull = leftValue == null && rightValue == null;
+        switch (operator) {
+        case EQ:
+        case GE:
+        case LE:
+          return bothNull;
+        case NE:
+          return !bothNull;
+        default:
+          return Boolean.FALSE;
+        }
+      }
+      final int result = comparator.compare(leftValue, rightValue);
+      switch (operator) {
+      case EQ:
+        return result == 0;
+      case NE:
+        return result != 0;
+      case GT:
+        return result != INCOMPARABLE && result > 0;
+      case GE:
+        return result != INCOMPARABLE && result >= 0;
+      case LT:
+        return result != INCOMPARABLE && result < 0;
+      case LE:
+        return result != INCOMPARABLE && result <= 0;
+      default:
+        throw new IllegalStateException("Unexpected comparison operator " + operator);
+      }
+    }
+  }
+
+  /** The <code>in</code> operator with a list of values. */
+  static final class In extends CompiledExpression {
+    private final CompiledExpression left;
+    private final CompiledExpression[] values;
+    private final ValueComparator comparator;
+    private final Set<Object> constantValues;
+
+    /**
+     * @param constantValues all values as set if they are constant and can be looked up by equality,
+     * otherwise <code>null</code>
+     */
+    In(final CompiledExpression left, final List<CompiledExpression> values, final ValueComparator comparator,
+        final Set<Object> constantValues, final EdmType booleanType) {
+      super(ValueKind.BOOLEAN, booleanType);
+      this.left = left;
+      this.values = values.toArray(new CompiledExpression[values.size()]);
+      this.comparator = comparator;
+      this.constantValues = constantValues;
+    }
+
+    @Override
+    Object evaluate(final Entity entity) {
+      final Object leftValue = left.evaluate(entity);
+      if (constantValues != null) {
+        return constantValues.contains(leftValue);
+      }
+      for (final CompiledExpression value : values) {
+        final Object rightValue = value.evaluate(entity);
+        if (leftValue == null || rightValue == null ?
+            leftValue == rightValue :
+            comparator.compare(leftValue, rightValue) == 0) {
+          return Boolean.TRUE;
+        }
+      }
+      return Boolean.FALSE;
+    }
+  }
+
+  /** The operators <code>and</code> and <code>or</code> with three-valued logic. */
+  static final class Logical extends CompiledExpression {
+    private final boolean isAnd;
+    private final CompiledExpression left;
+    private final CompiledExpression right;
+
+    Logical(final boolean isAnd, final CompiledExpression left, final CompiledExpression right,
+        final EdmType booleanType) {
+      super(ValueKind.BOOLEAN, booleanType);
+      this.isAnd = isAnd;
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    Object evaluate(final Entity entity) {
+      final Object leftValue = left.evaluate(entity);
+      // The result is determined by the left operand alone if it is false for "and" or true for "or".
+      if (Boolean.valueOf(!isAnd).equals(leftValue)) {
+        return leftValue;
+      }
+      final Object rightValue = right.evaluate(entity);
+      if (Boolean.valueOf(!isAnd).equals(rightValue)) {
+        return rightValue;
+      }
+      return leftValue == null || rightValue == null ? null : Boolean.valueOf(isAnd);
+    }
+  }
+
+  /** The operator <code>has</code> for flags of enumeration types. */
+  static final class Has extends CompiledExpression {
+    private final CompiledExpression left;
+    private final CompiledExpression right;
+    private final EdmEnumType enumType;
+
+    Has(final CompiledExpression left, final CompiledExpression right, final EdmEnumType enumType,
+        final EdmType booleanType) {
+      super(ValueKind.BOOLEAN, booleanType);
+      this.left = left;
+      this.right = right;
+      this.enumType = enumType;
+    }
+
+    @Override
+    Object evaluate(final Entity entity) {
+      final Long leftValue = toEnumValue(left.evaluate(entity), enumType);
+      final Long rightValue = toEnumValue(right.evaluate(entity), enumType);
+      return leftValue != null && rightValue != null && leftValue != 0
+          && (leftValue & rightValue) == rightValue.longValue();
+    }
+  }
+
+  /** The operator <code>not</code>. */
+  static final class Not extends CompiledExpression {
+    private final CompiledExpression operand;
+
+    Not(final CompiledExpression operand, final EdmType booleanType) {
+      super(ValueKind.BOOLEAN, booleanType);
+      this.operand = operand;
+    }
+
+    @Override
+    Object evaluate(final Entity entity) {
+      final Object value = operand.evaluate(entity);
+      return value == null ? null : !(Boolean) value;
+    }
+  }
+
+  /** The unary operator <code>-</code> for numbers and durations. */
+  static final class Minus extends CompiledExpression {
+    private final CompiledExpression operand;
+
+    Minus(final CompiledExpression operand) {
+      super(operand.kind, operand.type);
+      this.operand = operand;
+    }
+
+    @Override
+    Object evaluate(final Entity entity) {
+      final Object value = operand.evaluate(entity);
+      if (value == null) {
+        return null;
+      } else if (isIntegral(value)) {
+        final long longValue = ((Number) value).longValue();
+        return longValue == Long.MIN_VALUE ? BigInteger.valueOf(longValue).negate() : Long.valueOf(-longValue);
+      } else if (value instanceof Double || value instanceof Float) {
+        return -((Number) value).doubleValue();
+      } else {
+        return toBigDecimal((Number) value).negate();
+      }
+    }
+  }
+
+  /**
+   * The arithmetic operators <code>add</code>, <code>sub</code>, <code>mul</code>, <code>div</code>,
+   * and <code>mod</code> for numbers.
+   */
+  static final class Arithmetic extends CompiledExpression {
+    private final BinaryOperatorKind operator;
+    private final CompiledExpression left;
+    private final CompiledExpression right;
+
+    Arithmetic(final BinaryOperatorKind operator, final CompiledExpression left, final CompiledExpression right,
+        final ValueKind kind, final EdmType type) {
+      super(kind, type);
+      this.operator = operator;
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    Object evaluate(final Entity entity) {
+      final Object leftValue = left.evaluate(entity);
+      final Object rightValue = right.evaluate(entity);
+      if (leftValue == null || rightValue == null) {
+        return null;
+      }
+      return kind == ValueKind.INTEGER ?
+          integerOperation((Number) leftValue, (Number) rightValue) :
+          decimalOperation(toBigDecimal((Number) leftValue), toBigDecimal((Number) rightValue));
+    }
+
+    private Number integerOperation(final Number leftValue, final Number rightValue) {
+      if (isIntegral(leftValue) && isIntegral(rightValue)) {
+        final long leftLong = leftValue.longValue();
+        final long rightLong = rightValue.longValue();
+        try {
+          switch (operator) {
+          case ADD:
+            return Math.addExact(leftLong, rightLong);
+          case SUB:
+            return Math.subtractExact(leftLong, rightLong);
+          case MUL:
+            return Math.multiplyExact(leftLong, rightLong);
+          case DIV:
+            if (rightLong != 0 && !(leftLong == Long.MIN_VALUE && rightLong == -1)) {
+              return leftLong / rightLong;
+            }
+            break;
+          case MOD:
+            if (rightLong > 0) {
+              return Math.floorMod(leftLong, rightLong);
+            }
+            break;
+          default:
+            break;
+          }
+        } catch (final ArithmeticException e) {
+          // The result does not fit into a long; calculate it with arbitrary precision.
+        }
+      }
+      final BigInteger leftBig = toBigInteger(leftValue);
+      final BigInteger rightBig = toBigInteger(rightValue);
+      switch (operator) {
+      case ADD:
+        return leftBig.add(rightBig);
+      case SUB:
+        return leftBig.subtract(rightBig);
+      case MUL:
+        return leftBig.multiply(rightBig);
+      case DIV:
+        return leftBig.divide(rightBig);
+      case MOD:
+        return leftBig.mod(rightBig);
+      default:
+        throw new IllegalStateException("Unexpected arithmetic operator " + operator);
+      }
+    }
+
+    private BigDecimal decimalOperation(final BigDecimal leftValue, final BigDecimal rightValue) {
+      switch (operator) {
+      case ADD:
+        return leftValue.add(rightValue);
+      case SUB:
+        return leftValue.subtract(rightValue);
+      case MUL:
+        return leftValue.multiply(rightValue);
+      case DIV:
+        return leftValue.divide(rightValue, MathContext.DECIMAL128);
+      default:
+        throw new IllegalStateException("Unexpected arithmetic operator " + operator);
+      }
+    }
+  }
+
+  /** Calls of the built-in string, date, and arithmetic functions. */
+  static final class MethodCall extends CompiledExpression {
+    private final MethodKind method;
+    private final CompiledExpression[] parameters;
+
+    MethodCall(final MethodKind method, final List<CompiledExpression> parameters,
+        final ValueKind kind, final EdmType type) {
+      super(kind, type);
+      this.method = method;
+      this.parameters = parameters.toArray(new CompiledExpression[parameters.size()]);
+    }
+
+    @Override
+    Object evaluate(final Entity entity) {
+      final Object first = parameters[0].evaluate(entity);
+      if (first == null) {
+        return null;
+      }
+      Object second = null;
+      if (parameters.length > 1) {
+        second = parameters[1].evaluate(entity);
+        if (second == null) {
+          return null;
+        }
+      }
+      switch (method) {
+      case CONTAINS:
+        return ((String) first).contains((String) second);
+      case STARTSWITH:
+        return ((String) first).startsWith((String) second);
+      case ENDSWITH:
+        return ((String) first).endsWith((String) second);
+      case SUBSTRINGOF:
+        return ((String) second).contains((String) first);
+      case INDEXOF:
+        return ((String) first).indexOf((String) second);
+      case LENGTH:
+        return ((String) first).length();
+      case TOLOWER:
+        return ((String) first).toLowerCase();
+      case TOUPPER:
+        return ((String) first).toUpperCase();
+      case TRIM:
+        return ((String) first).trim();
+      case CONCAT:
+        return (String) first + second;
+      case SUBSTRING:
+        return substring((String) first, (Number) second, entity);
+      case YEAR:
+        return toCalendar(first).get(Calendar.YEAR);
+      case MONTH:
+        return toCalendar(first).get(Calendar.MONTH) + 1;
+      case DAY:
+        return toCalendar(first).get(Calendar.DAY_OF_MONTH);
+      case HOUR:
+        return toCalendar(first).get(Calendar.HOUR_OF_DAY);
+      case MINUTE:
+        return toCalendar(first).get(Calendar.MINUTE);
+      case SECOND:
+        return toCalendar(first).get(Calendar.SECOND);
+      case FRACTIONALSECONDS:
+        return first instanceof Timestamp ?
+            new BigDecimal(((Timestamp) first).getNanos()).divide(NANOS_PER_SECOND) :
+            new BigDecimal(toCalendar(first).get(Calendar.MILLISECOND)).divide(MILLIS_PER_SECOND);
+      case ROUND:
+        return round((Number) first, RoundingMode.HALF_UP);
+      case FLOOR:
+        return round((Number) first, RoundingMode.FLOOR);
+      case CEILING:
+        return round((Number) first, RoundingMode.CEILING);
+      default:
+        throw new IllegalStateException("Unexpected method " + method);
+      }
+    }
+
+    private String substring(final String value, final Number startValue, final Entity entity) {
+      // Negative positions are treated as zero, positions beyond the end as the end; see OASIS JIRA ODATA-781.
+      final int start = Math.max(0, (int) Math.min(startValue.longValue(), value.length()));
+      int end = value.length();
+      if (parameters.length > 2) {
+        final Object length = parameters[2].evaluate(entity);
+        if (length == null) {
+          return null;
+        }
+        end = (int) Math.max(start, Math.min(start + ((Number) length).longValue(), value.length()));
+      }
+      return value.substring(start, end);
+    }
+
+    private static Number round(final Number value, final RoundingMode mode) {
+      return isIntegral(value) || value instanceof BigInteger ?
+          value :
+          toBigDecimal(value).setScale(0, mode);
+    }
+  }
+
+  /** Compares two non-null values; specialized at compile time for the value kinds of the operands. */
+  abstract static class ValueComparator {
+
+    /**
+     * @return a negative number, zero, or a positive number if the left value is less than, equal to,
+     * or greater than the right value; {@link CompiledExpression#INCOMPARABLE} if the values cannot be ordered
+     */
+    abstract int compare(Object left, Object right);
+
+    static final ValueComparator NUMERIC = new ValueComparator() {
+      @Override
+      int compare(final Object left, final Object right) {
+        return left instanceof Number && right instanceof Number ?
+            compareNumbers((Number) left, (Number) right) :
+            GENERIC.compare(left, right);
+      }
+    };
+
+    static final ValueComparator STRING = new ValueComparator() {
+      @Override
+      int compare(final Object left, final Object right) {
+        return left instanceof String && right instanceof String ?
+            Integer.signum(((String) left).compareTo((String) right)) :
+            GENERIC.compare(left, right);
+      }
+    };
+
+    static final ValueComparator TEMPORAL = new ValueComparator() {
+      @Override
+      int compare(final Object left, final Object right) {
+        if (left instanceof Timestamp && right instanceof Timestamp) {
+          return ((Timestamp) left).compareTo((Timestamp) right);
+        }
+        final Long leftMillis = toMillis(left);
+        final Long rightMillis = toMillis(right);
+        return leftMillis == null || rightMillis == null ?
+            GENERIC.compare(left, right) :
+            Long.compare(leftMillis, rightMillis);
+      }
+    };
+
+    static final ValueComparator GENERIC = new ValueComparator() {
+      @Override
+      @SuppressWarnings("unchecked")
+      int compare(final Object left, final Object right) {
+        if (left.getClass() == right.getClass() && left instanceof Comparable) {
+          return Integer.signum(((Comparable<Object>) left).compareTo(right));
+        }
+        return left.equals(right) ? 0 : INCOMPARABLE;
+      }
+    };
+
+    static ValueComparator forEnum(final EdmEnumType enumType) {
+      return new ValueComparator() {
+        @Override
+        int compare(final Object left, final Object right) {
+          final Long leftValue = toEnumValue(left, enumType);
+          final Long rightValue = toEnumValue(right, enumType);
+          return leftValue == null || rightValue == null ?
+              GENERIC.compare(left, right) :
+              Long.compare(leftValue, rightValue);
+        }
+      };
+    }
+
+    /** Returns the comparator for values of the given kind. */
+    static ValueComparator of(final ValueKind kind, final EdmType type) {
+      switch (kind) {
+      case INTEGER:
+      case DECIMAL:
+      case DURATION:
+        return NUMERIC;
+      case STRING:
+        return STRING;
+      case DATE:
+      case DATE_TIME_OFFSET:
+      case TIME_OF_DAY:
+        return TEMPORAL;
+      case ENUM:
+        return forEnum((EdmEnumType) type);
+      default:
+        return GENERIC;
+      }
+    }
+  }
+
+  static boolean isIntegral(final Object value) {
+    return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+  }
+
+  static int compareNumbers(final Number left, final Number right) {
+    if (isIntegral(left) && isIntegral(right)) {
+      return Long.compare(left.longValue(), right.longValue());
+    }
+    if (left instanceof Double && right instanceof Double || left instanceof Float && right instanceof Float
+        || isSpecialFloatingPoint(left) || isSpecialFloatingPoint(right)) {
+      final double leftDouble = left.doubleValue();
+      final double rightDouble = right.doubleValue();
+      return leftDouble < rightDouble ? -1 : leftDouble > rightDouble ? 1 :
+          leftDouble == rightDouble ? 0 : INCOMPARABLE;
+    }
+    return toBigDecimal(left).compareTo(toBigDecimal(right));
+  }
+
+  private static boolean isSpecialFloatingPoint(final Number value) {
+    return (value instanceof Double || value instanceof Float)
+        && (Double.isNaN(value.doubleValue()) || Double.isInfinite(value.doubleValue()));
+  }
+
+  static BigDecimal toBigDecimal(final Number value) {
+    if (value instanceof BigDecimal) {
+      return (BigDecimal) value;
+    } else if (value instanceof BigInteger) {
+      return new BigDecimal((BigInteger) value);
+    } else if (isIntegral(value)) {
+      return BigDecimal.valueOf(value.longValue());
+    } else {
+      // The decimal representation avoids binary rounding artifacts of float values, e.g., for 1.1f.
+      return new BigDecimal(value.toString());
+    }
+  }
+
+  static BigInteger toBigInteger(final Number value) {
+    return value instanceof BigInteger ? (BigInteger) value : BigInteger.valueOf(value.longValue());
+  }
+
+  static Long toMillis(final Object value) {
+    if (value instanceof Calendar) {
+      return ((Calendar) value).getTimeInMillis();
+    } else if (value instanceof Date) {
+      return ((Date) value).getTime();
+    } else {
+      return null;
+    }
+  }
+
+  static Calendar toCalendar(final Object value) {
+    if (value instanceof Calendar) {
+      return (Calendar) value;
+    }
+    Calendar calendar = Calendar.getInstance(GMT);
+    calendar.setTimeInMillis(((Date) value).getTime());
+    return calendar;
+  }
+
+  static Long toEnumValue(final Object value, final EdmEnumType enumType) {
+    if (value instanceof Number) {
+      return ((Number) value).longValue();
+    } else if (value instanceof String) {
+      try {
+        return enumType.valueOfString((String) value, null, null, null, null, null, Long.class);
+      } catch (final EdmPrimitiveTypeException e) {
+        return null;
+      }
+    } else {
+      return null;
+    }
+  }
+
+  /** Parses the text of a literal into the default Java type of its EDM type. */
+  static Object parseLiteral(final String text, final EdmPrimitiveType type) throws EdmPrimitiveTypeException {
+    if (ValueKind.of(type) == ValueKind.DECIMAL && type.getDefaultType() == BigDecimal.class) {
+      // Without facets, Edm.Decimal would only accept integer values.
+      try {
+        return new BigDecimal(type.fromUriLiteral(text));
+      } catch (final NumberFormatException e) {
+        throw new EdmPrimitiveTypeException("The literal '" + text + "' has illegal content.", e);
+      }
+    }
+    return type.valueOfString(type.fromUriLiteral(text), null, null, null, null, null, type.getDefaultType());
+  }
+}
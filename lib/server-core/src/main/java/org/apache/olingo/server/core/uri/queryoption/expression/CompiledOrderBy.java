@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.expression;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.PriorityQueue;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.server.core.uri.queryoption.expression.CompiledExpression.ValueComparator;
+
+/**
+ * Comparator for entities compiled from an <code>$orderby</code> system query option
+ * by the {@link ExpressionCompiler}.
+ * <p>
+ * Entities are compared by the values of the order-by expressions, one after the other; null values come first
+ * in ascending order. Values of different types which cannot be ordered are considered equal.
+ * Instances are immutable and thread-safe.
+ */
+public final class CompiledOrderBy implements Comparator<Entity> {
+
+  /** Number of entities from which on an unbounded sort is done in parallel. */
+  static final int PARALLEL_SORT_THRESHOLD = 10000;
+
+  private final CompiledExpression[] expressions;
+  private final ValueComparator[] comparators;
+  private final boolean[] descending;
+  private final Comparator<SortKey> keyComparator = new Comparator<SortKey>() {
+    @Override
+    public int compare(final SortKey key1, final SortKey key2) {
+      for (int i = 0; i < expressions.length; i++) {
+        final int result = compareValues(i, key1.values[i], key2.values[i]);
+        if (result != 0) {
+          return result;
+        }
+      }
+      // The original position makes the order stable.
+      return key1.index < key2.index ? -1 : key1.index > key2.index ? 1 : 0;
+    }
+  };
+
+  CompiledOrderBy(final List<CompiledExpression> expressions, final boolean[] descending) {
+    this.expressions = expressions.toArray(new CompiledExpression[expressions.size()]);
+    comparators = new ValueComparator[this.expressions.length];
+    for (int i = 0; i < comparators.length; i++) {
+      comparators[i] = ValueComparator.of(this.expressions[i].kind, this.expressions[i].type);
+    }
+    this.descending = descending.clone();
+  }
+
+  @Override
+  public int compare(final Entity entity1, final Entity entity2) {
+    for (int i = 0; i < expressions.length; i++) {
+      final int result = compareValues(i, expressions[i].evaluate(entity1), expressions[i].evaluate(entity2));
+      if (result != 0) {
+        return result;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Sorts the entities in place; the sort is stable.
+   * The order-by expressions are evaluated once per entity and not for every comparison.
+   * Large lists are sorted in parallel in the common fork-join pool.
+   */
+  public void sort(final List<Entity> entities) {
+    sort(entities, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Sorts the entities in place as far as needed to have the first <code>limit</code> entities
+   * in the same order as after a complete stable sort, as is sufficient for <code>$top</code>,
+   * <code>$skip</code>, and paging. The order of the remaining entities is unspecified.
+   * <p>
+   * If <code>limit</code> is smaller than the number of entities, only the sort keys of the
+   * <code>limit</code> first entities are held in a bounded heap during the selection,
+   * so that the memory needed grows with the limit and not with the number of entities.
+   * The selected entities are swapped with the leading ones; the list must support
+   * {@link List#set(int, Object)}, efficiently for large lists.</p>
+   * @param entities the entities to sort
+   * @param limit the number of leading entities which must be sorted; must not be negative
+   */
+  public void sort(final List<Entity> entities, final int limit) {
+    if (limit >= entities.size()) {
+      sortAll(entities);
+    } else if (limit > 0) {
+      selectFirst(entities, limit);
+    }
+  }
+
+  private void sortAll(final List<Entity> entities) {
+    final SortKey[] keys = new SortKey[entities.size()];
+    int index = 0;
+    for (final Entity entity : entities) {
+      keys[index] = createKey(entity, index);
+      index++;
+    }
+    if (keys.length >= PARALLEL_SORT_THRESHOLD) {
+      Arrays.parallelSort(keys, keyComparator);
+    } else {
+      Arrays.sort(keys, keyComparator);
+    }
+    final ListIterator<Entity> iterator = entities.listIterator();
+    for (final SortKey key : keys) {
+      iterator.next();
+      iterator.set(key.entity);
+    }
+  }
+
+  private void selectFirst(final List<Entity> entities, final int limit) {
+    // The head of the heap is the last one of the smallest keys seen so far.
+    final PriorityQueue<SortKey> heap = new PriorityQueue<SortKey>(limit, Collections.reverseOrder(keyComparator));
+    // The key of the current entity is evaluated into a spare key which is only kept if it enters the heap;
+    // the key it replaces becomes the new spare, so no key is created for the other entities.
+    SortKey spare = new SortKey(expressions.length);
+    int index = 0;
+    for (final Entity entity : entities) {
+      setKey(spare, entity, index);
+      if (heap.size() < limit) {
+        heap.add(spare);
+        spare = new SortKey(expressions.length);
+      } else if (keyComparator.compare(spare, heap.peek()) < 0) {
+        final SortKey replaced = heap.poll();
+        heap.add(spare);
+        spare = replaced;
+      }
+      index++;
+    }
+
+    final SortKey[] keys = heap.toArray(new SortKey[limit]);
+    Arrays.sort(keys, keyComparator);
+    // Selected entities behind the leading positions take the places of the leading entities not selected.
+    final boolean[] isSelected = new boolean[limit];
+    for (final SortKey key : keys) {
+      if (key.index < limit) {
+        isSelected[key.index] = true;
+      }
+    }
+    int free = 0;
+    for (final SortKey key : keys) {
+      if (key.index >= limit) {
+        while (isSelected[free]) {
+          free++;
+        }
+        entities.set(key.index, entities.get(free++));
+      }
+    }
+    for (int position = 0; position < limit; position++) {
+      entities.set(position, keys[position].entity);
+    }
+  }
+
+  private SortKey createKey(final Entity entity, final int index) {
+    final SortKey key = new SortKey(expressions.length);
+    setKey(key, entity, index);
+    return key;
+  }
+
+  private void setKey(final SortKey key, final Entity entity, final int index) {
+    key.entity = entity;
+    key.index = index;
+    for (int i = 0; i < expressions.length; i++) {
+      key.values[i] = expressions[i].evaluate(entity);
+    }
+  }
+
+  private int compareValues(final int index, final Object value1, final Object value2) {
+    int result;
+    if (value1 == null || value2 == null) {
+      result = value1 == null ? value2 == null ? 0 : -1 : 1;
+    } else {
+      result = comparators[index].compare(value1, value2);
+      if (result == CompiledExpression.INCOMPARABLE) {
+        result = 0;
+      }
+    }
+    return descending[index] ? -result : result;
+  }
+
+  private static final class SortKey {
+    private Entity entity;
+    private int index;
+    private final Object[] values;
+
+    private SortKey(final int valueCount) {
+      values = new Object[valueCount];
+    }
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.expression;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.server.core.uri.queryoption.expression.CompiledExpression.ValueComparator;
+
+/**
+ * Evaluator for the value of an expression or a property path compiled by the {@link ExpressionCompiler}.
+ * <p>
+ * Values are the Java values of the entity properties; <code>null</code> represents the OData null value.
+ * Instances are immutable and thread-safe.
+ */
+public final class CompiledValue {
+
+  private final CompiledExpression expression;
+  private final ValueComparator comparator;
+
+  CompiledValue(final CompiledExpression expression) {
+    this.expression = expression;
+    comparator = ValueComparator.of(expression.kind, expression.type);
+  }
+
+  /**
+   * Evaluates the expression for the given entity.
+   * @return the value or <code>null</code>
+   */
+  public Object evaluate(final Entity entity) {
+    return expression.evaluate(entity);
+  }
+
+  /**
+   * Returns the EDM type of the values or <code>null</code> if it is not known, e.g., for the null literal.
+   */
+  public EdmType getType() {
+    return expression.type;
+  }
+
+  /** Returns whether the value does not depend on the entity, e.g., for a literal. */
+  public boolean isConstant() {
+    return expression.isConstant();
+  }
+
+  /** Returns whether the values are numbers. */
+  public boolean isNumeric() {
+    return expression.kind.isNumeric();
+  }
+
+  /**
+   * Compares two values of this expression; null values come first.
+   * Values of different types which cannot be ordered are considered equal.
+   */
+  public int compare(final Object value1, final Object value2) {
+    if (value1 == null || value2 == null) {
+      return value1 == null ? value2 == null ? 0 : -1 : 1;
+    }
+    final int result = comparator.compare(value1, value2);
+    return result == CompiledExpression.INCOMPARABLE ? 0 : result;
+  }
+}
@@ -0,0 +1,618 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.expression;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.Predicate;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.edm.EdmEnumType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceComplexProperty;
+import org.apache.olingo.server.api.uri.UriResourceNavigation;
+import org.apache.olingo.server.api.uri.UriResourcePrimitiveProperty;
+import org.apache.olingo.server.api.uri.UriResourceProperty;
+import org.apache.olingo.server.api.uri.queryoption.FilterOption;
+import org.apache.olingo.server.api.uri.queryoption.OrderByItem;
+import org.apache.olingo.server.api.uri.queryoption.OrderByOption;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitor;
+import org.apache.olingo.server.api.uri.queryoption.expression.Literal;
+import org.apache.olingo.server.api.uri.queryoption.expression.Member;
+import org.apache.olingo.server.api.uri.queryoption.expression.MethodKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.UnaryOperatorKind;
+import org.apache.olingo.server.core.uri.queryoption.expression.CompiledExpression.ValueComparator;
+import org.apache.olingo.server.core.uri.queryoption.expression.CompiledExpression.ValueKind;
+
+/**
+ * Compiles <code>$filter</code> and <code>$orderby</code> expressions and the value expressions of
+ * <code>$apply</code> into evaluators for entities held in memory.
+ * <p>
+ * The expression tree is walked once: members are resolved to property paths, literals are parsed,
+ * constant sub-expressions are folded, and every operator is specialized for the types of its operands.
+ * Evaluating the result for an entity allocates no visitors and no intermediate operand objects.
+ * Compiled expressions are immutable, thread-safe, and cached as long as the parsed expression is referenced;
+ * so is the failure to compile an expression, so that it is not tried again.
+ * <p>
+ * The compiler supports members with single-valued primitive and complex properties, optionally starting with
+ * a single-valued navigation property whose target is expanded inline, literals, enumeration values,
+ * the logical, comparison, arithmetic, <code>has</code>, and <code>in</code> operators, and the string, date,
+ * and rounding functions. For anything else, e.g., lambda expressions, parameter aliases, functions,
+ * or date arithmetic, compilation fails with status {@link HttpStatusCode#NOT_IMPLEMENTED} so that
+ * the caller can fall back to evaluating the expression with its own {@link ExpressionVisitor}.
+ * Expressions with operands of wrong types are rejected with status {@link HttpStatusCode#BAD_REQUEST}.
+ */
+public final class ExpressionCompiler {
+
+  private static final EdmPrimitiveType BOOLEAN =
+      EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Boolean);
+  private static final EdmPrimitiveType INT32 = EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Int32);
+  private static final EdmPrimitiveType INT64 = EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Int64);
+  private static final EdmPrimitiveType DECIMAL =
+      EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Decimal);
+  private static final EdmPrimitiveType STRING = EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.String);
+
+  private static final WeakCache<Expression, Outcome<CompiledFilter>> FILTERS =
+      new WeakCache<Expression, Outcome<CompiledFilter>>();
+  private static final WeakCache<OrderByOption, Outcome<CompiledOrderBy>> ORDERS =
+      new WeakCache<OrderByOption, Outcome<CompiledOrderBy>>();
+  private static final WeakCache<Expression, Outcome<CompiledValue>> VALUES =
+      new WeakCache<Expression, Outcome<CompiledValue>>();
+
+  private ExpressionCompiler() {
+    // Static methods only.
+  }
+
+  /**
+   * Compiles the expression of a <code>$filter</code> system query option.
+   * @return a predicate which is <code>true</code> for the entities the filter expression evaluates to true
+   * @throws ODataApplicationException if the expression is not supported or not a Boolean expression
+   */
+  public static Predicate<Entity> compileFilter(final FilterOption filterOption)
+      throws ExpressionVisitException, ODataApplicationException {
+    return getFilter(filterOption).get();
+  }
+
+  /**
+   * Compiles the expression of a <code>$filter</code> system query option if possible.
+   * @return the predicate as returned by {@link #compileFilter(FilterOption)} or <code>null</code>
+   * if the expression cannot be compiled and has to be evaluated otherwise
+   */
+  public static Predicate<Entity> compileFilterIfSupported(final FilterOption filterOption) {
+    return getFilter(filterOption).result;
+  }
+
+  private static Outcome<CompiledFilter> getFilter(final FilterOption filterOption) {
+    final Expression expression = filterOption.getExpression();
+    Outcome<CompiledFilter> filter = FILTERS.get(expression);
+    if (filter == null) {
+      try {
+        final CompiledExpression compiled = compile(expression);
+        if (compiled.kind != ValueKind.BOOLEAN && compiled.kind != ValueKind.NULL) {
+          throw new ODataApplicationException(
+              "Invalid filter expression. Filter expressions must return a value of type Edm.Boolean",
+              HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT);
+        }
+        filter = new Outcome<CompiledFilter>(new CompiledFilter(compiled), null);
+      } catch (final ExpressionVisitException | ODataApplicationException e) {
+        filter = new Outcome<CompiledFilter>(null, e);
+      }
+      FILTERS.put(expression, filter);
+    }
+    return filter;
+  }
+
+  /**
+   * Compiles the expressions of an <code>$orderby</code> system query option.
+   * @return a comparator which orders entities as requested, null values first
+   * @throws ODataApplicationException if an expression is not supported
+   */
+  public static CompiledOrderBy compileOrderBy(final OrderByOption orderByOption)
+      throws ExpressionVisitException, ODataApplicationException {
+    return getOrderBy(orderByOption).get();
+  }
+
+  /**
+   * Compiles the expressions of an <code>$orderby</code> system query option if possible.
+   * @return the comparator as returned by {@link #compileOrderBy(OrderByOption)} or <code>null</code>
+   * if an expression cannot be compiled and has to be evaluated otherwise
+   */
+  public static CompiledOrderBy compileOrderByIfSupported(final OrderByOption orderByOption) {
+    return getOrderBy(orderByOption).result;
+  }
+
+  private static Outcome<CompiledOrderBy> getOrderBy(final OrderByOption orderByOption) {
+    Outcome<CompiledOrderBy> orderBy = ORDERS.get(orderByOption);
+    if (orderBy == null) {
+      try {
+        final List<OrderByItem> items = orderByOption.getOrders();
+        List<CompiledExpression> expressions = new ArrayList<CompiledExpression>(items.size());
+        boolean[] descending = new boolean[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+          expressions.add(compile(items.get(i).getExpression()));
+          descending[i] = items.get(i).isDescending();
+        }
+        orderBy = new Outcome<CompiledOrderBy>(new CompiledOrderBy(expressions, descending), null);
+      } catch (final ExpressionVisitException | ODataApplicationException e) {
+        orderBy = new Outcome<CompiledOrderBy>(null, e);
+      }
+      ORDERS.put(orderByOption, orderBy);
+    }
+    return orderBy;
+  }
+
+  /**
+   * Compiles an expression which computes a value, e.g., of a <code>compute</code> or <code>aggregate</code>
+   * transformation of <code>$apply</code>.
+   * @return the evaluator for the value of the expression
+   * @throws ODataApplicationException if the expression is not supported
+   */
+  public static CompiledValue compileValue(final Expression expression)
+      throws ExpressionVisitException, ODataApplicationException {
+    Outcome<CompiledValue> value = VALUES.get(expression);
+    if (value == null) {
+      try {
+        value = new Outcome<CompiledValue>(new CompiledValue(compile(expression)), null);
+      } catch (final ExpressionVisitException | ODataApplicationException e) {
+        value = new Outcome<CompiledValue>(null, e);
+      }
+      VALUES.put(expression, value);
+    }
+    return value.get();
+  }
+
+  /**
+   * Compiles a path of single-valued properties, optionally starting with a single-valued navigation property,
+   * as used in the <code>groupby</code> transformation of <code>$apply</code>.
+   * @return the evaluator for the value at the end of the path
+   * @throws ODataApplicationException if the path is not supported
+   */
+  public static CompiledValue compilePath(final List<UriResource> path) throws ODataApplicationException {
+    return new CompiledValue(compilePropertyPath(path));
+  }
+
+  static CompiledExpression compile(final Expression expression)
+      throws ExpressionVisitException, ODataApplicationException {
+    return expression.accept(new Compiler());
+  }
+
+  private static CompiledExpression compilePropertyPath(final List<UriResource> parts)
+      throws ODataApplicationException {
+    if (parts == null || parts.isEmpty()) {
+      throw Compiler.notImplemented();
+    }
+    String navigationProperty = null;
+    int start = 0;
+    if (parts.get(0) instanceof UriResourceNavigation) {
+      final UriResourceNavigation navigation = (UriResourceNavigation) parts.get(0);
+      if (navigation.isCollection() || navigation.getTypeFilterOnEntry() != null
+          || !navigation.getKeyPredicates().isEmpty()) {
+        throw Compiler.notImplemented();
+      }
+      navigationProperty = navigation.getProperty().getName();
+      start = 1;
+    }
+    if (start >= parts.size()) {
+      throw Compiler.notImplemented();
+    }
+    List<String> path = new ArrayList<String>(parts.size() - start);
+    EdmType type = null;
+    for (int i = start; i < parts.size(); i++) {
+      final UriResource part = parts.get(i);
+      final boolean isLast = i == parts.size() - 1;
+      if (part instanceof UriResourceComplexProperty
+          && ((UriResourceComplexProperty) part).getComplexTypeFilter() == null
+          || part instanceof UriResourcePrimitiveProperty && isLast) {
+        final UriResourceProperty property = (UriResourceProperty) part;
+        if (property.isCollection()) {
+          throw Compiler.notImplemented();
+        }
+        path.add(property.getProperty().getName());
+        type = property.getProperty().getType();
+      } else {
+        throw Compiler.notImplemented();
+      }
+    }
+    return new CompiledExpression.PropertyPath(navigationProperty, path, type);
+  }
+
+  /** Result of a compilation or the exception why the expression cannot be compiled. */
+  private static final class Outcome<T> {
+    private final T result;
+    private final Exception failure;
+
+    private Outcome(final T result, final Exception failure) {
+      this.result = result;
+      this.failure = failure;
+    }
+
+    private T get() throws ExpressionVisitException, ODataApplicationException {
+      if (failure instanceof ExpressionVisitException) {
+        throw (ExpressionVisitException) failure;
+      } else if (failure != null) {
+        throw (ODataApplicationException) failure;
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Cache with weakly referenced keys. It is split into segments with locks of their own,
+   * so that concurrent requests rarely wait for each other.
+   */
+  private static final class WeakCache<K, V> {
+    private static final int SEGMENTS = 16;
+    private final List<Map<K, V>> segments = new ArrayList<Map<K, V>>(SEGMENTS);
+
+    private WeakCache() {
+      for (int i = 0; i < SEGMENTS; i++) {
+        segments.add(new WeakHashMap<K, V>());
+      }
+    }
+
+    private Map<K, V> getSegment(final K key) {
+      final int hash = System.identityHashCode(key);
+      return segments.get((hash ^ hash >>> 16) & SEGMENTS - 1);
+    }
+
+    private V get(final K key) {
+      final Map<K, V> segment = getSegment(key);
+      synchronized (segment) {
+        return segment.get(key);
+      }
+    }
+
+    private void put(final K key, final V value) {
+      final Map<K, V> segment = getSegment(key);
+      synchronized (segment) {
+        segment.put(key, value);
+      }
+    }
+  }
+
+  private static final class CompiledFilter implements Predicate<Entity> {
+    private final CompiledExpression expression;
+
+    private CompiledFilter(final CompiledExpression expression) {
+      this.expression = expression;
+    }
+
+    @Override
+    public boolean test(final Entity entity) {
+      return Boolean.TRUE.equals(expression.evaluate(entity));
+    }
+  }
+
+  /** Builds the compiled expression bottom-up. */
+  private static final class Compiler implements ExpressionVisitor<CompiledExpression> {
+
+    @Override
+    public CompiledExpression visitBinaryOperator(final BinaryOperatorKind operator, final CompiledExpression left,
+        final CompiledExpression right) throws ODataApplicationException {
+      switch (operator) {
+      case AND:
+      case OR:
+        requireKind(left, "Logical operators need Boolean operands", ValueKind.BOOLEAN);
+        requireKind(right, "Logical operators need Boolean operands", ValueKind.BOOLEAN);
+        return fold(new CompiledExpression.Logical(operator == BinaryOperatorKind.AND, left, right, BOOLEAN),
+            left, right);
+      case EQ:
+      case NE:
+      case GT:
+      case GE:
+      case LT:
+      case LE:
+        return fold(new CompiledExpression.Comparison(operator, left, right, comparator(left, right), BOOLEAN),
+            left, right);
+      case ADD:
+      case SUB:
+      case MUL:
+      case DIV:
+      case MOD:
+        return arithmetic(operator, left, right);
+      case HAS:
+        if (left.kind != ValueKind.ENUM || right.kind != ValueKind.ENUM) {
+          throw notImplemented();
+        }
+        return fold(new CompiledExpression.Has(left, right, (EdmEnumType) left.type, BOOLEAN), left, right);
+      default:
+        throw notImplemented();
+      }
+    }
+
+    @Override
+    public CompiledExpression visitBinaryOperator(final BinaryOperatorKind operator, final CompiledExpression left,
+        final List<CompiledExpression> right) throws ODataApplicationException {
+      if (operator != BinaryOperatorKind.IN || right.isEmpty()) {
+        throw notImplemented();
+      }
+      ValueComparator comparator = null;
+      boolean isConstant = left.kind == ValueKind.STRING;
+      for (final CompiledExpression value : right) {
+        comparator = comparator(left, value);
+        isConstant &= value.isConstant() && (value.kind == ValueKind.STRING || value.kind == ValueKind.NULL);
+      }
+      Set<Object> constantValues = null;
+      if (isConstant) {
+        constantValues = new HashSet<Object>();
+        for (final CompiledExpression value : right) {
+          constantValues.add(value.evaluate(null));
+        }
+      }
+      final List<CompiledExpression> operands = new ArrayList<CompiledExpression>(right);
+      operands.add(left);
+      return fold(new CompiledExpression.In(left, right, comparator, constantValues, BOOLEAN),
+          operands.toArray(new CompiledExpression[operands.size()]));
+    }
+
+    @Override
+    public CompiledExpression visitUnaryOperator(final UnaryOperatorKind operator, final CompiledExpression operand)
+        throws ODataApplicationException {
+      switch (operator) {
+      case NOT:
+        requireKind(operand, "The not operator needs a Boolean operand", ValueKind.BOOLEAN);
+        return fold(new CompiledExpression.Not(operand, BOOLEAN), operand);
+      case MINUS:
+        requireKind(operand, "The minus operator needs a numeric operand",
+            ValueKind.INTEGER, ValueKind.DECIMAL, ValueKind.DURATION);
+        return fold(new CompiledExpression.Minus(operand), operand);
+      default:
+        throw notImplemented();
+      }
+    }
+
+    @Override
+    public CompiledExpression visitMethodCall(final MethodKind methodCall, final List<CompiledExpression> parameters)
+        throws ODataApplicationException {
+      ValueKind kind;
+      EdmType type;
+      switch (methodCall) {
+      case CONTAINS:
+      case STARTSWITH:
+      case ENDSWITH:
+      case SUBSTRINGOF:
+        requireKinds(parameters, ValueKind.STRING);
+        kind = ValueKind.BOOLEAN;
+        type = BOOLEAN;
+        break;
+      case INDEXOF:
+      case LENGTH:
+        requireKinds(parameters, ValueKind.STRING);
+        kind = ValueKind.INTEGER;
+        type = INT32;
+        break;
+      case TOLOWER:
+      case TOUPPER:
+      case TRIM:
+      case CONCAT:
+        requireKinds(parameters, ValueKind.STRING);
+        kind = ValueKind.STRING;
+        type = STRING;
+        break;
+      case SUBSTRING:
+        requireKind(parameters.get(0), "Substring needs an Edm.String as first parameter", ValueKind.STRING);
+        for (int i = 1; i < parameters.size(); i++) {
+          requireKind(parameters.get(i), "Substring needs integer positions", ValueKind.INTEGER);
+        }
+        kind = ValueKind.STRING;
+        type = STRING;
+        break;
+      case YEAR:
+      case MONTH:
+      case DAY:
+        requireKinds(parameters, ValueKind.DATE, ValueKind.DATE_TIME_OFFSET);
+        kind = ValueKind.INTEGER;
+        type = INT32;
+        break;
+      case HOUR:
+      case MINUTE:
+      case SECOND:
+        requireKinds(parameters, ValueKind.DATE_TIME_OFFSET, ValueKind.TIME_OF_DAY);
+        kind = ValueKind.INTEGER;
+        type = INT32;
+        break;
+      case FRACTIONALSECONDS:
+        requireKinds(parameters, ValueKind.DATE_TIME_OFFSET, ValueKind.TIME_OF_DAY);
+        kind = ValueKind.DECIMAL;
+        type = DECIMAL;
+        break;
+      case ROUND:
+      case FLOOR:
+      case CEILING:
+        requireKinds(parameters, ValueKind.INTEGER, ValueKind.DECIMAL);
+        kind = parameters.get(0).kind == ValueKind.INTEGER ? ValueKind.INTEGER : ValueKind.DECIMAL;
+        type = parameters.get(0).kind == ValueKind.INTEGER ? parameters.get(0).type : DECIMAL;
+        break;
+      default:
+        throw notImplemented();
+      }
+      return fold(new CompiledExpression.MethodCall(methodCall, parameters, kind, type),
+          parameters.toArray(new CompiledExpression[parameters.size()]));
+    }
+
+    @Override
+    public CompiledExpression visitLiteral(final Literal literal) throws ODataApplicationException {
+      final EdmType type = literal.getType();
+      if (type == null) {
+        if ("null".equals(literal.getText())) {
+          return new CompiledExpression.Constant(null, ValueKind.NULL, null);
+        }
+        // JSON arrays and objects
+        throw notImplemented();
+      }
+      final ValueKind kind = ValueKind.of(type);
+      if (kind == ValueKind.OTHER || kind == ValueKind.ENUM) {
+        throw notImplemented();
+      }
+      try {
+        return new CompiledExpression.Constant(
+            CompiledExpression.parseLiteral(literal.getText(), (EdmPrimitiveType) type), kind, type);
+      } catch (final EdmPrimitiveTypeException e) {
+        throw new ODataApplicationException("Invalid literal " + literal.getText(),
+            HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT, e);
+      }
+    }
+
+    @Override
+    public CompiledExpression visitMember(final Member member) throws ODataApplicationException {
+      if (member.isCollection() || member.getStartTypeFilter() != null) {
+        throw notImplemented();
+      }
+      return compilePropertyPath(member.getResourcePath().getUriResourceParts());
+    }
+
+    @Override
+    public CompiledExpression visitEnum(final EdmEnumType type, final List<String> enumValues)
+        throws ODataApplicationException {
+      Long result = null;
+      try {
+        for (final String enumValue : enumValues) {
+          final Long value = type.valueOfString(enumValue, null, null, null, null, null, Long.class);
+          result = result == null ? value : result | value;
+        }
+      } catch (final EdmPrimitiveTypeException e) {
+        throw new ODataApplicationException("Illegal enum value.",
+            HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT, e);
+      }
+      return new CompiledExpression.Constant(result, ValueKind.ENUM, type);
+    }
+
+    @Override
+    public CompiledExpression visitLambdaExpression(final String lambdaFunction, final String lambdaVariable,
+        final Expression expression) throws ODataApplicationException {
+      throw notImplemented();
+    }
+
+    @Override
+    public CompiledExpression visitAlias(final String aliasName) throws ODataApplicationException {
+      throw notImplemented();
+    }
+
+    @Override
+    public CompiledExpression visitTypeLiteral(final EdmType type) throws ODataApplicationException {
+      throw notImplemented();
+    }
+
+    @Override
+    public CompiledExpression visitLambdaReference(final String variableName) throws ODataApplicationException {
+      throw notImplemented();
+    }
+
+    private CompiledExpression arithmetic(final BinaryOperatorKind operator, final CompiledExpression left,
+        final CompiledExpression right) throws ODataApplicationException {
+      final ValueKind leftKind = left.kind == ValueKind.NULL ? right.kind : left.kind;
+      final ValueKind rightKind = right.kind == ValueKind.NULL ? left.kind : right.kind;
+      if (leftKind == ValueKind.NULL) {
+        return new CompiledExpression.Constant(null, ValueKind.NULL, null);
+      }
+      if (!leftKind.isNumeric() || !rightKind.isNumeric()) {
+        if (isTemporal(leftKind) && isTemporal(rightKind)) {
+          // Date and duration arithmetic is left to the caller.
+          throw notImplemented();
+        }
+        throw new ODataApplicationException("Arithmetic operators need numeric operands",
+            HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT);
+      }
+      final boolean isInteger = leftKind == ValueKind.INTEGER && rightKind == ValueKind.INTEGER;
+      if (!isInteger && operator == BinaryOperatorKind.MOD) {
+        throw new ODataApplicationException("The mod operator needs integer operands",
+            HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT);
+      }
+      return fold(new CompiledExpression.Arithmetic(operator, left, right,
+          isInteger ? ValueKind.INTEGER : ValueKind.DECIMAL, isInteger ? INT64 : DECIMAL),
+          left, right);
+    }
+
+    private static boolean isTemporal(final ValueKind kind) {
+      return kind == ValueKind.DATE || kind == ValueKind.DATE_TIME_OFFSET || kind == ValueKind.DURATION;
+    }
+
+    /** Determines how the values of the operands of a comparison are compared. */
+    private static ValueComparator comparator(final CompiledExpression left, final CompiledExpression right)
+        throws ODataApplicationException {
+      final ValueKind leftKind = left.kind == ValueKind.NULL ? right.kind : left.kind;
+      final ValueKind rightKind = right.kind == ValueKind.NULL ? left.kind : right.kind;
+      if (leftKind.isNumeric() && rightKind.isNumeric()) {
+        return ValueComparator.NUMERIC;
+      }
+      if (leftKind != rightKind || leftKind == ValueKind.OTHER
+          || leftKind == ValueKind.ENUM && left.type != null && right.type != null && left.type != right.type) {
+        // Comparisons of different types need type promotion rules which are left to the caller.
+        throw notImplemented();
+      }
+      return ValueComparator.of(leftKind, left.type == null ? right.type : left.type);
+    }
+
+    private static void requireKinds(final List<CompiledExpression> parameters, final ValueKind... kinds)
+        throws ODataApplicationException {
+      for (final CompiledExpression parameter : parameters) {
+        requireKind(parameter, "Invalid parameter type", kinds);
+      }
+    }
+
+    private static void requireKind(final CompiledExpression operand, final String message,
+        final ValueKind... kinds) throws ODataApplicationException {
+      if (operand.kind == ValueKind.NULL) {
+        return;
+      }
+      for (final ValueKind kind : kinds) {
+        if (operand.kind == kind) {
+          return;
+        }
+      }
+      throw new ODataApplicationException(message, HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT);
+    }
+
+    /** Replaces an expression whose operands are all constant by its value. */
+    private static CompiledExpression fold(final CompiledExpression expression,
+        final CompiledExpression... operands) {
+      for (final CompiledExpression operand : operands) {
+        if (!operand.isConstant()) {
+          return expression;
+        }
+      }
+      try {
+        return new CompiledExpression.Constant(expression.evaluate(null), expression.kind, expression.type);
+      } catch (final ArithmeticException e) {
+        // For example, a division by zero; fails at evaluation time like without folding.
+        return expression;
+      }
+    }
+
+    private static ODataApplicationException notImplemented() {
+      return new ODataApplicationException("Not implemented", HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(),
+          Locale.ROOT);
+    }
+  }
+}
@@ -0,0 +1,456 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.olingo.commons.api.data.ComplexValue;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.queryoption.search.SearchBinary;
+import org.apache.olingo.server.api.uri.queryoption.search.SearchBinaryOperatorKind;
+import org.apache.olingo.server.api.uri.queryoption.search.SearchExpression;
+import org.apache.olingo.server.api.uri.queryoption.search.SearchUnaryOperatorKind;
+
+/**
+ * Inverted index over the primitive values of entities held in memory, used to evaluate the expressions of a
+ * <code>$search</code> system query option without looking at every entity.
+ * <p>
+ * An entity matches a search term if the string representation of one of its primitive values, including
+ * the values of primitive collections and of (collections of) complex properties, contains the term.
+ * <code>AND</code>, <code>OR</code>, and <code>NOT</code> combine the matches of whole entities.
+ * To find substrings without scanning, the index maps every sequence of three consecutive characters
+ * of a value to the sorted list of the entities containing it; the lists of the sequences of a term are
+ * intersected, starting with the shortest one, and only the remaining candidates are compared with the term.
+ * Terms shorter than three characters are compared with the values of all entities.
+ * <p>
+ * Entities are identified by reference. The index has to be told about every entity which is added,
+ * changed, or removed; {@link #filter(SearchExpression, List)} evaluates entities it does not know directly.
+ * Instances are thread-safe; searches may run concurrently with each other but not with modifications.
+ */
+public class SearchIndex {
+
+  private static final int GRAM_LENGTH = 3;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Map<Entity, Integer> ids = new IdentityHashMap<Entity, Integer>();
+  private final List<String[]> values = new ArrayList<String[]>();
+  private final BitSet live = new BitSet();
+  private final Map<Long, Postings> postings = new HashMap<Long, Postings>();
+
+  /**
+   * Adds the given entities to the index.
+   * @param entities the entities; entities already in the index are updated
+   */
+  public void addAll(final Collection<Entity> entities) {
+    lock.writeLock().lock();
+    try {
+      for (final Entity entity : entities) {
+        put(entity);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Adds an entity to the index, or updates it if it is already in the index.
+   * @param entity the entity
+   */
+  public void add(final Entity entity) {
+    lock.writeLock().lock();
+    try {
+      put(entity);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Updates the index after the values of an entity have been changed.
+   * The entity is added if it is not in the index yet.
+   * @param entity the changed entity
+   */
+  public void update(final Entity entity) {
+    add(entity);
+  }
+
+  /**
+   * Removes an entity from the index.
+   * @param entity the entity
+   * @return whether the entity has been in the index
+   */
+  public boolean remove(final Entity entity) {
+    lock.writeLock().lock();
+    try {
+      final Integer id = ids.remove(entity);
+      if (id == null) {
+        return false;
+      }
+      unindex(id);
+      values.set(id, null);
+      live.clear(id);
+      return true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** Removes all entities from the index. */
+  public void clear() {
+    lock.writeLock().lock();
+    try {
+      ids.clear();
+      values.clear();
+      live.clear();
+      postings.clear();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns whether the entity is in the index.
+   * @param entity the entity
+   */
+  public boolean contains(final Entity entity) {
+    lock.readLock().lock();
+    try {
+      return ids.containsKey(entity);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Returns the number of entities in the index. */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return ids.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the entities of the index matching the search expression, in no particular order.
+   * @param searchExpression the search expression
+   * @return the matching entities
+   * @throws ODataApplicationException if the expression contains an unknown operator
+   */
+  public List<Entity> search(final SearchExpression searchExpression) throws ODataApplicationException {
+    lock.readLock().lock();
+    try {
+      final BitSet matches = evaluate(searchExpression);
+      List<Entity> result = new ArrayList<Entity>(matches.cardinality());
+      for (final Map.Entry<Entity, Integer> entry : ids.entrySet()) {
+        if (matches.get(entry.getValue())) {
+          result.add(entry.getKey());
+        }
+      }
+      return result;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Removes all entities from the list which do not match the search expression;
+   * the order of the remaining entities is kept. Entities which are not in the index are evaluated directly.
+   * @param searchExpression the search expression
+   * @param entities the entities to filter
+   * @throws ODataApplicationException if the expression contains an unknown operator
+   */
+  public void filter(final SearchExpression searchExpression, final List<Entity> entities)
+      throws ODataApplicationException {
+    lock.readLock().lock();
+    try {
+      final BitSet matches = evaluate(searchExpression);
+      for (Iterator<Entity> iterator = entities.iterator(); iterator.hasNext();) {
+        final Entity entity = iterator.next();
+        final Integer id = ids.get(entity);
+        if (id == null ? !matches(searchExpression, collectValues(entity)) : !matches.get(id)) {
+          iterator.remove();
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the string representation of a primitive value used to match search terms.
+   * The default is the Base64 encoding for binary values and {@link Object#toString()} otherwise.
+   * @param value the value, never <code>null</code>
+   * @return the string representation or <code>null</code> if the value should not be searched
+   */
+  protected String asString(final Object value) {
+    return value instanceof byte[] ? Base64.getEncoder().encodeToString((byte[]) value) : value.toString();
+  }
+
+  private void put(final Entity entity) {
+    Integer id = ids.get(entity);
+    if (id == null) {
+      id = live.nextClearBit(0);
+      ids.put(entity, id);
+      live.set(id);
+      if (id == values.size()) {
+        values.add(null);
+      }
+    } else {
+      unindex(id);
+    }
+    final String[] entityValues = collectValues(entity);
+    values.set(id, entityValues);
+    for (final Long gram : grams(entityValues)) {
+      Postings list = postings.get(gram);
+      if (list == null) {
+        list = new Postings();
+        postings.put(gram, list);
+      }
+      list.add(id);
+    }
+  }
+
+  private void unindex(final int id) {
+    for (final Long gram : grams(values.get(id))) {
+      final Postings list = postings.get(gram);
+      if (list != null && list.remove(id) && list.size == 0) {
+        postings.remove(gram);
+      }
+    }
+  }
+
+  private String[] collectValues(final Entity entity) {
+    List<String> result = new ArrayList<String>();
+    for (final Property property : entity.getProperties()) {
+      collectValues(property, result);
+    }
+    return result.toArray(new String[result.size()]);
+  }
+
+  private void collectValues(final Property property, final List<String> result) {
+    if (property.isNull()) {
+      return;
+    }
+    if (property.isCollection()) {
+      for (final Object member : property.asIterable()) {
+        collectValue(member, result);
+      }
+    } else {
+      collectValue(property.getValue(), result);
+    }
+  }
+
+  private void collectValue(final Object value, final List<String> result) {
+    if (value instanceof ComplexValue) {
+      for (final Property property : ((ComplexValue) value).getValue()) {
+        collectValues(property, result);
+      }
+    } else if (value instanceof Property) {
+      collectValues((Property) value, result);
+    } else if (value != null) {
+      final String string = asString(value);
+      if (string != null) {
+        result.add(string);
+      }
+    }
+  }
+
+  private static Set<Long> grams(final String[] strings) {
+    Set<Long> result = new HashSet<Long>();
+    for (final String string : strings) {
+      for (int i = 0; i + GRAM_LENGTH <= string.length(); i++) {
+        result.add(gram(string, i));
+      }
+    }
+    return result;
+  }
+
+  private static long gram(final String string, final int index) {
+    return ((long) string.charAt(index) << 32) | ((long) string.charAt(index + 1) << 16) | string.charAt(index + 2);
+  }
+
+  private BitSet evaluate(final SearchExpression expression) throws ODataApplicationException {
+    if (expression.isSearchTerm()) {
+      return find(expression.asSearchTerm().getSearchTerm());
+    } else if (expression.isSearchUnary()
+        && expression.asSearchUnary().getOperator() == SearchUnaryOperatorKind.NOT) {
+      BitSet result = (BitSet) live.clone();
+      result.andNot(evaluate(expression.asSearchUnary().getOperand()));
+      return result;
+    } else if (expression.isSearchBinary()) {
+      final SearchBinary binary = expression.asSearchBinary();
+      BitSet result = evaluate(binary.getLeftOperand());
+      if (binary.getOperator() == SearchBinaryOperatorKind.AND) {
+        if (!result.isEmpty()) {
+          result.and(evaluate(binary.getRightOperand()));
+        }
+        return result;
+      } else if (binary.getOperator() == SearchBinaryOperatorKind.OR) {
+        result.or(evaluate(binary.getRightOperand()));
+        return result;
+      }
+    }
+    throw unknown(expression);
+  }
+
+  private BitSet find(final String term) {
+    BitSet result = new BitSet();
+    if (term.length() < GRAM_LENGTH) {
+      for (int id = live.nextSetBit(0); id >= 0; id = live.nextSetBit(id + 1)) {
+        if (contains(values.get(id), term)) {
+          result.set(id);
+        }
+      }
+      return result;
+    }
+
+    Postings[] lists = new Postings[term.length() - GRAM_LENGTH + 1];
+    for (int i = 0; i < lists.length; i++) {
+      lists[i] = postings.get(gram(term, i));
+      if (lists[i] == null) {
+        return result;
+      }
+    }
+    Arrays.sort(lists, new Comparator<Postings>() {
+      @Override
+      public int compare(final Postings list1, final Postings list2) {
+        return Integer.compare(list1.size, list2.size);
+      }
+    });
+    final Postings shortest = lists[0];
+    int[] positions = new int[lists.length];
+    candidates:
+    for (int i = 0; i < shortest.size; i++) {
+      final int id = shortest.ids[i];
+      for (int l = 1; l < lists.length; l++) {
+        if (lists[l] != shortest) {
+          positions[l] = lists[l].seek(id, positions[l]);
+          if (positions[l] == lists[l].size) {
+            break candidates;
+          } else if (lists[l].ids[positions[l]] != id) {
+            continue candidates;
+          }
+        }
+      }
+      if (contains(values.get(id), term)) {
+        result.set(id);
+      }
+    }
+    return result;
+  }
+
+  private boolean matches(final SearchExpression expression, final String[] entityValues)
+      throws ODataApplicationException {
+    if (expression.isSearchTerm()) {
+      return contains(entityValues, expression.asSearchTerm().getSearchTerm());
+    } else if (expression.isSearchUnary()
+        && expression.asSearchUnary().getOperator() == SearchUnaryOperatorKind.NOT) {
+      return !matches(expression.asSearchUnary().getOperand(), entityValues);
+    } else if (expression.isSearchBinary()) {
+      final SearchBinary binary = expression.asSearchBinary();
+      if (binary.getOperator() == SearchBinaryOperatorKind.AND) {
+        return matches(binary.getLeftOperand(), entityValues) && matches(binary.getRightOperand(), entityValues);
+      } else if (binary.getOperator() == SearchBinaryOperatorKind.OR) {
+        return matches(binary.getLeftOperand(), entityValues) || matches(binary.getRightOperand(), entityValues);
+      }
+    }
+    throw unknown(expression);
+  }
+
+  private static boolean contains(final String[] strings, final String term) {
+    for (final String string : strings) {
+      if (string.contains(term)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static ODataApplicationException unknown(final SearchExpression expression) {
+    return new ODataApplicationException("Found unknown SearchExpression: " + expression,
+        HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(), Locale.ROOT);
+  }
+
+  /** Sorted list of entity numbers. */
+  private static final class Postings {
+    private int[] ids = new int[4];
+    private int size;
+
+    private void add(final int id) {
+      final int position = Arrays.binarySearch(ids, 0, size, id);
+      if (position < 0) {
+        final int insertion = -position - 1;
+        if (size == ids.length) {
+          ids = Arrays.copyOf(ids, 2 * size);
+        }
+        System.arraycopy(ids, insertion, ids, insertion + 1, size - insertion);
+        ids[insertion] = id;
+        size++;
+      }
+    }
+
+    private boolean remove(final int id) {
+      final int position = Arrays.binarySearch(ids, 0, size, id);
+      if (position < 0) {
+        return false;
+      }
+      System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+      size--;
+      return true;
+    }
+
+    /**
+     * Returns the position of the first number not less than the given one, starting at the given position
+     * and doubling the step width, so that seeking through the whole list in ascending order takes
+     * time proportional to the length of the shorter list being intersected.
+     */
+    private int seek(final int id, final int from) {
+      int low = from;
+      int step = 1;
+      while (low + step < size && ids[low + step] < id) {
+        low += step;
+        step <<= 1;
+      }
+      if (low < size && ids[low] >= id) {
+        return low;
+      }
+      final int position = Arrays.binarySearch(ids, low, Math.min(low + step + 1, size), id);
+      return position < 0 ? -position - 1 : position;
+    }
+  }
+}
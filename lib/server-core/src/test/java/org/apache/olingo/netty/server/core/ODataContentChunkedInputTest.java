@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.netty.server.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.olingo.server.api.ODataContent;
+import org.junit.After;
+import org.junit.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+public class ODataContentChunkedInputTest {
+
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+  @After
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void allContentInChunks() throws Exception {
+    final ODataContentChunkedInput input =
+        new ODataContentChunkedInput(new BytesContent(20000, null, null), executor, null, 8192, 2);
+    int chunks = 0;
+    while (nextChunk(input) != null) {
+      chunks++;
+    }
+    assertEquals(3, chunks);
+    assertEquals(20000, input.progress());
+    assertEquals(-1, input.length());
+  }
+
+  @Test
+  public void emptyContent() throws Exception {
+    final ODataContentChunkedInput input =
+        new ODataContentChunkedInput(new BytesContent(0, null, null), executor, null);
+    assertNull(nextChunk(input));
+    assertTrue(input.isEndOfInput());
+    assertEquals(0, input.progress());
+  }
+
+  @Test
+  public void producerWaitsForConsumer() throws Exception {
+    final AtomicLong written = new AtomicLong();
+    final ODataContentChunkedInput input =
+        new ODataContentChunkedInput(new BytesContent(1000000, written, null), executor, null, 1000, 2);
+    nextChunk(input);
+    Thread.sleep(200);
+    // The chunk read, the queued chunks, and the chunk being filled.
+    assertTrue(written.get() <= 4 * 1000);
+    input.close();
+  }
+
+  @Test
+  public void closeStopsProducer() throws Exception {
+    final CountDownLatch finished = new CountDownLatch(1);
+    final ODataContentChunkedInput input =
+        new ODataContentChunkedInput(new BytesContent(Long.MAX_VALUE, null, finished), executor, null, 1000, 2);
+    nextChunk(input);
+    input.close();
+    assertTrue(finished.await(5, TimeUnit.SECONDS));
+    assertTrue(input.isEndOfInput());
+  }
+
+  @Test
+  public void readDoesNotWait() throws Exception {
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final ODataContentChunkedInput input = new ODataContentChunkedInput(new BytesContent(100, null, null) {
+      @Override
+      public void write(final OutputStream stream) {
+        started.countDown();
+        try {
+          release.await();
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        super.write(stream);
+      }
+    }, executor, null);
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    assertFalse(input.isEndOfInput());
+    assertNull(input.readChunk((ByteBufAllocator) null));
+    release.countDown();
+    assertEquals(100, nextChunk(input).readableBytes());
+    assertNull(nextChunk(input));
+  }
+
+  @Test
+  public void failureDoesNotEndInput() throws Exception {
+    final ODataContentChunkedInput input = new ODataContentChunkedInput(new BytesContent(1500, null, null) {
+      @Override
+      public void write(final OutputStream stream) {
+        super.write(stream);
+        throw new IllegalStateException("serialization failed");
+      }
+    }, executor, null, 1000, 4);
+    assertEquals(1000, nextChunk(input).readableBytes());
+    try {
+      nextChunk(input);
+      fail("Expected exception not thrown.");
+    } catch (final IOException e) {
+      assertEquals("serialization failed", e.getCause().getMessage());
+    }
+    assertFalse(input.isEndOfInput());
+  }
+
+  @Test
+  public void rejectedExecution() throws Exception {
+    final ODataContentChunkedInput input = new ODataContentChunkedInput(new BytesContent(100, null, null),
+        new Executor() {
+          @Override
+          public void execute(final Runnable command) {
+            throw new RejectedExecutionException();
+          }
+        }, null);
+    assertFalse(input.isEndOfInput());
+    try {
+      input.readChunk((ByteBufAllocator) null);
+      fail("Expected exception not thrown.");
+    } catch (final IOException e) {
+      assertTrue(e.getCause() instanceof RejectedExecutionException);
+    }
+  }
+
+  /** Polls the input like a resumed ChunkedWriteHandler; returns <code>null</code> at the end of the input. */
+  private static ByteBuf nextChunk(final ODataContentChunkedInput input) throws Exception {
+    final long deadline = System.currentTimeMillis() + 5000;
+    while (!input.isEndOfInput()) {
+      final ByteBuf chunk = input.readChunk((ByteBufAllocator) null);
+      if (chunk != null) {
+        return chunk;
+      }
+      assertTrue("no chunk produced in time", System.currentTimeMillis() < deadline);
+      Thread.sleep(1);
+    }
+    return null;
+  }
+
+  private static class BytesContent implements ODataContent {
+    private final long size;
+    private final AtomicLong written;
+    private final CountDownLatch finished;
+
+    BytesContent(final long size, final AtomicLong written, final CountDownLatch finished) {
+      this.size = size;
+      this.written = written;
+      this.finished = finished;
+    }
+
+    @Override
+    public void write(final WritableByteChannel channel) {
+      write(Channels.newOutputStream(channel));
+    }
+
+    @Override
+    public void write(final OutputStream stream) {
+      final byte[] bytes = new byte[100];
+      try {
+        for (long count = 0; count < size; count += bytes.length) {
+          stream.write(bytes, 0, (int) Math.min(bytes.length, size - count));
+          if (written != null) {
+            written.addAndGet(Math.min(bytes.length, size - count));
+          }
+        }
+      } catch (final IOException e) {
+        // aborted by the consumer
+      } finally {
+        if (finished != null) {
+          finished.countDown();
+        }
+      }
+    }
+  }
+}
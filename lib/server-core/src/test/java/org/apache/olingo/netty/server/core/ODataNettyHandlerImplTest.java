@@ -23,13 +23,28 @@ import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
 import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.netty.server.api.ODataNettyHandler;
 import org.apache.olingo.server.api.ODataLibraryException;
 import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ResponseCompression;
+import org.apache.olingo.server.api.processor.Processor;
 import org.junit.Test;
 
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpChunkedInput;
+import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
 
 public class ODataNettyHandlerImplTest {
 
@@ -68,6 +83,44 @@ public class ODataNettyHandlerImplTest {
     }
   }
   
+  @Test
+  public void defaultChunkedProcessing() throws Exception {
+    final ODataNettyHandler handler = new ODataNettyHandler() {
+      @Override
+      public void processNettyRequest(final HttpRequest request, final HttpResponse response,
+          final Map<String, String> requestParameters) {
+        response.setStatus(HttpResponseStatus.CREATED);
+        response.headers().set("Location", "ESAllPrim(1)");
+        ((FullHttpResponse) response).content().writeBytes("content".getBytes(StandardCharsets.UTF_8));
+      }
+
+      @Override
+      public void register(final Processor processor) {
+        // Not needed.
+      }
+    };
+    final HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+    final HttpChunkedInput input = handler.processNettyRequestChunked(mock(HttpRequest.class), response,
+        Collections.<String, String> emptyMap(), null, null);
+    assertEquals(HttpResponseStatus.CREATED, response.status());
+    assertEquals("ESAllPrim(1)", response.headers().get("Location"));
+
+    final StringBuilder content = new StringBuilder();
+    while (!input.isEndOfInput()) {
+      final HttpContent chunk = input.readChunk(ByteBufAllocator.DEFAULT);
+      content.append(chunk.content().toString(StandardCharsets.UTF_8));
+      chunk.release();
+    }
+    assertEquals("content", content.toString());
+
+    try {
+      handler.register(ResponseCompression.with().build());
+      fail("Expected UnsupportedOperationException");
+    } catch (final UnsupportedOperationException e) {
+      // expected
+    }
+  }
+
   @Test
   public void extractMethodFailForNettyRequest() throws Exception {
     String[][] mm = {
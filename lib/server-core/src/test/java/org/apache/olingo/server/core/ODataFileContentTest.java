@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataContent;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ODataFileContentTest {
+
+  private Path file;
+  private byte[] bytes;
+
+  @Before
+  public void createFile() throws Exception {
+    bytes = new byte[100000];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) i;
+    }
+    file = Files.createTempFile("olingo", ".bin");
+    Files.write(file, bytes);
+  }
+
+  @After
+  public void deleteFile() throws Exception {
+    Files.deleteIfExists(file);
+  }
+
+  @Test
+  public void completeFile() throws Exception {
+    final ODataFileContent content = new ODataFileContent(file);
+    assertEquals(bytes.length, content.getLength());
+    assertArrayEquals(bytes, write(content));
+  }
+
+  @Test
+  public void fileChannel() throws Exception {
+    final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+    assertArrayEquals(bytes, write(new ODataFileContent(channel)));
+    assertTrue(!channel.isOpen());
+  }
+
+  @Test
+  public void range() throws Exception {
+    final ODataFileContent content = new ODataFileContent(file).range(10, 1000);
+    assertEquals(1000, content.getLength());
+    assertArrayEquals(Arrays.copyOfRange(bytes, 10, 1010), write(content));
+  }
+
+  @Test
+  public void rangeRequest() throws Exception {
+    ODataResponse response = applyRange("bytes=100-199");
+    assertEquals(HttpStatusCode.PARTIAL_CONTENT.getStatusCode(), response.getStatusCode());
+    assertEquals("bytes 100-199/100000", response.getHeader(HttpHeader.CONTENT_RANGE));
+    assertEquals("100", response.getHeader(HttpHeader.CONTENT_LENGTH));
+    assertArrayEquals(Arrays.copyOfRange(bytes, 100, 200), write(response.getODataContent()));
+
+    response = applyRange("bytes=99990-");
+    assertEquals("bytes 99990-99999/100000", response.getHeader(HttpHeader.CONTENT_RANGE));
+
+    response = applyRange("bytes=-10");
+    assertEquals("bytes 99990-99999/100000", response.getHeader(HttpHeader.CONTENT_RANGE));
+    assertArrayEquals(Arrays.copyOfRange(bytes, 99990, 100000), write(response.getODataContent()));
+
+    response = applyRange("bytes=99000-200000");
+    assertEquals("bytes 99000-99999/100000", response.getHeader(HttpHeader.CONTENT_RANGE));
+  }
+
+  @Test
+  public void unsatisfiableRange() throws Exception {
+    final ODataResponse response = applyRange("bytes=100000-");
+    assertEquals(HttpStatusCode.RANGE_NOT_SATISFIABLE.getStatusCode(), response.getStatusCode());
+    assertEquals("bytes */100000", response.getHeader(HttpHeader.CONTENT_RANGE));
+    assertNull(response.getODataContent());
+  }
+
+  @Test
+  public void ignoredRange() throws Exception {
+    for (final String range : new String[] { null, "bytes=0-1,5-6", "bytes=5-1", "lines=1-2", "bytes=-" }) {
+      final ODataResponse response = applyRange(range);
+      assertEquals(range, HttpStatusCode.OK.getStatusCode(), response.getStatusCode());
+      assertEquals("bytes", response.getHeader(HttpHeader.ACCEPT_RANGES));
+      assertNull(response.getHeader(HttpHeader.CONTENT_RANGE));
+    }
+  }
+
+  @Test
+  public void ifRange() throws Exception {
+    final ODataRequest request = new ODataRequest();
+    request.setMethod(HttpMethod.GET);
+    request.setHeader(HttpHeader.RANGE, "bytes=0-9");
+    request.setHeader(HttpHeader.IF_RANGE, "\"1\"");
+    assertEquals(HttpStatusCode.OK.getStatusCode(), applyRange(request, "\"2\"").getStatusCode());
+    assertEquals(HttpStatusCode.OK.getStatusCode(), applyRange(request, null).getStatusCode());
+    assertEquals(HttpStatusCode.PARTIAL_CONTENT.getStatusCode(), applyRange(request, "\"1\"").getStatusCode());
+  }
+
+  @Test
+  public void ifRangeWithWeakETag() throws Exception {
+    final ODataRequest request = new ODataRequest();
+    request.setMethod(HttpMethod.GET);
+    request.setHeader(HttpHeader.RANGE, "bytes=0-9");
+    request.setHeader(HttpHeader.IF_RANGE, "W/\"1\"");
+    assertEquals(HttpStatusCode.OK.getStatusCode(), applyRange(request, "W/\"1\"").getStatusCode());
+    assertEquals(HttpStatusCode.OK.getStatusCode(), applyRange(request, "\"1\"").getStatusCode());
+
+    request.setHeader(HttpHeader.IF_RANGE, "\"1\"");
+    assertEquals(HttpStatusCode.OK.getStatusCode(), applyRange(request, "W/\"1\"").getStatusCode());
+  }
+
+  private ODataResponse applyRange(final ODataRequest request, final String eTag) {
+    final ODataResponse response = createResponse();
+    if (eTag != null) {
+      response.setHeader(HttpHeader.ETAG, eTag);
+    }
+    ODataHttpHandlerImpl.applyRange(request, response);
+    return response;
+  }
+
+  private ODataResponse applyRange(final String range) {
+    final ODataRequest request = new ODataRequest();
+    request.setMethod(HttpMethod.GET);
+    if (range != null) {
+      request.setHeader(HttpHeader.RANGE, range);
+    }
+    final ODataResponse response = createResponse();
+    ODataHttpHandlerImpl.applyRange(request, response);
+    return response;
+  }
+
+  private ODataResponse createResponse() {
+    final ODataResponse response = new ODataResponse();
+    response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+    response.setODataContent(new ODataFileContent(file));
+    return response;
+  }
+
+  private byte[] write(final ODataContent content) {
+    final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    content.write(stream);
+    return stream.toByteArray();
+  }
+}
@@ -0,0 +1,242 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataContent;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.ResponseCompression;
+import org.junit.Test;
+
+public class ResponseCompressorTest {
+
+  private final ResponseCompressor compressor = new ResponseCompressor(ResponseCompression.with().build());
+
+  @Test
+  public void negotiation() {
+    final List<String> supported = Arrays.asList(ResponseCompression.GZIP, ResponseCompression.DEFLATE);
+    assertNull(ResponseCompression.selectEncoding(null, supported));
+    assertNull(ResponseCompression.selectEncoding(Collections.singletonList("identity"), supported));
+    assertEquals("gzip", ResponseCompression.selectEncoding(Collections.singletonList("gzip, deflate"), supported));
+    assertEquals("gzip", ResponseCompression.selectEncoding(Collections.singletonList("deflate, GZIP;q=0.5"),
+        supported));
+    assertEquals("deflate", ResponseCompression.selectEncoding(Collections.singletonList("gzip;q=0, deflate"),
+        supported));
+    assertEquals("deflate", ResponseCompression.selectEncoding(Arrays.asList("gzip; q=0.0", "*"), supported));
+    assertEquals("gzip", ResponseCompression.selectEncoding(Collections.singletonList("*;q=0.1"), supported));
+    assertNull(ResponseCompression.selectEncoding(Collections.singletonList("*;q=0"), supported));
+    assertEquals("deflate", ResponseCompression.with().encodings(ResponseCompression.DEFLATE).build()
+        .selectEncoding(Collections.singletonList("gzip, deflate")));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void unsupportedEncoding() {
+    ResponseCompression.with().encodings("br");
+  }
+
+  @Test
+  public void knownLength() throws Exception {
+    final byte[] content = createContent(5000);
+    final ODataResponse response = createResponse(content);
+    response.setHeader(HttpHeader.CONTENT_LENGTH, Integer.toString(content.length));
+    final String encoding = compressor.selectEncoding(Collections.singletonList("gzip"), false, response);
+    assertEquals("gzip", encoding);
+    assertEquals(HttpHeader.ACCEPT_ENCODING, response.getHeader(HttpHeader.VARY));
+
+    final ByteArrayOutputStream target = new ByteArrayOutputStream();
+    try (OutputStream output = compressor.wrap(target, encoding, true, null)) {
+      ResponseCompressor.writeContent(response, output);
+    }
+    assertTrue(target.size() < content.length);
+    assertArrayEquals(content, read(new GZIPInputStream(new ByteArrayInputStream(target.toByteArray()))));
+  }
+
+  @Test
+  public void smallKnownLength() {
+    final ODataResponse response = createResponse(createContent(100));
+    response.setHeader(HttpHeader.CONTENT_LENGTH, "100");
+    assertNull(compressor.selectEncoding(Collections.singletonList("gzip"), false, response));
+    assertEquals(HttpHeader.ACCEPT_ENCODING, response.getHeader(HttpHeader.VARY));
+  }
+
+  @Test
+  public void notEligible() {
+    ODataResponse response = createResponse(createContent(5000));
+    response.setHeader(HttpHeader.CONTENT_ENCODING, "gzip");
+    assertNull(compressor.selectEncoding(Collections.singletonList("gzip"), false, response));
+    assertNull(response.getHeader(HttpHeader.VARY));
+
+    response = createResponse(createContent(5000));
+    assertNull(compressor.selectEncoding(Collections.singletonList("gzip"), true, response));
+
+    response = createResponse(createContent(5000));
+    response.setStatusCode(HttpStatusCode.PARTIAL_CONTENT.getStatusCode());
+    assertNull(compressor.selectEncoding(Collections.singletonList("gzip"), false, response));
+
+    response = new ODataResponse();
+    response.setStatusCode(HttpStatusCode.NO_CONTENT.getStatusCode());
+    assertNull(compressor.selectEncoding(Collections.singletonList("gzip"), false, response));
+
+    response = createResponse(createContent(5000));
+    response.setHeader(HttpHeader.VARY, "Origin, accept-encoding");
+    assertEquals("gzip", compressor.selectEncoding(Collections.singletonList("gzip"), false, response));
+    assertEquals(1, response.getHeaders(HttpHeader.VARY).size());
+  }
+
+  @Test
+  public void unknownLengthIsCompressedAboveMinimumSize() throws Exception {
+    final byte[] content = createContent(50000);
+    final ODataResponse response = new ODataResponse();
+    response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+    response.setODataContent(new ODataContent() {
+      @Override
+      public void write(final WritableByteChannel channel) {
+        write(Channels.newOutputStream(channel));
+      }
+
+      @Override
+      public void write(final OutputStream stream) {
+        try {
+          for (int i = 0; i < content.length; i += 100) {
+            stream.write(content, i, 100);
+            stream.flush();
+          }
+        } catch (final IOException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+    });
+    final String encoding = compressor.selectEncoding(Collections.singletonList("deflate"), false, response);
+    assertEquals("deflate", encoding);
+
+    final String[] decided = new String[1];
+    final ByteArrayOutputStream target = new ByteArrayOutputStream();
+    try (OutputStream output = compressor.wrap(target, encoding, false, createListener(target, decided))) {
+      ResponseCompressor.writeContent(response, output);
+    }
+    assertEquals("deflate", decided[0]);
+    assertTrue(target.size() < content.length);
+    assertArrayEquals(content, read(new InflaterInputStream(new ByteArrayInputStream(target.toByteArray()))));
+  }
+
+  @Test
+  public void unknownLengthBelowMinimumSizeIsUnchanged() throws Exception {
+    final byte[] content = createContent(1023);
+    final String[] decided = { "not decided" };
+    final ByteArrayOutputStream target = new ByteArrayOutputStream();
+    try (OutputStream output = compressor.wrap(target, "gzip", false, createListener(target, decided))) {
+      ResponseCompressor.writeContent(createResponse(content), output);
+    }
+    assertNull(decided[0]);
+    assertArrayEquals(content, target.toByteArray());
+  }
+
+  @Test
+  public void flushPushesCompressedData() throws Exception {
+    final byte[] content = createContent(5000);
+    for (final String encoding : Arrays.asList("gzip", "deflate")) {
+      final ByteArrayOutputStream target = new ByteArrayOutputStream();
+      final OutputStream output = compressor.wrap(target, encoding, true, null);
+      output.write(content);
+      output.flush();
+      final InputStream input = new ByteArrayInputStream(target.toByteArray());
+      final byte[] flushed = new byte[content.length];
+      new DataInputStream("gzip".equals(encoding) ? new GZIPInputStream(input) : new InflaterInputStream(input))
+          .readFully(flushed);
+      assertArrayEquals(content, flushed);
+      output.close();
+    }
+  }
+
+  @Test
+  public void level() throws Exception {
+    final byte[] content = createContent(100000);
+    final ResponseCompressor fast = new ResponseCompressor(ResponseCompression.with().level(1).build());
+    final ResponseCompressor stored = new ResponseCompressor(ResponseCompression.with().level(0).build());
+    final ByteArrayOutputStream fastTarget = new ByteArrayOutputStream();
+    try (OutputStream output = fast.wrap(fastTarget, "gzip", true, null)) {
+      output.write(content);
+    }
+    final ByteArrayOutputStream storedTarget = new ByteArrayOutputStream();
+    try (OutputStream output = stored.wrap(storedTarget, "gzip", true, null)) {
+      output.write(content);
+    }
+    assertTrue(storedTarget.size() > content.length);
+    assertTrue(fastTarget.size() < content.length);
+    assertArrayEquals(content, read(new GZIPInputStream(new ByteArrayInputStream(storedTarget.toByteArray()))));
+  }
+
+  private ResponseCompressor.EncodingListener createListener(final ByteArrayOutputStream target,
+      final String[] decided) {
+    return new ResponseCompressor.EncodingListener() {
+      @Override
+      public void encodingDecided(final String encoding) {
+        // The decision must come before the content.
+        assertEquals(0, target.size());
+        decided[0] = encoding;
+      }
+    };
+  }
+
+  private ODataResponse createResponse(final byte[] content) {
+    final ODataResponse response = new ODataResponse();
+    response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+    response.setContent(new ByteArrayInputStream(content));
+    return response;
+  }
+
+  private byte[] createContent(final int length) {
+    final byte[] pattern = "{\"PropertyInt16\":32767,\"PropertyString\":\"First Resource\"},".getBytes();
+    final byte[] content = new byte[length];
+    for (int i = 0; i < length; i++) {
+      content[i] = pattern[i % pattern.length];
+    }
+    return content;
+  }
+
+  private byte[] read(final InputStream stream) throws IOException {
+    final ByteArrayOutputStream result = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[8192];
+    int count;
+    while ((count = stream.read(buffer)) >= 0) {
+      result.write(buffer, 0, count);
+    }
+    return result.toByteArray();
+  }
+}
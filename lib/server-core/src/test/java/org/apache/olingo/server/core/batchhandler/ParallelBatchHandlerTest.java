@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.batchhandler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.batch.ParallelBatchSupport;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.api.deserializer.batch.ODataResponsePart;
+import org.apache.olingo.server.core.ODataHandlerImpl;
+import org.apache.olingo.server.core.ODataRequestContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelBatchHandlerTest {
+
+  private static final int MAX_PARALLELISM = 3;
+
+  private ExecutorService executor;
+  private RecordingHandler handler;
+
+  @Before
+  public void setup() {
+    executor = Executors.newFixedThreadPool(8);
+    handler = new RecordingHandler();
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void responsesInRequestOrder() throws Exception {
+    final List<BatchRequestPart> parts = new ArrayList<BatchRequestPart>();
+    for (int i = 0; i < 20; i++) {
+      parts.add(part(HttpMethod.GET, "ESAllPrim(" + i + ")", HttpStatusCode.OK));
+    }
+
+    final List<ODataResponsePart> responseParts = createPartHandler(MAX_PARALLELISM).handleBatchRequests(parts, false);
+
+    assertEquals(20, responseParts.size());
+    for (int i = 0; i < 20; i++) {
+      assertEquals(Integer.toString(i), responseParts.get(i).getResponses().get(0).getHeader(HttpHeader.CONTENT_ID));
+    }
+    assertEquals(20, handler.processed.get());
+    assertTrue(handler.maxConcurrent.get() <= MAX_PARALLELISM);
+  }
+
+  @Test
+  public void otherRequestsAreBarriers() throws Exception {
+    final List<BatchRequestPart> parts = Arrays.asList(
+        part(HttpMethod.GET, "ESAllPrim(0)", HttpStatusCode.OK),
+        part(HttpMethod.GET, "ESAllPrim(1)", HttpStatusCode.OK),
+        part(HttpMethod.POST, "ESAllPrim", HttpStatusCode.CREATED),
+        part(HttpMethod.GET, "ESAllPrim(3)", HttpStatusCode.OK),
+        part(HttpMethod.GET, "ESAllPrim(4)", HttpStatusCode.OK));
+
+    final List<ODataResponsePart> responseParts = createPartHandler(MAX_PARALLELISM).handleBatchRequests(parts, false);
+
+    assertEquals(5, responseParts.size());
+    assertEquals(HttpStatusCode.CREATED.getStatusCode(), responseParts.get(2).getResponses().get(0).getStatusCode());
+    // The POST request has seen both preceding GET requests completed but none of the following ones started.
+    assertEquals(2, handler.processedBeforePost);
+  }
+
+  @Test
+  public void stopAtFirstFailure() throws Exception {
+    final List<BatchRequestPart> parts = Arrays.asList(
+        part(HttpMethod.GET, "ESAllPrim(0)", HttpStatusCode.OK),
+        part(HttpMethod.GET, "ESAllPrim(1)", HttpStatusCode.NOT_FOUND),
+        part(HttpMethod.GET, "ESAllPrim(2)", HttpStatusCode.OK),
+        part(HttpMethod.POST, "ESAllPrim", HttpStatusCode.CREATED));
+
+    final List<ODataResponsePart> responseParts = createPartHandler(MAX_PARALLELISM).handleBatchRequests(parts, false);
+
+    assertEquals(2, responseParts.size());
+    assertEquals(HttpStatusCode.NOT_FOUND.getStatusCode(), responseParts.get(1).getResponses().get(0).getStatusCode());
+    assertEquals(-1, handler.processedBeforePost);
+  }
+
+  @Test
+  public void noRequestsStartedAfterFailure() throws Exception {
+    final List<BatchRequestPart> parts = new ArrayList<BatchRequestPart>();
+    parts.add(part(HttpMethod.GET, "ESAllPrim(0)", HttpStatusCode.NOT_FOUND));
+    for (int i = 1; i < 20; i++) {
+      parts.add(part(HttpMethod.GET, "ESAllPrim(" + i + ")", HttpStatusCode.OK));
+    }
+
+    final List<ODataResponsePart> responseParts = createPartHandler(MAX_PARALLELISM).handleBatchRequests(parts, false);
+
+    assertEquals(1, responseParts.size());
+    // Only the requests started together with the failed one have been processed.
+    assertTrue(handler.started.get() <= MAX_PARALLELISM);
+  }
+
+  @Test
+  public void continueOnError() throws Exception {
+    final List<BatchRequestPart> parts = Arrays.asList(
+        part(HttpMethod.GET, "ESAllPrim(0)", HttpStatusCode.NOT_FOUND),
+        part(HttpMethod.GET, "ESAllPrim(1)", HttpStatusCode.OK),
+        part(HttpMethod.POST, "ESAllPrim", HttpStatusCode.CREATED));
+
+    assertEquals(3, createPartHandler(MAX_PARALLELISM).handleBatchRequests(parts, true).size());
+  }
+
+  @Test
+  public void sequentialWithoutExecutor() throws Exception {
+    final List<BatchRequestPart> parts = new ArrayList<BatchRequestPart>();
+    for (int i = 0; i < 10; i++) {
+      parts.add(part(HttpMethod.GET, "ESAllPrim(" + i + ")", HttpStatusCode.OK));
+    }
+
+    final List<ODataResponsePart> responseParts =
+        new BatchPartHandler(handler, null, null).handleBatchRequests(parts, false);
+
+    assertEquals(10, responseParts.size());
+    assertEquals(1, handler.maxConcurrent.get());
+  }
+
+  private BatchPartHandler createPartHandler(final int maxParallelism) {
+    final ParallelBatchSupport parallelBatchSupport = new ParallelBatchSupport() {
+      @Override
+      public ExecutorService getExecutor() {
+        return executor;
+      }
+
+      @Override
+      public int getMaxParallelism() {
+        return maxParallelism;
+      }
+    };
+    return new BatchPartHandler(handler, null, null, new ConcurrentBatchExecutor(handler, parallelBatchSupport));
+  }
+
+  private BatchRequestPart part(final HttpMethod method, final String path, final HttpStatusCode statusCode) {
+    final ODataRequest request = new ODataRequest();
+    request.setMethod(method);
+    request.setRawODataPath(path);
+    request.addHeader(HttpHeader.CONTENT_ID, Collections.singletonList(path.endsWith(")") ?
+        path.substring(path.indexOf('(') + 1, path.length() - 1) : "post"));
+    request.addHeader("Expected-Status", Collections.singletonList(Integer.toString(statusCode.getStatusCode())));
+    return new BatchRequestPart(false, request);
+  }
+
+  /** Records the number of requests processed at the same time. */
+  private static class RecordingHandler extends ODataHandlerImpl {
+    private final AtomicInteger current = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+    private final AtomicInteger processed = new AtomicInteger();
+    private final AtomicInteger started = new AtomicInteger();
+    private volatile int processedBeforePost = -1;
+
+    public RecordingHandler() {
+      super(null, null, null);
+    }
+
+    @Override
+    public ODataResponse process(final ODataRequest request) {
+      return process(request, null);
+    }
+
+    @Override
+    public ODataResponse process(final ODataRequest request, final ODataRequestContext context) {
+      started.incrementAndGet();
+      final int running = current.incrementAndGet();
+      int max;
+      while ((max = maxConcurrent.get()) < running && !maxConcurrent.compareAndSet(max, running)) {
+        // Retry until the maximum has been updated.
+      }
+      try {
+        if (request.getMethod() == HttpMethod.POST) {
+          processedBeforePost = processed.get();
+        } else {
+          Thread.sleep(5);
+        }
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      final ODataResponse response = new ODataResponse();
+      response.setStatusCode(Integer.parseInt(request.getHeader("Expected-Status")));
+      processed.incrementAndGet();
+      current.decrementAndGet();
+      return response;
+    }
+  }
+}
@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.deserializer.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.server.core.deserializer.batch.BatchMultipartReader.MissingCloseDelimiterException;
+import org.junit.Test;
+
+public class BatchMultipartReaderTest {
+
+  private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+  private static final String BOUNDARY = "batch_123";
+
+  @Test
+  public void parts() throws Exception {
+    final BatchMultipartReader reader = create("--batch_123\r\n"
+        + "first\r\n"
+        + "--batch_123\r\n"
+        + "second\r\nline\r\n\r\n"
+        + "--batch_123--");
+
+    assertTrue(reader.nextPart());
+    assertEquals("first", content(reader));
+    assertTrue(reader.nextPart());
+    assertEquals("second\r\nline\r\n", content(reader));
+    assertFalse(reader.nextPart());
+    assertFalse(reader.nextPart());
+  }
+
+  @Test
+  public void preambleAndEpilogue() throws Exception {
+    final BatchMultipartReader reader = create("preamble\r\n--batch_123x\r\n"
+        + "--batch_123 \t\r\n"
+        + "content --batch_123\r\n"
+        + "--batch_123--\r\n"
+        + "epilogue\r\n--batch_123\r\n");
+
+    assertTrue(reader.nextPart());
+    assertEquals("content --batch_123", content(reader));
+    assertFalse(reader.nextPart());
+  }
+
+  @Test
+  public void lineFeedsOnly() throws Exception {
+    final BatchMultipartReader reader = create("--batch_123\nfirst\n\n--batch_123\nsecond\n--batch_123--\n");
+
+    assertTrue(reader.nextPart());
+    assertEquals("first\n", content(reader));
+    assertTrue(reader.nextPart());
+    assertEquals("second", content(reader));
+    assertFalse(reader.nextPart());
+  }
+
+  @Test
+  public void emptyPart() throws Exception {
+    final BatchMultipartReader reader = create("--batch_123\r\n\r\n--batch_123--");
+
+    assertTrue(reader.nextPart());
+    assertEquals("", content(reader));
+    assertNull(reader.readLine());
+    assertFalse(reader.nextPart());
+  }
+
+  @Test
+  public void skipUnreadContent() throws Exception {
+    final BatchMultipartReader reader = create("--batch_123\r\n"
+        + "line 1\r\nline 2\r\n"
+        + "--batch_123\r\n"
+        + "line 3\r\n"
+        + "--batch_123--");
+
+    assertTrue(reader.nextPart());
+    assertEquals("line 1\r\n", reader.readLine());
+    assertTrue(reader.nextPart());
+    assertEquals(5, reader.getLineNumber());
+    assertEquals("line 3", reader.readLine());
+    assertNull(reader.readLine());
+    assertFalse(reader.nextPart());
+  }
+
+  @Test
+  public void readLines() throws Exception {
+    final BatchMultipartReader reader = create("--batch_123\r\n"
+        + "line 1\rline 2\nline 3\r\n\r\n"
+        + "--batch_123--");
+
+    assertTrue(reader.nextPart());
+    assertEquals(2, reader.getLineNumber());
+    assertEquals("line 1\r", reader.readLine());
+    assertEquals("line 2\n", reader.readLine());
+    assertEquals(3, reader.getLineNumber());
+    assertEquals("line 3\r\n", reader.readLine());
+    assertNull(reader.readLine());
+    assertFalse(reader.nextPart());
+  }
+
+  @Test
+  public void boundarySplitAcrossReads() throws Exception {
+    final StringBuilder content = new StringBuilder();
+    while (content.length() < 20000) {
+      content.append("0123456789\r\n-");
+    }
+    final String message = "--batch_123\r\n" + content + "\r\n--batch_123\r\nx\r\n--batch_123--";
+
+    final BatchMultipartReader reader = new BatchMultipartReader(
+        new SingleByteInputStream(new ByteArrayInputStream(message.getBytes(ISO_8859_1))), BOUNDARY);
+    assertTrue(reader.nextPart());
+    assertEquals(content.toString(), content(reader));
+    assertTrue(reader.nextPart());
+    assertEquals("x", content(reader));
+    assertFalse(reader.nextPart());
+  }
+
+  @Test
+  public void binaryContent() throws Exception {
+    final byte[] bytes = new byte[256];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) i;
+    }
+    final byte[] message = IOUtils.toByteArray(IOUtils.toInputStream(
+        "--batch_123\r\n" + new String(bytes, ISO_8859_1) + "\r\n--batch_123--", ISO_8859_1));
+
+    final BatchMultipartReader reader = new BatchMultipartReader(new ByteArrayInputStream(message), BOUNDARY);
+    assertTrue(reader.nextPart());
+    assertEquals(new String(bytes, ISO_8859_1), content(reader));
+    assertFalse(reader.nextPart());
+  }
+
+  @Test
+  public void missingCloseDelimiter() throws Exception {
+    final BatchMultipartReader reader = create("--batch_123\r\ncontent\r\n--batch_123\r\nmore\r\n");
+
+    assertTrue(reader.nextPart());
+    assertEquals("content", content(reader));
+    assertTrue(reader.nextPart());
+    try {
+      content(reader);
+      fail("Expected exception not thrown.");
+    } catch (final MissingCloseDelimiterException e) {
+      assertEquals(4, e.getLineNumber());
+    }
+  }
+
+  @Test
+  public void noDelimiter() throws Exception {
+    try {
+      create("content").nextPart();
+      fail("Expected exception not thrown.");
+    } catch (final MissingCloseDelimiterException e) {
+      assertEquals(1, e.getLineNumber());
+    }
+  }
+
+  private BatchMultipartReader create(final String message) {
+    return new BatchMultipartReader(new ByteArrayInputStream(message.getBytes(ISO_8859_1)), BOUNDARY);
+  }
+
+  private String content(final BatchMultipartReader reader) throws IOException {
+    return IOUtils.toString(reader.getPart(), ISO_8859_1);
+  }
+
+  /** Returns at most one byte per read to split delimiters across buffer refills. */
+  private static class SingleByteInputStream extends FilterInputStream {
+    SingleByteInputStream(final InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      return super.read(b, off, Math.min(len, 1));
+    }
+  }
+}
@@ -22,9 +22,12 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
 import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.commons.api.http.HttpMethod;
 import org.apache.olingo.server.api.ODataRequest;
@@ -32,6 +35,7 @@ import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerExceptio
 import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException.MessageKeys;
 import org.apache.olingo.server.api.deserializer.batch.BatchOptions;
 import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPartHandler;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -1131,6 +1135,128 @@ public class BatchRequestParserTest {
     parseBatchWithForbiddenHeader(HttpHeader.TE + ": deflate");
   }
 
+  @Test
+  public void handlerReceivesPartsWithBodies() throws Exception {
+    final String batch = "--" + BOUNDARY + CRLF
+        + GET_REQUEST
+        + "--" + BOUNDARY + CRLF
+        + MIME_HEADERS
+        + CRLF
+        + HttpMethod.POST + " ESMedia" + HTTP_VERSION + CRLF
+        + HttpHeader.CONTENT_TYPE + ": " + APPLICATION_OCTET_STREAM + CRLF
+        + HttpHeader.CONTENT_LENGTH + ": 6" + CRLF
+        + CRLF
+        + "\u00e4\u00f6\u00fcbinary" + CRLF
+        + "--" + BOUNDARY + CRLF
+        + HttpHeader.CONTENT_TYPE + ": " + MULTIPART_MIXED + "; boundary=" + CHANGESET_BOUNDARY + CRLF
+        + CRLF
+        + "--" + CHANGESET_BOUNDARY + CRLF
+        + MIME_HEADERS
+        + HttpHeader.CONTENT_ID + ": 1" + CRLF
+        + CRLF
+        + HttpMethod.PATCH + " ESAllPrim(32767)" + HTTP_VERSION + CRLF
+        + HttpHeader.CONTENT_TYPE + ": " + APPLICATION_JSON + CRLF
+        + CRLF
+        + "{\"PropertyString\":\"Test\"}" + CRLF
+        + "--" + CHANGESET_BOUNDARY + "--" + CRLF
+        + CRLF
+        + "--" + BOUNDARY + "--";
+
+    final List<String> bodies = new ArrayList<>();
+    new BatchParser().parseBatchRequest(new ByteArrayInputStream(batch.getBytes("ISO-8859-1")), BOUNDARY,
+        BatchOptions.with().isStrict(true).rawBaseUri(SERVICE_ROOT).build(),
+        new BatchRequestPartHandler() {
+          @Override
+          public boolean handle(final BatchRequestPart part) {
+            for (final ODataRequest request : part.getRequests()) {
+              try {
+                bodies.add(request.getMethod() + " " + IOUtils.toString(request.getBody(), "ISO-8859-1"));
+              } catch (final IOException e) {
+                Assert.fail(e.getMessage());
+              }
+            }
+            return true;
+          }
+        });
+
+    Assert.assertEquals(3, bodies.size());
+    Assert.assertEquals("GET ", bodies.get(0));
+    Assert.assertEquals("POST \u00e4\u00f6\u00fcbin", bodies.get(1));
+    Assert.assertEquals("PATCH {\"PropertyString\":\"Test\"}", bodies.get(2));
+  }
+
+  @Test
+  public void handlerStopsParsing() throws Exception {
+    final String batch = "--" + BOUNDARY + CRLF
+        + GET_REQUEST
+        + "--" + BOUNDARY + CRLF
+        + GET_REQUEST
+        + "--" + BOUNDARY + CRLF
+        + "invalid";
+
+    final List<BatchRequestPart> parts = new ArrayList<>();
+    new BatchParser().parseBatchRequest(IOUtils.toInputStream(batch), BOUNDARY,
+        BatchOptions.with().isStrict(true).rawBaseUri(SERVICE_ROOT).build(),
+        new BatchRequestPartHandler() {
+          @Override
+          public boolean handle(final BatchRequestPart part) {
+            parts.add(part);
+            return false;
+          }
+        });
+
+    Assert.assertEquals(1, parts.size());
+    Assert.assertEquals(HttpMethod.GET, parts.get(0).getRequests().get(0).getMethod());
+  }
+
+  @Test
+  public void missingCloseDelimiterWithHandler() throws Exception {
+    final String batch = "--" + BOUNDARY + CRLF
+        + GET_REQUEST
+        + "--" + BOUNDARY + CRLF
+        + GET_REQUEST;
+
+    final List<BatchRequestPart> parts = new ArrayList<>();
+    try {
+      new BatchParser().parseBatchRequest(IOUtils.toInputStream(batch), BOUNDARY,
+          BatchOptions.with().isStrict(true).rawBaseUri(SERVICE_ROOT).build(),
+          new BatchRequestPartHandler() {
+            @Override
+            public boolean handle(final BatchRequestPart part) {
+              parts.add(part);
+              return true;
+            }
+          });
+      Assert.fail("No exception thrown. Expected: " + MessageKeys.MISSING_CLOSE_DELIMITER);
+    } catch (final BatchDeserializerException e) {
+      Assert.assertEquals(MessageKeys.MISSING_CLOSE_DELIMITER, e.getMessageKey());
+    }
+    Assert.assertEquals(1, parts.size());
+  }
+
+  @Test
+  public void lazyParsing() throws Exception {
+    final String batch = "--" + BOUNDARY + CRLF
+        + GET_REQUEST
+        + "--" + BOUNDARY + CRLF
+        + GET_REQUEST
+        + "--" + BOUNDARY + CRLF
+        + "invalid";
+
+    final Iterator<BatchRequestPart> parts = new BatchParser().parseBatchRequestLazily(
+        IOUtils.toInputStream(batch), BOUNDARY, BatchOptions.with().isStrict(true).rawBaseUri(SERVICE_ROOT).build());
+    Assert.assertEquals(HttpMethod.GET, parts.next().getRequests().get(0).getMethod());
+    Assert.assertTrue(parts.hasNext());
+    Assert.assertEquals(HttpMethod.GET, parts.next().getRequests().get(0).getMethod());
+    try {
+      parts.hasNext();
+      Assert.fail("No exception thrown. Expected: " + MessageKeys.MISSING_CLOSE_DELIMITER);
+    } catch (final ODataRuntimeException e) {
+      Assert.assertEquals(MessageKeys.MISSING_CLOSE_DELIMITER,
+          ((BatchDeserializerException) e.getCause()).getMessageKey());
+    }
+  }
+
   private void parseBatchWithForbiddenHeader(final String header) {
     parseInvalidBatchBody(createBatchWithGetRequest(PROPERTY_URI, header), MessageKeys.FORBIDDEN_HEADER);
   }
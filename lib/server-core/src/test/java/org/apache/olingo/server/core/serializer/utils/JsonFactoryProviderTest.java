@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.olingo.server.core.serializer.utils.JsonFactoryProvider.BufferRecycling;
+import org.junit.After;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+
+public class JsonFactoryProviderTest {
+
+  @After
+  public void resetPolicy() {
+    JsonFactoryProvider.setBufferRecycling(BufferRecycling.THREAD_LOCAL);
+  }
+
+  @Test
+  public void sharedInstances() {
+    assertSame(JsonFactoryProvider.getFactory(), JsonFactoryProvider.getFactory());
+    assertSame(JsonFactoryProvider.getPayloadMapper(), JsonFactoryProvider.getPayloadMapper());
+    assertSame(JsonFactoryProvider.getValueMapper(), JsonFactoryProvider.getValueMapper());
+  }
+
+  @Test
+  public void generator() throws Exception {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    JsonGenerator json = JsonFactoryProvider.createGenerator(outputStream);
+    json.writeStartObject();
+    json.writeStringField("a", "ä");
+    json.writeEndObject();
+    json.close();
+    assertEquals("{\"a\":\"ä\"}", new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void payloadParserReadsBigDecimal() throws Exception {
+    JsonParser parser = JsonFactoryProvider.createPayloadParser(
+        new ByteArrayInputStream("{\"a\":1.0000000000000000001}".getBytes(StandardCharsets.UTF_8)));
+    final JsonNode tree = parser.getCodec().readTree(parser);
+    assertTrue(tree.get("a").isBigDecimal());
+    assertEquals(0, new BigDecimal("1.0000000000000000001").compareTo(tree.get("a").decimalValue()));
+  }
+
+  @Test(expected = JsonMappingException.class)
+  public void payloadParserRejectsDuplicateKeys() throws Exception {
+    JsonParser parser = JsonFactoryProvider.createPayloadParser(
+        new ByteArrayInputStream("{\"a\":1,\"a\":2}".getBytes(StandardCharsets.UTF_8)));
+    parser.getCodec().readTree(parser);
+  }
+
+  @Test(expected = JsonMappingException.class)
+  public void valueParserRejectsDuplicateKeys() throws Exception {
+    JsonParser parser = JsonFactoryProvider.createValueParser("{\"a\":1,\"a\":2}");
+    parser.getCodec().readTree(parser);
+  }
+
+  @Test
+  public void bufferRecycling() {
+    assertEquals(BufferRecycling.THREAD_LOCAL, JsonFactoryProvider.getBufferRecycling());
+    final JsonFactory before = JsonFactoryProvider.getFactory();
+    assertTrue(before.isEnabled(JsonFactory.Feature.USE_THREAD_LOCAL_FOR_BUFFER_RECYCLING));
+
+    JsonFactoryProvider.setBufferRecycling(BufferRecycling.NONE);
+    assertEquals(BufferRecycling.NONE, JsonFactoryProvider.getBufferRecycling());
+    final JsonFactory after = JsonFactoryProvider.getFactory();
+    assertNotSame(before, after);
+    assertTrue(!after.isEnabled(JsonFactory.Feature.USE_THREAD_LOCAL_FOR_BUFFER_RECYCLING));
+    assertTrue(!JsonFactoryProvider.getPayloadMapper().getFactory()
+        .isEnabled(JsonFactory.Feature.USE_THREAD_LOCAL_FOR_BUFFER_RECYCLING));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void bufferRecyclingMustNotBeNull() {
+    JsonFactoryProvider.setBufferRecycling(null);
+  }
+}
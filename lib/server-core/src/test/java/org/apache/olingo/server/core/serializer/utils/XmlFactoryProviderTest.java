@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class XmlFactoryProviderTest {
+
+  @After
+  public void reset() {
+    XmlFactoryProvider.setInputFactory(null);
+    XmlFactoryProvider.setOutputFactory(null);
+  }
+
+  @Test
+  public void sharedInstances() {
+    assertSame(XmlFactoryProvider.getInputFactory(), XmlFactoryProvider.getInputFactory());
+    assertSame(XmlFactoryProvider.getOutputFactory(), XmlFactoryProvider.getOutputFactory());
+  }
+
+  @Test
+  public void streamWriter() throws Exception {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    XMLStreamWriter writer = XmlFactoryProvider.createStreamWriter(outputStream, "UTF-8");
+    writer.writeStartElement("a");
+    writer.writeCharacters("ä");
+    writer.writeEndElement();
+    writer.close();
+    assertEquals("<a>ä</a>", new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void eventReader() throws Exception {
+    XMLEventReader reader = XmlFactoryProvider.createEventReader(
+        new ByteArrayInputStream("<a>b</a>".getBytes(StandardCharsets.UTF_8)));
+    reader.nextTag();
+    assertEquals("b", reader.getElementText());
+  }
+
+  @Test(expected = XMLStreamException.class)
+  public void noDtd() throws Exception {
+    XMLEventReader reader = XmlFactoryProvider.createEventReader(new ByteArrayInputStream(
+        "<!DOCTYPE a [<!ENTITY e \"x\">]><a>&e;</a>".getBytes(StandardCharsets.UTF_8)));
+    while (reader.hasNext()) {
+      reader.nextEvent();
+    }
+  }
+
+  @Test
+  public void customFactories() {
+    final XMLInputFactory inputFactory = XMLInputFactory.newFactory();
+    inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, true);
+    XmlFactoryProvider.setInputFactory(inputFactory);
+    assertSame(inputFactory, XmlFactoryProvider.getInputFactory());
+    assertEquals(false, inputFactory.getProperty(XMLInputFactory.SUPPORT_DTD));
+
+    final XMLOutputFactory before = XmlFactoryProvider.getOutputFactory();
+    final XMLOutputFactory outputFactory = XMLOutputFactory.newFactory();
+    XmlFactoryProvider.setOutputFactory(outputFactory);
+    assertSame(outputFactory, XmlFactoryProvider.getOutputFactory());
+
+    XmlFactoryProvider.setOutputFactory(null);
+    assertNotSame(outputFactory, XmlFactoryProvider.getOutputFactory());
+    assertNotSame(before, XmlFactoryProvider.getOutputFactory());
+  }
+}
@@ -20,8 +20,10 @@ package org.apache.olingo.server.core.uri.parser;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.EnumSet;
 import java.util.Locale;
 
 import org.apache.olingo.server.core.uri.parser.UriTokenizer.TokenKind;
@@ -530,6 +532,79 @@ public class UriTokenizerTest {
     }
   }
 
+  @Test
+  public void methodKeywords() {
+    final EnumSet<TokenKind> methods = EnumSet.noneOf(TokenKind.class);
+    for (final TokenKind tokenKind : TokenKind.values()) {
+      if (tokenKind.name().endsWith("Method")) {
+        methods.add(tokenKind);
+        final String name = tokenKind.name().substring(0, tokenKind.name().indexOf("Method"))
+            .toLowerCase(Locale.ROOT).replace("geo", "geo.");
+        UriTokenizer tokenizer = new UriTokenizer(name + "(1)");
+        assertEquals(tokenKind, tokenizer.nextMethod(EnumSet.of(tokenKind)));
+        assertEquals(name + '(', tokenizer.getText());
+        assertTrue(tokenizer.next(TokenKind.IntegerValue));
+
+        tokenizer = new UriTokenizer(name + "(");
+        assertNull(tokenizer.nextMethod(EnumSet.complementOf(EnumSet.of(tokenKind))));
+        assertTrue(tokenizer.next(tokenKind));
+      }
+    }
+    assertEquals(TokenKind.SubstringMethod, new UriTokenizer("substring(").nextMethod(methods));
+    assertEquals(TokenKind.SubstringofMethod, new UriTokenizer("substringof(").nextMethod(methods));
+    assertEquals(TokenKind.GroupByTrafo,
+        new UriTokenizer("groupby(").nextMethod(EnumSet.of(TokenKind.GroupByTrafo)));
+
+    UriTokenizer tokenizer = new UriTokenizer("substringo(");
+    assertNull(tokenizer.nextMethod(methods));
+    assertTrue(tokenizer.next(TokenKind.ODataIdentifier));
+    assertNull(new UriTokenizer("now ()").nextMethod(methods));
+    assertNull(new UriTokenizer("Now()").nextMethod(methods));
+    assertNull(new UriTokenizer("nowx()").nextMethod(methods));
+    assertNull(new UriTokenizer("geo.()").nextMethod(methods));
+    assertNull(new UriTokenizer("").nextMethod(methods));
+  }
+
+  @Test
+  public void binaryOperatorKeywords() {
+    final EnumSet<TokenKind> relational = EnumSet.of(TokenKind.GreaterThanOperator,
+        TokenKind.GreaterThanOrEqualsOperator, TokenKind.LessThanOperator, TokenKind.LessThanOrEqualsOperator);
+    UriTokenizer tokenizer = new UriTokenizer("1 ge 2\tlt\t3 eq 4");
+    assertTrue(tokenizer.next(TokenKind.IntegerValue));
+    assertEquals(TokenKind.GreaterThanOrEqualsOperator, tokenizer.nextBinaryOperator(relational));
+    assertEquals(" ge ", tokenizer.getText());
+    assertTrue(tokenizer.next(TokenKind.IntegerValue));
+    assertEquals(TokenKind.LessThanOperator, tokenizer.nextBinaryOperator(relational));
+    assertTrue(tokenizer.next(TokenKind.IntegerValue));
+    assertNull(tokenizer.nextBinaryOperator(relational));
+    assertEquals(TokenKind.EqualsOperator, tokenizer.nextBinaryOperator(EnumSet.of(TokenKind.EqualsOperator)));
+    assertTrue(tokenizer.next(TokenKind.IntegerValue));
+    assertTrue(tokenizer.next(TokenKind.EOF));
+
+    final EnumSet<TokenKind> all = EnumSet.range(TokenKind.OrOperator, TokenKind.ModOperator);
+    all.addAll(EnumSet.of(TokenKind.AsOperator, TokenKind.FromOperator, TokenKind.WithOperator));
+    for (final TokenKind tokenKind : all) {
+      final String text = "a x b";
+      for (final String name : new String[] { "or", "and", "eq", "ne", "gt", "ge", "lt", "le", "has", "in",
+          "add", "sub", "mul", "div", "mod", "as", "from", "with" }) {
+        tokenizer = new UriTokenizer(text.replace("x", name));
+        assertTrue(tokenizer.next(TokenKind.ODataIdentifier));
+        final TokenKind found = tokenizer.nextBinaryOperator(EnumSet.of(tokenKind));
+        tokenizer = new UriTokenizer(text.replace("x", name));
+        assertTrue(tokenizer.next(TokenKind.ODataIdentifier));
+        assertEquals(tokenizer.next(tokenKind), found == tokenKind);
+      }
+    }
+
+    tokenizer = new UriTokenizer("1 ne-2");
+    assertTrue(tokenizer.next(TokenKind.IntegerValue));
+    assertNull(tokenizer.nextBinaryOperator(all));
+    assertFalse(tokenizer.next(TokenKind.EOF));
+    assertNull(new UriTokenizer(" net 2").nextBinaryOperator(all));
+    assertNull(new UriTokenizer("eq 2").nextBinaryOperator(all));
+    assertNull(new UriTokenizer(" EQ 2").nextBinaryOperator(all));
+  }
+
   @Test
   public void suffixes() {
     UriTokenizer tokenizer = new UriTokenizer("p1 asc,p2 desc");
@@ -24,7 +24,6 @@ import java.util.Collections;
 import java.util.UUID;
 
 import javax.servlet.ServletException;
-import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
@@ -33,6 +32,7 @@ import org.apache.olingo.commons.api.edmx.EdmxReference;
 import org.apache.olingo.commons.api.edmx.EdmxReferenceInclude;
 import org.apache.olingo.server.api.OData;
 import org.apache.olingo.server.api.ODataHttpHandler;
+import org.apache.olingo.server.api.ODataServlet;
 import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.debug.DefaultDebugSupport;
 import org.apache.olingo.server.tecsvc.data.DataProvider;
@@ -44,7 +44,12 @@ import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class TechnicalServlet extends HttpServlet {
+/**
+ * Servlet of the technical service.
+ * <p>The service metadata are created only once; every HTTP session gets its own data
+ * and therefore its own handler.</p>
+ */
+public class TechnicalServlet extends ODataServlet {
 
   private static final long serialVersionUID = 1L;
   private static final Logger LOG = LoggerFactory.getLogger(TechnicalServlet.class);
@@ -60,39 +65,50 @@ public class TechnicalServlet extends HttpServlet {
   private static final String metadataETag = "W/\"" + UUID.randomUUID() + "\"";
 
   @Override
-  protected void service(final HttpServletRequest request, HttpServletResponse response)
-      throws ServletException, IOException {
-    try {
-      OData odata = OData.newInstance();
-      EdmxReference reference = new EdmxReference(URI.create("../v4.0/cs02/vocabularies/Org.OData.Core.V1.xml"));
-      reference.addInclude(new EdmxReferenceInclude("Org.OData.Core.V1", "Core"));
-      final ServiceMetadata serviceMetadata = odata.createServiceMetadata(
-          new EdmTechProvider(),
-          Collections.singletonList(reference),
-          new MetadataETagSupport(metadataETag));
+  protected ServiceMetadata createServiceMetadata(final OData odata) {
+    EdmxReference reference = new EdmxReference(URI.create("../v4.0/cs02/vocabularies/Org.OData.Core.V1.xml"));
+    reference.addInclude(new EdmxReferenceInclude("Org.OData.Core.V1", "Core"));
+    return odata.createServiceMetadata(
+        new EdmTechProvider(),
+        Collections.singletonList(reference),
+        new MetadataETagSupport(metadataETag));
+  }
 
-      HttpSession session = request.getSession(true);
-      DataProvider dataProvider = (DataProvider) session.getAttribute(DataProvider.class.getName());
-      if (dataProvider == null) {
-        dataProvider = new DataProvider(odata, serviceMetadata.getEdm());
-        session.setAttribute(DataProvider.class.getName(), dataProvider);
-        LOG.info("Created new data provider.");
-      }
+  @Override
+  protected ODataHttpHandler getHandler(final HttpServletRequest request) {
+    HttpSession session = request.getSession(true);
+    ODataHttpHandler handler = (ODataHttpHandler) session.getAttribute(ODataHttpHandler.class.getName());
+    if (handler == null) {
+      final ServiceMetadata serviceMetadata = getServiceMetadata();
+      final DataProvider dataProvider = new DataProvider(getOData(), serviceMetadata.getEdm());
+      LOG.info("Created new data provider.");
 
-      ODataHttpHandler handler = odata.createHandler(serviceMetadata);
+      handler = createHandler();
       // Register processors.
       handler.register(new TechnicalEntityProcessor(dataProvider, serviceMetadata));
       handler.register(new TechnicalPrimitiveComplexProcessor(dataProvider, serviceMetadata));
       handler.register(new TechnicalActionProcessor(dataProvider, serviceMetadata));
       handler.register(new TechnicalBatchProcessor(dataProvider));
-      // Register helpers.
-      handler.register(new ETagSupport());
-      handler.register(new DefaultDebugSupport());
-      // Process the request.
-      handler.process(request, response);
-    } catch (final RuntimeException e) {
-      LOG.error("Server Error", e);
-      throw new ServletException(e);
+      session.setAttribute(ODataHttpHandler.class.getName(), handler);
+    }
+    return handler;
+  }
+
+  @Override
+  protected void register(final ODataHttpHandler handler) {
+    // Register helpers.
+    handler.register(new ETagSupport());
+    handler.register(new DefaultDebugSupport());
+  }
+
+  @Override
+  protected void service(final HttpServletRequest request, final HttpServletResponse response)
+      throws ServletException, IOException {
+    try {
+      super.service(request, response);
+    } catch (final ServletException e) {
+      LOG.error("Server Error", e.getCause());
+      throw e;
     }
   }
 }
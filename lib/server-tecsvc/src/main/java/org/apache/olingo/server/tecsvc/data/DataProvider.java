@@ -28,9 +28,12 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
+import javax.xml.bind.DatatypeConverter;
+
 import org.apache.olingo.commons.api.Constants;
 import org.apache.olingo.commons.api.data.ComplexValue;
 import org.apache.olingo.commons.api.data.DeletedEntity;
@@ -47,11 +50,8 @@ import org.apache.olingo.commons.api.edm.EdmEntitySet;
 import org.apache.olingo.commons.api.edm.EdmEntityType;
 import org.apache.olingo.commons.api.edm.EdmEnumType;
 import org.apache.olingo.commons.api.edm.EdmFunction;
-import org.apache.olingo.commons.api.edm.EdmKeyPropertyRef;
 import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
 import org.apache.olingo.commons.api.edm.EdmParameter;
-import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
-import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
 import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
 import org.apache.olingo.commons.api.edm.EdmProperty;
 import org.apache.olingo.commons.api.edm.EdmSingleton;
@@ -69,6 +69,8 @@ import org.apache.olingo.server.api.uri.UriInfoResource;
 import org.apache.olingo.server.api.uri.UriParameter;
 import org.apache.olingo.server.api.uri.UriResourceEntitySet;
 import org.apache.olingo.server.api.uri.queryoption.expression.Literal;
+import org.apache.olingo.server.core.uri.EntityKeyIndex;
+import org.apache.olingo.server.core.uri.queryoption.search.SearchIndex;
 
 public class DataProvider {
 
@@ -81,6 +83,8 @@ public class DataProvider {
   private Map<String, EntityCollection> data;
   private final OData odata;
   private final Edm edm;
+  private final Map<String, EntityKeyIndex> keyIndexes = new ConcurrentHashMap<String, EntityKeyIndex>();
+  private final Map<String, SearchIndex> searchIndexes = new ConcurrentHashMap<String, SearchIndex>();
 
   public DataProvider(final OData odata, final Edm edm) {
     this.odata = odata;
@@ -98,80 +102,92 @@ public class DataProvider {
   }
 
   public Entity read(final EdmEntitySet edmEntitySet, final List<UriParameter> keys) throws DataProviderException {
-    final EntityCollection entitySet = readAll(edmEntitySet);
-    return entitySet == null ? null : read(edmEntitySet.getEntityType(), entitySet, keys);
-  }
-  
-  private Object findPropertyRefValue(Entity entity, EdmKeyPropertyRef refType) {
-    final int INDEX_ERROR_CODE = -1;
-    final String propertyPath = refType.getName();
-    String tmpPropertyName;
-    int lastIndex;
-    int index = propertyPath.indexOf('/');
-    if (index == INDEX_ERROR_CODE) {
-        index  = propertyPath.length();
-    }
-    tmpPropertyName = propertyPath.substring(0, index);
-    //get first property
-    Property prop = entity.getProperty(tmpPropertyName);
-    //get following properties
-    while (index < propertyPath.length()) {
-        lastIndex = ++index;
-        index = propertyPath.indexOf('/', index+1);
-        if (index == INDEX_ERROR_CODE) {
-            index = propertyPath.length();
-        }
-        tmpPropertyName = propertyPath.substring(lastIndex, index);
-        prop = findProperty(tmpPropertyName, prop.asComplex().getValue());
-     }
-    return prop.getValue();
+    try {
+      return getKeyIndex(edmEntitySet).get(keys);
+    } catch (final ODataApplicationException e) {
+      throw asDataProviderException(e);
+    }
   }
-  
+
   public Entity read(final EdmEntityType edmEntityType, final EntityCollection entitySet,
       final List<UriParameter> keys) throws DataProviderException {
     try {
-      for (final Entity entity : entitySet.getEntities()) {
-        boolean found = true;
-        for (final UriParameter key : keys) {
-          EdmKeyPropertyRef refType = edmEntityType.getKeyPropertyRef(key.getName());
-          Object value =  findPropertyRefValue(entity, refType);
-          
-          final EdmProperty property = refType.getProperty();
-          final EdmPrimitiveType type = (EdmPrimitiveType) property.getType();
-          
-          if (key.getExpression() != null && !(key.getExpression() instanceof Literal)) {
-            throw new DataProviderException("Expression in key value is not supported yet!",
-                HttpStatusCode.NOT_IMPLEMENTED);
-          }
-          Object keyValue = null;
-          final String text = key.getAlias() == null ? key.getText() : ((Literal) key.getExpression()).getText();
-          if (Calendar.class.isAssignableFrom(value.getClass())) {
-            keyValue = type.valueOfString(type.fromUriLiteral(text),
-                property.isNullable(), property.getMaxLength(), property.getPrecision(), property.getScale(),
-                property.isUnicode(), Calendar.class);
+      return EntityKeyIndex.find(edmEntityType, entitySet.getEntities(), keys);
+    } catch (final ODataApplicationException e) {
+      throw asDataProviderException(e);
+    }
+  }
+
+  private EntityKeyIndex getKeyIndex(final EdmEntitySet edmEntitySet) throws DataProviderException {
+    EntityKeyIndex keyIndex = keyIndexes.get(edmEntitySet.getName());
+    if (keyIndex == null) {
+      keyIndex = new EntityKeyIndex(edmEntitySet.getEntityType());
+      keyIndex.addAll(readAll(edmEntitySet).getEntities());
+      keyIndexes.put(edmEntitySet.getName(), keyIndex);
+    }
+    return keyIndex;
+  }
+
+  private static DataProviderException asDataProviderException(final ODataApplicationException e) {
+    return new DataProviderException(e.getMessage(), HttpStatusCode.fromStatusCode(e.getStatusCode()), e);
+  }
+
+  public void delete(final EdmEntitySet edmEntitySet, final Entity entity) throws DataProviderException {
+    deleteLinksTo(entity);
+    readAll(edmEntitySet).getEntities().remove(entity);
+    final EntityKeyIndex keyIndex = keyIndexes.get(edmEntitySet.getName());
+    if (keyIndex != null) {
+      keyIndex.remove(entity);
+    }
+    final SearchIndex searchIndex = searchIndexes.get(edmEntitySet.getName());
+    if (searchIndex != null) {
+      searchIndex.remove(entity);
+    }
+  }
+
+  /**
+   * Returns the index for <code>$search</code> over the entities of the entity set.
+   * It is built on first use and kept up to date by the create, update, and delete methods
+   * like the key indexes used for reading single entities; modifications not tied to an entity set,
+   * e.g., of single properties or by actions, discard all indexes so that they are built anew when needed.
+   */
+  public SearchIndex getSearchIndex(final EdmEntitySet edmEntitySet) throws DataProviderException {
+    SearchIndex searchIndex = searchIndexes.get(edmEntitySet.getName());
+    if (searchIndex == null) {
+      searchIndex = new SearchIndex() {
+        @Override
+        protected String asString(final Object value) {
+          if (value instanceof Calendar) {
+            return DatatypeConverter.printDateTime((Calendar) value);
+          } else if (value instanceof byte[]) {
+            return DatatypeConverter.printBase64Binary((byte[]) value);
           } else {
-            keyValue = type.valueOfString(type.fromUriLiteral(text),
-                property.isNullable(), property.getMaxLength(), property.getPrecision(), property.getScale(),
-                property.isUnicode(), value.getClass());
-          }
-          if (!value.equals(keyValue)) {
-            found = false;
-            break;
+            return value.toString();
           }
         }
-        if (found) {
-          return entity;
-        }
+      };
+      searchIndex.addAll(readAll(edmEntitySet).getEntities());
+      searchIndexes.put(edmEntitySet.getName(), searchIndex);
+    }
+    return searchIndex;
+  }
+
+  private void updateSearchIndexes(final Entity entity) {
+    for (final SearchIndex searchIndex : searchIndexes.values()) {
+      if (searchIndex.contains(entity)) {
+        searchIndex.update(entity);
       }
-      return null;
-    } catch (final EdmPrimitiveTypeException e) {
-      throw new DataProviderException("Wrong key!", HttpStatusCode.BAD_REQUEST, e);
     }
   }
 
-  public void delete(final EdmEntitySet edmEntitySet, final Entity entity) throws DataProviderException {
-    deleteLinksTo(entity);
-    readAll(edmEntitySet).getEntities().remove(entity);
+  private Map<String, EntityCollection> getModifiableData() {
+    discardIndexes();
+    return data;
+  }
+
+  private void discardIndexes() {
+    keyIndexes.clear();
+    searchIndexes.clear();
   }
 
   public void deleteLinksTo(final Entity to) throws DataProviderException {
@@ -200,7 +216,8 @@ public class DataProvider {
     final EdmEntityType edmEntityType = edmEntitySet.getEntityType();
     EntityCollection entitySet = readAll(edmEntitySet);
     final List<Entity> entities = entitySet.getEntities();
-    final Map<String, Object> newKey = findFreeComposedKey(entities, edmEntityType);
+    final EntityKeyIndex keyIndex = getKeyIndex(edmEntitySet);
+    final Map<String, Object> newKey = findFreeComposedKey(keyIndex, edmEntityType);
     Entity newEntity = new Entity();
     newEntity.setType(edmEntityType.getFullQualifiedName().getFullQualifiedNameAsString());
     for (final String keyName : edmEntityType.getKeyPredicateNames()) {
@@ -214,11 +231,16 @@ public class DataProvider {
       throw new DataProviderException("Unable to set entity ID!", HttpStatusCode.INTERNAL_SERVER_ERROR, e);
     }
     entities.add(newEntity);
+    keyIndex.add(newEntity);
+    final SearchIndex searchIndex = searchIndexes.get(edmEntitySet.getName());
+    if (searchIndex != null) {
+      searchIndex.add(newEntity);
+    }
 
     return newEntity;
   }
 
-  private Map<String, Object> findFreeComposedKey(final List<Entity> entities, final EdmEntityType entityType)
+  private Map<String, Object> findFreeComposedKey(final EntityKeyIndex keyIndex, final EdmEntityType entityType)
       throws DataProviderException {
     // Weak key construction
     final HashMap<String, Object> keys = new HashMap<String, Object>();
@@ -234,27 +256,27 @@ public class DataProvider {
       if (EdmPrimitiveTypeKind.Int16.getFullQualifiedName().equals(typeName)) {
         newValue = (short) KEY_INT_16.incrementAndGet();
 
-        while (!isFree(newValue, keyName, entities)) {
+        while (keyIndex.isUsed(keyName, newValue)) {
           newValue = (short) KEY_INT_16.incrementAndGet();
         }
       } else if (EdmPrimitiveTypeKind.Int32.getFullQualifiedName().equals(typeName)) {
         newValue = KEY_INT_32.incrementAndGet();
 
-        while (!isFree(newValue, keyName, entities)) {
+        while (keyIndex.isUsed(keyName, newValue)) {
           newValue = KEY_INT_32.incrementAndGet();
         }
       } else if (EdmPrimitiveTypeKind.Int64.getFullQualifiedName().equals(typeName)) {
         // Integer keys
         newValue = KEY_INT_64.incrementAndGet();
 
-        while (!isFree(newValue, keyName, entities)) {
+        while (keyIndex.isUsed(keyName, newValue)) {
           newValue = KEY_INT_64.incrementAndGet();
         }
       } else if (EdmPrimitiveTypeKind.String.getFullQualifiedName().equals(typeName)) {
         // String keys
         newValue = String.valueOf(KEY_STRING.incrementAndGet());
 
-        while (!isFree(newValue, keyName, entities)) {
+        while (keyIndex.isUsed(keyName, newValue)) {
           newValue = String.valueOf(KEY_STRING.incrementAndGet());
         }
       } else if (type instanceof EdmEnumType) {
@@ -273,16 +295,6 @@ public class DataProvider {
     return keys;
   }
 
-  private boolean isFree(final Object value, final String keyPropertyName, final List<Entity> entities) {
-    for (final Entity entity : entities) {
-      if (value != null && value.equals(entity.getProperty(keyPropertyName).getValue())) {
-        return false;
-      }
-    }
-
-    return true;
-  }
-
   private void createProperties(final EdmStructuredType type, final List<Property> properties)
       throws DataProviderException {
     final List<String> keyNames = type instanceof EdmEntityType ?
@@ -329,7 +341,7 @@ public class DataProvider {
     // Update Properties
     for (final String propertyName : entityType.getPropertyNames()) {
       if (!keyNames.contains(propertyName)) {
-        updateProperty(entityType.getStructuralProperty(propertyName),
+        updatePropertyInternal(entityType.getStructuralProperty(propertyName),
             entity.getProperty(propertyName),
             changedEntity.getProperty(propertyName),
             patch);
@@ -353,6 +365,7 @@ public class DataProvider {
 
     // Update the ETag if present.
     updateETag(entity);
+    updateSearchIndexes(entity);
   }
 
   public void updateETag(Entity entity) {
@@ -476,9 +489,16 @@ public class DataProvider {
     }
   }
 
-  @SuppressWarnings("unchecked")
   public void updateProperty(final EdmProperty edmProperty, Property property, final Property newProperty,
       final boolean patch) throws DataProviderException {
+    // The entity the property belongs to is not known.
+    discardIndexes();
+    updatePropertyInternal(edmProperty, property, newProperty, patch);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void updatePropertyInternal(final EdmProperty edmProperty, Property property, final Property newProperty,
+      final boolean patch) throws DataProviderException {
     if(property == null){
       throw new DataProviderException("Cannot update type of the entity",
           HttpStatusCode.BAD_REQUEST);
@@ -503,7 +523,7 @@ public class DataProvider {
       for (final String propertyName : ((EdmComplexType) type).getPropertyNames()) {
         final List<Property> newProperties = newProperty == null || newProperty.asComplex() == null ? null :
             newProperty.asComplex().getValue();
-        updateProperty(((EdmComplexType) type).getStructuralProperty(propertyName),
+        updatePropertyInternal(((EdmComplexType) type).getStructuralProperty(propertyName),
             findProperty(propertyName, property.asComplex().getValue()),
             newProperties == null ? null : findProperty(propertyName, newProperties),
             patch);
@@ -511,12 +531,13 @@ public class DataProvider {
     } else {
       if (newProperty != null || !patch) {
         final Object value = newProperty == null ? null : newProperty.getValue();
-        updatePropertyValue(property, value);
+        property.setValue(property.getValueType(), value);
       }
     }
   }
 
   public void updatePropertyValue(Property property, final Object value) {
+    discardIndexes();
     property.setValue(property.getValueType(), value);
   }
 
@@ -540,12 +561,12 @@ public class DataProvider {
       result.getValue().add(newProperty);
 
       if (currentProperty != null) {
-        updateProperty(innerEdmProperty, newProperty, currentProperty, patch);
+        updatePropertyInternal(innerEdmProperty, newProperty, currentProperty, patch);
       } else {
         if (innerEdmProperty.isNullable()) {
           // Check complex properties ... may be null is not allowed
           if (edmProperty.getType().getKind() == EdmTypeKind.COMPLEX) {
-            updateProperty(innerEdmProperty, newProperty, null, patch);
+            updatePropertyInternal(innerEdmProperty, newProperty, null, patch);
           }
         }
       }
@@ -572,6 +593,7 @@ public class DataProvider {
     entity.addProperty(DataCreator.createPrimitive(MEDIA_PROPERTY_NAME, media));
     entity.setMediaContentType(type);
     entity.setMediaETag("W/\"" + UUID.randomUUID() + "\"");
+    updateSearchIndexes(entity);
   }
   
   public List<DeletedEntity> readDeletedEntities(final EdmEntitySet edmEntitySet) throws DataProviderException {
@@ -674,7 +696,7 @@ public class DataProvider {
   public Property processBoundActionPrimitive(final String name, final Map<String, Parameter> actionParameters, 
       final EdmEntitySet edmEntitySet, final List<UriParameter> keyList)
       throws DataProviderException {
-    return ActionData.primitiveBoundAction(name, actionParameters, data, edmEntitySet, keyList);
+    return ActionData.primitiveBoundAction(name, actionParameters, getModifiableData(), edmEntitySet, keyList);
   }
   
   public Property processActionComplex(final String name, final Map<String, Parameter> actionParameters)
@@ -686,7 +708,7 @@ public class DataProvider {
       final EdmEntitySet edmEntitySet, 
       final List<UriParameter> keyList)
       throws DataProviderException {
-    return ActionData.complexBoundAction(name, actionParameters, data, edmEntitySet, keyList);
+    return ActionData.complexBoundAction(name, actionParameters, getModifiableData(), edmEntitySet, keyList);
   }
   
   public Property processActionComplexCollection(final String name, final Map<String, Parameter> actionParameters)
@@ -698,7 +720,8 @@ public class DataProvider {
       final Map<String, Parameter> actionParameters, final EdmEntitySet edmEntitySet, 
       final List<UriParameter> keyList)
       throws DataProviderException {
-    return ActionData.complexCollectionBoundAction(name, actionParameters, data, edmEntitySet, keyList);
+    return ActionData.complexCollectionBoundAction(name, actionParameters, getModifiableData(), edmEntitySet,
+        keyList);
   }
   
   public Property processActionPrimitiveCollection(final String name, final Map<String, Parameter> actionParameters)
@@ -710,25 +733,27 @@ public class DataProvider {
       final Map<String, Parameter> actionParameters, final EdmEntitySet edmEntitySet, 
       final List<UriParameter> keyList)
       throws DataProviderException {
-    return ActionData.primitiveCollectionBoundAction(name, actionParameters, data, edmEntitySet, keyList, odata);
+    return ActionData.primitiveCollectionBoundAction(name, actionParameters, getModifiableData(), edmEntitySet,
+        keyList, odata);
   }
   
   public EntityActionResult processActionEntity(final String name, final Map<String, Parameter> actionParameters)
       throws DataProviderException {
-    return ActionData.entityAction(name, actionParameters, data, odata, edm);
+    return ActionData.entityAction(name, actionParameters, getModifiableData(), odata, edm);
   }
 
   public EntityActionResult processBoundActionEntity(final String name, final Map<String, Parameter> actionParameters, 
       List<UriParameter> keyList, EdmEntitySet edmEntitySet)
       throws DataProviderException {
-    return ActionData.entityBoundAction(name, actionParameters, data, odata, edm, keyList, edmEntitySet);
+    return ActionData.entityBoundAction(name, actionParameters, getModifiableData(), odata, edm,
+        keyList, edmEntitySet);
   }
   
   public EntityActionResult processBoundActionWithNavigationEntity(final String name, 
       final Map<String, Parameter> actionParameters, 
       List<UriParameter> keyList, EdmEntitySet edmEntitySet, EdmNavigationProperty navProperty)
       throws DataProviderException {
-    return ActionData.entityBoundActionWithNavigation(name, actionParameters, data, keyList, 
+    return ActionData.entityBoundActionWithNavigation(name, actionParameters, getModifiableData(), keyList, 
         edmEntitySet, navProperty);
   }
   
@@ -739,13 +764,14 @@ public class DataProvider {
 
   public EntityCollection processBoundActionEntityCollection(final String name,
       final Map<String, Parameter> actionParameters, EdmEntitySet edmEntitySet) throws DataProviderException {
-    return ActionData.entityCollectionBoundAction(name, actionParameters, data, odata, edm, edmEntitySet);
+    return ActionData.entityCollectionBoundAction(name, actionParameters, getModifiableData(), odata, edm,
+        edmEntitySet);
   }
   
   public EntityCollection processBoundActionWithNavEntityCollection(final String name,
       final Map<String, Parameter> actionParameters, EdmEntitySet edmEntitySet, EdmNavigationProperty navProperty) 
           throws DataProviderException {
-    return ActionData.entityCollectionBoundActionWithNav(name, actionParameters, data, odata, edm, 
+    return ActionData.entityCollectionBoundActionWithNav(name, actionParameters, getModifiableData(), odata, edm, 
         edmEntitySet, navProperty);
   }
   
@@ -881,7 +907,7 @@ public class DataProvider {
   public Entity createContNav(final EdmEntitySet edmEntitySet, final EdmEntityType edmEntityType, 
       final Entity newEntity, List<UriParameter> keys, String navPropertyName) throws DataProviderException {
     List<Entity> rootEntity = data.get(edmEntitySet.getName()).getEntities();
-    EntityCollection entitySet = data.get(edmEntityType.getName());
+    EntityCollection entitySet = getModifiableData().get(edmEntityType.getName());
     entitySet.getEntities().add(newEntity);
     
     
@@ -947,45 +973,6 @@ public class DataProvider {
   
   public Entity readDataFromEntity(final EdmEntityType edmEntityType,
       final List<UriParameter> keys) throws DataProviderException {
-    EntityCollection coll = data.get(edmEntityType.getName());
-    List<Entity> entities = coll.getEntities();
-    try {
-      for (final Entity entity : entities) {
-        boolean found = true;
-        for (final UriParameter key : keys) {
-          EdmKeyPropertyRef refType = edmEntityType.getKeyPropertyRef(key.getName());
-          Object value =  findPropertyRefValue(entity, refType);
-          
-          final EdmProperty property = refType.getProperty();
-          final EdmPrimitiveType type = (EdmPrimitiveType) property.getType();
-          
-          if (key.getExpression() != null && !(key.getExpression() instanceof Literal)) {
-            throw new DataProviderException("Expression in key value is not supported yet!",
-                HttpStatusCode.NOT_IMPLEMENTED);
-          }
-          final String text = key.getAlias() == null ? key.getText() : ((Literal) key.getExpression()).getText();
-          Object keyValue = null;
-          if (Calendar.class.isAssignableFrom(value.getClass())) {
-            keyValue = type.valueOfString(type.fromUriLiteral(text),
-                property.isNullable(), property.getMaxLength(), property.getPrecision(), property.getScale(),
-                property.isUnicode(), Calendar.class);
-          } else {
-            keyValue = type.valueOfString(type.fromUriLiteral(text),
-                property.isNullable(), property.getMaxLength(), property.getPrecision(), property.getScale(),
-                property.isUnicode(), value.getClass());
-          }
-          if (!value.equals(keyValue)) {
-            found = false;
-            break;
-          }
-        }
-        if (found) {
-          return entity;
-        }
-      }
-      return null;
-    } catch (final EdmPrimitiveTypeException e) {
-      throw new DataProviderException("Wrong key!", HttpStatusCode.BAD_REQUEST, e);
-    }
+    return read(edmEntityType, data.get(edmEntityType.getName()), keys);
   }
 }
@@ -18,24 +18,33 @@
  */
 package org.apache.olingo.server.tecsvc.processor;
 
-import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
 import java.util.UUID;
 
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
 import org.apache.olingo.commons.api.http.HttpStatusCode;
 import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.ODataContent;
 import org.apache.olingo.server.api.ODataLibraryException;
 import org.apache.olingo.server.api.ODataRequest;
 import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.ODataServerError;
 import org.apache.olingo.server.api.batch.BatchFacade;
+import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
 import org.apache.olingo.server.api.deserializer.batch.BatchOptions;
 import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
 import org.apache.olingo.server.api.deserializer.batch.ODataResponsePart;
 import org.apache.olingo.server.api.prefer.PreferencesApplied;
 import org.apache.olingo.server.api.processor.BatchProcessor;
+import org.apache.olingo.server.api.serializer.SerializerException;
 import org.apache.olingo.server.tecsvc.async.AsyncProcessor;
 import org.apache.olingo.server.tecsvc.async.TechnicalAsyncService;
 import org.apache.olingo.server.tecsvc.data.DataProvider;
@@ -71,29 +80,24 @@ public class TechnicalBatchProcessor extends TechnicalProcessor implements Batch
     final BatchOptions options = BatchOptions.with()
         .rawBaseUri(request.getRawBaseUri())
         .rawServiceResolutionUri(request.getRawServiceResolutionUri()).build();
-    final List<BatchRequestPart> parts = odata.createFixedFormatDeserializer().parseBatchRequest(request.getBody(),
-        boundary, options);
-    final List<ODataResponsePart> responseParts = new ArrayList<ODataResponsePart>();
-
-    for (BatchRequestPart part : parts) {
-      final ODataResponsePart responsePart = facade.handleBatchRequest(part);
-      responseParts.add(responsePart); // Also add failed responses.
-      final int statusCode = responsePart.getResponses().get(0).getStatusCode();
-
-      if ((statusCode >= 400 && statusCode <= 600) && !continueOnError) {
-
-        // Perform some additional actions.
-        // ...
-
-        break; // Stop processing, but serialize responses to all recent requests.
-      }
+    final Iterator<BatchRequestPart> requestParts =
+        odata.createFixedFormatDeserializer().parseBatchRequestLazily(request.getBody(), boundary, options);
+    // The status code can only be changed before the response is sent, so the delimiters
+    // and the first part are read here; a malformed request is answered with 400 Bad Request.
+    try {
+      requestParts.hasNext();
+    } catch (final ODataRuntimeException e) {
+      throw getParseError(e);
     }
 
     final String responseBoundary = "batch_" + UUID.randomUUID().toString();
-    final InputStream responseContent =
-        odata.createFixedFormatSerializer().batchResponse(responseParts, responseBoundary);
+    // The parts are read, processed, and written one after the other while the response is sent;
+    // streamed part bodies are not buffered.
+    final ODataContent responseContent = odata.createFixedFormatSerializer()
+        .batchResponseStreamed(new ResponsePartIterator(facade, requestParts, continueOnError), responseBoundary)
+        .getODataContent();
     response.setHeader(HttpHeader.CONTENT_TYPE, ContentType.MULTIPART_MIXED + ";boundary=" + responseBoundary);
-    response.setContent(responseContent);
+    response.setODataContent(responseContent);
     response.setStatusCode(HttpStatusCode.OK.getStatusCode());
     if (continueOnError) {
       response.setHeader(HttpHeader.PREFERENCE_APPLIED,
@@ -101,6 +105,122 @@ public class TechnicalBatchProcessor extends TechnicalProcessor implements Batch
     }
   }
 
+  private static BatchDeserializerException getParseError(final ODataRuntimeException e) {
+    if (e.getCause() instanceof BatchDeserializerException) {
+      return (BatchDeserializerException) e.getCause();
+    }
+    throw e;
+  }
+
+  private boolean isQuery(final BatchRequestPart part) {
+    return !part.isChangeSet() && part.getRequests().get(0).getMethod() == HttpMethod.GET;
+  }
+
+  /**
+   * Processes the request parts when their responses are requested.
+   * Only GET requests outside of change sets are collected first; they have no body and can be
+   * processed together, concurrently if parallel batch execution has been registered.
+   * A malformed part found after the response has been started ends the batch response
+   * with a 400 Bad Request response part.
+   */
+  private class ResponsePartIterator implements Iterator<ODataResponsePart> {
+    private final BatchFacade facade;
+    private final Iterator<BatchRequestPart> requestParts;
+    private final boolean continueOnError;
+    private final List<BatchRequestPart> pendingParts = new ArrayList<BatchRequestPart>();
+    private Iterator<ODataResponsePart> handledParts = Collections.<ODataResponsePart> emptyList().iterator();
+    private BatchDeserializerException parseError;
+    private boolean isStopped;
+
+    private ResponsePartIterator(final BatchFacade facade, final Iterator<BatchRequestPart> requestParts,
+        final boolean continueOnError) {
+      this.facade = facade;
+      this.requestParts = requestParts;
+      this.continueOnError = continueOnError;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (!handledParts.hasNext() && !isStopped && hasNextRequestPart()) {
+        BatchRequestPart part;
+        do {
+          part = requestParts.next();
+          pendingParts.add(part);
+        } while (isQuery(part) && hasNextRequestPart());
+        handlePendingParts();
+      }
+      if (!handledParts.hasNext() && !isStopped && parseError != null) {
+        handledParts = Collections.singletonList(createErrorPart(parseError)).iterator();
+        isStopped = true;
+      }
+      return handledParts.hasNext();
+    }
+
+    private boolean hasNextRequestPart() {
+      if (parseError == null) {
+        try {
+          return requestParts.hasNext();
+        } catch (final ODataRuntimeException e) {
+          parseError = getParseError(e);
+        }
+      }
+      return false;
+    }
+
+    private ODataResponsePart createErrorPart(final BatchDeserializerException e) {
+      final ODataResponse errorResponse = new ODataResponse();
+      errorResponse.setStatusCode(HttpStatusCode.BAD_REQUEST.getStatusCode());
+      errorResponse.setHeader(HttpHeader.CONTENT_TYPE, ContentType.APPLICATION_JSON.toContentTypeString());
+      try {
+        errorResponse.setContent(odata.createSerializer(ContentType.APPLICATION_JSON).error(
+            new ODataServerError()
+                .setStatusCode(HttpStatusCode.BAD_REQUEST.getStatusCode())
+                .setMessage(e.getTranslatedMessage(Locale.ROOT).getMessage())
+                .setException(e))
+            .getContent());
+      } catch (final SerializerException se) {
+        throw new ODataRuntimeException(se);
+      }
+      return new ODataResponsePart(errorResponse, false);
+    }
+
+    @Override
+    public ODataResponsePart next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return handledParts.next();
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    /** Handles the pending parts; processing stops after a failed part unless errors are to be ignored. */
+    private void handlePendingParts() {
+      final List<ODataResponsePart> responseParts;
+      try {
+        responseParts = facade.handleBatchRequests(pendingParts, continueOnError);
+      } catch (final ODataApplicationException e) {
+        throw new ODataRuntimeException(e);
+      } catch (final ODataLibraryException e) {
+        throw new ODataRuntimeException(e);
+      }
+      pendingParts.clear();
+      handledParts = responseParts.iterator(); // Also add failed responses.
+      final int statusCode = responseParts.get(responseParts.size() - 1).getResponses().get(0).getStatusCode();
+
+      if ((statusCode >= 400 && statusCode <= 600) && !continueOnError) {
+
+        // Perform some additional actions.
+        // ...
+
+        isStopped = true; // Stop processing, but serialize responses to all recent requests.
+      }
+    }
+  }
+
   @Override
   public ODataResponsePart processChangeSet(final BatchFacade facade, final List<ODataRequest> requests)
       throws ODataApplicationException, ODataLibraryException {
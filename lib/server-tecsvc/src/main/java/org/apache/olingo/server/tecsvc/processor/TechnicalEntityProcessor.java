@@ -23,8 +23,10 @@ import java.text.SimpleDateFormat;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 
 import org.apache.olingo.commons.api.data.ComplexValue;
 import org.apache.olingo.commons.api.data.ContextURL;
@@ -37,6 +39,7 @@ import org.apache.olingo.commons.api.data.Entity;
 import org.apache.olingo.commons.api.data.EntityCollection;
 import org.apache.olingo.commons.api.data.EntityIterator;
 import org.apache.olingo.commons.api.data.EntityMediaObject;
+import org.apache.olingo.commons.api.data.Link;
 import org.apache.olingo.commons.api.data.Operation;
 import org.apache.olingo.commons.api.data.Property;
 import org.apache.olingo.commons.api.data.ValueType;
@@ -61,6 +64,7 @@ import org.apache.olingo.server.api.processor.EntityProcessor;
 import org.apache.olingo.server.api.processor.MediaEntityProcessor;
 import org.apache.olingo.server.api.processor.ReferenceCollectionProcessor;
 import org.apache.olingo.server.api.processor.ReferenceProcessor;
+import org.apache.olingo.server.api.serializer.EdmAssistedSerializerOptions;
 import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
 import org.apache.olingo.server.api.serializer.EntitySerializerOptions;
 import org.apache.olingo.server.api.serializer.ReferenceCollectionSerializerOptions;
@@ -78,6 +82,9 @@ import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
 import org.apache.olingo.server.api.uri.queryoption.IdOption;
 import org.apache.olingo.server.api.uri.queryoption.SelectOption;
 import org.apache.olingo.server.api.uri.queryoption.SystemQueryOption;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
+import org.apache.olingo.server.core.uri.queryoption.apply.ApplyEvaluator;
+import org.apache.olingo.server.core.uri.queryoption.search.SearchIndex;
 import org.apache.olingo.server.tecsvc.async.AsyncProcessor;
 import org.apache.olingo.server.tecsvc.async.TechnicalAsyncService;
 import org.apache.olingo.server.tecsvc.data.DataProvider;
@@ -109,21 +116,77 @@ public class TechnicalEntityProcessor extends TechnicalProcessor
   @Override
   public void readEntityCollection(final ODataRequest request, final ODataResponse response, final UriInfo uriInfo,
       final ContentType requestedContentType) throws ODataApplicationException, ODataLibraryException {
+    if (uriInfo.getApplyOption() != null) {
+      readAppliedEntityCollection(request, response, uriInfo, requestedContentType);
+      return;
+    }
     validateOptions(uriInfo.asUriInfoResource());
 
     readEntityCollection(request, response, uriInfo, requestedContentType, false);
   }
 
+  /** Reads the entities of an entity set transformed by <code>$apply</code>. */
+  private void readAppliedEntityCollection(final ODataRequest request, final ODataResponse response,
+      final UriInfo uriInfo, final ContentType requestedContentType)
+      throws ODataApplicationException, ODataLibraryException {
+    final EdmEntitySet edmEntitySet = getEdmEntitySet(uriInfo.asUriInfoResource());
+    if (edmEntitySet == null || uriInfo.getUriResourceParts().size() > 1
+        || uriInfo.getSearchOption() != null || uriInfo.getExpandOption() != null
+        || uriInfo.getSelectOption() != null || uriInfo.getSkipTokenOption() != null) {
+      throw new ODataApplicationException("Not all of the specified options are supported.",
+          HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), Locale.ROOT);
+    }
+    final EntityCollection entitySetInitial = readEntityCollection(uriInfo);
+    EntityCollection entitySet;
+    try {
+      entitySet = new ApplyEvaluator().evaluate(uriInfo.getApplyOption(),
+          entitySetInitial == null ? new EntityCollection() : entitySetInitial);
+    } catch (final ExpressionVisitException e) {
+      throw new ODataApplicationException("Exception in $apply evaluation",
+          HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(), Locale.ROOT, e);
+    }
+
+    // The other system query options are applied to the result of the transformations.
+    FilterHandler.applyFilterSystemQuery(uriInfo.getFilterOption(), entitySet, uriInfo, serviceMetadata.getEdm());
+    CountHandler.applyCountSystemQueryOption(uriInfo.getCountOption(), entitySet);
+    OrderByHandler.applyOrderByOption(uriInfo.getOrderByOption(), entitySet, uriInfo, serviceMetadata.getEdm(),
+        OrderByHandler.getSortLimit(uriInfo.getSkipOption(), uriInfo.getTopOption(), Integer.MAX_VALUE));
+    SkipHandler.applySkipSystemQueryHandler(uriInfo.getSkipOption(), entitySet);
+    TopHandler.applyTopSystemQueryOption(uriInfo.getTopOption(), entitySet);
+
+    Set<String> names = new LinkedHashSet<String>();
+    for (final Entity entity : entitySet.getEntities()) {
+      for (final Property property : entity.getProperties()) {
+        names.add(property.getName());
+      }
+      for (final Link link : entity.getNavigationLinks()) {
+        names.add(link.getTitle());
+      }
+    }
+    final SerializerResult serializerResult = odata.createEdmAssistedSerializer(requestedContentType)
+        .entityCollection(serviceMetadata, edmEntitySet.getEntityType(), entitySet,
+            EdmAssistedSerializerOptions.with()
+                .contextURL(isODataMetadataNone(requestedContentType) ? null :
+                    ContextURL.with().entitySet(edmEntitySet)
+                        .selectList(names.isEmpty() ? null : String.join(",", names))
+                        .build())
+                .build());
+    response.setContent(serializerResult.getContent());
+    response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+    response.setHeader(HttpHeader.CONTENT_TYPE, requestedContentType.toContentTypeString());
+  }
+
   @Override
   public void countEntityCollection(final ODataRequest request, final ODataResponse response,
       final UriInfo uriInfo) throws ODataApplicationException, ODataLibraryException {
     validateOptions(uriInfo.asUriInfoResource());
-    getEdmEntitySet(uriInfo); // including checks
+    final EdmEntitySet edmEntitySet = getEdmEntitySet(uriInfo); // including checks
     final EntityCollection entitySetInitial = readEntityCollection(uriInfo);
     EntityCollection entitySet = new EntityCollection();
     entitySet.getEntities().addAll(entitySetInitial.getEntities());
     FilterHandler.applyFilterSystemQuery(uriInfo.getFilterOption(), entitySet, uriInfo, serviceMetadata.getEdm());
-    SearchHandler.applySearchSystemQueryOption(uriInfo.getSearchOption(), entitySet);
+    SearchHandler.applySearchSystemQueryOption(uriInfo.getSearchOption(), entitySet,
+        getSearchIndex(uriInfo, edmEntitySet));
     int count =  entitySet.getEntities().size();
     for (SystemQueryOption systemQueryOption : uriInfo.getSystemQueryOptions()) {
       if (systemQueryOption.getName().contains(DELTATOKEN)) {
@@ -543,6 +606,13 @@ public class TechnicalEntityProcessor extends TechnicalProcessor
     return type;
   }
 
+  /** Returns the search index of the entity set if the entities have to be searched. */
+  private SearchIndex getSearchIndex(final UriInfo uriInfo, final EdmEntitySet edmEntitySet)
+      throws ODataApplicationException {
+    return uriInfo.getSearchOption() == null || edmEntitySet == null ? null :
+        dataProvider.getSearchIndex(edmEntitySet);
+  }
+
   /*This method validates if the $ref is called directly on Singleton
    * Error is thrown when $ref is called on a Singleton as it is not implemented*/
   private void validateSingletonRef(boolean isReference, EdmEntitySet edmEntitySet) throws
@@ -614,14 +684,18 @@ public class TechnicalEntityProcessor extends TechnicalProcessor
     entitySet.getOperations().addAll(entitySetInitial.getOperations());
 
     // Apply system query options.
-    SearchHandler.applySearchSystemQueryOption(uriInfo.getSearchOption(), entitySet);
+    SearchHandler.applySearchSystemQueryOption(uriInfo.getSearchOption(), entitySet,
+        getSearchIndex(uriInfo, edmEntitySet));
     FilterHandler.applyFilterSystemQuery(uriInfo.getFilterOption(), entitySet, uriInfo, serviceMetadata.getEdm());
     CountHandler.applyCountSystemQueryOption(uriInfo.getCountOption(), entitySet);
-    OrderByHandler.applyOrderByOption(uriInfo.getOrderByOption(), entitySet, uriInfo, serviceMetadata.getEdm());
+    final Integer pageSize = odata.createPreferences(request.getHeaders(HttpHeader.PREFER)).getMaxPageSize();
+    // Only the entities surviving $skip, $top, and paging have to be sorted.
+    OrderByHandler.applyOrderByOption(uriInfo.getOrderByOption(), entitySet, uriInfo, serviceMetadata.getEdm(),
+        OrderByHandler.getSortLimit(uriInfo.getSkipOption(), uriInfo.getTopOption(),
+            ServerSidePagingHandler.getPageLimit(uriInfo.getSkipTokenOption(), edmEntitySet, pageSize)));
     SkipHandler.applySkipSystemQueryHandler(uriInfo.getSkipOption(), entitySet);
     TopHandler.applyTopSystemQueryOption(uriInfo.getTopOption(), entitySet);
 
-    final Integer pageSize = odata.createPreferences(request.getHeaders(HttpHeader.PREFER)).getMaxPageSize();
     final Integer serverPageSize = ServerSidePagingHandler.applyServerSidePaging(uriInfo.getSkipTokenOption(),
         entitySet,
         edmEntitySet,
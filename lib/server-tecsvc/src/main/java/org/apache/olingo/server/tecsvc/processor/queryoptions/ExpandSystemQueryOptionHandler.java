@@ -129,7 +129,8 @@ public class ExpandSystemQueryOptionHandler {
       throws ODataApplicationException {
 
     FilterHandler.applyFilterSystemQuery(filterOption, entitySet, uriInfo, edm);
-    OrderByHandler.applyOrderByOption(orderByOption, entitySet, uriInfo, edm);
+    OrderByHandler.applyOrderByOption(orderByOption, entitySet, uriInfo, edm,
+        OrderByHandler.getSortLimit(skipOption, topOption, Integer.MAX_VALUE));
     CountHandler.applyCountSystemQueryOption(countOption, entitySet);
     SkipHandler.applySkipSystemQueryHandler(skipOption, entitySet);
     TopHandler.applyTopSystemQueryOption(topOption, entitySet);
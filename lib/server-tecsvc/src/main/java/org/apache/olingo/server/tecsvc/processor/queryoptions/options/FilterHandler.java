@@ -20,6 +20,7 @@ package org.apache.olingo.server.tecsvc.processor.queryoptions.options;
 
 import java.util.Iterator;
 import java.util.Locale;
+import java.util.function.Predicate;
 
 import org.apache.olingo.commons.api.data.Entity;
 import org.apache.olingo.commons.api.data.EntityCollection;
@@ -32,6 +33,7 @@ import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.uri.UriInfoResource;
 import org.apache.olingo.server.api.uri.queryoption.FilterOption;
 import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
+import org.apache.olingo.server.core.uri.queryoption.expression.ExpressionCompiler;
 import org.apache.olingo.server.tecsvc.processor.queryoptions.expression.ExpressionVisitorImpl;
 import org.apache.olingo.server.tecsvc.processor.queryoptions.expression.operand.TypedOperand;
 import org.apache.olingo.server.tecsvc.processor.queryoptions.expression.operand.VisitorOperand;
@@ -48,6 +50,17 @@ public class FilterHandler {
       return;
     }
 
+    final Predicate<Entity> filter = ExpressionCompiler.compileFilterIfSupported(filterOption);
+    if (filter != null) {
+      final Iterator<Entity> iter = entitySet.getEntities().iterator();
+      while (iter.hasNext()) {
+        if (!filter.test(iter.next())) {
+          iter.remove();
+        }
+      }
+      return;
+    }
+
     try {
       final Iterator<Entity> iter = entitySet.getEntities().iterator();
 
@@ -30,18 +30,38 @@ import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.uri.UriInfoResource;
 import org.apache.olingo.server.api.uri.queryoption.OrderByItem;
 import org.apache.olingo.server.api.uri.queryoption.OrderByOption;
+import org.apache.olingo.server.api.uri.queryoption.SkipOption;
+import org.apache.olingo.server.api.uri.queryoption.TopOption;
 import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
+import org.apache.olingo.server.core.uri.queryoption.expression.CompiledOrderBy;
+import org.apache.olingo.server.core.uri.queryoption.expression.ExpressionCompiler;
 import org.apache.olingo.server.tecsvc.processor.queryoptions.expression.ExpressionVisitorImpl;
 import org.apache.olingo.server.tecsvc.processor.queryoptions.expression.operand.TypedOperand;
 
 public class OrderByHandler {
   public static void applyOrderByOption(final OrderByOption orderByOption, final EntityCollection entitySet,
       final UriInfoResource uriInfo, final Edm edm) throws ODataApplicationException {
+    applyOrderByOption(orderByOption, entitySet, uriInfo, edm, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Sorts the entity collection so that at least the first <code>limit</code> entities are in the right order.
+   * The order of the remaining entities is not specified.
+   * @see #getSortLimit(SkipOption, TopOption, int)
+   */
+  public static void applyOrderByOption(final OrderByOption orderByOption, final EntityCollection entitySet,
+      final UriInfoResource uriInfo, final Edm edm, final int limit) throws ODataApplicationException {
 
     if (orderByOption == null) {
       return;
     }
 
+    final CompiledOrderBy orderBy = ExpressionCompiler.compileOrderByIfSupported(orderByOption);
+    if (orderBy != null) {
+      orderBy.sort(entitySet.getEntities(), Math.max(limit, 0));
+      return;
+    }
+
     try {
       applyOrderByOptionInternal(orderByOption, entitySet, uriInfo, edm);
     } catch (SystemQueryOptionsRuntimeException e) {
@@ -55,6 +75,24 @@ public class OrderByHandler {
     }
   }
 
+  /**
+   * Determines how many leading entities have to be sorted if afterwards the given <code>$skip</code>
+   * and <code>$top</code> system query options and server-side paging are applied.
+   * @param skipOption the $skip option or <code>null</code>
+   * @param topOption the $top option or <code>null</code>
+   * @param pageLimit the number of entities server-side paging needs or {@link Integer#MAX_VALUE}
+   * @see ServerSidePagingHandler#getPageLimit
+   */
+  public static int getSortLimit(final SkipOption skipOption, final TopOption topOption, final int pageLimit) {
+    // Invalid values are reported later by the respective handlers; sort everything then.
+    final int skip = skipOption == null ? 0 : skipOption.getValue();
+    final int top = topOption == null ? Integer.MAX_VALUE : topOption.getValue();
+    if (skip < 0 || top < 0) {
+      return Integer.MAX_VALUE;
+    }
+    return (int) Math.min((long) skip + Math.min(top, pageLimit), Integer.MAX_VALUE);
+  }
+
   private static void applyOrderByOptionInternal(final OrderByOption orderByOption, final EntityCollection entitySet,
       final UriInfoResource uriInfo, final Edm edm) throws ODataApplicationException {
     Collections.sort(entitySet.getEntities(), new Comparator<Entity>() {
@@ -35,6 +35,7 @@ import org.apache.olingo.server.api.uri.queryoption.search.SearchBinary;
 import org.apache.olingo.server.api.uri.queryoption.search.SearchBinaryOperatorKind;
 import org.apache.olingo.server.api.uri.queryoption.search.SearchExpression;
 import org.apache.olingo.server.api.uri.queryoption.search.SearchTerm;
+import org.apache.olingo.server.core.uri.queryoption.search.SearchIndex;
 
 public class SearchHandler {
 
@@ -54,6 +55,22 @@ public class SearchHandler {
     }
   }
 
+  /**
+   * Applies the search option with the help of an index of the entities;
+   * without an index, all entities are searched.
+   * @param searchOption the search option or <code>null</code>
+   * @param entitySet the entities to search; non-matching entities are removed
+   * @param searchIndex the index or <code>null</code>
+   */
+  public static void applySearchSystemQueryOption(final SearchOption searchOption, EntityCollection entitySet,
+      final SearchIndex searchIndex) throws ODataApplicationException {
+    if (searchIndex == null) {
+      applySearchSystemQueryOption(searchOption, entitySet);
+    } else if (searchOption != null) {
+      searchIndex.filter(searchOption.getSearchExpression(), entitySet.getEntities());
+    }
+  }
+
   private static boolean isTrue(final SearchTerm term, final Property property) {
     if (property.isNull()) {
       return false;
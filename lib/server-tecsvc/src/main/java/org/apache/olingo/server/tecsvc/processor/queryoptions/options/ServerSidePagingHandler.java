@@ -74,6 +74,23 @@ public class ServerSidePagingHandler {
     return null;
   }
 
+  /**
+   * Determines how many entities of the collection at hand server-side paging will use at most,
+   * i.e., the entities on all pages up to the requested one.
+   * @return the number of entities or {@link Integer#MAX_VALUE} if no paging will be done
+   * @see #applyServerSidePaging(SkipTokenOption, EntityCollection, EdmEntitySet, String, Integer)
+   */
+  public static int getPageLimit(final SkipTokenOption skipTokenOption, final EdmEntitySet edmEntitySet,
+      final Integer preferredPageSize) throws ODataApplicationException {
+    if (edmEntitySet != null && shouldApplyServerSidePaging(edmEntitySet)) {
+      final int pageSize = getPageSize(getPageSize(skipTokenOption), preferredPageSize);
+      final long limit = (getPage(skipTokenOption) + 1L) * pageSize;
+      // The next link depends only on the number of entities, not on their order.
+      return limit < 0 ? Integer.MAX_VALUE : (int) Math.min(limit, Integer.MAX_VALUE);
+    }
+    return Integer.MAX_VALUE;
+  }
+
   private static URI createNextLink(final String rawRequestUri, final int page, final int pageSize)
       throws ODataApplicationException {
     // Remove a maybe existing skiptoken, making sure that the query part is not empty.
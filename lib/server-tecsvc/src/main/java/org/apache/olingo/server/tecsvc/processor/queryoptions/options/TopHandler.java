@@ -40,8 +40,8 @@ public class TopHandler {
   }
 
   static void reduceToSize(final EntityCollection entitySet, final int n) {
-    while (entitySet.getEntities().size() > n) {
-      entitySet.getEntities().remove(entitySet.getEntities().size() - 1);
+    if (entitySet.getEntities().size() > n) {
+      entitySet.getEntities().subList(n, entitySet.getEntities().size()).clear();
     }
   }
 }
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.commons.api.edm.provider.CsdlEntitySet;
+import org.apache.olingo.commons.api.edm.provider.CsdlEntityType;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.ex.ODataException;
+import org.apache.olingo.commons.core.edm.AbstractEdm;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.apache.olingo.server.tecsvc.provider.EntityTypeProvider;
+import org.junit.Test;
+
+public class EdmCachingTest {
+
+  @Test
+  public void freezeResolvesAllElements() {
+    final CountingProvider provider = new CountingProvider();
+    final Edm edm = createEdm(provider);
+    ((AbstractEdm) edm).freeze();
+    final int entityTypeCalls = provider.entityTypeCalls.get();
+    final int entitySetCalls = provider.entitySetCalls.get();
+
+    assertNotNull(edm.getEntityType(EntityTypeProvider.nameETAllPrim));
+    assertNotNull(edm.getEntityType(EntityTypeProvider.nameETKeyNav));
+    assertNotNull(edm.getEntityContainer().getEntitySet("ESAllPrim"));
+    assertNotNull(edm.getEntityContainer().getEntitySet("ESKeyNav"));
+
+    assertEquals(entityTypeCalls, provider.entityTypeCalls.get());
+    assertEquals(entitySetCalls, provider.entitySetCalls.get());
+  }
+
+  @Test
+  public void concurrentLookupsReturnSameInstance() throws Exception {
+    final Edm edm = createEdm(new CountingProvider());
+    final CountDownLatch start = new CountDownLatch(1);
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      final List<Future<EdmEntityType>> results = new ArrayList<Future<EdmEntityType>>();
+      for (int i = 0; i < 16; i++) {
+        results.add(executor.submit(new Callable<EdmEntityType>() {
+          @Override
+          public EdmEntityType call() throws InterruptedException {
+            start.await();
+            return edm.getEntityType(EntityTypeProvider.nameETAllPrim);
+          }
+        }));
+      }
+      start.countDown();
+      final EdmEntityType entityType = results.get(0).get();
+      assertNotNull(entityType);
+      for (final Future<EdmEntityType> result : results) {
+        assertSame(entityType, result.get());
+      }
+      assertSame(entityType, edm.getEntityType(EntityTypeProvider.nameETAllPrim));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private Edm createEdm(final EdmTechProvider provider) {
+    return OData.newInstance().createServiceMetadata(provider, Collections.<EdmxReference> emptyList()).getEdm();
+  }
+
+  private static class CountingProvider extends EdmTechProvider {
+    private final AtomicInteger entityTypeCalls = new AtomicInteger();
+    private final AtomicInteger entitySetCalls = new AtomicInteger();
+
+    @Override
+    public CsdlEntityType getEntityType(final FullQualifiedName entityTypeName) throws ODataException {
+      entityTypeCalls.incrementAndGet();
+      return super.getEntityType(entityTypeName);
+    }
+
+    @Override
+    public CsdlEntitySet getEntitySet(final FullQualifiedName entityContainer, final String entitySetName)
+        throws ODataException {
+      entitySetCalls.incrementAndGet();
+      return super.getEntitySet(entityContainer, entitySetName);
+    }
+  }
+}
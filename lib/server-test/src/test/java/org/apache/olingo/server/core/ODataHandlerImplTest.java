@@ -34,11 +34,17 @@ import static org.mockito.Mockito.verifyZeroInteractions;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.olingo.commons.api.edm.FullQualifiedName;
@@ -402,6 +408,48 @@ public class ODataHandlerImplTest {
     assertNull(handler.getUriInfo());
   }
 
+  @Test
+  public void sharedHandlerKeepsRequestStateApart() throws Exception {
+    final OData odata = OData.newInstance();
+    final ServiceMetadata metadata = odata.createServiceMetadata(
+        new EdmTechProvider(), Collections.<EdmxReference> emptyList());
+    final ODataHandlerImpl handler = new ODataHandlerImpl(odata, metadata, new ServerCoreDebugger(odata));
+
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+        final boolean valid = i % 2 == 0;
+        results.add(executor.submit(new Callable<Boolean>() {
+          @Override
+          public Boolean call() {
+            ODataRequest request = new ODataRequest();
+            request.setMethod(HttpMethod.GET);
+            request.setRawBaseUri(BASE_URI);
+            request.setRawODataPath(valid ? "$metadata" : "ESNotExisting");
+            final ODataRequestContext context = new ODataRequestContext(new ServerCoreDebugger(odata));
+            final ODataResponse response = handler.process(request, context);
+            // The deprecated getters see the request of the current thread.
+            if (handler.getUriInfo() != context.getUriInfo()
+                || handler.getLastThrownException() != context.getLastThrownException()) {
+              return false;
+            }
+            return valid ?
+                response.getStatusCode() == HttpStatusCode.OK.getStatusCode()
+                    && context.getUriInfo() != null && context.getLastThrownException() == null :
+                response.getStatusCode() == HttpStatusCode.NOT_FOUND.getStatusCode()
+                    && context.getUriInfo() == null && context.getLastThrownException() != null;
+          }
+        }));
+      }
+      for (final Future<Boolean> result : results) {
+        assertTrue(result.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
   @Test
   public void dispatchBatch() throws Exception {
     final String uri = "$batch";
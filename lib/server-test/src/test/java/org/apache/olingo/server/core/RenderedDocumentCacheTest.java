@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataLibraryException;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.RenderedDocumentCache;
+import org.apache.olingo.server.api.RenderedDocumentCache.Document;
+import org.apache.olingo.server.api.ResponseCompression;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.etag.ServiceMetadataETagSupport;
+import org.apache.olingo.server.api.processor.DefaultProcessor;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RenderedDocumentCacheTest {
+
+  private static final RenderedDocumentCache.Renderer FAILING_RENDERER = new RenderedDocumentCache.Renderer() {
+    @Override
+    public InputStream render() throws ODataLibraryException {
+      fail("The document must be taken from the cache.");
+      return null;
+    }
+  };
+
+  private String metadataETag = "W/\"1\"";
+  private ServiceMetadata serviceMetadata;
+  private DefaultProcessor processor;
+
+  @Before
+  public void setUp() {
+    final OData odata = OData.newInstance();
+    serviceMetadata = odata.createServiceMetadata(new EdmTechProvider(), Collections.<EdmxReference> emptyList(),
+        new ServiceMetadataETagSupport() {
+          @Override
+          public String getMetadataETag() {
+            return metadataETag;
+          }
+
+          @Override
+          public String getServiceDocumentETag() {
+            return null;
+          }
+        });
+    processor = new DefaultProcessor();
+    processor.init(odata, serviceMetadata);
+  }
+
+  @Test
+  public void metadataDocumentIsRenderedOnce() throws Exception {
+    final byte[] content = read(readMetadata(null, null).getContent());
+    assertArrayEquals(content, read(readMetadata(null, null).getContent()));
+    assertArrayEquals(content, serviceMetadata.getRenderedDocumentCache()
+        .get(Document.METADATA, ContentType.APPLICATION_XML, metadataETag, FAILING_RENDERER).getContent());
+  }
+
+  @Test
+  public void changedETag() throws Exception {
+    readMetadata(null, null);
+    metadataETag = "W/\"2\"";
+    final ODataResponse response = readMetadata(null, null);
+    assertEquals(metadataETag, response.getHeader(HttpHeader.ETAG));
+    assertEquals(metadataETag, serviceMetadata.getRenderedDocumentCache()
+        .get(Document.METADATA, ContentType.APPLICATION_XML, metadataETag, FAILING_RENDERER).getETag());
+  }
+
+  @Test
+  public void noCacheWithoutETag() throws Exception {
+    final OData odata = OData.newInstance();
+    assertNull(odata.createServiceMetadata(new EdmTechProvider(), Collections.<EdmxReference> emptyList())
+        .getRenderedDocumentCache());
+
+    metadataETag = null;
+    final ODataResponse response = readMetadata(null, null);
+    assertNull(response.getHeader(HttpHeader.ETAG));
+    final byte[] content = read(response.getContent());
+    assertEquals(Integer.toString(content.length), response.getHeader(HttpHeader.CONTENT_LENGTH));
+    final int[] count = new int[1];
+    final RenderedDocumentCache.Renderer renderer = new RenderedDocumentCache.Renderer() {
+      @Override
+      public InputStream render() throws ODataLibraryException {
+        count[0]++;
+        return new ByteArrayInputStream(content);
+      }
+    };
+    serviceMetadata.getRenderedDocumentCache().get(Document.METADATA, ContentType.APPLICATION_XML, null, renderer);
+    serviceMetadata.getRenderedDocumentCache().get(Document.METADATA, ContentType.APPLICATION_XML, null, renderer);
+    assertEquals(2, count[0]);
+  }
+
+  @Test
+  public void notModified() throws Exception {
+    final ODataResponse response = readMetadata(metadataETag, null);
+    assertEquals(HttpStatusCode.NOT_MODIFIED.getStatusCode(), response.getStatusCode());
+    assertNull(response.getContent());
+  }
+
+  @Test
+  public void notCompressedWithoutResponseCompression() throws Exception {
+    final ODataResponse response = readMetadata(null, "gzip");
+    assertNull(response.getHeader(HttpHeader.CONTENT_ENCODING));
+    assertNull(response.getHeader(HttpHeader.VARY));
+    assertEquals(Integer.toString(read(response.getContent()).length),
+        response.getHeader(HttpHeader.CONTENT_LENGTH));
+  }
+
+  @Test
+  public void gzip() throws Exception {
+    final byte[] content = read(readMetadata(null, null).getContent());
+    final ODataResponse response = compress(ResponseCompression.with().build(), "deflate;q=0.8, gzip");
+    assertEquals("gzip", response.getHeader(HttpHeader.CONTENT_ENCODING));
+    final byte[] compressed = read(response.getContent());
+    assertEquals(Integer.toString(compressed.length), response.getHeader(HttpHeader.CONTENT_LENGTH));
+    assertArrayEquals(content, read(new GZIPInputStream(new ByteArrayInputStream(compressed))));
+
+    assertNull(compress(ResponseCompression.with().build(), "gzip;q=0").getHeader(HttpHeader.CONTENT_ENCODING));
+  }
+
+  @Test
+  public void deflate() throws Exception {
+    final byte[] content = read(readMetadata(null, null).getContent());
+    final ODataResponse response = compress(ResponseCompression.with().build(), "deflate, gzip;q=0");
+    assertEquals("deflate", response.getHeader(HttpHeader.CONTENT_ENCODING));
+    assertArrayEquals(content, read(new InflaterInputStream(response.getContent())));
+    assertEquals("deflate", compress(ResponseCompression.with().encodings(ResponseCompression.DEFLATE).build(),
+        "gzip, deflate").getHeader(HttpHeader.CONTENT_ENCODING));
+  }
+
+  @Test
+  public void compressionSettings() throws Exception {
+    final int length = read(readMetadata(null, null).getContent()).length;
+    assertNull(compress(ResponseCompression.with().minimumSize(length + 1).build(), "gzip")
+        .getHeader(HttpHeader.CONTENT_ENCODING));
+
+    final byte[] stored = read(compress(ResponseCompression.with().level(0).build(), "gzip").getContent());
+    final byte[] compressed = read(compress(ResponseCompression.with().level(9).build(), "gzip").getContent());
+    assertTrue(stored.length > length);
+    assertTrue(compressed.length < length);
+  }
+
+  @Test
+  public void serviceDocument() throws Exception {
+    final ODataRequest request = new ODataRequest();
+    request.setMethod(HttpMethod.GET);
+    ODataResponse response = new ODataResponse();
+    processor.readServiceDocument(request, response, null, ContentType.JSON);
+    final byte[] content = read(response.getContent());
+    assertEquals(Integer.toString(content.length), response.getHeader(HttpHeader.CONTENT_LENGTH));
+
+    response = new ODataResponse();
+    processor.readServiceDocument(request, response, null, ContentType.JSON);
+    assertArrayEquals(content, read(response.getContent()));
+  }
+
+  private ODataResponse readMetadata(final String ifNoneMatch, final String acceptEncoding) throws Exception {
+    final ODataRequest request = new ODataRequest();
+    request.setMethod(HttpMethod.GET);
+    if (ifNoneMatch != null) {
+      request.setHeader(HttpHeader.IF_NONE_MATCH, ifNoneMatch);
+    }
+    if (acceptEncoding != null) {
+      request.setHeader(HttpHeader.ACCEPT_ENCODING, acceptEncoding);
+    }
+    final ODataResponse response = new ODataResponse();
+    processor.readMetadata(request, response, null, ContentType.APPLICATION_XML);
+    return response;
+  }
+
+  private ODataResponse compress(final ResponseCompression compression, final String acceptEncoding)
+      throws Exception {
+    final ODataResponse response = readMetadata(null, acceptEncoding);
+    assertNull(new ResponseCompressor(compression).selectEncoding(
+        Collections.singletonList(acceptEncoding), false, response));
+    return response;
+  }
+
+  private byte[] read(final InputStream stream) throws Exception {
+    final ByteArrayOutputStream result = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[8192];
+    int count;
+    while ((count = stream.read(buffer)) >= 0) {
+      result.write(buffer, 0, count);
+    }
+    return result.toByteArray();
+  }
+}
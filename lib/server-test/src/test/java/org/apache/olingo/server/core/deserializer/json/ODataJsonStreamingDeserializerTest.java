@@ -0,0 +1,261 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.deserializer.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.commons.api.data.Annotation;
+import org.apache.olingo.commons.api.data.ComplexValue;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Link;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.deserializer.DeserializerException;
+import org.apache.olingo.server.api.deserializer.DeserializerResult;
+import org.apache.olingo.server.api.deserializer.ODataDeserializer;
+import org.apache.olingo.server.api.uri.queryoption.ExpandItem;
+import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
+import org.apache.olingo.server.core.deserializer.AbstractODataDeserializerTest;
+import org.junit.Test;
+
+public class ODataJsonStreamingDeserializerTest extends AbstractODataDeserializerTest {
+
+  private static final ContentType CONTENT_TYPE_JSON_STREAMING =
+      ContentType.create(ContentType.JSON, ContentType.PARAMETER_ODATA_STREAMING, "true");
+  private static final List<String> V401 = Collections.singletonList("4.01");
+  private static final OData odata = OData.newInstance();
+
+  @Test
+  public void selectedByContentTypeParameter() throws Exception {
+    assertTrue(odata.createDeserializer(CONTENT_TYPE_JSON_STREAMING, metadata)
+        instanceof ODataJsonStreamingDeserializer);
+    assertTrue(odata.createDeserializer(CONTENT_TYPE_JSON_STREAMING) instanceof ODataJsonStreamingDeserializer);
+    assertTrue(odata.createDeserializer(CONTENT_TYPE_JSON_STREAMING, metadata, V401)
+        instanceof ODataJsonStreamingDeserializer);
+    assertEquals(ODataJsonDeserializer.class, odata.createDeserializer(ContentType.JSON, metadata).getClass());
+  }
+
+  @Test
+  public void entityCollections() throws Exception {
+    assertSameEntityCollection(getFileContent("ESAllPrim.json"), "ETAllPrim");
+    assertSameEntityCollection(getFileContent("ESCompCollComp.json"), "ETCompCollComp");
+    assertSameEntityCollection("{\"value\":[],\"@odata.context\":\"$metadata#ESAllPrim\"}", "ETAllPrim");
+  }
+
+  @Test
+  public void entities() throws Exception {
+    assertSameEntity(getFileContent("EntityETMixEnumDefCollComp.json"), "ETMixEnumDefCollComp", null);
+    assertSameEntity(getFileContent("EntityESAllPrimExpandedNavPropertyETTwoPrimOne.json"), "ETAllPrim", null);
+    assertSameEntity(getFileContent("EntityESAllPrimExpandedNavPropertyETTwoPrimMany.json"), "ETAllPrim", null);
+    assertSameEntity(getFileContent("EntityESAllPrimExpandedNavPropertyETTwoPrimManyWithODataAnnotations.json"),
+        "ETAllPrim", null);
+    assertSameEntity(getFileContent("UnbalancedESAllPrimFeed.json"), "ETAllPrim", null);
+    assertSameEntity(getFileContent("EntityESAllPrimExpandedNavPropertyETTwoPrimManyDelta.json"),
+        "ETAllPrim", V401);
+    assertSameEntity(getFileContent("EntityESAllPrimExpandedNavPropertyETTwoPrimManyWithCustomAnnotations.json"),
+        "ETAllPrim", V401);
+  }
+
+  @Test
+  public void fieldOrderDoesNotMatter() throws Exception {
+    assertSameEntity("{\"NavPropertyETTwoPrimOne\":{\"PropertyString\":\"a\",\"PropertyInt16\":1},"
+        + "\"PropertyString\":\"b\",\"NavPropertyETTwoPrimMany@odata.bind\":[\"ESAllPrim(1)\"],"
+        + "\"PropertyInt16\":2}", "ETAllPrim", null);
+  }
+
+  @Test
+  public void derivedTypeAfterItsProperties() throws Exception {
+    final String entityString = "{\"PropertyInt16\":32767,"
+        + "\"AdditionalPropertyString_5\":\"Additional\","
+        + "\"@odata.type\":\"#olingo.odata.test1.ETBase\"}";
+    assertSameEntity(entityString, "ETTwoPrim", null);
+    assertEquals("olingo.odata.test1.ETBase", streaming(entityString, "ETTwoPrim", null).getEntity().getType());
+  }
+
+  @Test
+  public void sameErrors() throws Exception {
+    assertSameError("[]", "ETAllPrim", DeserializerException.MessageKeys.JSON_SYNTAX_EXCEPTION);
+    assertSameError("{\"PropertyInt16\":1", "ETAllPrim", DeserializerException.MessageKeys.JSON_SYNTAX_EXCEPTION);
+    assertSameError("{\"PropertyInt16\":1,\"PropertyInt16\":2}", "ETAllPrim",
+        DeserializerException.MessageKeys.DUPLICATE_PROPERTY);
+    assertSameError("{\"PropertyComp\":{\"PropertyInt16\":1,\"PropertyInt16\":2}}", "ETCompAllPrim",
+        DeserializerException.MessageKeys.DUPLICATE_PROPERTY);
+    assertSameError("{\"Unknown\":1}", "ETAllPrim", DeserializerException.MessageKeys.UNKNOWN_CONTENT);
+    assertSameError("{\"@custom\":1}", "ETAllPrim", DeserializerException.MessageKeys.NOT_IMPLEMENTED);
+    assertSameError("{\"PropertyInt16\":null}", "ETAllPrim", DeserializerException.MessageKeys.INVALID_NULL_PROPERTY);
+    assertSameError("{\"NavPropertyETTwoPrimMany\":null}", "ETAllPrim",
+        DeserializerException.MessageKeys.INVALID_NULL_PROPERTY);
+    assertSameError("{\"NavPropertyETTwoPrimMany\":{}}", "ETAllPrim",
+        DeserializerException.MessageKeys.INVALID_VALUE_FOR_NAVIGATION_PROPERTY);
+    assertSameError("{\"NavPropertyETTwoPrimOne\":[]}", "ETAllPrim",
+        DeserializerException.MessageKeys.INVALID_VALUE_FOR_NAVIGATION_PROPERTY);
+    assertSameError("{\"NavPropertyETTwoPrimMany\":[1]}", "ETAllPrim",
+        DeserializerException.MessageKeys.INVALID_ENTITY);
+    assertSameError("{\"@odata.type\":\"#olingo.odata.test1.ETAllPrim\"}", "ETTwoPrim",
+        DeserializerException.MessageKeys.UNKNOWN_CONTENT);
+
+    assertSameCollectionError("{}", "ETAllPrim", DeserializerException.MessageKeys.VALUE_ARRAY_NOT_PRESENT);
+    assertSameCollectionError("{\"value\":{}}", "ETAllPrim",
+        DeserializerException.MessageKeys.VALUE_TAG_MUST_BE_AN_ARRAY);
+    assertSameCollectionError("{\"value\":[[]]}", "ETAllPrim", DeserializerException.MessageKeys.INVALID_ENTITY);
+    assertSameCollectionError("{\"value\":[],\"value\":[]}", "ETAllPrim",
+        DeserializerException.MessageKeys.DUPLICATE_PROPERTY);
+    assertSameCollectionError("{\"value\":[],\"other\":1}", "ETAllPrim",
+        DeserializerException.MessageKeys.UNKNOWN_CONTENT);
+  }
+
+  private void assertSameEntity(final String content, final String entityTypeName, final List<String> versions)
+      throws DeserializerException {
+    final DeserializerResult expected = deserializer(ContentType.JSON, versions)
+        .entity(stream(content), getEntityType(entityTypeName));
+    final DeserializerResult actual = streaming(content, entityTypeName, versions);
+    assertEquals(describe(expected.getEntity()), describe(actual.getEntity()));
+    assertEquals(toString(expected.getExpandTree()), toString(actual.getExpandTree()));
+  }
+
+  private void assertSameEntityCollection(final String content, final String entityTypeName)
+      throws DeserializerException {
+    final EdmEntityType entityType = getEntityType(entityTypeName);
+    final List<Entity> expected = deserializer(ContentType.JSON, null)
+        .entityCollection(stream(content), entityType).getEntityCollection().getEntities();
+    final List<Entity> actual = deserializer(CONTENT_TYPE_JSON_STREAMING, null)
+        .entityCollection(stream(content), entityType).getEntityCollection().getEntities();
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(describe(expected.get(i)), describe(actual.get(i)));
+    }
+  }
+
+  private void assertSameError(final String content, final String entityTypeName,
+      final DeserializerException.MessageKeys messageKey) throws DeserializerException {
+    for (final ContentType contentType : new ContentType[] { ContentType.JSON, CONTENT_TYPE_JSON_STREAMING }) {
+      try {
+        deserializer(contentType, null).entity(stream(content), getEntityType(entityTypeName));
+        fail("Expected exception not thrown for " + contentType);
+      } catch (final DeserializerException e) {
+        assertEquals(messageKey, e.getMessageKey());
+      }
+    }
+  }
+
+  private void assertSameCollectionError(final String content, final String entityTypeName,
+      final DeserializerException.MessageKeys messageKey) throws DeserializerException {
+    for (final ContentType contentType : new ContentType[] { ContentType.JSON, CONTENT_TYPE_JSON_STREAMING }) {
+      try {
+        deserializer(contentType, null).entityCollection(stream(content), getEntityType(entityTypeName));
+        fail("Expected exception not thrown for " + contentType);
+      } catch (final DeserializerException e) {
+        assertEquals(messageKey, e.getMessageKey());
+      }
+    }
+  }
+
+  private DeserializerResult streaming(final String content, final String entityTypeName,
+      final List<String> versions) throws DeserializerException {
+    return deserializer(CONTENT_TYPE_JSON_STREAMING, versions).entity(stream(content), getEntityType(entityTypeName));
+  }
+
+  private ODataDeserializer deserializer(final ContentType contentType, final List<String> versions)
+      throws DeserializerException {
+    return versions == null ?
+        odata.createDeserializer(contentType, metadata) :
+        odata.createDeserializer(contentType, metadata, versions);
+  }
+
+  private EdmEntityType getEntityType(final String entityTypeName) {
+    return edm.getEntityType(new FullQualifiedName(NAMESPACE, entityTypeName));
+  }
+
+  private String getFileContent(final String fileName) throws IOException {
+    return IOUtils.toString(getFileAsStream(fileName), StandardCharsets.UTF_8);
+  }
+
+  private static InputStream stream(final String content) {
+    return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /** Describes the content of an entity; binary and date values do not compare well with equals. */
+  private static String describe(final Entity entity) {
+    if (entity == null) {
+      return "null";
+    }
+    return entity.getType() + ' ' + entity.getId() + ' ' + describe(entity.getAnnotations())
+        + describe(entity.getProperties()) + describe(entity.getNavigationLinks())
+        + describe(entity.getNavigationBindings());
+  }
+
+  private static String describe(final Object value) {
+    if (value instanceof Entity) {
+      return describe((Entity) value);
+    } else if (value instanceof Property) {
+      final Property property = (Property) value;
+      return property.getName() + ':' + property.getType() + ':' + property.getValueType() + '='
+          + describe(property.getValue()) + describe(property.getAnnotations());
+    } else if (value instanceof ComplexValue) {
+      return describe(((ComplexValue) value).getValue()) + describe(((ComplexValue) value).getNavigationLinks());
+    } else if (value instanceof Link) {
+      final Link link = (Link) value;
+      return link.getTitle() + ':' + link.getType() + ':' + link.getBindingLink() + ':' + link.getBindingLinks()
+          + describe(link.getInlineEntity()) + describe(link.getAnnotations())
+          + (link.getInlineEntitySet() == null ? "" : describe(link.getInlineEntitySet().getEntities()));
+    } else if (value instanceof Annotation) {
+      final Annotation annotation = (Annotation) value;
+      return annotation.getTerm() + '=' + describe(annotation.getValue());
+    } else if (value instanceof List) {
+      StringBuilder result = new StringBuilder("[");
+      for (final Object item : (List<?>) value) {
+        result.append(describe(item)).append(',');
+      }
+      return result.append(']').toString();
+    } else if (value instanceof byte[]) {
+      return Arrays.toString((byte[]) value);
+    } else if (value instanceof Calendar) {
+      return String.valueOf(((Calendar) value).getTimeInMillis());
+    } else {
+      return String.valueOf(value);
+    }
+  }
+
+  private static String toString(final ExpandOption expandOption) {
+    if (expandOption == null) {
+      return "";
+    }
+    StringBuilder result = new StringBuilder("(");
+    for (final ExpandItem item : expandOption.getExpandItems()) {
+      result.append(item.getResourcePath().getUriResourceParts().get(0).getSegmentValue())
+          .append(toString(item.getExpandOption()));
+    }
+    return result.append(')').toString();
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.core.query.sql.SqlRenderer;
+import org.apache.olingo.server.core.query.sql.SqlStatement;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+
+public class QueryTranslatorTest {
+
+  private static final OData odata = OData.newInstance();
+  private static final Edm edm = odata.createServiceMetadata(new EdmTechProvider(),
+      Collections.<EdmxReference> emptyList()).getEdm();
+
+  private final QueryTranslator translator = new QueryTranslator();
+  private final SqlRenderer renderer = new SqlRenderer();
+
+  @Test
+  public void entitySet() throws Exception {
+    final RelationalQuery query = translate("ESAllPrim", null);
+    assertEquals("ESAllPrim", query.getEntitySet().getName());
+    assertTrue(query.getColumns().isEmpty());
+    assertEquals("SELECT * FROM \"ESAllPrim\"", render(query).getSql());
+    assertEquals("SELECT COUNT(*) FROM \"ESAllPrim\"", renderer.renderCount(query).getSql());
+  }
+
+  @Test
+  public void filterOrderByPaging() throws Exception {
+    final RelationalQuery query = translate("ESAllPrim",
+        "$filter=PropertyInt16 gt 5 and PropertyString ne 'x'&$orderby=PropertyDouble desc,PropertyInt16"
+            + "&$skip=2&$top=10&$count=true");
+    assertTrue(query.isCountRequested());
+    assertFalse(query.isCountOnly());
+    assertEquals(Integer.valueOf(2), query.getOffset());
+    assertEquals(Integer.valueOf(10), query.getLimit());
+    final SqlStatement statement = render(query);
+    assertEquals("SELECT * FROM \"ESAllPrim\""
+        + " WHERE ((\"PropertyInt16\" > ?) AND (\"PropertyString\" <> ? OR \"PropertyString\" IS NULL))"
+        + " ORDER BY \"PropertyDouble\" DESC NULLS LAST, \"PropertyInt16\" ASC NULLS FIRST"
+        + " OFFSET ? ROWS FETCH FIRST ? ROWS ONLY", statement.getSql());
+    assertEquals(Arrays.<Object> asList((byte) 5, "x", 2, 10), statement.getParameters());
+    assertEquals("SELECT COUNT(*) FROM \"ESAllPrim\""
+        + " WHERE ((\"PropertyInt16\" > ?) AND (\"PropertyString\" <> ? OR \"PropertyString\" IS NULL))",
+        renderer.renderCount(query).getSql());
+  }
+
+  @Test
+  public void nullComparison() throws Exception {
+    assertEquals("SELECT * FROM \"ESAllPrim\" WHERE (\"PropertyString\" IS NULL)",
+        render(translate("ESAllPrim", "$filter=PropertyString eq null")).getSql());
+    assertEquals("SELECT * FROM \"ESAllPrim\" WHERE (\"PropertyString\" IS NOT NULL)",
+        render(translate("ESAllPrim", "$filter=null ne PropertyString")).getSql());
+  }
+
+  @Test
+  public void functionsAndOperators() throws Exception {
+    SqlStatement statement = render(translate("ESAllPrim",
+        "$filter=contains(PropertyString,'a_b') or startswith(PropertyString,'c')"
+            + " or endswith(PropertyString,'%25') or not (length(PropertyString) eq 3)"));
+    assertEquals("SELECT * FROM \"ESAllPrim\" WHERE ((((\"PropertyString\" LIKE ? ESCAPE '\\')"
+        + " OR (\"PropertyString\" LIKE ? ESCAPE '\\')) OR (\"PropertyString\" LIKE ? ESCAPE '\\'))"
+        + " OR ((CHAR_LENGTH(\"PropertyString\") = ?) IS NOT TRUE))", statement.getSql());
+    assertEquals(Arrays.<Object> asList("%a\\_b%", "c%", "%\\%", (byte) 3), statement.getParameters());
+
+    statement = render(translate("ESAllPrim",
+        "$filter=PropertyInt32 add 1 mod 2 le -PropertyInt64 and year(PropertyDate) eq 2012"
+            + " and tolower(substring(PropertyString,1,2)) eq concat('a','b')"
+            + " and PropertyDecimal in (1.5,2)"));
+    assertEquals("SELECT * FROM \"ESAllPrim\" WHERE (((((\"PropertyInt32\" + MOD(?, ?))"
+        + " <= (- \"PropertyInt64\")) AND (EXTRACT(YEAR FROM \"PropertyDate\") = ?))"
+        + " AND (LOWER(SUBSTRING(\"PropertyString\" FROM ? + 1 FOR ?)) = (? || ?)))"
+        + " AND (\"PropertyDecimal\" IN (?, ?)))", statement.getSql());
+    assertEquals(Arrays.<Object> asList((byte) 1, (byte) 2, (short) 2012, (byte) 1, (byte) 2, "a", "b",
+        new BigDecimal("1.5"), (byte) 2), statement.getParameters());
+
+    statement = render(translate("ESAllPrim",
+        "$filter=indexof(PropertyString,PropertyString) eq 0 and contains(PropertyString,PropertyString)"
+            + " and endswith(PropertyString,PropertyString)"));
+    assertEquals("SELECT * FROM \"ESAllPrim\" WHERE ((((POSITION(\"PropertyString\" IN \"PropertyString\") - 1) = ?)"
+        + " AND (POSITION(\"PropertyString\" IN \"PropertyString\") > 0))"
+        + " AND (SUBSTRING(\"PropertyString\" FROM CHAR_LENGTH(\"PropertyString\")"
+        + " - CHAR_LENGTH(\"PropertyString\") + 1) = \"PropertyString\"))", statement.getSql());
+  }
+
+  @Test
+  public void dateValues() throws Exception {
+    final SqlStatement statement = render(translate("ESAllPrim",
+        "$filter=PropertyDate eq 2012-12-03 and PropertyTimeOfDay lt 03:26:05"));
+    assertEquals(java.sql.Date.valueOf("2012-12-03"), statement.getParameters().get(0));
+    assertEquals(java.sql.Time.valueOf("03:26:05"), statement.getParameters().get(1));
+  }
+
+  @Test
+  public void keysAndCount() throws Exception {
+    SqlStatement statement = render(translate("ESTwoKeyNav(PropertyInt16=1,PropertyString='2')", null));
+    assertEquals("SELECT * FROM \"ESTwoKeyNav\" WHERE ((\"PropertyInt16\" = ?) AND (\"PropertyString\" = ?))",
+        statement.getSql());
+    assertEquals(Arrays.<Object> asList((short) 1, "2"), statement.getParameters());
+
+    final RelationalQuery query = translate("ESAllPrim/$count", "$filter=PropertyInt16 lt 0");
+    assertTrue(query.isCountOnly());
+    assertEquals("SELECT COUNT(*) FROM \"ESAllPrim\" WHERE (\"PropertyInt16\" < ?)", render(query).getSql());
+  }
+
+  @Test
+  public void select() throws Exception {
+    assertEquals("SELECT \"PropertyInt16\", \"PropertyString\" FROM \"ESAllPrim\"",
+        render(translate("ESAllPrim", "$select=PropertyString,PropertyInt16")).getSql());
+    assertEquals("SELECT * FROM \"ESAllPrim\"",
+        render(translate("ESAllPrim", "$select=PropertyString,*")).getSql());
+    final RelationalQuery query = translate("ESCompAllPrim", "$select=PropertyComp/PropertyString");
+    assertEquals(2, query.getColumns().size());
+    assertEquals(Arrays.asList("PropertyComp", "PropertyString"), query.getColumns().get(1).getPath());
+    assertEquals("SELECT \"PropertyInt16\", \"PropertyComp_PropertyString\" FROM \"ESCompAllPrim\""
+        + " WHERE (\"PropertyComp_PropertyInt16\" >= ?)",
+        render(query.restrict(translator.translateExpression(
+            new Parser(edm, odata).parseUri("ESCompAllPrim", "$filter=PropertyComp/PropertyInt16 ge 1", null,
+                null).getFilterOption().getExpression()))).getSql());
+    assertTrue(translate("ESCompAllPrim", "$select=PropertyComp").getColumns().size() > 10);
+  }
+
+  @Test
+  public void apply() throws Exception {
+    RelationalQuery query = translate("ESAllPrim",
+        "$apply=filter(PropertyInt16 gt 0)/groupby((PropertyString),aggregate(PropertyInt32 with sum as Total,"
+            + "$count as Count))&$orderby=Total desc&$top=3");
+    assertTrue(query.isAggregated());
+    SqlStatement statement = render(query);
+    assertEquals("SELECT \"PropertyString\", SUM(\"PropertyInt32\") AS \"Total\", COUNT(*) AS \"Count\""
+        + " FROM \"ESAllPrim\" WHERE (\"PropertyInt16\" > ?) GROUP BY \"PropertyString\""
+        + " ORDER BY \"Total\" DESC NULLS LAST FETCH FIRST ? ROWS ONLY", statement.getSql());
+    assertEquals("SELECT COUNT(*) FROM (SELECT \"PropertyString\", SUM(\"PropertyInt32\") AS \"Total\","
+        + " COUNT(*) AS \"Count\" FROM \"ESAllPrim\" WHERE (\"PropertyInt16\" > ?) GROUP BY \"PropertyString\")"
+        + " \"groups\"", renderer.renderCount(query).getSql());
+
+    query = translate("ESAllPrim",
+        "$apply=aggregate(PropertyDouble with min as Low,PropertyDouble with max as High,"
+            + "PropertyString with countdistinct as Names,PropertyDecimal with average as Mean)");
+    assertEquals("SELECT MIN(\"PropertyDouble\") AS \"Low\", MAX(\"PropertyDouble\") AS \"High\","
+        + " COUNT(DISTINCT \"PropertyString\") AS \"Names\", AVG(\"PropertyDecimal\") AS \"Mean\""
+        + " FROM \"ESAllPrim\"", render(query).getSql());
+  }
+
+  @Test
+  public void notTranslatable() throws Exception {
+    notTranslatable("ESKeyNav(1)/NavPropertyETTwoKeyNavOne", null);
+    notTranslatable("ESKeyNav", "$filter=NavPropertyETTwoKeyNavOne/PropertyInt16 eq 1");
+    notTranslatable("ESKeyNav", "$filter=NavPropertyETTwoKeyNavMany/any(d:d/PropertyInt16 eq 1)");
+    notTranslatable("ESAllPrim", "$search=abc");
+    notTranslatable("ESAllPrim", "$filter=PropertyInt16 eq @p&@p=1");
+    notTranslatable("ESMixEnumDefCollComp", "$filter=PropertyEnumString has olingo.odata.test1.ENString'String1'");
+    notTranslatable("ESAllPrim", "$apply=aggregate(PropertyInt16 with sum as Total)/filter(Total gt 1)");
+  }
+
+  private void notTranslatable(final String path, final String query) throws Exception {
+    try {
+      translate(path, query);
+      fail("Expected an exception for " + path + "?" + query);
+    } catch (final ODataApplicationException e) {
+      assertEquals(HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), e.getStatusCode());
+    }
+  }
+
+  private RelationalQuery translate(final String path, final String query) throws Exception {
+    return translator.translate(new Parser(edm, odata).parseUri(path, query, null, null));
+  }
+
+  private SqlStatement render(final RelationalQuery query) throws ODataApplicationException {
+    return renderer.render(query);
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.query.sql;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.core.query.QueryTranslator;
+import org.apache.olingo.server.core.query.RelationalQuery;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Executes rendered queries against an embedded H2 database holding the data of the entity set ESAllPrim.
+ */
+public class SqlRendererTest {
+
+  private static final OData odata = OData.newInstance();
+  private static final Edm edm = odata.createServiceMetadata(new EdmTechProvider(),
+      Collections.<EdmxReference> emptyList()).getEdm();
+
+  private final QueryTranslator translator = new QueryTranslator();
+  private final SqlRenderer renderer = new SqlRenderer();
+  private Connection connection;
+
+  @Before
+  public void setUp() throws SQLException {
+    connection = DriverManager.getConnection("jdbc:h2:mem:");
+    final Statement statement = connection.createStatement();
+    statement.execute("CREATE TABLE \"ESAllPrim\" (\"PropertyInt16\" SMALLINT PRIMARY KEY,"
+        + " \"PropertyString\" VARCHAR(100), \"PropertyInt32\" INTEGER, \"PropertyDouble\" DOUBLE PRECISION,"
+        + " \"PropertyDecimal\" DECIMAL(11,5), \"PropertyDate\" DATE)");
+    statement.execute("INSERT INTO \"ESAllPrim\" VALUES"
+        + " (32767, 'First Resource - positive values', 2147483647, 1.79E20, 34, DATE '2012-12-03'),"
+        + " (-32768, 'Second Resource - negative values', -2147483648, -1.79E19, -34, DATE '2015-11-05'),"
+        + " (0, '', 0, 0, 0, DATE '1970-01-01'),"
+        + " (1, NULL, 1, NULL, 1.5, NULL)");
+    statement.close();
+  }
+
+  @After
+  public void tearDown() throws SQLException {
+    connection.close();
+  }
+
+  @Test
+  public void filter() throws Exception {
+    assertEquals(Arrays.asList("32767", "1"), keys("$filter=PropertyInt16 gt 0&$orderby=PropertyInt16 desc"));
+    assertEquals(Arrays.asList("-32768", "32767"),
+        keys("$filter=contains(PropertyString,'Resource')&$orderby=PropertyInt16"));
+    assertEquals(Arrays.asList("32767"), keys("$filter=startswith(PropertyString,'First')"));
+    assertEquals(Arrays.asList("-32768", "32767"),
+        keys("$filter=endswith(PropertyString,'values') and PropertyDecimal in (34,-34)&$orderby=PropertyInt16"));
+    assertEquals(Arrays.asList("1"), keys("$filter=PropertyString eq null"));
+    assertEquals(Arrays.asList("-32768", "0", "1", "32767"),
+        keys("$filter=PropertyString ne 'x'&$orderby=PropertyInt16"));
+    assertEquals(Arrays.asList("32767"), keys("$filter=year(PropertyDate) eq 2012"));
+    assertEquals(Arrays.asList("0", "32767"),
+        keys("$filter=PropertyDate lt 2013-01-01&$orderby=PropertyInt16"));
+    assertEquals(Arrays.asList("0"), keys("$filter=length(PropertyString) eq 0"));
+    assertEquals(Arrays.asList("32767"), keys("$filter=indexof(PropertyString,'Resource') eq 6"));
+    assertEquals(Arrays.asList("-32768"),
+        keys("$filter=tolower(substring(PropertyString,0,6)) eq 'second'"));
+    assertEquals(Arrays.asList("1"), keys("$filter=PropertyDecimal gt 1 and PropertyDecimal lt 2"));
+  }
+
+  @Test
+  public void notWithNullColumn() throws Exception {
+    assertEquals(Arrays.asList("-32768", "0", "1"),
+        keys("$filter=not (PropertyDouble gt 0)&$orderby=PropertyInt16"));
+    assertEquals(Arrays.asList("-32768", "1", "32767"),
+        keys("$filter=not (PropertyDate eq 1970-01-01)&$orderby=PropertyInt16"));
+    assertEquals(Arrays.asList("0", "1"),
+        keys("$filter=not (PropertyDouble gt 0 or PropertyDouble lt 0)&$orderby=PropertyInt16"));
+  }
+
+  @Test
+  public void orderAndPage() throws Exception {
+    assertEquals(Arrays.asList("1", "-32768", "0", "32767"), keys("$orderby=PropertyDouble"));
+    assertEquals(Arrays.asList("32767", "0", "-32768", "1"), keys("$orderby=PropertyDouble desc"));
+    assertEquals(Arrays.asList("1", "0"), keys("$orderby=PropertyInt16 desc&$skip=1&$top=2"));
+    assertEquals(Arrays.asList("32767"), keys("$orderby=PropertyInt16 desc&$top=1"));
+  }
+
+  @Test
+  public void count() throws Exception {
+    final RelationalQuery query = translate("ESAllPrim", "$filter=PropertyInt16 ne 0&$top=1&$count=true");
+    assertEquals(1, execute(renderer.render(query)).size());
+    assertEquals(Collections.singletonList("3"), execute(renderer.renderCount(query)));
+    assertEquals(Collections.singletonList("4"), execute(renderer.render(translate("ESAllPrim/$count", null))));
+  }
+
+  @Test
+  public void aggregate() throws Exception {
+    assertEquals(Collections.singletonList("0"), execute(renderer.render(translate("ESAllPrim",
+        "$apply=aggregate(PropertyInt32 with sum as Total)"))));
+    assertEquals(Arrays.asList("4", "-34.00000", "34.00000", "3"), row(renderer.render(translate("ESAllPrim",
+        "$apply=aggregate($count as Count,PropertyDecimal with min as Low,PropertyDecimal with max as High,"
+            + "PropertyString with countdistinct as Names)"))));
+    final RelationalQuery query = translate("ESAllPrim",
+        "$apply=filter(PropertyInt16 ne 0)/groupby((PropertyDate),aggregate($count as Count))"
+            + "&$orderby=PropertyDate");
+    assertEquals(Arrays.asList(null, "2012-12-03", "2015-11-05"), execute(renderer.render(query)));
+    assertEquals(Collections.singletonList("3"), execute(renderer.renderCount(query)));
+  }
+
+  private List<String> keys(final String query) throws Exception {
+    return execute(renderer.render(translate("ESAllPrim", query)));
+  }
+
+  private RelationalQuery translate(final String path, final String query) throws Exception {
+    return translator.translate(new Parser(edm, odata).parseUri(path, query, null, null));
+  }
+
+  /** Executes the statement and returns the values of the first column. */
+  private List<String> execute(final SqlStatement sqlStatement) throws SQLException {
+    List<String> result = new ArrayList<String>();
+    final PreparedStatement statement = sqlStatement.prepare(connection);
+    try {
+      final ResultSet resultSet = statement.executeQuery();
+      while (resultSet.next()) {
+        result.add(resultSet.getString(1));
+      }
+    } finally {
+      statement.close();
+    }
+    return result;
+  }
+
+  /** Executes the statement and returns the values of the only row. */
+  private List<String> row(final SqlStatement sqlStatement) throws SQLException {
+    List<String> result = new ArrayList<String>();
+    final PreparedStatement statement = sqlStatement.prepare(connection);
+    try {
+      final ResultSet resultSet = statement.executeQuery();
+      resultSet.next();
+      for (int i = 1; i <= resultSet.getMetaData().getColumnCount(); i++) {
+        final Object value = resultSet.getObject(i);
+        result.add(value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : String.valueOf(value));
+      }
+    } finally {
+      statement.close();
+    }
+    return result;
+  }
+}
@@ -26,6 +26,7 @@ import java.net.URI;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.TimeZone;
 import java.util.UUID;
 
@@ -125,6 +126,24 @@ public class EdmAssistedJsonSerializerTest {
         serialize(serializer, metadata, null, entityCollection, null));
   }
 
+  @Test
+  public void iterableCollection() throws Exception {
+    final Iterable<Integer> values = new Iterable<Integer>() {
+      @Override
+      public Iterator<Integer> iterator() {
+        return Arrays.asList(1, 2, 3).iterator();
+      }
+    };
+    EntityCollection entityCollection = new EntityCollection();
+    entityCollection.getEntities().add(new Entity()
+        .addProperty(new Property(null, "Property1", ValueType.COLLECTION_PRIMITIVE, values)));
+    Assert.assertEquals(
+        "{\"@odata.context\":\"$metadata#EntitySet(Property1)\","
+            + "\"value\":[{\"@odata.id\":null,"
+            + "\"Property1@odata.type\":\"#Collection(Int32)\",\"Property1\":[1,2,3]}]}",
+        serialize(serializer, metadata, null, entityCollection, null));
+  }
+
   @Test
   public void entityCollectionIEEE754Compatible() throws Exception {
     EntityCollection entityCollection = new EntityCollection();
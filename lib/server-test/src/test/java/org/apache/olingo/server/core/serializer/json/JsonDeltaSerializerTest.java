@@ -18,10 +18,12 @@
  */
 package org.apache.olingo.server.core.serializer.json;
 
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 import org.apache.commons.io.IOUtils;
@@ -31,6 +33,7 @@ import org.apache.olingo.commons.api.data.DeletedEntity.Reason;
 import org.apache.olingo.commons.api.data.Delta;
 import org.apache.olingo.commons.api.data.DeltaLink;
 import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityIterator;
 import org.apache.olingo.commons.api.data.ContextURL.Suffix;
 import org.apache.olingo.commons.api.edm.EdmEntityContainer;
 import org.apache.olingo.commons.api.edm.EdmEntitySet;
@@ -38,6 +41,7 @@ import org.apache.olingo.commons.api.edm.EdmEntityType;
 import org.apache.olingo.commons.api.edmx.EdmxReference;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataContent;
 import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.serializer.EdmDeltaSerializer;
 import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
@@ -180,6 +184,46 @@ public class JsonDeltaSerializerTest {
        Assert.assertNotNull(jsonString);
        Assert.assertEquals(expectedResult, jsonString);
      } 
+  @Test
+  public void addedChangedDeltaEntityStreamed() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESDelta");
+    final Iterator<Entity> entities = data.readAll(edmEntitySet).getEntities().subList(0, 2).iterator();
+    final EntityIterator entityIterator = new EntityIterator() {
+      @Override
+      public boolean hasNext() {
+        return entities.hasNext();
+      }
+
+      @Override
+      public Entity next() {
+        return entities.next();
+      }
+    };
+    Delta delta = new Delta();
+    DeltaLink link = new DeltaLink();
+    link.setRelationship("NavPropertyETAllPrimOne");
+    link.setSource(new URI("ESDelta(100)"));
+    link.setTarget(new URI("ESAllPrim(0)"));
+    delta.getDeletedLinks().add(link);
+    ODataContent content = ser.entityCollectionStreamed(metadata, edmEntitySet.getEntityType(),
+        entityIterator, delta,
+        EntityCollectionSerializerOptions.with()
+        .contextURL(ContextURL.with().entitySet(edmEntitySet).build())
+        .build()).getODataContent();
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    content.write(output);
+    final String expectedResult = "{"
+        + "\"@odata.context\":\"$metadata#ESDelta/$delta\",\"value\":[{"
+        + "\"@odata.id\":\"ESDelta(32767)\",\"PropertyInt16\":32767,"
+        + "\"PropertyString\":\"Number:32767\"},{\"@odata.id\":\"ESDelta(-32768)\","
+        + "\"PropertyInt16\":-32768,\"PropertyString\":\"Number:-32768\"},{"
+        + "\"@odata.context\":\"#ESDelta/$deletedLink\",\"source\":\"ESDelta(100)\","
+        + "\"relationship\":\"NavPropertyETAllPrimOne\","
+        + "\"target\":\"ESAllPrim(0)\"}]"
+        + "}";
+    Assert.assertEquals(expectedResult, new String(output.toByteArray(), "UTF-8"));
+  }
+
   @Test
   public void basicDeltaTest() throws Exception {
     final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESDelta");
@@ -581,6 +581,92 @@ public class ODataJsonSerializerTest {
     Assert.assertEquals("ERROR: MISSING_PROPERTY", resultString);
   }
 
+  @Test
+  public void expandWithEntityIterator() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESAllPrim");
+    final Entity entity = data.readAll(edmEntitySet).getEntities().get(0);
+    final ExpandOption expand = ExpandSelectMock.mockExpandOption(Collections.singletonList(
+        ExpandSelectMock.mockExpandItem(edmEntitySet, "NavPropertyETTwoPrimMany")));
+    final EntitySerializerOptions options = EntitySerializerOptions.with()
+        .contextURL(ContextURL.with().entitySet(edmEntitySet).suffix(Suffix.ENTITY).build())
+        .expand(expand)
+        .build();
+    final String expected = IOUtils.toString(
+        serializer.entity(metadata, edmEntitySet.getEntityType(), entity, options).getContent());
+
+    final Link link = entity.getNavigationLink("NavPropertyETTwoPrimMany");
+    link.setInlineEntityIterator(toEntityIterator(link.getInlineEntitySet()));
+    link.setInlineEntitySet(null);
+    final String resultString = IOUtils.toString(
+        serializer.entity(metadata, edmEntitySet.getEntityType(), entity, options).getContent());
+    Assert.assertEquals(expected, resultString);
+    Assert.assertThat(resultString, CoreMatchers.containsString("\"NavPropertyETTwoPrimMany\":[{"));
+  }
+
+  @Test
+  public void entityCollectionReferenceStreamed() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESAllPrim");
+    ODataContent result = serializer.referenceCollectionStreamed(metadata, edmEntitySet,
+        toEntityIterator(data.readAll(edmEntitySet)),
+        ReferenceCollectionSerializerOptions.with()
+            .contextURL(ContextURL.with().asCollection().suffix(Suffix.REFERENCE).build())
+            .build()).getODataContent();
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    result.write(bout);
+    Assert.assertEquals("{\"@odata.context\":\"../$metadata#Collection($ref)\","
+        + "\"value\":[{\"@odata.id\":\"ESAllPrim(32767)\"},"
+        + "{\"@odata.id\":\"ESAllPrim(-32768)\"},"
+        + "{\"@odata.id\":\"ESAllPrim(0)\"},{\"@odata.id\":\"ESAllPrim(10)\"}]}",
+        new String(bout.toByteArray(), "UTF-8"));
+  }
+
+  @Test
+  public void primitiveCollectionPropertyStreamed() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESCollAllPrim");
+    final EdmProperty edmProperty = (EdmProperty) edmEntitySet.getEntityType().getProperty("CollPropertyString");
+    final List<?> values = data.readAll(edmEntitySet).getEntities().get(0)
+        .getProperty(edmProperty.getName()).asCollection();
+    // Only an Iterable, not a List, to make sure that the values are not required in advance.
+    final Iterable<Object> iterable = new Iterable<Object>() {
+      @Override
+      public Iterator<Object> iterator() {
+        return Collections.<Object> unmodifiableList(values).iterator();
+      }
+    };
+    final Property property = new Property(null, edmProperty.getName(), ValueType.COLLECTION_PRIMITIVE, iterable);
+
+    ODataContent result = serializer.primitiveCollectionStreamed(metadata,
+        (EdmPrimitiveType) edmProperty.getType(), property,
+        PrimitiveSerializerOptions.with()
+            .contextURL(ContextURL.with()
+                .entitySet(edmEntitySet).keyPath("1").navOrPropertyPath(edmProperty.getName())
+                .build())
+            .build()).getODataContent();
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    result.write(bout);
+    Assert.assertEquals("{"
+        + "\"@odata.context\":\"../$metadata#ESCollAllPrim(1)/CollPropertyString\","
+        + "\"@odata.metadataEtag\":\"W/\\\"metadataETag\\\"\","
+        + "\"value\":[\"Employee1@company.example\",\"Employee2@company.example\",\"Employee3@company.example\"]}",
+        new String(bout.toByteArray(), "UTF-8"));
+  }
+
+  private static EntityIterator toEntityIterator(final EntityCollection entityCollection) {
+    return new EntityIterator() {
+      private final Iterator<Entity> innerIterator = entityCollection.iterator();
+
+      @Override
+      public boolean hasNext() {
+        return innerIterator.hasNext();
+      }
+
+      @Override
+      public Entity next() {
+        return innerIterator.next();
+      }
+    };
+  }
+
 
   @Test
   public void entityCollAllPrim() throws Exception {
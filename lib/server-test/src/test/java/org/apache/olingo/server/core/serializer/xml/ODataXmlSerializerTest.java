@@ -18,6 +18,7 @@
  */
 package org.apache.olingo.server.core.serializer.xml;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
@@ -26,6 +27,7 @@ import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.olingo.commons.api.Constants;
@@ -34,6 +36,7 @@ import org.apache.olingo.commons.api.data.ContextURL;
 import org.apache.olingo.commons.api.data.ContextURL.Suffix;
 import org.apache.olingo.commons.api.data.Entity;
 import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.EntityIterator;
 import org.apache.olingo.commons.api.data.Property;
 import org.apache.olingo.commons.api.data.ValueType;
 import org.apache.olingo.commons.api.edm.EdmComplexType;
@@ -46,6 +49,7 @@ import org.apache.olingo.commons.api.edm.FullQualifiedName;
 import org.apache.olingo.commons.api.edmx.EdmxReference;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataContent;
 import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.serializer.ComplexSerializerOptions;
 import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
@@ -2897,6 +2901,42 @@ public class ODataXmlSerializerTest {
     checkXMLEqual(expected, resultString);
   }
 
+  @Test
+  public void entityCollectionReferenceStreamed() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESAllPrim");
+    final Iterator<Entity> entities = data.readAll(edmEntitySet).iterator();
+    final EntityIterator entityIterator = new EntityIterator() {
+      @Override
+      public boolean hasNext() {
+        return entities.hasNext();
+      }
+
+      @Override
+      public Entity next() {
+        return entities.next();
+      }
+    };
+
+    ReferenceCollectionSerializerOptions options = ReferenceCollectionSerializerOptions.with()
+        .contextURL(ContextURL.with().asCollection().suffix(Suffix.REFERENCE).build()).build();
+
+    final ODataContent content = serializer.referenceCollectionStreamed(metadata, edmEntitySet,
+        entityIterator, options).getODataContent();
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    content.write(output);
+
+    String expected = "<?xml version='1.0' encoding='UTF-8'?>\n" +
+        "<a:feed xmlns:a=\"http://www.w3.org/2005/Atom\"\n" +
+        "  xmlns:m=\"http://docs.oasis-open.org/odata/ns/metadata\"\n" +
+        "  m:context=\"../$metadata#Collection($ref)\">\n" +
+        "  <m:ref id=\"ESAllPrim(32767)\" />\n" +
+        "  <m:ref id=\"ESAllPrim(-32768)\" />\n" +
+        "  <m:ref id=\"ESAllPrim(0)\" />\n" +
+        "  <m:ref id=\"ESAllPrim(10)\" />\n" +
+        "</a:feed>";
+    checkXMLEqual(expected, new String(output.toByteArray(), "UTF-8"));
+  }
+
   @Test
   public void entityCollectionReferenceEmpty() throws Exception {
     final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESAllPrim");
@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmKeyPropertyRef;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriParameter;
+import org.apache.olingo.server.api.uri.UriResourceEntitySet;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.tecsvc.data.DataProvider;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+
+public class EntityKeyIndexTest {
+  private static final OData odata = OData.newInstance();
+  private static final Edm edm = odata.createServiceMetadata(
+      new EdmTechProvider(), Collections.<EdmxReference> emptyList()).getEdm();
+
+  @Test
+  public void sameResultsAsScan() throws Exception {
+    final DataProvider dataProvider = new DataProvider(odata, edm);
+    for (final String entitySetName : Arrays.asList("ESAllPrim", "ESTwoKeyNav", "ESAllKey", "ESFourKeyAlias",
+        "ESMixEnumDefCollComp")) {
+      final EdmEntitySet edmEntitySet = edm.getEntityContainer().getEntitySet(entitySetName);
+      final EdmEntityType entityType = edmEntitySet.getEntityType();
+      final List<Entity> entities = dataProvider.readAll(edmEntitySet).getEntities();
+      EntityKeyIndex index = new EntityKeyIndex(entityType);
+      index.addAll(entities);
+      assertEquals(entities.size(), index.size());
+      for (final Entity entity : entities) {
+        final List<UriParameter> keys = getKeys(edmEntitySet, entity);
+        final Entity found = index.get(keys);
+        assertSame(entitySetName + keys, EntityKeyIndex.find(entityType, entities, keys), found);
+        assertEquals(entitySetName, getKeyPredicate(entityType, entity), getKeyPredicate(entityType, found));
+      }
+    }
+  }
+
+  @Test
+  public void compositeKey() throws Exception {
+    final EdmEntitySet edmEntitySet = edm.getEntityContainer().getEntitySet("ESTwoKeyNav");
+    EntityKeyIndex index = new EntityKeyIndex(edmEntitySet.getEntityType());
+    final Entity first = createEntity((short) 1, "1");
+    final Entity second = createEntity((short) 1, "2");
+    index.addAll(Arrays.asList(first, second));
+
+    assertSame(second, index.get(parseKeys("ESTwoKeyNav(PropertyInt16=1,PropertyString='2')")));
+    assertSame(first, index.get(parseKeys("ESTwoKeyNav(PropertyString='1',PropertyInt16=1)")));
+    assertNull(index.get(parseKeys("ESTwoKeyNav(PropertyInt16=2,PropertyString='1')")));
+    assertTrue(index.isUsed("PropertyInt16", (short) 1));
+    assertTrue(index.isUsed("PropertyString", "2"));
+    assertFalse(index.isUsed("PropertyString", "3"));
+    assertFalse(index.isUsed("PropertyInt16", 1));
+    assertFalse(index.isUsed("PropertyInt32", (short) 1));
+
+    assertTrue(index.remove(first));
+    assertFalse(index.remove(first));
+    assertNull(index.get(parseKeys("ESTwoKeyNav(PropertyInt16=1,PropertyString='1')")));
+    assertFalse(index.isUsed("PropertyString", "1"));
+    assertTrue(index.isUsed("PropertyInt16", (short) 1));
+
+    second.getProperty("PropertyString").setValue(ValueType.PRIMITIVE, "3");
+    index.add(second);
+    assertEquals(1, index.size());
+    assertSame(second, index.get(parseKeys("ESTwoKeyNav(PropertyInt16=1,PropertyString='3')")));
+    assertNull(index.get(parseKeys("ESTwoKeyNav(PropertyInt16=1,PropertyString='2')")));
+
+    index.clear();
+    assertEquals(0, index.size());
+    assertNull(index.get(parseKeys("ESTwoKeyNav(PropertyInt16=1,PropertyString='3')")));
+  }
+
+  @Test
+  public void duplicateKeys() throws Exception {
+    EntityKeyIndex index = new EntityKeyIndex(edm.getEntityContainer().getEntitySet("ESTwoKeyNav").getEntityType());
+    final Entity first = createEntity((short) 1, "1");
+    final Entity second = createEntity((short) 1, "1");
+    index.add(first);
+    index.add(second);
+    final List<UriParameter> keys = parseKeys("ESTwoKeyNav(PropertyInt16=1,PropertyString='1')");
+    assertSame(first, index.get(keys));
+    index.remove(first);
+    assertSame(second, index.get(keys));
+    assertTrue(index.isUsed("PropertyString", "1"));
+    index.remove(second);
+    assertNull(index.get(keys));
+    assertFalse(index.isUsed("PropertyString", "1"));
+  }
+
+  @Test
+  public void allKeyTypes() throws Exception {
+    EntityKeyIndex index = new EntityKeyIndex(edm.getEntityContainer().getEntitySet("ESAllKey").getEntityType());
+    index.addAll(new DataProvider(odata, edm).readAll(edm.getEntityContainer().getEntitySet("ESAllKey"))
+        .getEntities());
+    List<UriParameter> keys = parseKeys("ESAllKey(PropertyString='First',PropertyBoolean=true,"
+        + "PropertyByte=255,PropertySByte=127,PropertyInt16=32767,PropertyInt32=2147483647,"
+        + "PropertyInt64=9223372036854775807,PropertyDecimal=34,PropertyDate=2012-12-03,"
+        + "PropertyDateTimeOffset=2012-12-03T07:16:23Z,PropertyDuration=duration'PT6S',"
+        + "PropertyGuid=01234567-89ab-cdef-0123-456789abcdef,PropertyTimeOfDay=02:48:21)");
+    assertEquals("First", index.get(keys).getProperty("PropertyString").getValue());
+  }
+
+  @Test
+  public void keyValueTypes() throws Exception {
+    final List<UriParameter> keys = parseKeys("ESTwoKeyNav(PropertyInt16=1,PropertyString='1')");
+    EntityKeyIndex index = new EntityKeyIndex(edm.getEntityContainer().getEntitySet("ESTwoKeyNav").getEntityType());
+    Entity entity = createEntity((short) 1, "1");
+    entity.getProperty("PropertyInt16").setValue(ValueType.PRIMITIVE, Byte.valueOf((byte) 1));
+    index.add(entity);
+    assertSame(entity, index.get(keys));
+    index.add(createEntity((short) 2, "2"));
+    // Mixed Java types of key values are compared entity by entity.
+    assertSame(entity, index.get(keys));
+
+    // The key value is valid for Edm.Int16 but too large for the Java type of the indexed values.
+    index.clear();
+    index.add(entity);
+    try {
+      index.get(parseKeys("ESTwoKeyNav(PropertyInt16=1000,PropertyString='1')"));
+      fail("Expected exception not thrown.");
+    } catch (final ODataApplicationException e) {
+      assertEquals(HttpStatusCode.BAD_REQUEST.getStatusCode(), e.getStatusCode());
+    }
+  }
+
+  @Test
+  public void dataProviderKeepsIndexUpToDate() throws Exception {
+    final DataProvider dataProvider = new DataProvider(odata, edm);
+    final EdmEntitySet edmEntitySet = edm.getEntityContainer().getEntitySet("ESTwoKeyNav");
+    final int size = dataProvider.readAll(edmEntitySet).getEntities().size();
+    final Entity created = dataProvider.create(edmEntitySet);
+    final Entity other = dataProvider.create(edmEntitySet);
+    assertEquals(size + 2, dataProvider.readAll(edmEntitySet).getEntities().size());
+    assertFalse(created.getProperty("PropertyInt16").getValue()
+        .equals(other.getProperty("PropertyInt16").getValue()));
+    final List<UriParameter> keys = getKeys(edmEntitySet, created);
+    assertSame(created, dataProvider.read(edmEntitySet, keys));
+
+    dataProvider.delete(edmEntitySet, created);
+    assertNull(dataProvider.read(edmEntitySet, keys));
+    assertSame(other, dataProvider.read(edmEntitySet, getKeys(edmEntitySet, other)));
+  }
+
+  private static Entity createEntity(final short int16, final String string) {
+    return new Entity()
+        .addProperty(new Property(null, "PropertyInt16", ValueType.PRIMITIVE, int16))
+        .addProperty(new Property(null, "PropertyString", ValueType.PRIMITIVE, string));
+  }
+
+  private static List<UriParameter> getKeys(final EdmEntitySet edmEntitySet, final Entity entity)
+      throws Exception {
+    return parseKeys(edmEntitySet.getName() + "(" + getKeyPredicate(edmEntitySet.getEntityType(), entity) + ")");
+  }
+
+  private static String getKeyPredicate(final EdmEntityType entityType, final Entity entity) throws Exception {
+    StringBuilder result = new StringBuilder();
+    for (final String keyPredicateName : entityType.getKeyPredicateNames()) {
+      final EdmKeyPropertyRef keyPropertyRef = entityType.getKeyPropertyRef(keyPredicateName);
+      final EdmProperty property = keyPropertyRef.getProperty();
+      final EdmPrimitiveType type = (EdmPrimitiveType) property.getType();
+      result.append(result.length() == 0 ? "" : ",").append(keyPredicateName).append('=')
+          .append(type.toUriLiteral(type.valueToString(EntityKeyIndex.getKeyValue(entity, keyPropertyRef),
+              property.isNullable(), property.getMaxLength(), property.getPrecision(), property.getScale(),
+              property.isUnicode())));
+    }
+    return result.toString();
+  }
+
+  private static List<UriParameter> parseKeys(final String path) throws Exception {
+    return ((UriResourceEntitySet) new Parser(edm, odata).parseUri(path, null, null, "http://localhost/odata/")
+        .getUriResourceParts().get(0)).getKeyPredicates();
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.UriInfoCache;
+import org.apache.olingo.server.api.uri.UriInfoCache.EntryKind;
+import org.apache.olingo.server.api.uri.UriParameter;
+import org.apache.olingo.server.api.uri.UriResourceEntitySet;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+
+public class UriInfoCacheTest {
+
+  private static final String BASE_URI = "http://localhost/odata/";
+  private static final OData odata = OData.newInstance();
+  private static final Edm edm = createEdm();
+
+  @Test
+  public void sameUri() throws Exception {
+    final UriInfoCache cache = new UriInfoCache(10);
+    final UriInfo uriInfo = parse(cache, "ESAllPrim", "$filter=PropertyInt16 gt 5&$top=3");
+    assertSame(uriInfo, parse(cache, "ESAllPrim", "$filter=PropertyInt16 gt 5&$top=3"));
+    assertSame(uriInfo, parse(cache, "ESAllPrim", "%24filter=PropertyInt16%20gt%205&$top=3"));
+    assertEquals(2, cache.getHitCount(EntryKind.URI));
+    assertEquals(1, cache.getMissCount(EntryKind.URI));
+
+    assertNotSame(uriInfo, parse(cache, "ESAllPrim", "$filter=PropertyInt16 gt 5&$top=4"));
+    assertNotSame(uriInfo, parse(cache, "ESAllPrim", null));
+    assertEquals(3, cache.getMissCount(EntryKind.URI));
+  }
+
+  @Test
+  public void sameShape() throws Exception {
+    final UriInfoCache cache = new UriInfoCache(10);
+    final String query = "$filter=PropertyInt16 gt 5&$orderby=PropertyString desc"
+        + "&$expand=NavPropertyETTwoKeyNavOne($select=PropertyString)&$select=PropertyInt16";
+    final UriInfo first = parse(cache, "ESKeyNav(1)", query);
+    final UriInfo second = parse(cache, "ESKeyNav(2)", query);
+    assertNotSame(first, second);
+    assertEquals(1, cache.getHitCount(EntryKind.TEMPLATE));
+    assertEquals("2", ((UriResourceEntitySet) second.getUriResourceParts().get(0)).getKeyPredicates().get(0)
+        .getText());
+    assertSame(first.getFilterOption().getExpression(), second.getFilterOption().getExpression());
+    assertEquals(first.getOrderByOption().getOrders(), second.getOrderByOption().getOrders());
+    assertEquals(first.getExpandOption().getExpandItems(), second.getExpandOption().getExpandItems());
+    assertEquals(first.getSelectOption().getSelectItems(), second.getSelectOption().getSelectItems());
+    assertEquals("PropertyString desc", second.getOrderByOption().getText());
+
+    // The same query on a resource path of another type is parsed on its own.
+    try {
+      parse(cache, "ESAllPrim(1)", query);
+      fail("Expected an exception.");
+    } catch (final UriParserException e) {
+      assertEquals(1, cache.getHitCount(EntryKind.TEMPLATE));
+    }
+  }
+
+  @Test
+  public void templatesDisabled() throws Exception {
+    final UriInfoCache cache = new UriInfoCache(10, false);
+    parse(cache, "ESAllPrim(1)", "$select=PropertyInt16");
+    parse(cache, "ESAllPrim(2)", "$select=PropertyInt16");
+    assertEquals(0, cache.getHitCount(EntryKind.TEMPLATE));
+    assertEquals(0, cache.getMissCount(EntryKind.TEMPLATE));
+    assertEquals(2, cache.size());
+  }
+
+  @Test
+  public void errorsAreNotCached() throws Exception {
+    final UriInfoCache cache = new UriInfoCache(10);
+    for (int i = 0; i < 2; i++) {
+      try {
+        parse(cache, "ESAllPrim", "$filter=PropertyInt16 eq 'x'");
+        fail("Expected an exception.");
+      } catch (final UriParserException e) {
+        assertEquals(0, cache.size());
+      }
+    }
+  }
+
+  @Test
+  public void leastRecentlyUsedIsEvicted() throws Exception {
+    final UriInfoCache cache = new UriInfoCache(2, false);
+    final UriInfo one = parse(cache, "ESAllPrim(1)", null);
+    parse(cache, "ESAllPrim(2)", null);
+    assertSame(one, parse(cache, "ESAllPrim(1)", null));
+    parse(cache, "ESAllPrim(3)", null);
+    assertEquals(2, cache.size());
+    assertEquals(1, cache.getEvictionCount());
+    assertSame(one, parse(cache, "ESAllPrim(1)", null));
+    assertNull(cache.get(EntryKind.URI, edm, "no key"));
+  }
+
+  @Test
+  public void segmentsStayWithinMaximumSize() throws Exception {
+    final UriInfoCache cache = new UriInfoCache(64, false);
+    for (int i = 0; i < 200; i++) {
+      parse(cache, "ESAllPrim(" + i + ")", null);
+    }
+    assertTrue(cache.size() <= 64);
+    assertEquals(200, cache.size() + cache.getEvictionCount());
+    assertEquals(200, cache.getMissCount(EntryKind.URI));
+  }
+
+  @Test
+  public void invalidation() throws Exception {
+    final UriInfoCache cache = new UriInfoCache(10);
+    final UriInfo uriInfo = parse(cache, "ESAllPrim", "$top=1");
+    final Edm otherEdm = createEdm();
+    final UriInfo other = new Parser(otherEdm, odata, cache).parseUri("ESAllPrim", "$top=1", null, BASE_URI);
+    assertNotSame(uriInfo, other);
+    assertEquals(1, cache.getInvalidationCount());
+    assertEquals(1, cache.size());
+
+    cache.clear();
+    assertEquals(0, cache.size());
+    assertEquals(2, cache.getInvalidationCount());
+    assertNotSame(other, new Parser(otherEdm, odata, cache).parseUri("ESAllPrim", "$top=1", null, BASE_URI));
+  }
+
+  @Test
+  public void keyPredicatesStayApart() throws Exception {
+    final UriInfoCache cache = new UriInfoCache(10);
+    final UriInfo first = parse(cache, "ESTwoKeyNav(PropertyInt16=1,PropertyString='1')", "$select=PropertyComp");
+    final UriInfo second = parse(cache, "ESTwoKeyNav(PropertyInt16=1,PropertyString='2')", "$select=PropertyComp");
+    final UriParameter key = ((UriResourceEntitySet) second.getUriResourceParts().get(0)).getKeyPredicates().get(1);
+    assertEquals("'2'", key.getText());
+    assertNotSame(first, second);
+  }
+
+  private UriInfo parse(final UriInfoCache cache, final String path, final String query) throws Exception {
+    return new Parser(edm, odata, cache).parseUri(path, query, null, BASE_URI);
+  }
+
+  private static Edm createEdm() {
+    return odata.createServiceMetadata(new EdmTechProvider(), Collections.<EdmxReference> emptyList()).getEdm();
+  }
+}
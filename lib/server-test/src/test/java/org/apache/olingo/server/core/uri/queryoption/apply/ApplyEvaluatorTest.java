@@ -0,0 +1,312 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.apply;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.EntityIterator;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.queryoption.ApplyOption;
+import org.apache.olingo.server.core.serializer.json.EdmAssistedJsonSerializer;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.tecsvc.data.DataProvider;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+
+public class ApplyEvaluatorTest {
+  private static final OData odata = OData.newInstance();
+  private static final Edm edm = odata.createServiceMetadata(
+      new EdmTechProvider(), Collections.<EdmxReference> emptyList()).getEdm();
+
+  private final ApplyEvaluator evaluator = new ApplyEvaluator();
+
+  @Test
+  public void aggregate() throws Exception {
+    final List<Entity> result = evaluate("aggregate(PropertyInt16 with sum as Sum,"
+        + "PropertyInt16 with average as Avg,PropertyDecimal with min as Min,PropertyDecimal with max as Max,"
+        + "PropertyString with countdistinct as Distinct,$count as Count)", createEntities());
+    assertEquals(1, result.size());
+    final Entity entity = result.get(0);
+    assertEquals(new BigDecimal(15), entity.getProperty("Sum").getValue());
+    assertEquals(new BigDecimal(3), entity.getProperty("Avg").getValue());
+    assertEquals(new BigDecimal("1.5"), entity.getProperty("Min").getValue());
+    assertEquals(new BigDecimal(5), entity.getProperty("Max").getValue());
+    assertEquals(new BigDecimal(3), entity.getProperty("Distinct").getValue());
+    assertEquals(new BigDecimal(5), entity.getProperty("Count").getValue());
+    assertEquals("Edm.Decimal", entity.getProperty("Sum").getType());
+    assertEquals(6, entity.getProperties().size());
+  }
+
+  @Test
+  public void aggregateEmpty() throws Exception {
+    final List<Entity> result = evaluate(
+        "aggregate(PropertyInt16 with sum as Sum,PropertyInt16 with average as Avg,$count as Count)",
+        Collections.<Entity> emptyList());
+    assertEquals(1, result.size());
+    assertEquals(BigDecimal.ZERO, result.get(0).getProperty("Sum").getValue());
+    assertNull(result.get(0).getProperty("Avg").getValue());
+    assertEquals(BigDecimal.ZERO, result.get(0).getProperty("Count").getValue());
+
+    assertEquals(0, evaluate("groupby((PropertyString))", Collections.<Entity> emptyList()).size());
+  }
+
+  @Test
+  public void groupBy() throws Exception {
+    List<Entity> result = evaluate(
+        "groupby((PropertyString),aggregate(PropertyDecimal with sum as Total,$count as Count))", createEntities());
+    assertEquals(3, result.size());
+    assertGroup(result.get(0), "a", new BigDecimal("1.5"), 2);
+    assertGroup(result.get(1), "b", new BigDecimal("6.5"), 2);
+    assertGroup(result.get(2), "c", new BigDecimal(5), 1);
+
+    result = evaluate("groupby((PropertyString))", createEntities());
+    assertEquals(3, result.size());
+    assertEquals(1, result.get(2).getProperties().size());
+    assertEquals("c", result.get(2).getProperty("PropertyString").getValue());
+
+    result = evaluate("groupby((PropertyString),aggregate(PropertyInt16 with sum as Total))"
+        + "/aggregate(Total with max as MaxTotal)", createEntities());
+    assertEquals(new BigDecimal(6), result.get(0).getProperty("MaxTotal").getValue());
+  }
+
+  @Test
+  public void groupByComplexProperty() throws Exception {
+    final List<Entity> entities = new DataProvider(odata, edm)
+        .readAll(edm.getEntityContainer().getEntitySet("ESTwoKeyNav")).getEntities();
+    Map<Object, Integer> expected = new HashMap<Object, Integer>();
+    for (final Entity entity : entities) {
+      final Object value = entity.getProperty("PropertyComp").asComplex().getValue().get(0).getValue();
+      expected.put(value, expected.containsKey(value) ? expected.get(value) + 1 : 1);
+    }
+
+    final List<Entity> result = evaluate("ESTwoKeyNav",
+        "groupby((PropertyComp/PropertyInt16),aggregate($count as Count))", entities);
+    assertEquals(expected.size(), result.size());
+    for (final Entity entity : result) {
+      final Property complex = entity.getProperty("PropertyComp");
+      assertEquals("olingo.odata.test1.CTPrimComp", complex.getType());
+      final Property property = complex.asComplex().getValue().get(0);
+      assertEquals("PropertyInt16", property.getName());
+      assertEquals(new BigDecimal(expected.get(property.getValue())), entity.getProperty("Count").getValue());
+    }
+  }
+
+  @Test
+  public void groupByWithTransformations() throws Exception {
+    final List<Entity> result = evaluate("groupby((PropertyString),topcount(1,PropertyInt16))", createEntities());
+    assertEquals(3, result.size());
+    assertEquals(Arrays.asList((short) 3, (short) 4, (short) 5), values(result, "PropertyInt16"));
+    assertEquals(Arrays.asList("a", "b", "c"), values(result, "PropertyString"));
+  }
+
+  @Test
+  public void filterComputeOrderByPaging() throws Exception {
+    final List<Entity> entities = createEntities();
+    final List<Entity> result = evaluate("filter(PropertyInt16 gt 1)/compute(PropertyInt16 mul 2 as Twice)"
+        + "/orderby(Twice desc)/skip(1)/top(2)", entities);
+    assertEquals(Arrays.asList((short) 4, (short) 3), values(result, "PropertyInt16"));
+    assertEquals(Arrays.<Object> asList(8L, 6L), values(result, "Twice"));
+    assertEquals("Edm.Int64", result.get(0).getProperty("Twice").getType());
+    // The input entities are not modified.
+    assertNull(entities.get(3).getProperty("Twice"));
+  }
+
+  @Test
+  public void bottomTop() throws Exception {
+    final List<Entity> entities = createEntities();
+    assertEquals(Arrays.asList((short) 5, (short) 4),
+        values(evaluate("topcount(2,PropertyInt16)", entities), "PropertyInt16"));
+    assertEquals(Arrays.asList((short) 1, (short) 2, (short) 3),
+        values(evaluate("bottomsum(4,PropertyInt16)", entities), "PropertyInt16"));
+    assertEquals(Arrays.asList((short) 5, (short) 4),
+        values(evaluate("toppercent(50,PropertyInt16)", entities), "PropertyInt16"));
+    assertEquals(Arrays.asList((short) 1),
+        values(evaluate("bottomcount(1,PropertyDecimal)", entities), "PropertyInt16"));
+  }
+
+  @Test
+  public void concat() throws Exception {
+    final List<Entity> result = evaluate("concat(topcount(2,PropertyInt16),aggregate($count as Count))",
+        createEntities());
+    assertEquals(3, result.size());
+    assertEquals((short) 5, result.get(0).getProperty("PropertyInt16").getValue());
+    assertEquals(new BigDecimal(5), result.get(2).getProperty("Count").getValue());
+  }
+
+  @Test
+  public void entityIterator() throws Exception {
+    final Iterator<Entity> iterator = createEntities().iterator();
+    final EntityIterator entityIterator = new EntityIterator() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public Entity next() {
+        return iterator.next();
+      }
+    };
+    final List<Entity> result = evaluator.evaluate(parse("ESAllPrim",
+        "filter(PropertyInt16 ne 2)/groupby((PropertyString),aggregate(PropertyInt16 with sum as Total))"),
+        entityIterator).getEntities();
+    assertEquals(Arrays.asList("a", "b", "c"), values(result, "PropertyString"));
+    assertEquals(Arrays.<Object> asList(new BigDecimal(4), new BigDecimal(4), new BigDecimal(5)),
+        values(result, "Total"));
+  }
+
+  @Test
+  public void parallel() throws Exception {
+    List<Entity> entities = new ArrayList<Entity>();
+    for (int i = 0; i < 3 * ApplyEvaluator.PARALLEL_THRESHOLD; i++) {
+      entities.add(new Entity()
+          .addProperty(new Property(null, "PropertyInt32", ValueType.PRIMITIVE, i % 1000))
+          .addProperty(new Property(null, "PropertyString", ValueType.PRIMITIVE, "s" + i % 7)));
+    }
+    final String apply = "groupby((PropertyString),aggregate(PropertyInt32 with sum as Total,"
+        + "PropertyInt32 with countdistinct as Distinct,PropertyInt32 with max as Max,$count as Count))";
+    final List<Entity> expected = evaluate(apply, entities);
+
+    final ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      final List<Entity> result = new ApplyEvaluator(executor, 4)
+          .evaluate(parse("ESAllPrim", apply), new EntityCollection() {
+            {
+              getEntities().addAll(entities);
+            }
+          }).getEntities();
+      assertEquals(7, result.size());
+      for (final String name : Arrays.asList("PropertyString", "Total", "Distinct", "Max", "Count")) {
+        assertEquals(name, values(expected, name), values(result, name));
+      }
+      assertEquals(new BigDecimal(1000), result.get(0).getProperty("Distinct").getValue());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void serialize() throws Exception {
+    final EntityCollection result = evaluator.evaluate(parse("ESAllPrim",
+        "groupby((PropertyString),aggregate(PropertyDecimal with sum as Total))/filter(Total gt 2)"),
+        collection(createEntities()));
+    final InputStream content = new EdmAssistedJsonSerializer(ContentType.JSON_NO_METADATA)
+        .entityCollection(null, edm.getEntityContainer().getEntitySet("ESAllPrim").getEntityType(), result, null)
+        .getContent();
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    int count;
+    while ((count = content.read(buffer)) > 0) {
+      output.write(buffer, 0, count);
+    }
+    assertEquals("{\"value\":[{\"PropertyString\":\"b\",\"Total\":6.5},{\"PropertyString\":\"c\",\"Total\":5}]}",
+        new String(output.toByteArray(), "UTF-8"));
+  }
+
+  @Test
+  public void unsupported() throws Exception {
+    expectStatus("aggregate(PropertyInt16 with Namespace1_Alias.Custom as Custom)", HttpStatusCode.NOT_IMPLEMENTED);
+    expectStatus("groupby((rollup($all,PropertyString)),aggregate($count as Count))", HttpStatusCode.NOT_IMPLEMENTED);
+    expectStatus("aggregate(PropertyString with sum as Sum)", HttpStatusCode.BAD_REQUEST);
+    expectStatus("toppercent(101,PropertyInt16)", HttpStatusCode.BAD_REQUEST);
+  }
+
+  private void assertGroup(final Entity entity, final String name, final BigDecimal total, final int count) {
+    assertEquals(name, entity.getProperty("PropertyString").getValue());
+    assertEquals(total, entity.getProperty("Total").getValue());
+    assertEquals(new BigDecimal(count), entity.getProperty("Count").getValue());
+  }
+
+  private void expectStatus(final String apply, final HttpStatusCode status) throws Exception {
+    try {
+      evaluate(apply, createEntities());
+      fail("Expected status " + status + " for " + apply);
+    } catch (final ODataApplicationException e) {
+      assertEquals(apply, status.getStatusCode(), e.getStatusCode());
+    }
+  }
+
+  private List<Object> values(final List<Entity> entities, final String name) {
+    List<Object> values = new ArrayList<Object>();
+    for (final Entity entity : entities) {
+      values.add(entity.getProperty(name).getValue());
+    }
+    return values;
+  }
+
+  private List<Entity> evaluate(final String apply, final List<Entity> entities) throws Exception {
+    return evaluate("ESAllPrim", apply, entities);
+  }
+
+  private List<Entity> evaluate(final String entitySet, final String apply, final List<Entity> entities)
+      throws Exception {
+    return evaluator.evaluate(parse(entitySet, apply), collection(entities)).getEntities();
+  }
+
+  private ApplyOption parse(final String entitySet, final String apply) throws Exception {
+    return new Parser(edm, odata).parseUri(entitySet, "$apply=" + apply, null, "http://localhost/odata/")
+        .getApplyOption();
+  }
+
+  private EntityCollection collection(final List<Entity> entities) {
+    EntityCollection collection = new EntityCollection();
+    collection.getEntities().addAll(entities);
+    return collection;
+  }
+
+  private List<Entity> createEntities() {
+    return Arrays.asList(
+        createEntity(1, "a", new BigDecimal("1.5")),
+        createEntity(2, "b", new BigDecimal(2)),
+        createEntity(3, "a", null),
+        createEntity(4, "b", new BigDecimal("4.5")),
+        createEntity(5, "c", new BigDecimal(5)));
+  }
+
+  private Entity createEntity(final int key, final String name, final BigDecimal decimal) {
+    return new Entity()
+        .addProperty(new Property(null, "PropertyInt16", ValueType.PRIMITIVE, (short) key))
+        .addProperty(new Property(null, "PropertyString", ValueType.PRIMITIVE, name))
+        .addProperty(new Property(null, "PropertyDecimal", ValueType.PRIMITIVE, decimal));
+  }
+}
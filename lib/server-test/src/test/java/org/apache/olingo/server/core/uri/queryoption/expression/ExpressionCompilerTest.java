@@ -0,0 +1,328 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.expression;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.queryoption.FilterOption;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.tecsvc.data.DataProvider;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.apache.olingo.server.tecsvc.processor.queryoptions.expression.ExpressionVisitorImpl;
+import org.apache.olingo.server.tecsvc.processor.queryoptions.expression.operand.TypedOperand;
+import org.junit.Test;
+
+public class ExpressionCompilerTest {
+  private static final OData odata = OData.newInstance();
+  private static final Edm edm = odata.createServiceMetadata(
+      new EdmTechProvider(), Collections.<EdmxReference> emptyList()).getEdm();
+  private final DataProvider dataProvider = new DataProvider(odata, edm);
+
+  @Test
+  public void comparisonAndLogicalOperators() throws Exception {
+    assertSameAsVisitor("ESTwoKeyNav", "PropertyInt16 eq 1");
+    assertSameAsVisitor("ESTwoKeyNav", "PropertyInt16 ge 1");
+    assertSameAsVisitor("ESTwoKeyNav", "PropertyInt16 gt 1");
+    assertSameAsVisitor("ESTwoKeyNav", "PropertyInt16 lt 2");
+    assertSameAsVisitor("ESTwoKeyNav", "PropertyInt16 le 2");
+    assertSameAsVisitor("ESTwoKeyNav", "PropertyString eq '2' and PropertyInt16 eq 1");
+    assertSameAsVisitor("ESTwoKeyNav", "PropertyString eq '2' or PropertyInt16 eq 1");
+    assertSameAsVisitor("ESTwoKeyNav", "not (PropertyInt16 eq 1)");
+    assertSameAsVisitor("ESAllPrim", "PropertyBoolean eq false");
+    assertSameAsVisitor("ESAllPrim", "PropertyDouble ge -179000");
+    assertSameAsVisitor("ESAllPrim", "PropertyDouble lt -179000");
+    assertSameAsVisitor("ESAllPrim", "PropertyInt64 eq 0");
+    assertSameAsVisitor("ESAllPrim", "PropertyDecimal gt 30");
+    assertSameAsVisitor("ESAllPrim", "PropertySingle le 1.79E20");
+    assertSameAsVisitor("ESAllPrim", "PropertyDate eq 2012-12-03");
+    assertSameAsVisitor("ESAllPrim", "PropertyDateTimeOffset eq 2012-12-03T07:16:23Z");
+    assertSameAsVisitor("ESAllPrim", "PropertyTimeOfDay eq 03:26:05");
+    assertSameAsVisitor("ESAllPrim", "PropertyDuration eq duration'PT6S'");
+    assertEquals(1, filter("ESAllPrim", "PropertyGuid eq 01234567-89ab-cdef-0123-456789abcdef").size());
+    assertSameAsVisitor("ESAllPrim", "'Tes' lt 'Test'");
+    assertSameAsVisitor("ESAllPrim", "'Test1' ge 'Test'");
+    assertSameAsVisitor("ESTwoKeyNav", "PropertyComp/PropertyInt16 eq 11");
+    assertSameAsVisitor("ESTwoKeyNav", "PropertyComp/PropertyComp/PropertyString eq 'StringValue'");
+    assertSameAsVisitor("ESMixEnumDefCollComp", "PropertyEnumString eq Namespace1_Alias.ENString'String2'");
+    assertEquals(2, filter("ESMixEnumDefCollComp", "PropertyEnumString has Namespace1_Alias.ENString'String1'").size());
+    assertSameAsVisitor("ESMixEnumDefCollComp", "PropertyDefString eq 'key1'");
+  }
+
+  @Test
+  public void nullValues() throws Exception {
+    assertSameAsVisitor("ESTwoKeyNav", "PropertyInt16 eq null");
+    assertSameAsVisitor("ESTwoKeyNav", "PropertyString ne null");
+    assertSameAsVisitor("ESTwoKeyNav", "null eq null");
+    assertSameAsVisitor("ESTwoKeyNav", "null ne null");
+    assertSameAsVisitor("ESTwoKeyNav", "PropertyComp/PropertyComp/PropertyBoolean eq not null");
+    assertSameAsVisitor("ESTwoKeyNav", "PropertyComp/PropertyComp/PropertyInt16 eq 0 add -(5 add null)");
+    assertSameAsVisitor("ESTwoKeyNav", "PropertyInt16 add null eq 1");
+    assertSameAsVisitor("ESTwoKeyNav", "PropertyInt16 add null eq null");
+    assertSameAsVisitor("ESAllPrim", "endswith(PropertyString,null) eq null");
+    assertSameAsVisitor("ESAllPrim", "substring(PropertyString,0,null) eq null");
+    assertSameAsVisitor("ESAllPrim", "hour(null) eq null");
+    assertSameAsVisitor("ESAllPrim", "PropertyString eq null or PropertyInt16 eq 0");
+  }
+
+  @Test
+  public void arithmetic() throws Exception {
+    assertSameAsVisitor("ESTwoKeyNav", "PropertyInt16 add 1 eq (1 sub 3) div 2 mul 3 add 7");
+    assertSameAsVisitor("ESTwoKeyNav", "PropertyInt16 gt -2 add --3");
+    assertSameAsVisitor("ESTwoKeyNav", "PropertyInt16 gt -2.0 add --3.0");
+    assertSameAsVisitor("ESTwoKeyNav", "PropertyInt16 mod 2 eq 1");
+    assertSameAsVisitor("ESAllPrim", "PropertyDouble eq 0 sub (358000 div 2)");
+    assertSameAsVisitor("ESAllPrim", "PropertyInt32 eq 2147483646 add 1");
+    assertSameAsVisitor("ESAllPrim", "PropertyInt64 mul 2 gt 0");
+  }
+
+  @Test
+  public void methods() throws Exception {
+    assertSameAsVisitor("ESAllPrim", "endswith(PropertyString,'values')");
+    assertSameAsVisitor("ESAllPrim", "indexof(PropertyString,'positive') eq 17");
+    assertSameAsVisitor("ESAllPrim", "startswith(PropertyString,'First')");
+    assertSameAsVisitor("ESAllPrim", "contains(PropertyString,tolower('POSITIVE'))");
+    assertSameAsVisitor("ESAllPrim", "contains(PropertyString,concat(toupper('f'),'irst'))");
+    assertSameAsVisitor("ESAllPrim", "trim(substring(PropertyString,0,6)) eq 'First'");
+    assertSameAsVisitor("ESAllPrim", "substring(PropertyString,-1,1) eq 'F'");
+    assertSameAsVisitor("ESAllPrim", "substring(PropertyString,0,-1) eq ''");
+    assertSameAsVisitor("ESAllPrim", "substring(PropertyString,length('First') add 1,8) eq ('Resource')");
+    assertSameAsVisitor("ESAllPrim", "substringof('Second',PropertyString)");
+    assertSameAsVisitor("ESAllPrim", "length(PropertyString) gt 10");
+    assertSameAsVisitor("ESAllPrim", "year(PropertyDate) eq 2015");
+    assertSameAsVisitor("ESAllPrim", "month(PropertyDateTimeOffset) eq 12");
+    assertSameAsVisitor("ESAllPrim", "day(PropertyDate) eq 5");
+    assertSameAsVisitor("ESAllPrim", "hour(PropertyDateTimeOffset) eq 7");
+    assertSameAsVisitor("ESAllPrim", "minute(PropertyTimeOfDay) eq 49");
+    assertSameAsVisitor("ESAllPrim", "second(PropertyTimeOfDay) eq 14");
+    assertSameAsVisitor("ESAllPrim", "fractionalseconds(PropertyTimeOfDay) eq 0");
+    assertSameAsVisitor("ESCompAllPrim", "fractionalseconds(PropertyComp/PropertyDateTimeOffset) eq 0.1234567");
+    assertSameAsVisitor("ESTwoKeyNav", "PropertyInt16 eq floor(3.8)");
+    assertSameAsVisitor("ESTwoKeyNav", "PropertyInt16 eq ceiling(2.1)");
+    assertSameAsVisitor("ESTwoKeyNav", "PropertyInt16 eq round(2.5)");
+    assertSameAsVisitor("ESTwoKeyNav", "PropertyInt16 eq round(2.4)");
+  }
+
+  @Test
+  public void in() throws Exception {
+    assertEquals(2, filter("ESAllPrim",
+        "PropertyString in ('First Resource - positive values','Second Resource - negative values')").size());
+    assertEquals(0, filter("ESAllPrim", "PropertyString in ('x','y')").size());
+    assertEquals(3, filter("ESTwoKeyNav", "PropertyInt16 in (1,3)").size());
+    assertEquals(2, filter("ESAllPrim", "PropertyInt16 in (32767,-32768)").size());
+  }
+
+  @Test
+  public void notSupported() throws Exception {
+    expectStatus("ESTwoKeyNav", "CollPropertyComp/any(d:d/PropertyInt16 eq 1)", HttpStatusCode.NOT_IMPLEMENTED);
+    expectStatus("ESAllPrim", "PropertyDuration eq duration'PT2S' add duration'PT4S'",
+        HttpStatusCode.NOT_IMPLEMENTED);
+    expectStatus("ESAllPrim", "PropertyInt16 eq @p", HttpStatusCode.NOT_IMPLEMENTED);
+  }
+
+  @Test
+  public void failureIsCached() throws Exception {
+    final FilterOption filterOption = parse("ESAllPrim", "$filter=PropertyInt16 eq @p").getFilterOption();
+    assertNull(ExpressionCompiler.compileFilterIfSupported(filterOption));
+    ODataApplicationException first = null;
+    try {
+      ExpressionCompiler.compileFilter(filterOption);
+      fail("Expected failure for a parameter alias");
+    } catch (final ODataApplicationException e) {
+      first = e;
+    }
+    try {
+      ExpressionCompiler.compileFilter(filterOption);
+      fail("Expected failure for a parameter alias");
+    } catch (final ODataApplicationException e) {
+      assertSame(first, e);
+    }
+  }
+
+  @Test
+  public void wrongTypes() throws Exception {
+    expectStatus("ESAllPrim", "PropertyDouble mod 5 eq 0", HttpStatusCode.BAD_REQUEST);
+    expectStatus("ESAllPrim", "PropertySingle mod PropertyInt16 gt 1", HttpStatusCode.BAD_REQUEST);
+  }
+
+  @Test
+  public void orderBy() throws Exception {
+    List<Entity> entities = orderBy("ESTwoKeyNav", "PropertyInt16 desc,PropertyString");
+    for (int i = 1; i < entities.size(); i++) {
+      final short previous = (Short) entities.get(i - 1).getProperty("PropertyInt16").getValue();
+      final short current = (Short) entities.get(i).getProperty("PropertyInt16").getValue();
+      assertTrue(previous >= current);
+      if (previous == current) {
+        assertTrue(((String) entities.get(i - 1).getProperty("PropertyString").getValue())
+            .compareTo((String) entities.get(i).getProperty("PropertyString").getValue()) <= 0);
+      }
+    }
+
+    entities = orderBy("ESAllPrim", "PropertyDouble");
+    assertEquals(-1.79E19, entities.get(0).getProperty("PropertyDouble").getValue());
+
+    entities = orderBy("ESAllPrim", "PropertyString desc");
+    assertEquals("Second Resource - negative values", entities.get(0).getProperty("PropertyString").getValue());
+
+    final UriInfo uriInfo = parse("ESAllPrim", "$orderby=PropertyInt16");
+    List<Entity> sorted = new ArrayList<Entity>(read("ESAllPrim"));
+    Collections.sort(sorted, ExpressionCompiler.compileOrderBy(uriInfo.getOrderByOption()));
+    List<Entity> sortedWithKeys = new ArrayList<Entity>(read("ESAllPrim"));
+    ExpressionCompiler.compileOrderBy(uriInfo.getOrderByOption()).sort(sortedWithKeys);
+    assertEquals(sorted, sortedWithKeys);
+  }
+
+  @Test
+  public void sortWithLimit() throws Exception {
+    final CompiledOrderBy orderBy =
+        ExpressionCompiler.compileOrderBy(parse("ESTwoKeyNav", "$orderby=PropertyComp/PropertyInt16 desc")
+            .getOrderByOption());
+    List<Entity> sorted = new ArrayList<Entity>(read("ESTwoKeyNav"));
+    orderBy.sort(sorted);
+    for (int limit = 0; limit <= sorted.size() + 1; limit++) {
+      List<Entity> entities = new ArrayList<Entity>(read("ESTwoKeyNav"));
+      orderBy.sort(entities, limit);
+      assertEquals(sorted.size(), entities.size());
+      assertEquals(sorted.subList(0, Math.min(limit, sorted.size())),
+          entities.subList(0, Math.min(limit, sorted.size())));
+      assertTrue(entities.containsAll(sorted));
+    }
+  }
+
+  @Test
+  public void sortWithLimitKeepsAllEntities() throws Exception {
+    final CompiledOrderBy orderBy =
+        ExpressionCompiler.compileOrderBy(parse("ESAllPrim", "$orderby=PropertyDouble desc").getOrderByOption());
+    List<Entity> entities = new ArrayList<Entity>();
+    for (int i = 0; i < 25; i++) {
+      entities.addAll(read("ESAllPrim"));
+    }
+    Collections.shuffle(entities, new Random(42));
+    List<Entity> sorted = new ArrayList<Entity>(entities);
+    orderBy.sort(sorted);
+    for (final int limit : new int[] { 1, 7, 50, entities.size() - 1 }) {
+      List<Entity> selected = new ArrayList<Entity>(entities);
+      orderBy.sort(selected, limit);
+      assertEquals(sorted.subList(0, limit), selected.subList(0, limit));
+      assertEquals(count(entities), count(selected));
+    }
+  }
+
+  @Test
+  public void parallelSort() throws Exception {
+    List<Entity> entities = new ArrayList<Entity>();
+    while (entities.size() < CompiledOrderBy.PARALLEL_SORT_THRESHOLD) {
+      entities.addAll(read("ESAllPrim"));
+    }
+    final CompiledOrderBy orderBy =
+        ExpressionCompiler.compileOrderBy(parse("ESAllPrim", "$orderby=PropertyDouble").getOrderByOption());
+    List<Entity> expected = new ArrayList<Entity>(entities);
+    Collections.sort(expected, orderBy);
+    orderBy.sort(entities);
+    assertEquals(expected, entities);
+    Collections.shuffle(entities);
+    orderBy.sort(entities, 100);
+    assertEquals(-1.79E19, entities.get(0).getProperty("PropertyDouble").getValue());
+  }
+
+  @Test
+  public void cached() throws Exception {
+    final UriInfo uriInfo = parse("ESAllPrim", "$filter=PropertyInt16 gt 0&$orderby=PropertyInt16");
+    assertSame(ExpressionCompiler.compileFilter(uriInfo.getFilterOption()),
+        ExpressionCompiler.compileFilter(uriInfo.getFilterOption()));
+    assertSame(ExpressionCompiler.compileOrderBy(uriInfo.getOrderByOption()),
+        ExpressionCompiler.compileOrderBy(uriInfo.getOrderByOption()));
+  }
+
+  private void assertSameAsVisitor(final String entitySet, final String filter) throws Exception {
+    final UriInfo uriInfo = parse(entitySet, "$filter=" + filter);
+    List<Entity> expected = new ArrayList<Entity>();
+    for (final Entity entity : read(entitySet)) {
+      final TypedOperand result = uriInfo.getFilterOption().getExpression()
+          .accept(new ExpressionVisitorImpl(entity, uriInfo, edm)).asTypedOperand();
+      if (Boolean.TRUE.equals(result.getValue())) {
+        expected.add(entity);
+      }
+    }
+    assertEquals(filter, expected, filter(entitySet, filter));
+  }
+
+  private List<Entity> filter(final String entitySet, final String filter) throws Exception {
+    final Predicate<Entity> predicate =
+        ExpressionCompiler.compileFilter(parse(entitySet, "$filter=" + filter).getFilterOption());
+    List<Entity> entities = new ArrayList<Entity>(read(entitySet));
+    for (Iterator<Entity> iterator = entities.iterator(); iterator.hasNext();) {
+      if (!predicate.test(iterator.next())) {
+        iterator.remove();
+      }
+    }
+    return entities;
+  }
+
+  private Map<Entity, Integer> count(final List<Entity> entities) {
+    Map<Entity, Integer> counts = new IdentityHashMap<Entity, Integer>();
+    for (final Entity entity : entities) {
+      counts.put(entity, counts.containsKey(entity) ? counts.get(entity) + 1 : 1);
+    }
+    return counts;
+  }
+
+  private List<Entity> orderBy(final String entitySet, final String orderBy) throws Exception {
+    List<Entity> entities = new ArrayList<Entity>(read(entitySet));
+    ExpressionCompiler.compileOrderBy(parse(entitySet, "$orderby=" + orderBy).getOrderByOption()).sort(entities);
+    return entities;
+  }
+
+  private void expectStatus(final String entitySet, final String filter, final HttpStatusCode status)
+      throws Exception {
+    try {
+      ExpressionCompiler.compileFilter(parse(entitySet, "$filter=" + filter).getFilterOption());
+      fail("Expected status " + status + " for " + filter);
+    } catch (final ODataApplicationException e) {
+      assertEquals(filter, status.getStatusCode(), e.getStatusCode());
+    }
+  }
+
+  private UriInfo parse(final String entitySet, final String query) throws Exception {
+    return new Parser(edm, odata).parseUri(entitySet, query, null, "http://localhost/odata/");
+  }
+
+  private List<Entity> read(final String entitySet) throws Exception {
+    return dataProvider.readAll(edm.getEntityContainer().getEntitySet(entitySet)).getEntities();
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.ComplexValue;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.uri.queryoption.SearchOption;
+import org.apache.olingo.server.core.uri.parser.search.SearchParser;
+import org.apache.olingo.server.tecsvc.data.DataProvider;
+import org.apache.olingo.server.tecsvc.processor.queryoptions.options.SearchHandler;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+
+public class SearchIndexTest {
+  private static final OData odata = OData.newInstance();
+  private static final Edm edm = odata.createServiceMetadata(
+      new EdmTechProvider(), Collections.<EdmxReference> emptyList()).getEdm();
+
+  @Test
+  public void sameResultsAsFullScan() throws Exception {
+    final DataProvider dataProvider = new DataProvider(odata, edm);
+    for (final String entitySetName : Arrays.asList("ESAllPrim", "ESTwoPrim", "ESCompAllPrim", "ESAllKey")) {
+      final EdmEntitySet edmEntitySet = edm.getEntityContainer().getEntitySet(entitySetName);
+      final SearchIndex searchIndex = dataProvider.getSearchIndex(edmEntitySet);
+      for (final String search : Arrays.asList("32", "Second", "Second OR positive", "\"Number:\" AND NOT \"106\"",
+          "e", "NOT xyz", "\"2012-12-03\"", "Prim AND (String OR 127)", "\"Test String\"")) {
+        final SearchOption searchOption = new SearchParser().parse(search);
+        EntityCollection expected = copy(dataProvider.readAll(edmEntitySet));
+        SearchHandler.applySearchSystemQueryOption(searchOption, expected);
+        EntityCollection actual = copy(dataProvider.readAll(edmEntitySet));
+        SearchHandler.applySearchSystemQueryOption(searchOption, actual, searchIndex);
+        assertEquals(entitySetName + " " + search, expected.getEntities(), actual.getEntities());
+      }
+    }
+  }
+
+  @Test
+  public void search() throws Exception {
+    final Entity first = createEntity("First entity", "alpha", "beta");
+    final Entity second = createEntity("Second entity", "beta", "gamma");
+    final Entity third = createEntity("Third", "delta");
+    SearchIndex searchIndex = new SearchIndex();
+    searchIndex.addAll(Arrays.asList(first, second, third));
+    assertEquals(3, searchIndex.size());
+
+    assertEquals(Arrays.asList(first, second), search(searchIndex, "entity"));
+    assertEquals(Arrays.asList(first, second), search(searchIndex, "beta"));
+    assertEquals(Arrays.asList(second), search(searchIndex, "beta AND NOT alpha"));
+    assertEquals(Arrays.asList(first, third), search(searchIndex, "alpha OR delta"));
+    assertEquals(Arrays.asList(third), search(searchIndex, "NOT entity"));
+    assertEquals(Arrays.asList(second), search(searchIndex, "\"d ent\""));
+    assertEquals(Arrays.asList(first, second, third), search(searchIndex, "t"));
+    assertEquals(Arrays.asList(first), search(searchIndex, "ph"));
+    // A term must be contained in a single value.
+    assertEquals(Collections.<Entity> emptyList(), search(searchIndex, "\"alphabeta\""));
+    assertEquals(Collections.<Entity> emptyList(), search(searchIndex, "epsilon"));
+  }
+
+  @Test
+  public void incrementalUpdates() throws Exception {
+    final Entity first = createEntity("First", "alpha");
+    final Entity second = createEntity("Second", "beta");
+    SearchIndex searchIndex = new SearchIndex();
+    searchIndex.add(first);
+    searchIndex.add(second);
+    assertEquals(Arrays.asList(first), search(searchIndex, "alpha"));
+
+    first.getProperty("Name").setValue(ValueType.PRIMITIVE, "Changed");
+    first.getProperty("Tags").setValue(ValueType.COLLECTION_PRIMITIVE, Arrays.asList("omega"));
+    first.getProperty("Main").asComplex().getValue().get(0).setValue(ValueType.PRIMITIVE, "omega");
+    second.getProperty("Main").asComplex().getValue().get(0).setValue(ValueType.PRIMITIVE, "alpha");
+    searchIndex.update(first);
+    searchIndex.update(second);
+    assertEquals(Arrays.asList(second), search(searchIndex, "alpha"));
+    assertEquals(Arrays.asList(first), search(searchIndex, "Changed"));
+    assertEquals(Collections.<Entity> emptyList(), search(searchIndex, "First"));
+
+    assertTrue(searchIndex.remove(second));
+    assertFalse(searchIndex.remove(second));
+    assertFalse(searchIndex.contains(second));
+    assertEquals(Collections.<Entity> emptyList(), search(searchIndex, "alpha"));
+    assertEquals(Arrays.asList(first), search(searchIndex, "NOT alpha"));
+
+    final Entity third = createEntity("Third", "alpha");
+    searchIndex.add(third);
+    assertEquals(2, searchIndex.size());
+    assertEquals(Arrays.asList(third), search(searchIndex, "alpha"));
+
+    searchIndex.clear();
+    assertEquals(0, searchIndex.size());
+    assertEquals(Collections.<Entity> emptyList(), search(searchIndex, "Third"));
+  }
+
+  @Test
+  public void filterEntitiesNotInIndex() throws Exception {
+    final Entity indexed = createEntity("Indexed", "alpha");
+    final Entity other = createEntity("Other", "alpha");
+    final Entity nonMatching = createEntity("Other", "beta");
+    SearchIndex searchIndex = new SearchIndex();
+    searchIndex.add(indexed);
+    List<Entity> entities = new ArrayList<Entity>(Arrays.asList(nonMatching, other, indexed));
+    searchIndex.filter(new SearchParser().parse("alpha").getSearchExpression(), entities);
+    assertEquals(Arrays.asList(other, indexed), entities);
+  }
+
+  @Test
+  public void dataProviderKeepsIndexUpToDate() throws Exception {
+    final DataProvider dataProvider = new DataProvider(odata, edm);
+    final EdmEntitySet edmEntitySet = edm.getEntityContainer().getEntitySet("ESAllPrim");
+    final SearchIndex searchIndex = dataProvider.getSearchIndex(edmEntitySet);
+    final int size = searchIndex.size();
+
+    final Entity entity = dataProvider.create(edmEntitySet);
+    assertEquals(size + 1, searchIndex.size());
+    Entity changed = new Entity();
+    changed.addProperty(new Property(null, "PropertyString", ValueType.PRIMITIVE, "Searched value"));
+    dataProvider.update("http://localhost/odata/", edmEntitySet, entity, changed, true, false);
+    assertEquals(Arrays.asList(entity), search(searchIndex, "\"Searched value\""));
+
+    dataProvider.delete(edmEntitySet, entity);
+    assertEquals(size, searchIndex.size());
+    assertEquals(Collections.<Entity> emptyList(), search(searchIndex, "\"Searched value\""));
+  }
+
+  private static List<Entity> search(final SearchIndex searchIndex, final String search) throws Exception {
+    List<Entity> result = new ArrayList<Entity>(searchIndex.search(new SearchParser().parse(search)
+        .getSearchExpression()));
+    Collections.sort(result, new Comparator<Entity>() {
+      @Override
+      public int compare(final Entity entity1, final Entity entity2) {
+        return Integer.compare((Integer) entity1.getProperty("Id").getValue(),
+            (Integer) entity2.getProperty("Id").getValue());
+      }
+    });
+    return result;
+  }
+
+  private static int nextId;
+
+  private static Entity createEntity(final String name, final String... tags) {
+    ComplexValue complexValue = new ComplexValue();
+    complexValue.getValue().add(new Property(null, "Inner", ValueType.PRIMITIVE, tags[0]));
+    return new Entity()
+        .addProperty(new Property(null, "Id", ValueType.PRIMITIVE, nextId++))
+        .addProperty(new Property(null, "Name", ValueType.PRIMITIVE, name))
+        .addProperty(new Property(null, "Tags", ValueType.COLLECTION_PRIMITIVE, Arrays.asList(tags)))
+        .addProperty(new Property(null, "Main", ValueType.COMPLEX, complexValue))
+        .addProperty(new Property(null, "Empty", ValueType.PRIMITIVE, null));
+  }
+
+  private static EntityCollection copy(final EntityCollection entityCollection) {
+    EntityCollection copy = new EntityCollection();
+    copy.getEntities().addAll(entityCollection.getEntities());
+    return copy;
+  }
+}
@@ -22,14 +22,13 @@ import java.io.IOException;
 import java.util.ArrayList;
 
 import javax.servlet.ServletException;
-import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 
 import org.apache.olingo.commons.api.edmx.EdmxReference;
 import org.apache.olingo.server.api.OData;
 import org.apache.olingo.server.api.ODataHttpHandler;
+import org.apache.olingo.server.api.ODataServlet;
 import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.sample.data.DataProvider;
 import org.apache.olingo.server.sample.edmprovider.CarsEdmProvider;
@@ -37,31 +36,31 @@ import org.apache.olingo.server.sample.processor.CarsProcessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class CarsServlet extends HttpServlet {
+public class CarsServlet extends ODataServlet {
 
   private static final long serialVersionUID = 1L;
   private static final Logger LOG = LoggerFactory.getLogger(CarsServlet.class);
 
+  @Override
+  protected ServiceMetadata createServiceMetadata(final OData odata) {
+    return odata.createServiceMetadata(new CarsEdmProvider(), new ArrayList<EdmxReference>());
+  }
+
+  @Override
+  protected void register(final ODataHttpHandler handler) {
+    // The data are only read, so one data provider serves all requests.
+    handler.register(new CarsProcessor(new DataProvider()));
+    LOG.info("Created new data provider.");
+  }
+
   @Override
   protected void service(final HttpServletRequest req, final HttpServletResponse resp)
       throws ServletException, IOException {
     try {
-      HttpSession session = req.getSession(true);
-      DataProvider dataProvider = (DataProvider) session.getAttribute(DataProvider.class.getName());
-      if (dataProvider == null) {
-        dataProvider = new DataProvider();
-        session.setAttribute(DataProvider.class.getName(), dataProvider);
-        LOG.info("Created new data provider.");
-      }
-
-      OData odata = OData.newInstance();
-      ServiceMetadata edm = odata.createServiceMetadata(new CarsEdmProvider(), new ArrayList<EdmxReference>());
-      ODataHttpHandler handler = odata.createHandler(edm);
-      handler.register(new CarsProcessor(dataProvider));
-      handler.process(req, resp);
-    } catch (RuntimeException e) {
-      LOG.error("Server Error", e);
-      throw new ServletException(e);
+      super.service(req, resp);
+    } catch (ServletException e) {
+      LOG.error("Server Error", e.getCause());
+      throw e;
     }
   }
 }
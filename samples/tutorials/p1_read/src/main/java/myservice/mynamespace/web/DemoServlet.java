@@ -18,50 +18,34 @@
  */
 package myservice.mynamespace.web;
 
-import java.io.IOException;
 import java.util.ArrayList;
 
-import javax.servlet.ServletException;
-import javax.servlet.http.HttpServlet;
-import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpServletResponse;
-
 import myservice.mynamespace.service.DemoEdmProvider;
 import myservice.mynamespace.service.DemoEntityCollectionProcessor;
 
 import org.apache.olingo.server.api.OData;
 import org.apache.olingo.server.api.ODataHttpHandler;
+import org.apache.olingo.server.api.ODataServlet;
 import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.commons.api.edmx.EdmxReference;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 /**
- * This class represents a standard HttpServlet implementation.
- * It is used as main entry point for the web application that carries the OData service.
- * The implementation of this HttpServlet simply delegates the user requests to the ODataHttpHandler
+ * This class represents the main entry point for the web application that carries the OData service.
+ * The base class ODataServlet creates the ServiceMetadata and the ODataHttpHandler once, when the servlet
+ * is initialized, and simply delegates the user requests to that handler.
  */
-public class DemoServlet extends HttpServlet {
+public class DemoServlet extends ODataServlet {
 
   private static final long serialVersionUID = 1L;
-  private static final Logger LOG = LoggerFactory.getLogger(DemoServlet.class);
 
   @Override
-  protected void service(final HttpServletRequest req, final HttpServletResponse resp) throws ServletException, IOException {
-
-    try {
-      // create odata handler and configure it with EdmProvider and Processor
-      OData odata = OData.newInstance();
-      ServiceMetadata edm = odata.createServiceMetadata(new DemoEdmProvider(), new ArrayList<EdmxReference>());
-      ODataHttpHandler handler = odata.createHandler(edm);
-      handler.register(new DemoEntityCollectionProcessor());
-
-      // let the handler do the work
-      handler.process(req, resp);
+  protected ServiceMetadata createServiceMetadata(final OData odata) {
+    return odata.createServiceMetadata(new DemoEdmProvider(), new ArrayList<EdmxReference>());
+  }
 
-    } catch (RuntimeException e) {
-      LOG.error("Server Error occurred in ExampleServlet", e);
-      throw new ServletException(e);
-    }
+  @Override
+  protected void register(final ODataHttpHandler handler) {
+    // the processor is stateless and can therefore serve all requests
+    handler.register(new DemoEntityCollectionProcessor());
   }
 }